@@ -1,6 +1,8 @@
 package net.dzikoysk.funnyguilds.nms.api.packet;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -26,7 +28,15 @@ public class PacketSuppliersRegistry implements PacketSuppliers {
     }
 
     @Override
-    public Set<FakeEntity> supplyFakeEntities(World world, int chunkX, int chunkZ) {
+    public Collection<FakeEntity> supplyFakeEntities(World world, int chunkX, int chunkZ) {
+        if (this.packetSuppliers.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        if (this.packetSuppliers.size() == 1) {
+            return this.packetSuppliers.get(0).supplyFakeEntities(world, chunkX, chunkZ);
+        }
+
         Set<FakeEntity> suppliedEntities = new HashSet<>();
         for (PacketSuppliers packetSupplier : this.packetSuppliers) {
             suppliedEntities.addAll(packetSupplier.supplyFakeEntities(world, chunkX, chunkZ));
@@ -34,7 +44,7 @@ public class PacketSuppliersRegistry implements PacketSuppliers {
         return suppliedEntities;
     }
 
-    public Set<FakeEntity> supplyFakeEntities(int chunkX, int chunkZ) {
+    public Collection<FakeEntity> supplyFakeEntities(int chunkX, int chunkZ) {
         return this.supplyFakeEntities(this.owner.getWorld(), chunkX, chunkZ);
     }
 
@@ -73,6 +73,9 @@ dependencies {
     /* tests */
     testImplementation("org.spigotmc:spigot-api:1.16.5-R0.1-SNAPSHOT")
     testImplementation("com.mojang:authlib:3.2.38")
+    testImplementation("org.xerial:sqlite-jdbc:3.34.0") {
+        because("SQLite driver is provided by the server at runtime, tests use it as the embedded database")
+    }
 }
 
 tasks.processResources {
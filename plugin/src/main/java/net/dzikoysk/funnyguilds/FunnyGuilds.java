@@ -12,9 +12,12 @@ import net.dzikoysk.funnyguilds.config.sections.ScoreboardConfiguration;
 import net.dzikoysk.funnyguilds.config.tablist.TablistConfiguration;
 import net.dzikoysk.funnyguilds.damage.DamageManager;
 import net.dzikoysk.funnyguilds.data.DataModel;
+import net.dzikoysk.funnyguilds.data.ChangeJournal;
+import net.dzikoysk.funnyguilds.data.DataLoader;
 import net.dzikoysk.funnyguilds.data.DataPersistenceHandler;
 import net.dzikoysk.funnyguilds.data.InvitationPersistenceHandler;
 import net.dzikoysk.funnyguilds.data.database.Database;
+import net.dzikoysk.funnyguilds.data.database.PointsUpdateBuffer;
 import net.dzikoysk.funnyguilds.feature.command.FunnyCommandsConfiguration;
 import net.dzikoysk.funnyguilds.feature.gui.GuiActionHandler;
 import net.dzikoysk.funnyguilds.feature.hooks.HookManager;
@@ -22,6 +25,8 @@ import net.dzikoysk.funnyguilds.feature.invitation.ally.AllyInvitationList;
 import net.dzikoysk.funnyguilds.feature.invitation.guild.GuildInvitationList;
 import net.dzikoysk.funnyguilds.feature.placeholders.BasicPlaceholdersService;
 import net.dzikoysk.funnyguilds.feature.placeholders.TimePlaceholdersService;
+import net.dzikoysk.funnyguilds.feature.protection.ExplosionEvaluator;
+import net.dzikoysk.funnyguilds.feature.protection.ProtectionDecisionCache;
 import net.dzikoysk.funnyguilds.feature.scoreboard.ScoreboardGlobalUpdateSyncTask;
 import net.dzikoysk.funnyguilds.feature.scoreboard.ScoreboardService;
 import net.dzikoysk.funnyguilds.feature.scoreboard.dummy.DummyManager;
@@ -127,6 +132,8 @@ public class FunnyGuilds extends JavaPlugin {
     private GuildRankManager guildRankManager;
     private DamageManager damageManager;
     private RegionManager regionManager;
+    private ExplosionEvaluator explosionEvaluator;
+    private ProtectionDecisionCache protectionDecisionCache;
     private FunnyServer funnyServer;
 
     private Option<IndividualNameTagManager> individualNameTagManager = Option.none();
@@ -147,7 +154,10 @@ public class FunnyGuilds extends JavaPlugin {
 
     private Database database;
     private DataModel dataModel;
+    private ChangeJournal changeJournal;
+    private DataLoader dataLoader;
     private DataPersistenceHandler dataPersistenceHandler;
+    private PointsUpdateBuffer pointsUpdateBuffer;
     private InvitationPersistenceHandler invitationPersistenceHandler;
 
     private Injector injector;
@@ -249,6 +259,8 @@ public class FunnyGuilds extends JavaPlugin {
         this.guildRankManager.register(DefaultTops.defaultGuildTops(this.guildManager));
         this.damageManager = new DamageManager();
         this.regionManager = new RegionManager(this.pluginConfiguration);
+        this.explosionEvaluator = new ExplosionEvaluator(this.regionManager);
+        this.protectionDecisionCache = new ProtectionDecisionCache();
 
         this.prepareScoreboardServices();
 
@@ -283,11 +295,12 @@ public class FunnyGuilds extends JavaPlugin {
                 this.guildPlaceholdersService
         );
 
-        this.database = new Database();
+        this.database = this.pluginConfiguration.dataModel == PluginConfiguration.DataModel.SQLITE
+                ? Database.sqlite(new File(this.getPluginDataFolder(), "funnyguilds.db"), this.pluginConfiguration.mysql.connectionTimeout)
+                : Database.mysql(this.pluginConfiguration.mysql);
 
         try {
             this.dataModel = DataModel.create(this, this.pluginConfiguration.dataModel);
-            this.dataModel.load();
         }
         catch (Exception ex) {
             logger.error("Could not load data from database", ex);
@@ -296,11 +309,21 @@ public class FunnyGuilds extends JavaPlugin {
         }
 
         this.dataPersistenceHandler = new DataPersistenceHandler(this);
-        this.dataPersistenceHandler.startHandler();
-
+        this.pointsUpdateBuffer = new PointsUpdateBuffer(this);
         this.invitationPersistenceHandler = new InvitationPersistenceHandler(this);
-        this.invitationPersistenceHandler.loadInvitations();
-        this.invitationPersistenceHandler.startHandler();
+
+        // Data is loaded in the background while the rest of the plugin and the server start, players can't join until it's done
+        this.dataLoader = new DataLoader(this)
+                .phase("data model", this.dataModel::load)
+                .phase("change journal", () -> {
+                    if (this.pluginConfiguration.dataJournal) {
+                        this.changeJournal = new ChangeJournal(this);
+                        this.changeJournal.replay(this.dataModel);
+                        this.changeJournal.startHandler();
+                    }
+                })
+                .phase("invitations", this.invitationPersistenceHandler::loadInvitations);
+        this.dataLoader.start(this::handleDataLoaded);
 
         this.injector = DependencyInjection.createInjector(resources -> {
             resources.on(Server.class).assignInstance(this.getServer());
@@ -315,6 +338,8 @@ public class FunnyGuilds extends JavaPlugin {
             resources.on(UserRankManager.class).assignInstance(this.userRankManager);
             resources.on(GuildRankManager.class).assignInstance(this.guildRankManager);
             resources.on(RegionManager.class).assignInstance(this.regionManager);
+            resources.on(ExplosionEvaluator.class).assignInstance(this.explosionEvaluator);
+            resources.on(ProtectionDecisionCache.class).assignInstance(this.protectionDecisionCache);
             resources.on(DamageManager.class).assignInstance(this.damageManager);
             resources.on(GuildInvitationList.class).assignInstance(this.guildInvitationList);
             resources.on(AllyInvitationList.class).assignInstance(this.allyInvitationList);
@@ -331,10 +356,6 @@ public class FunnyGuilds extends JavaPlugin {
         MetricsCollector collector = new MetricsCollector(this);
         collector.start();
 
-        this.guildValidationTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, new GuildValidationHandler(this), 100L, 20L);
-        this.tablistBroadcastTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, new TablistBroadcastHandler(this), 20L, this.tablistConfiguration.updateInterval);
-        this.rankRecalculationTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, new RankRecalculationTask(this), 20L, this.pluginConfiguration.rankingUpdateInterval);
-
         try {
             this.funnyCommands = FunnyCommandsConfiguration.createFunnyCommands(this);
         }
@@ -356,57 +377,11 @@ public class FunnyGuilds extends JavaPlugin {
                     .add(PlayerDeath.class)
                     .add(PlayerJoin.class)
                     .add(PlayerLogin.class)
-                    .add(PlayerQuit.class)
-                    .add(GuildHeartProtectionHandler.class)
-                    .add(TntProtection.class);
-
-            if (this.pluginConfiguration.regionsEnabled && this.pluginConfiguration.blockFlow) {
-                setBuilder.add(BlockFlow.class);
-            }
-
-            if (ClassUtils.forName("org.bukkit.event.entity.EntityPlaceEvent").isPresent()) {
-                setBuilder.add(EntityPlace.class);
-            }
-            else {
-                logger.warning("Cannot register EntityPlaceEvent listener on this version of server");
-            }
+                    .add(PlayerQuit.class);
 
             for (Class<? extends Listener> listenerClass : setBuilder.build()) {
                 pluginManager.registerEvents(this.injector.newInstanceWithFields(listenerClass), this);
             }
-
-            this.dynamicListenerManager.registerDynamic(() -> this.pluginConfiguration.regionsEnabled,
-                    this.injector.newInstanceWithFields(BlockBreak.class),
-                    this.injector.newInstanceWithFields(BlockIgnite.class),
-                    this.injector.newInstanceWithFields(BlockPlace.class),
-                    this.injector.newInstanceWithFields(PistonUse.class),
-                    this.injector.newInstanceWithFields(BucketAction.class),
-                    this.injector.newInstanceWithFields(EntityExplode.class),
-                    this.injector.newInstanceWithFields(HangingBreak.class),
-                    this.injector.newInstanceWithFields(HangingPlace.class),
-                    this.injector.newInstanceWithFields(PlayerCommand.class),
-                    this.injector.newInstanceWithFields(PlayerInteract.class),
-                    this.injector.newInstanceWithFields(EntityProtect.class)
-            );
-
-            this.dynamicListenerManager.registerDynamic(
-                    () -> this.pluginConfiguration.regionsEnabled && this.pluginConfiguration.eventMove,
-                    this.injector.newInstanceWithFields(PlayerMove.class)
-            );
-            this.dynamicListenerManager.registerDynamic(
-                    () -> this.pluginConfiguration.regionsEnabled && this.pluginConfiguration.eventPhysics,
-                    this.injector.newInstanceWithFields(BlockPhysics.class)
-            );
-            this.dynamicListenerManager.registerDynamic(
-                    () -> this.pluginConfiguration.regionsEnabled && this.pluginConfiguration.respawnInBase,
-                    this.injector.newInstanceWithFields(PlayerRespawn.class)
-            );
-            this.dynamicListenerManager.registerDynamic(
-                    () -> this.pluginConfiguration.regionsEnabled && this.pluginConfiguration.eventTeleport,
-                    this.injector.newInstanceWithFields(PlayerTeleport.class)
-            );
-
-            this.dynamicListenerManager.reloadAll();
         }
         catch (Throwable throwable) {
             logger.error("Could not register listeners", throwable);
@@ -414,8 +389,6 @@ public class FunnyGuilds extends JavaPlugin {
             return;
         }
 
-        this.handleReload();
-
         this.version.isNewAvailable(this.getServer().getConsoleSender(), true);
         this.hookManager.setupHooks();
         this.hookManager.init();
@@ -438,18 +411,42 @@ public class FunnyGuilds extends JavaPlugin {
 
         this.isDisabling = true;
 
+        // Partially loaded data must not be saved, as it would overwrite the data which was not loaded yet
+        boolean dataLoaded = this.dataLoader.awaitLoading();
+
         this.funnyCommands.dispose();
         this.dynamicListenerManager.unregisterAll();
         this.guildEntityHelper.despawnGuildEntities(this.guildManager);
 
-        this.guildValidationTask.cancel();
-        this.tablistBroadcastTask.cancel();
-        this.rankRecalculationTask.cancel();
+        if (this.guildValidationTask != null) {
+            this.guildValidationTask.cancel();
+            this.tablistBroadcastTask.cancel();
+            this.rankRecalculationTask.cancel();
+        }
+
+        this.pointsUpdateBuffer.stopHandler();
+        this.pointsUpdateBuffer.flush();
+
+        if (!dataLoaded) {
+            logger.warning("Data was not loaded, skipping the save");
+        }
+        else if (this.changeJournal != null) {
+            this.changeJournal.save(this.dataModel, false);
+        }
+        else {
+            this.dataModel.save(false);
+        }
+
+        if (this.changeJournal != null) {
+            this.changeJournal.stopHandler();
+        }
 
-        this.dataModel.save(false);
         this.dataPersistenceHandler.stopHandler();
 
-        this.invitationPersistenceHandler.saveInvitations();
+        if (dataLoaded) {
+            this.invitationPersistenceHandler.saveInvitations();
+        }
+
         this.invitationPersistenceHandler.stopHandler();
 
         this.getServer().getScheduler().cancelTasks(this);
@@ -470,6 +467,95 @@ public class FunnyGuilds extends JavaPlugin {
         this.getServer().getPluginManager().disablePlugin(this);
     }
 
+    private void handleDataLoaded() {
+        // Listeners registered earlier would see partially loaded regions
+        try {
+            this.registerRegionListeners();
+        }
+        catch (Throwable throwable) {
+            logger.error("Could not register listeners", throwable);
+            this.shutdown("Critical error has been encountered!");
+            return;
+        }
+
+        this.dataPersistenceHandler.startHandler();
+
+        if (this.pluginConfiguration.dataModel.isSQL()) {
+            this.pointsUpdateBuffer.startHandler();
+        }
+
+        this.invitationPersistenceHandler.startHandler();
+
+        this.guildValidationTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, new GuildValidationHandler(this), 100L, 20L);
+        this.tablistBroadcastTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, new TablistBroadcastHandler(this), 20L, this.tablistConfiguration.updateInterval);
+        this.rankRecalculationTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, new RankRecalculationTask(this), 20L, this.pluginConfiguration.rankingUpdateInterval);
+
+        if (this.pluginConfiguration.dataModel.isSQL() && this.pluginConfiguration.mysql.loadUsersOnDemand) {
+            // Users are evicted every minute on the main thread, so they can't be changed in the meantime
+            Bukkit.getScheduler().runTaskTimer(this, () -> this.userManager.evictOfflineUsers(this.damageManager.getAttackers()), 1200L, 1200L);
+        }
+
+        this.handleReload();
+    }
+
+    /**
+     * Registers listeners which query regions, once the regions are loaded.
+     */
+    private void registerRegionListeners() {
+        PluginManager pluginManager = Bukkit.getPluginManager();
+        ImmutableSet.Builder<Class<? extends Listener>> setBuilder = ImmutableSet.builder();
+
+        setBuilder
+                .add(GuildHeartProtectionHandler.class)
+                .add(TntProtection.class);
+
+        if (this.pluginConfiguration.regionsEnabled && this.pluginConfiguration.blockFlow) {
+            setBuilder.add(BlockFlow.class);
+        }
+
+        if (ClassUtils.forName("org.bukkit.event.entity.EntityPlaceEvent").isPresent()) {
+            setBuilder.add(EntityPlace.class);
+        }
+        else {
+            logger.warning("Cannot register EntityPlaceEvent listener on this version of server");
+        }
+
+        for (Class<? extends Listener> listenerClass : setBuilder.build()) {
+            pluginManager.registerEvents(this.injector.newInstanceWithFields(listenerClass), this);
+        }
+
+        this.dynamicListenerManager.registerDynamic(() -> this.pluginConfiguration.regionsEnabled,
+                this.injector.newInstanceWithFields(BlockBreak.class),
+                this.injector.newInstanceWithFields(BlockIgnite.class),
+                this.injector.newInstanceWithFields(BlockPlace.class),
+                this.injector.newInstanceWithFields(PistonUse.class),
+                this.injector.newInstanceWithFields(BucketAction.class),
+                this.injector.newInstanceWithFields(EntityExplode.class),
+                this.injector.newInstanceWithFields(HangingBreak.class),
+                this.injector.newInstanceWithFields(HangingPlace.class),
+                this.injector.newInstanceWithFields(PlayerCommand.class),
+                this.injector.newInstanceWithFields(PlayerInteract.class),
+                this.injector.newInstanceWithFields(EntityProtect.class)
+        );
+
+        this.dynamicListenerManager.registerDynamic(
+                () -> this.pluginConfiguration.regionsEnabled,
+                this.injector.newInstanceWithFields(PlayerMove.class)
+        );
+        this.dynamicListenerManager.registerDynamic(
+                () -> this.pluginConfiguration.regionsEnabled && this.pluginConfiguration.eventPhysics,
+                this.injector.newInstanceWithFields(BlockPhysics.class)
+        );
+        this.dynamicListenerManager.registerDynamic(
+                () -> this.pluginConfiguration.regionsEnabled && this.pluginConfiguration.respawnInBase,
+                this.injector.newInstanceWithFields(PlayerRespawn.class)
+        );
+        this.dynamicListenerManager.registerDynamic(
+                () -> this.pluginConfiguration.regionsEnabled && this.pluginConfiguration.eventTeleport,
+                this.injector.newInstanceWithFields(PlayerTeleport.class)
+        );
+    }
+
     private void handleReload() {
         for (Player player : this.getServer().getOnlinePlayers()) {
             Option<User> userOption = this.userManager.findByPlayer(player);
@@ -485,6 +571,10 @@ public class FunnyGuilds extends JavaPlugin {
             outboundChannelHandler.getPacketSuppliersRegistry().setOwner(player);
             outboundChannelHandler.getPacketSuppliersRegistry().registerPacketSupplier(new GuildEntitySupplier(this.guildEntityHelper));
 
+            if (this.pluginConfiguration.regionsEnabled) {
+                this.regionManager.startTracking(user.getCache().getRegionTracker(), player.getLocation());
+            }
+
             if (!this.tablistConfiguration.enabled) {
                 continue;
             }
@@ -543,10 +633,22 @@ public class FunnyGuilds extends JavaPlugin {
         return this.dataModel;
     }
 
+    public Option<ChangeJournal> getChangeJournal() {
+        return Option.of(this.changeJournal);
+    }
+
+    public DataLoader getDataLoader() {
+        return this.dataLoader;
+    }
+
     public DataPersistenceHandler getDataPersistenceHandler() {
         return this.dataPersistenceHandler;
     }
 
+    public PointsUpdateBuffer getPointsUpdateBuffer() {
+        return this.pointsUpdateBuffer;
+    }
+
     public InvitationPersistenceHandler getInvitationPersistenceHandler() {
         return this.invitationPersistenceHandler;
     }
@@ -603,6 +705,14 @@ public class FunnyGuilds extends JavaPlugin {
         return this.regionManager;
     }
 
+    public ExplosionEvaluator getExplosionEvaluator() {
+        return this.explosionEvaluator;
+    }
+
+    public ProtectionDecisionCache getProtectionDecisionCache() {
+        return this.protectionDecisionCache;
+    }
+
     public FunnyServer getFunnyServer() {
         return this.funnyServer;
     }
@@ -665,6 +775,7 @@ public class FunnyGuilds extends JavaPlugin {
         this.messageService.reload();
         this.hookManager.callConfigUpdated();
         this.prepareScoreboardServices();
+        this.protectionDecisionCache.invalidateAll();
     }
 
     private void prepareScoreboardServices() {
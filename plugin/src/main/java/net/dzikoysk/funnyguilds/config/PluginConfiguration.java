@@ -43,6 +43,7 @@ import net.dzikoysk.funnyguilds.config.sections.SecuritySystemConfiguration;
 import net.dzikoysk.funnyguilds.config.sections.TntProtectionConfiguration;
 import net.dzikoysk.funnyguilds.config.sections.TopConfiguration;
 import net.dzikoysk.funnyguilds.guild.Guild;
+import net.dzikoysk.funnyguilds.guild.RegionIndex;
 import net.dzikoysk.funnyguilds.rank.RankSystem;
 import net.dzikoysk.funnyguilds.shared.Cooldown;
 import net.dzikoysk.funnyguilds.shared.FunnyFormatter;
@@ -437,6 +438,12 @@ public class PluginConfiguration extends OkaeriConfig {
     @Comment("Wielkość regionu gildii")
     public int regionSize = 50;
 
+    @Comment("")
+    @Comment("Sposób indeksowania regionów (zmiana wymaga restartu serwera):")
+    @Comment(" CHUNK - region zapisywany jest w każdym chunku, który obejmuje - najszybsze wyszukiwanie, zużycie pamięci rośnie z powierzchnią regionów")
+    @Comment(" HIERARCHICAL - region zapisywany jest raz, w siatce dopasowanej do jego wielkości - zużycie pamięci rośnie z liczbą regionów, zalecane dla bardzo dużych regionów")
+    public RegionIndex.Type regionIndex = RegionIndex.Type.CHUNK;
+
     @Min(0)
     @Comment("")
     @Comment("Minimalna odległość między terenami gildii")
@@ -1114,6 +1121,16 @@ public class PluginConfiguration extends OkaeriConfig {
     @Comment("Co ile minut dane są automatycznie zapisywane")
     public int dataInterval = 1;
 
+    @Comment("")
+    @Comment("Czy zmiany mają być na bieżąco zapisywane do dziennika zmian (folder journal)")
+    @Comment("Zmiany z dziennika są przywracane przy starcie serwera, dzięki czemu po awarii serwera nie zostaną utracone zmiany od ostatniego zapisu danych")
+    public boolean dataJournal = true;
+
+    @Min(1)
+    @Comment("")
+    @Comment("Co ile ticków zmiany są zapisywane do dziennika zmian (20 ticków = 1 sekunda)")
+    public int dataJournalInterval = 20;
+
     @Comment("")
     @Comment("Jaki argument powinien zostać podany przez gracza, gdy chce zaprosić wszystkich graczy w danym promieniu")
     public String inviteCommandAllArgument = "*";
@@ -1140,6 +1157,8 @@ public class PluginConfiguration extends OkaeriConfig {
     @Comment("Typ zapisu danych:")
     @Comment(" FLAT - lokalne pliki")
     @Comment(" MYSQL - baza danych, kompatybilna z MySQL")
+    @Comment(" BINARY - lokalne pliki binarne w folderze storage, przy pierwszym uruchomieniu dane z FLAT zostana przeniesione automatycznie")
+    @Comment(" SQLITE - lokalna baza danych w pliku funnyguilds.db, nie wymaga serwera bazy danych (uzywa nazw tabel z sekcji mysql)")
     public DataModel dataModel = DataModel.FLAT;
 
     @Comment("")
@@ -1149,12 +1168,19 @@ public class PluginConfiguration extends OkaeriConfig {
     @Comment("Sekcja poolSize odpowiada za liczbę zarezerwowanych połączeń, domyślna wartość 5 powinna wystarczyć")
     @Comment("Aby umożliwić FG automatyczne zarządzanie liczbą połączeń - ustaw poolSize na -1")
     @Comment(" ")
+    @Comment("Sekcja loadUsersOnDemand odpowiada za wczytywanie graczy dopiero wtedy, gdy są potrzebni")
+    @Comment("Przy starcie wczytywani są tylko członkowie gildii i gracze online, rankingi nadal obejmują wszystkich graczy")
+    @Comment("Sekcja offlineUsersCacheSize to liczba graczy offline bez gildii, którzy pozostają wczytani po ostatnim użyciu")
+    @Comment(" ")
     @Comment("Sekcje usersTableName, guildsTableName i regionsTableName to nazwy tabel z danymi FG w bazie danych")
     @Comment("Najlepiej zmieniać te nazwy tylko wtedy, gdy np. występuje konflikt z innym pluginem")
     @Comment("Aby zmienić nazwy tabel, gdy masz juz w bazie jakieś dane z FG:")
     @Comment("1. Wyłącz serwer")
     @Comment("2. Zmień dane w configu FG")
     @Comment("3. Zmień nazwy tabel w bazie używając np. phpMyAdmin")
+    @Comment(" ")
+    @Comment("Sekcja schemaTableName to nazwa tabeli z wersją schematu bazy danych, na jej podstawie FG aktualizuje tabele tylko raz")
+    @Comment("Jeśli kilka serwerów z różnymi nazwami tabel korzysta z tej samej bazy danych, każdy z nich musi mieć inną nazwę tej tabeli")
     public MysqlConfiguration mysql = new MysqlConfiguration();
 
     private List<ItemStack> loadGUI(List<String> contents) {
@@ -1296,7 +1322,13 @@ public class PluginConfiguration extends OkaeriConfig {
     public enum DataModel {
 
         FLAT,
-        MYSQL
+        MYSQL,
+        BINARY,
+        SQLITE;
+
+        public boolean isSQL() {
+            return this == MYSQL || this == SQLITE;
+        }
 
     }
 
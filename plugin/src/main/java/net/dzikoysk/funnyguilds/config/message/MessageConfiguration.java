@@ -1150,6 +1150,7 @@ public class MessageConfiguration extends OkaeriConfig implements MessageReposit
         public String loginNickTooShort = "&cNick jest za krotki!";
         public String loginNickTooLong = "&cNick jest za długi!";
         public String loginNickInvalid = "&cNick zawiera niedozwolone znaki!";
+        public String loginDataLoading = "&cDane serwera są jeszcze wczytywane, spróbuj ponownie za chwilę!";
 
         @Comment("")
         public SendableMessage commandHelp = ChatHolder.message(
@@ -1164,6 +1165,7 @@ public class MessageConfiguration extends OkaeriConfig implements MessageReposit
         public SendableMessage reloadReloading = ChatHolder.message("&7Przeładowywanie...");
         public SendableMessage saveAllSaving = ChatHolder.message("&7Zapisywanie...");
         public SendableMessage saveAllSaved = ChatHolder.message("&7Zapisano (&b{TIME}s&7)!");
+        public SendableMessage dataLoading = ChatHolder.message("&cDane są jeszcze wczytywane, spróbuj ponownie za chwilę!");
         public SendableMessage pluginVersion = ChatHolder.message("&7FunnyGuilds &b{VERSION} &7by &bFunnyGuilds Team");
         public SendableMessage newVersionAvailable = ChatHolder.message(
                 "",
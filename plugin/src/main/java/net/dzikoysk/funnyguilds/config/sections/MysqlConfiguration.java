@@ -27,6 +27,16 @@ public class MysqlConfiguration extends OkaeriConfig {
     public boolean useSSL = true;
     @Variable("FG_MYSQL_CHARACTER_ENCODING")
     public String characterEncoding = "";
+    @Variable("FG_MYSQL_BATCH_SIZE")
+    public int batchSize = 500;
+    @Variable("FG_MYSQL_POINTS_FLUSH_INTERVAL")
+    public int pointsFlushInterval = 40;
+    @Variable("FG_MYSQL_POINTS_FLUSH_THRESHOLD")
+    public int pointsFlushThreshold = 200;
+    @Variable("FG_MYSQL_LOAD_USERS_ON_DEMAND")
+    public boolean loadUsersOnDemand = false;
+    @Variable("FG_MYSQL_OFFLINE_USERS_CACHE_SIZE")
+    public int offlineUsersCacheSize = 5000;
 
     @Variable("FG_MYSQL_USERS_TABLE_NAME")
     public String usersTableName = "users";
@@ -34,5 +44,7 @@ public class MysqlConfiguration extends OkaeriConfig {
     public String guildsTableName = "guilds";
     @Variable("FG_MYSQL_REGIONS_TABLE_NAME")
     public String regionsTableName = "regions";
+    @Variable("FG_MYSQL_SCHEMA_TABLE_NAME")
+    public String schemaTableName = "funnyguilds_schema";
 
 }
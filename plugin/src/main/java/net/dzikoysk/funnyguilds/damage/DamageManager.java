@@ -1,8 +1,11 @@
 package net.dzikoysk.funnyguilds.damage;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import net.dzikoysk.funnyguilds.user.UserManager;
 
 public class DamageManager {
 
@@ -12,4 +15,15 @@ public class DamageManager {
         return this.damageHistories.computeIfAbsent(user, uuid -> new DamageState(user));
     }
 
+    /**
+     * Gets identifiers of users kept by damage histories, which can't be unloaded (see {@link UserManager#evictOfflineUsers(Set)}).
+     *
+     * @return identifiers of attackers
+     */
+    public Set<UUID> getAttackers() {
+        Set<UUID> attackers = new HashSet<>();
+        this.damageHistories.values().forEach(state -> attackers.addAll(state.getAttackers()));
+        return attackers;
+    }
+
 }
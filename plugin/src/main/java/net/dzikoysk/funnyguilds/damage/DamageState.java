@@ -4,8 +4,10 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.config.PluginConfiguration.DamageTracking;
@@ -51,6 +53,19 @@ public class DamageState {
         return this.getTotalDamageMap().getOrDefault(user, 0.0);
     }
 
+    /**
+     * @return identifiers of users which damaged the owner of the state and are still tracked
+     */
+    public Set<UUID> getAttackers() {
+        Set<UUID> attackers = new HashSet<>();
+
+        for (Damage damage : this.damageHistory) {
+            attackers.add(damage.getAttacker().getUUID());
+        }
+
+        return attackers;
+    }
+
     public Option<Damage> getLastDamage() {
         if (this.damageHistory.isEmpty()) {
             return Option.none();
@@ -1,22 +1,67 @@
 package net.dzikoysk.funnyguilds.data;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.Nullable;
+
 public abstract class AbstractMutableEntity implements MutableEntity {
 
-    private boolean wasChanged = true;
+    private final AtomicInteger changedFields = new AtomicInteger(ALL_FIELDS);
+
+    private volatile Consumer<MutableEntity> changeListener;
+
+    /**
+     * Sets listener notified about every change of this entity, e.g. to record the change in the journal.
+     * The listener is set by the manager which stores the entity and it's notified right away, if the entity has unsaved changes.
+     *
+     * @param listener the listener or null to remove the current one
+     */
+    public void setChangeListener(@Nullable Consumer<MutableEntity> listener) {
+        this.changeListener = listener;
+
+        if (listener != null && this.wasChanged()) {
+            listener.accept(this);
+        }
+    }
 
     @Override
     public void markChanged() {
-        this.wasChanged = true;
+        this.changedFields.set(ALL_FIELDS);
+        this.notifyChange();
+    }
+
+    @Override
+    public void markChanged(Enum<?> field) {
+        int mask = MutableEntity.mask(field);
+        this.changedFields.accumulateAndGet(mask, (fields, changed) -> fields | changed);
+        this.notifyChange();
+    }
+
+    private void notifyChange() {
+        Consumer<MutableEntity> listener = this.changeListener;
+        if (listener != null) {
+            listener.accept(this);
+        }
     }
 
     @Override
     public void markUnchanged() {
-        this.wasChanged = false;
+        this.changedFields.set(0);
+    }
+
+    @Override
+    public void markUnchanged(int fields) {
+        this.changedFields.accumulateAndGet(fields, (changed, saved) -> changed & ~saved);
     }
 
     @Override
     public boolean wasChanged() {
-        return this.wasChanged;
+        return this.changedFields.get() != 0;
+    }
+
+    @Override
+    public int getChangedFields() {
+        return this.changedFields.get();
     }
 
 }
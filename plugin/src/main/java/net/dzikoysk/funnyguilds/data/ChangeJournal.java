@@ -0,0 +1,395 @@
+package net.dzikoysk.funnyguilds.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import net.dzikoysk.funnyguilds.Entity.EntityType;
+import net.dzikoysk.funnyguilds.FunnyGuilds;
+import net.dzikoysk.funnyguilds.data.binary.BinaryRecord;
+import net.dzikoysk.funnyguilds.data.binary.BinarySegmentStore;
+import net.dzikoysk.funnyguilds.data.binary.serializer.BinaryGuildSerializer;
+import net.dzikoysk.funnyguilds.data.binary.serializer.BinaryRegionSerializer;
+import net.dzikoysk.funnyguilds.data.binary.serializer.BinaryUserSerializer;
+import net.dzikoysk.funnyguilds.guild.Guild;
+import net.dzikoysk.funnyguilds.guild.GuildManager;
+import net.dzikoysk.funnyguilds.guild.Region;
+import net.dzikoysk.funnyguilds.guild.RegionManager;
+import net.dzikoysk.funnyguilds.user.User;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.Nullable;
+import panda.std.Option;
+
+/**
+ * Append-only journal of changes made since the last save of the data model. Changed entities are collected
+ * and their current state is appended to the journal in groups, with a single flush to the disk per group.
+ * <p>
+ * Every save of the data model is a checkpoint - journal starts a new generation before the save
+ * and removes older generations once the save is done. Generations left by a crash are replayed
+ * on top of the loaded data during the startup.
+ */
+public class ChangeJournal {
+
+    private static final long SEGMENT_SIZE = 4L * 1024 * 1024;
+
+    private final FunnyGuilds plugin;
+    private final File directory;
+
+    private final Set<MutableEntity> pendingEntities = ConcurrentHashMap.newKeySet();
+    private final Queue<BinaryRecord> pendingDeletions = new ConcurrentLinkedQueue<>();
+    private final List<BinarySegmentStore> previousGenerations = new ArrayList<>();
+
+    private BinarySegmentStore generation;
+    private int lastGenerationId;
+    private volatile BukkitTask commitTask;
+
+    public ChangeJournal(FunnyGuilds plugin) {
+        this.plugin = plugin;
+        this.directory = new File(plugin.getPluginDataFolder(), "journal");
+    }
+
+    /**
+     * Applies changes left by the previous run on top of the loaded data and saves them in the data model.
+     */
+    public void replay(DataModel dataModel) throws IOException {
+        long start = System.nanoTime();
+        File[] generationDirectories = this.directory.listFiles(directory -> directory.isDirectory() && getGenerationId(directory) >= 0);
+
+        if (generationDirectories == null) {
+            generationDirectories = new File[0];
+        }
+
+        Arrays.sort(generationDirectories, Comparator.comparingInt(ChangeJournal::getGenerationId));
+
+        for (File generationDirectory : generationDirectories) {
+            this.lastGenerationId = Math.max(this.lastGenerationId, getGenerationId(generationDirectory));
+        }
+
+        int replayed = 0;
+
+        for (File generationDirectory : generationDirectories) {
+            BinarySegmentStore store = new BinarySegmentStore(generationDirectory, SEGMENT_SIZE);
+            Collection<BinaryRecord> records = store.load();
+
+            replayed += this.applyDeletions(store.getTombstones());
+            replayed += this.applyRecords(records);
+            this.previousGenerations.add(store);
+        }
+
+        if (replayed == 0) {
+            this.startGeneration();
+            this.removePreviousGenerations();
+            return;
+        }
+
+        FunnyGuilds.getPluginLogger().info("Replayed " + replayed + " changes from the journal in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        this.checkpoint(() -> dataModel.save(true));
+    }
+
+    private int applyDeletions(Collection<BinaryRecord> tombstones) {
+        GuildManager guildManager = this.plugin.getGuildManager();
+        RegionManager regionManager = this.plugin.getRegionManager();
+
+        for (BinaryRecord tombstone : tombstones) {
+            switch (tombstone.getType()) {
+                case GUILD:
+                    guildManager.findByUuid(UUID.fromString(tombstone.getKey())).peek(guild -> guildManager.deleteGuild(this.plugin, guild));
+                    break;
+                case REGION:
+                    regionManager.findByName(tombstone.getKey()).peek(region -> regionManager.deleteRegion(this.plugin.getDataModel(), region));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return tombstones.size();
+    }
+
+    private int applyRecords(Collection<BinaryRecord> records) {
+        GuildManager guildManager = this.plugin.getGuildManager();
+        RegionManager regionManager = this.plugin.getRegionManager();
+        List<BinaryRecord> guildRecords = new ArrayList<>();
+        int applied = 0;
+
+        for (BinaryRecord record : records) {
+            if (record.getType() == EntityType.USER) {
+                applied += BinaryUserSerializer.deserialize(record.getPayload())
+                        .peek(MutableEntity::markChanged)
+                        .isPresent() ? 1 : 0;
+            }
+        }
+
+        for (BinaryRecord record : records) {
+            if (record.getType() != EntityType.REGION || !this.plugin.getPluginConfiguration().regionsEnabled) {
+                continue;
+            }
+
+            boolean known = regionManager.findByName(record.getKey()).isPresent();
+            applied += BinaryRegionSerializer.deserialize(record.getPayload())
+                    .peek(region -> {
+                        if (!known) {
+                            regionManager.addRegion(region);
+                        }
+
+                        region.markChanged();
+                    })
+                    .isPresent() ? 1 : 0;
+        }
+
+        for (BinaryRecord record : records) {
+            if (record.getType() != EntityType.GUILD) {
+                continue;
+            }
+
+            Set<User> previousMembers = new HashSet<>(guildManager.findByUuid(UUID.fromString(record.getKey()))
+                    .map(Guild::getMembers)
+                    .orElseGet(Collections.emptySet()));
+
+            Option<Guild> guildOption = BinaryGuildSerializer.deserialize(record.getPayload());
+            if (guildOption.isEmpty()) {
+                continue;
+            }
+
+            Guild guild = guildOption.get();
+            previousMembers.stream()
+                    .filter(member -> !guild.getMembers().contains(member))
+                    .forEach(User::removeGuild);
+
+            guildRecords.add(record);
+            applied++;
+        }
+
+        // Relations are resolved once all guilds are replayed, as they may refer to guilds created later
+        for (BinaryRecord record : guildRecords) {
+            guildManager.findByUuid(UUID.fromString(record.getKey())).peek(guild -> {
+                BinaryGuildSerializer.deserializeRelations(guild, record.getPayload());
+                guild.markChanged();
+            });
+        }
+
+        return applied;
+    }
+
+    public void startHandler() {
+        long interval = Math.max(1, this.plugin.getPluginConfiguration().dataJournalInterval);
+
+        if (this.commitTask != null) {
+            this.commitTask.cancel();
+        }
+
+        this.setChangeListener(this.pendingEntities::add);
+        this.commitTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this.plugin, this::commit, interval, interval);
+    }
+
+    public void stopHandler() {
+        this.setChangeListener(null);
+
+        if (this.commitTask == null) {
+            return;
+        }
+
+        this.commitTask.cancel();
+        this.commitTask = null;
+    }
+
+    private void setChangeListener(@Nullable Consumer<MutableEntity> listener) {
+        this.plugin.getUserManager().setChangeListener(listener);
+        this.plugin.getGuildManager().setChangeListener(listener);
+        this.plugin.getRegionManager().setChangeListener(listener);
+    }
+
+    /**
+     * Records deletion of the entity. Changes of the entity collected before are dropped.
+     */
+    public void recordDeletion(MutableEntity entity) {
+        if (this.commitTask == null) {
+            return;
+        }
+
+        this.pendingEntities.remove(entity);
+        this.pendingDeletions.add(BinaryRecord.tombstone(entity.getType(), getKey(entity)));
+    }
+
+    /**
+     * Appends states of all changed entities to the current generation.
+     */
+    public synchronized void commit() {
+        if (this.generation == null || (this.pendingEntities.isEmpty() && this.pendingDeletions.isEmpty())) {
+            return;
+        }
+
+        List<BinaryRecord> records = new ArrayList<>();
+        List<BinaryRecord> deletions = new ArrayList<>();
+        List<MutableEntity> entities = new ArrayList<>();
+
+        for (BinaryRecord deletion = this.pendingDeletions.poll(); deletion != null; deletion = this.pendingDeletions.poll()) {
+            deletions.add(deletion);
+        }
+
+        for (MutableEntity entity : this.pendingEntities) {
+            // Entity saved in the meantime doesn't need the record, as well as the one only deserialized
+            if (!this.pendingEntities.remove(entity) || !entity.wasChanged()) {
+                continue;
+            }
+
+            try {
+                BinaryRecord record = toRecord(entity);
+                if (record != null) {
+                    records.add(record);
+                    entities.add(entity);
+                }
+            }
+            catch (Exception exception) {
+                // Entity could be modified concurrently or be not complete yet (e.g. guild during the creation), it's retried with the next group
+                FunnyGuilds.getPluginLogger().debug("Could not serialize " + entity.getType().name() + " " + entity.getName() + " for the journal: " + exception);
+                this.pendingEntities.add(entity);
+            }
+        }
+
+        List<BinaryRecord> group = new ArrayList<>(deletions.size() + records.size());
+        group.addAll(deletions);
+        group.addAll(records);
+
+        try {
+            this.generation.append(group);
+        }
+        catch (IOException exception) {
+            FunnyGuilds.getPluginLogger().error("Could not append " + group.size() + " changes to the journal", exception);
+            this.pendingDeletions.addAll(deletions);
+            this.pendingEntities.addAll(entities);
+        }
+    }
+
+    /**
+     * Saves the data model, as a checkpoint of the journal if the journal is running.
+     */
+    public void save(DataModel dataModel, boolean ignoreNotChanged) {
+        if (this.commitTask == null) {
+            dataModel.save(ignoreNotChanged);
+            return;
+        }
+
+        this.checkpoint(() -> dataModel.save(ignoreNotChanged));
+    }
+
+    /**
+     * Saves the data model as a checkpoint of the journal - changes made during the save go to the new generation,
+     * older generations are removed once the save is done. Entities which are still not saved are written again to the new generation.
+     *
+     * @param save the save of the data model
+     */
+    private void checkpoint(Runnable save) {
+        synchronized (this) {
+            this.commit();
+
+            if (this.generation != null) {
+                this.previousGenerations.add(this.generation);
+            }
+
+            this.startGeneration();
+        }
+
+        save.run();
+
+        synchronized (this) {
+            this.collectUnsaved(this.plugin.getUserManager().getUsers());
+            this.collectUnsaved(this.plugin.getGuildManager().getGuilds());
+            this.collectUnsaved(this.plugin.getRegionManager().getRegions());
+            this.commit();
+
+            this.removePreviousGenerations();
+        }
+    }
+
+    private void collectUnsaved(Collection<? extends MutableEntity> entities) {
+        for (MutableEntity entity : entities) {
+            if (entity.wasChanged()) {
+                this.pendingEntities.add(entity);
+            }
+        }
+    }
+
+    private void startGeneration() {
+        BinarySegmentStore store = new BinarySegmentStore(new File(this.directory, String.format("%08d", ++this.lastGenerationId)), SEGMENT_SIZE);
+
+        try {
+            store.load();
+            this.generation = store;
+        }
+        catch (IOException exception) {
+            FunnyGuilds.getPluginLogger().error("Could not start new generation of the journal, changes are not journaled until the next save", exception);
+            this.generation = null;
+        }
+    }
+
+    private void removePreviousGenerations() {
+        if (this.generation == null) {
+            // Without the current generation, changes of the previous ones are not covered by anything else
+            return;
+        }
+
+        for (BinarySegmentStore previousGeneration : this.previousGenerations) {
+            try {
+                previousGeneration.delete();
+            }
+            catch (IOException exception) {
+                FunnyGuilds.getPluginLogger().warning("Could not remove old generation of the journal: " + exception.getMessage());
+            }
+        }
+
+        this.previousGenerations.clear();
+    }
+
+    @Nullable
+    private static BinaryRecord toRecord(MutableEntity entity) {
+        if (entity instanceof User) {
+            return BinaryRecord.of(EntityType.USER, getKey(entity), BinaryUserSerializer.serialize((User) entity));
+        }
+
+        if (entity instanceof Guild) {
+            return BinaryRecord.of(EntityType.GUILD, getKey(entity), BinaryGuildSerializer.serialize((Guild) entity));
+        }
+
+        if (entity instanceof Region) {
+            return BinaryRecord.of(EntityType.REGION, getKey(entity), BinaryRegionSerializer.serialize((Region) entity));
+        }
+
+        return null;
+    }
+
+    private static String getKey(MutableEntity entity) {
+        if (entity instanceof User) {
+            return ((User) entity).getUUID().toString();
+        }
+
+        if (entity instanceof Guild) {
+            return ((Guild) entity).getUUID().toString();
+        }
+
+        return entity.getName();
+    }
+
+    private static int getGenerationId(File generationDirectory) {
+        try {
+            return Integer.parseInt(generationDirectory.getName());
+        }
+        catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package net.dzikoysk.funnyguilds.data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import net.dzikoysk.funnyguilds.FunnyGuilds;
+import org.bukkit.Bukkit;
+
+/**
+ * Loads data of the plugin in the background, so the server continues its startup in the meantime.
+ * Loading consists of phases, which are run one after another and timed separately.
+ */
+public class DataLoader {
+
+    private final FunnyGuilds plugin;
+    private final List<Phase> phases = new ArrayList<>();
+    private final CompletableFuture<Boolean> loading = new CompletableFuture<>();
+
+    public DataLoader(FunnyGuilds plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Adds phase of the loading. Phases are run in the order of adding.
+     *
+     * @param name  name of the phase, used in logs
+     * @param phase the phase
+     */
+    public DataLoader phase(String name, LoadingPhase phase) {
+        this.phases.add(new Phase(name, phase));
+        return this;
+    }
+
+    /**
+     * Starts loading of the data in the background. Failed loading shuts down the plugin.
+     *
+     * @param loaded called on the main thread once the data is loaded
+     */
+    public void start(Runnable loaded) {
+        Bukkit.getScheduler().runTaskAsynchronously(this.plugin, () -> {
+            long start = System.nanoTime();
+            Map<String, Long> timings = new LinkedHashMap<>();
+
+            for (Phase phase : this.phases) {
+                long phaseStart = System.nanoTime();
+
+                try {
+                    phase.phase.load();
+                }
+                catch (Exception exception) {
+                    FunnyGuilds.getPluginLogger().error("Could not load data (" + phase.name + ")", exception);
+                    this.loading.complete(false);
+                    Bukkit.getScheduler().runTask(this.plugin, () -> this.plugin.shutdown("Critical error has been encountered!"));
+                    return;
+                }
+
+                timings.put(phase.name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - phaseStart));
+            }
+
+            String summary = timings.entrySet().stream()
+                    .map(timing -> timing.getKey() + ": " + timing.getValue() + " ms")
+                    .collect(Collectors.joining(", "));
+
+            FunnyGuilds.getPluginLogger().info("Data loaded in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms (" + summary + ")");
+            this.loading.complete(true);
+            Bukkit.getScheduler().runTask(this.plugin, loaded);
+        });
+    }
+
+    /**
+     * @return if all phases of the loading are done
+     */
+    public boolean isLoaded() {
+        return this.loading.getNow(false);
+    }
+
+    /**
+     * Waits until the loading is done, e.g. before the data is saved during the shutdown.
+     *
+     * @return if the data was loaded successfully
+     */
+    public boolean awaitLoading() {
+        return this.loading.join();
+    }
+
+    @FunctionalInterface
+    public interface LoadingPhase {
+
+        void load() throws Exception;
+
+    }
+
+    private static final class Phase {
+
+        private final String name;
+        private final LoadingPhase phase;
+
+        private Phase(String name, LoadingPhase phase) {
+            this.name = name;
+            this.phase = phase;
+        }
+
+    }
+
+}
@@ -5,6 +5,7 @@ import java.util.Set;
 import net.dzikoysk.funnyguilds.Entity;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.config.PluginConfiguration;
+import net.dzikoysk.funnyguilds.data.binary.BinaryDataModel;
 import net.dzikoysk.funnyguilds.data.database.SQLDataModel;
 import net.dzikoysk.funnyguilds.data.flat.FlatDataModel;
 import net.dzikoysk.funnyguilds.guild.Guild;
@@ -61,10 +62,14 @@ public interface DataModel {
     }
 
     static DataModel create(FunnyGuilds plugin, PluginConfiguration.DataModel modelType) {
-        if (modelType == PluginConfiguration.DataModel.MYSQL) {
+        if (modelType.isSQL()) {
             return new SQLDataModel(plugin);
         }
 
+        if (modelType == PluginConfiguration.DataModel.BINARY) {
+            return new BinaryDataModel(plugin);
+        }
+
         return new FlatDataModel(plugin);
     }
 
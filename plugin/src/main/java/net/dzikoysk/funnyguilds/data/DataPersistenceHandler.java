@@ -22,7 +22,7 @@ public class DataPersistenceHandler {
         }
 
         this.dataPersistenceHandlerTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this.plugin, () -> {
-            this.plugin.scheduleFunnyTasks(new DataSaveAsyncTask(this.plugin.getDataModel(), false));
+            this.plugin.scheduleFunnyTasks(new DataSaveAsyncTask(this.plugin.getDataModel(), this.plugin.getChangeJournal(), false));
         }, interval, interval);
     }
 
@@ -4,10 +4,45 @@ import net.dzikoysk.funnyguilds.Entity;
 
 public interface MutableEntity extends Entity {
 
+    /**
+     * Mask of changed fields used when the entity has to be saved as a whole, e.g. it was never saved before.
+     */
+    int ALL_FIELDS = ~0;
+
+    /**
+     * Marks all fields of the entity as changed.
+     */
     void markChanged();
 
+    /**
+     * Marks the given field of the entity as changed.
+     *
+     * @param field field of the entity, ordinal of the constant is used as the bit in the mask of changed fields
+     */
+    void markChanged(Enum<?> field);
+
     void markUnchanged();
 
+    /**
+     * Marks the given fields as saved, fields changed in the meantime stay marked.
+     *
+     * @param fields mask of the saved fields
+     */
+    void markUnchanged(int fields);
+
     boolean wasChanged();
 
+    /**
+     * @return mask of fields changed since the last save
+     */
+    int getChangedFields();
+
+    static int mask(Enum<?> field) {
+        return 1 << field.ordinal();
+    }
+
+    static boolean isChanged(int fields, Enum<?> field) {
+        return (fields & mask(field)) != 0;
+    }
+
 }
@@ -0,0 +1,244 @@
+package net.dzikoysk.funnyguilds.data.binary;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import net.dzikoysk.funnyguilds.Entity.EntityType;
+import net.dzikoysk.funnyguilds.FunnyGuilds;
+import net.dzikoysk.funnyguilds.data.DataModel;
+import net.dzikoysk.funnyguilds.data.MutableEntity;
+import net.dzikoysk.funnyguilds.data.binary.serializer.BinaryGuildSerializer;
+import net.dzikoysk.funnyguilds.data.binary.serializer.BinaryRegionSerializer;
+import net.dzikoysk.funnyguilds.data.binary.serializer.BinaryUserSerializer;
+import net.dzikoysk.funnyguilds.data.flat.FlatDataModel;
+import net.dzikoysk.funnyguilds.feature.scoreboard.ScoreboardGlobalUpdateSyncTask;
+import net.dzikoysk.funnyguilds.guild.Guild;
+import net.dzikoysk.funnyguilds.guild.GuildManager;
+import net.dzikoysk.funnyguilds.guild.Region;
+import net.dzikoysk.funnyguilds.guild.RegionManager;
+import net.dzikoysk.funnyguilds.user.UserManager;
+
+/**
+ * Stores all entities in the {@link BinarySegmentStore}. Saves append only entities which serialized state differs
+ * from the stored one, the store is compacted after the save once obsolete records outweigh the live ones.
+ * If the store is empty, data of the flat model is migrated on the first load.
+ * <p>
+ * Deletions are queued and written with the next save, so they don't block the thread which deleted the entity.
+ */
+public class BinaryDataModel implements DataModel {
+
+    private static final long SEGMENT_SIZE = 16L * 1024 * 1024;
+
+    private final FunnyGuilds plugin;
+    private final File dataFolder;
+    private final BinarySegmentStore store;
+    private final Queue<BinaryRecord> pendingTombstones = new ConcurrentLinkedQueue<>();
+
+    public BinaryDataModel(FunnyGuilds plugin) {
+        this.plugin = plugin;
+        this.dataFolder = plugin.getPluginDataFolder();
+        this.store = new BinarySegmentStore(new File(this.dataFolder, "storage"), SEGMENT_SIZE);
+    }
+
+    @Override
+    public void load() {
+        long start = System.nanoTime();
+        Collection<BinaryRecord> records;
+
+        try {
+            records = this.store.load();
+        }
+        catch (IOException exception) {
+            throw new IllegalStateException("Could not read binary storage", exception);
+        }
+
+        if (this.store.isEmpty() && this.migrateFlatData()) {
+            return;
+        }
+
+        UserManager userManager = this.plugin.getUserManager();
+        GuildManager guildManager = this.plugin.getGuildManager();
+        RegionManager regionManager = this.plugin.getRegionManager();
+
+        userManager.clearUsers();
+        guildManager.clearGuilds();
+        regionManager.clearRegions();
+
+        int errors = 0;
+        List<BinaryRecord> guildRecords = new ArrayList<>();
+        List<BinaryRecord> regionRecords = new ArrayList<>();
+
+        for (BinaryRecord record : records) {
+            switch (record.getType()) {
+                case USER:
+                    errors += BinaryUserSerializer.deserialize(record.getPayload()).isEmpty() ? 1 : 0;
+                    break;
+                case GUILD:
+                    guildRecords.add(record);
+                    break;
+                case REGION:
+                    regionRecords.add(record);
+                    break;
+            }
+        }
+
+        if (this.plugin.getPluginConfiguration().regionsEnabled) {
+            for (BinaryRecord record : regionRecords) {
+                errors += BinaryRegionSerializer.deserialize(record.getPayload())
+                        .peek(regionManager::addRegion)
+                        .isEmpty() ? 1 : 0;
+            }
+        }
+
+        List<Guild> guilds = new ArrayList<>(guildRecords.size());
+        List<BinaryRecord> loadedGuildRecords = new ArrayList<>(guildRecords.size());
+
+        for (BinaryRecord record : guildRecords) {
+            Guild guild = BinaryGuildSerializer.deserialize(record.getPayload()).orNull();
+            if (guild == null) {
+                errors++;
+                continue;
+            }
+
+            guilds.add(guild);
+            loadedGuildRecords.add(record);
+        }
+
+        for (int index = 0; index < guilds.size(); index++) {
+            Guild guild = guilds.get(index);
+            BinaryGuildSerializer.deserializeRelations(guild, loadedGuildRecords.get(index).getPayload());
+            guild.markUnchanged();
+        }
+
+        if (errors > 0) {
+            FunnyGuilds.getPluginLogger().error("Binary storage load errors " + errors);
+        }
+
+        FunnyGuilds.getPluginLogger().info("Loaded users: " + userManager.countUsers());
+        FunnyGuilds.getPluginLogger().info("Loaded regions: " + regionManager.countRegions());
+        FunnyGuilds.getPluginLogger().info("Loaded guilds: " + guildManager.countGuilds());
+        FunnyGuilds.getPluginLogger().debug("Loaded binary storage in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+
+        this.plugin.getIndividualNameTagManager().map(ScoreboardGlobalUpdateSyncTask::new).peek(this.plugin::scheduleFunnyTasks);
+        this.validateLoadedData();
+    }
+
+    /**
+     * Loads data of the flat model and saves it as the initial content of the store.
+     *
+     * @return true if there was any flat data to migrate
+     */
+    private boolean migrateFlatData() {
+        boolean flatDataExists = Arrays.stream(new String[] { "users", "guilds", "regions" })
+                .map(folder -> new File(this.dataFolder, folder).list())
+                .anyMatch(files -> files != null && files.length > 0);
+
+        if (!flatDataExists) {
+            return false;
+        }
+
+        FunnyGuilds.getPluginLogger().info("Binary storage is empty, migrating data from flat files...");
+        new FlatDataModel(this.plugin).load();
+
+        this.save(false);
+        FunnyGuilds.getPluginLogger().info("Migrated " + this.store.countRecords() + " entities to binary storage, flat files were left untouched");
+
+        return true;
+    }
+
+    @Override
+    public void save(boolean ignoreNotChanged) {
+        long start = System.nanoTime();
+
+        // Tombstones go first, entity with the same key created after the deletion has to be compared with the state after the deletion
+        List<BinaryRecord> tombstones = new ArrayList<>();
+        for (BinaryRecord tombstone = this.pendingTombstones.poll(); tombstone != null; tombstone = this.pendingTombstones.poll()) {
+            tombstones.add(tombstone);
+        }
+
+        try {
+            this.store.append(tombstones);
+        }
+        catch (IOException exception) {
+            FunnyGuilds.getPluginLogger().error("Could not save deletions of " + tombstones.size() + " entities to binary storage", exception);
+            this.pendingTombstones.addAll(tombstones);
+            return;
+        }
+
+        List<BinaryRecord> records = new ArrayList<>();
+        List<Runnable> commits = new ArrayList<>();
+
+        this.collectChanges(this.plugin.getUserManager().getUsers(), ignoreNotChanged, EntityType.USER,
+                user -> user.getUUID().toString(), BinaryUserSerializer::serialize, records, commits);
+        this.collectChanges(this.plugin.getGuildManager().getGuilds(), ignoreNotChanged, EntityType.GUILD,
+                guild -> guild.getUUID().toString(), BinaryGuildSerializer::serialize, records, commits);
+
+        if (this.plugin.getPluginConfiguration().regionsEnabled) {
+            this.collectChanges(this.plugin.getRegionManager().getRegions(), ignoreNotChanged, EntityType.REGION,
+                    Region::getName, BinaryRegionSerializer::serialize, records, commits);
+        }
+
+        try {
+            this.store.append(records);
+            commits.forEach(Runnable::run);
+
+            if (this.store.needsCompaction()) {
+                this.store.compact();
+            }
+        }
+        catch (IOException exception) {
+            FunnyGuilds.getPluginLogger().error("Could not save binary storage", exception);
+            return;
+        }
+
+        FunnyGuilds.getPluginLogger().debug("Saved " + records.size() + " records to binary storage in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    /**
+     * Serializes changed entities, entities with the same serialized state as the stored one are only marked as saved.
+     */
+    private <T extends MutableEntity> void collectChanges(Collection<T> entities, boolean ignoreNotChanged, EntityType type, Function<T, String> keyFunction,
+                                                          Function<T, byte[]> serializer, List<BinaryRecord> records, List<Runnable> commits) {
+        for (T entity : entities) {
+            int fields = entity.getChangedFields();
+            if (ignoreNotChanged && fields == 0) {
+                continue;
+            }
+
+            byte[] payload;
+            String key;
+
+            try {
+                key = keyFunction.apply(entity);
+                payload = serializer.apply(entity);
+            }
+            catch (Exception exception) {
+                FunnyGuilds.getPluginLogger().error("Could not serialize " + type.name().toLowerCase(Locale.ROOT) + " " + entity.getName(), exception);
+                continue;
+            }
+
+            commits.add(() -> entity.markUnchanged(fields));
+
+            if (!Arrays.equals(payload, this.store.getPayload(type, key))) {
+                records.add(BinaryRecord.of(type, key, payload));
+            }
+        }
+    }
+
+    public void deleteGuild(Guild guild) {
+        this.pendingTombstones.add(BinaryRecord.tombstone(EntityType.GUILD, guild.getUUID().toString()));
+    }
+
+    public void deleteRegion(Region region) {
+        this.pendingTombstones.add(BinaryRecord.tombstone(EntityType.REGION, region.getName()));
+    }
+
+}
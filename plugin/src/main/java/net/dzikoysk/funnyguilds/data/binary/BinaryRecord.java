@@ -0,0 +1,60 @@
+package net.dzikoysk.funnyguilds.data.binary;
+
+import net.dzikoysk.funnyguilds.Entity.EntityType;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Single entry of the binary store - serialized state of an entity or a tombstone of the deleted one.
+ */
+public final class BinaryRecord {
+
+    private final EntityType type;
+    private final String key;
+    private final byte[] payload;
+
+    private BinaryRecord(EntityType type, String key, @Nullable byte[] payload) {
+        this.type = type;
+        this.key = key;
+        this.payload = payload;
+    }
+
+    public static BinaryRecord of(EntityType type, String key, byte[] payload) {
+        return new BinaryRecord(type, key, payload);
+    }
+
+    public static BinaryRecord tombstone(EntityType type, String key) {
+        return new BinaryRecord(type, key, null);
+    }
+
+    /**
+     * @return identifier of the entity, unique across all entity types
+     */
+    public String getId() {
+        return id(this.type, this.key);
+    }
+
+    public EntityType getType() {
+        return this.type;
+    }
+
+    public String getKey() {
+        return this.key;
+    }
+
+    /**
+     * @return serialized entity, null for tombstones
+     */
+    @Nullable
+    public byte[] getPayload() {
+        return this.payload;
+    }
+
+    public boolean isTombstone() {
+        return this.payload == null;
+    }
+
+    static String id(EntityType type, String key) {
+        return type.name() + ':' + key;
+    }
+
+}
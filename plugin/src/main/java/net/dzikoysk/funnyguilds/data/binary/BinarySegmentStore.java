@@ -0,0 +1,520 @@
+package net.dzikoysk.funnyguilds.data.binary;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import net.dzikoysk.funnyguilds.Entity.EntityType;
+import net.dzikoysk.funnyguilds.FunnyGuilds;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Append-only store of {@link BinaryRecord}s split into segment files. Every save appends new states of entities to the last segment,
+ * so the latest record of an entity wins during the load. Records are protected with CRC32 checksums - torn write at the end of
+ * the last segment is truncated, corrupted record in the middle skips the rest of its segment.
+ * <p>
+ * Compaction rewrites live records into a single base segment, which makes all older segments obsolete - they are ignored
+ * during the load even if they could not be deleted.
+ * <p>
+ * Segment layout: magic (int), version (byte), flags (byte), records.
+ * Record layout: body length (int), entity type (byte), flags (byte), key length (short), key (UTF-8), payload, CRC32 of the body (int).
+ */
+public class BinarySegmentStore {
+
+    private static final int MAGIC = 0x46474253;
+    private static final byte VERSION = 1;
+    private static final byte BASE_SEGMENT = 1;
+    private static final byte TOMBSTONE = 1;
+
+    private static final int HEADER_SIZE = 6;
+    private static final int RECORD_OVERHEAD = 4 + 1 + 1 + 2 + 4;
+    private static final String SEGMENT_EXTENSION = ".fgb";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    private static final long MIN_COMPACTION_SIZE = 4L * 1024 * 1024;
+
+    private final File directory;
+    private final long segmentSize;
+
+    private final Map<String, BinaryRecord> records = new LinkedHashMap<>();
+    private final Map<String, BinaryRecord> tombstones = new LinkedHashMap<>();
+    private final List<File> segments = new ArrayList<>();
+    private int lastSegmentId;
+    private boolean sealLastSegment;
+    /** Tracked instead of querying the file system for every appended record */
+    private long lastSegmentLength;
+    private long totalBytes;
+    private long liveBytes;
+
+    public BinarySegmentStore(File directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Reads all segments and returns live records, in order of their last write.
+     */
+    public synchronized Collection<BinaryRecord> load() throws IOException {
+        this.records.clear();
+        this.tombstones.clear();
+        this.segments.clear();
+        this.lastSegmentId = 0;
+        this.sealLastSegment = false;
+        this.lastSegmentLength = 0;
+        this.totalBytes = 0;
+        this.liveBytes = 0;
+
+        Files.createDirectories(this.directory.toPath());
+
+        File[] temporaryFiles = this.directory.listFiles((dir, name) -> name.endsWith(TEMPORARY_EXTENSION));
+        if (temporaryFiles != null) {
+            for (File temporaryFile : temporaryFiles) {
+                Files.deleteIfExists(temporaryFile.toPath());
+            }
+        }
+
+        File[] segmentFiles = this.directory.listFiles((dir, name) -> name.endsWith(SEGMENT_EXTENSION));
+        if (segmentFiles == null || segmentFiles.length == 0) {
+            return Collections.emptyList();
+        }
+
+        List<File> sortedSegments = new ArrayList<>();
+        for (File segmentFile : segmentFiles) {
+            if (getSegmentId(segmentFile) < 0) {
+                FunnyGuilds.getPluginLogger().warning("Skipping unknown file in binary storage: " + segmentFile.getName());
+                continue;
+            }
+
+            sortedSegments.add(segmentFile);
+        }
+
+        sortedSegments.sort(Comparator.comparingInt(BinarySegmentStore::getSegmentId));
+        this.lastSegmentId = getSegmentId(sortedSegments.get(sortedSegments.size() - 1));
+
+        int firstSegment = 0;
+        for (int index = 0; index < sortedSegments.size(); index++) {
+            if (isBaseSegment(sortedSegments.get(index))) {
+                firstSegment = index;
+            }
+        }
+
+        // Leftovers of the compaction which could not be deleted back then
+        for (File obsoleteSegment : sortedSegments.subList(0, firstSegment)) {
+            this.deleteSegment(obsoleteSegment);
+        }
+
+        List<File> liveSegments = sortedSegments.subList(firstSegment, sortedSegments.size());
+        for (int index = 0; index < liveSegments.size(); index++) {
+            File segment = liveSegments.get(index);
+
+            if (this.readSegment(segment, index == liveSegments.size() - 1)) {
+                this.segments.add(segment);
+            }
+        }
+
+        return Collections.unmodifiableCollection(new ArrayList<>(this.records.values()));
+    }
+
+    /**
+     * @return false if the segment was an empty leftover of the interrupted write and was removed
+     */
+    private boolean readSegment(File segment, boolean lastSegment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Segment " + segment.getName() + " is too large");
+            }
+
+            if (size < HEADER_SIZE && lastSegment) {
+                channel.close();
+                this.deleteSegment(segment);
+                return false;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new IOException("Segment " + segment.getName() + " is not a valid segment of binary storage");
+            }
+
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Segment " + segment.getName() + " has unsupported version " + version);
+            }
+
+            buffer.get();
+
+            CRC32 checksum = new CRC32();
+            int validEnd = HEADER_SIZE;
+
+            while (buffer.remaining() >= 4) {
+                int bodyLength = buffer.getInt();
+                if (bodyLength < 4 || bodyLength > buffer.remaining() - 4) {
+                    break;
+                }
+
+                ByteBuffer body = buffer.slice(buffer.position(), bodyLength);
+                buffer.position(buffer.position() + bodyLength);
+
+                checksum.reset();
+                checksum.update(body.duplicate());
+                if ((int) checksum.getValue() != buffer.getInt()) {
+                    break;
+                }
+
+                BinaryRecord record = decodeRecord(body);
+                if (record != null) {
+                    this.apply(record, 4 + bodyLength + 4);
+                }
+
+                validEnd = buffer.position();
+            }
+
+            this.lastSegmentLength = validEnd;
+
+            if (validEnd == size) {
+                this.totalBytes += size;
+                return true;
+            }
+
+            if (lastSegment) {
+                FunnyGuilds.getPluginLogger().warning("Truncating incomplete write at the end of segment " + segment.getName() + " (" + (size - validEnd) + " bytes)");
+
+                try {
+                    channel.truncate(validEnd);
+                    channel.force(true);
+                }
+                catch (IOException exception) {
+                    // Some platforms do not allow to truncate mapped files, new records can't follow the damaged tail
+                    FunnyGuilds.getPluginLogger().warning("Could not truncate segment " + segment.getName() + ", new records will be written to the next segment");
+                    this.sealLastSegment = true;
+                }
+            }
+            else {
+                FunnyGuilds.getPluginLogger().error("Segment " + segment.getName() + " is corrupted at offset " + validEnd + ", rest of the segment was skipped");
+            }
+
+            this.totalBytes += validEnd;
+            return true;
+        }
+    }
+
+    @Nullable
+    private static BinaryRecord decodeRecord(ByteBuffer body) {
+        int typeIndex = body.get();
+        byte flags = body.get();
+        int keyLength = body.getShort() & 0xFFFF;
+
+        EntityType[] types = EntityType.values();
+        if (typeIndex < 0 || typeIndex >= types.length || keyLength > body.remaining()) {
+            return null;
+        }
+
+        byte[] key = new byte[keyLength];
+        body.get(key);
+
+        EntityType type = types[typeIndex];
+        String keyString = new String(key, StandardCharsets.UTF_8);
+
+        if ((flags & TOMBSTONE) != 0) {
+            return BinaryRecord.tombstone(type, keyString);
+        }
+
+        byte[] payload = new byte[body.remaining()];
+        body.get(payload);
+
+        return BinaryRecord.of(type, keyString, payload);
+    }
+
+    /**
+     * Appends records to the store and flushes them to the disk.
+     */
+    public synchronized void append(Collection<BinaryRecord> newRecords) throws IOException {
+        if (newRecords.isEmpty()) {
+            return;
+        }
+
+        File segment = this.segments.isEmpty() || this.sealLastSegment ? null : this.segments.get(this.segments.size() - 1);
+        this.sealLastSegment = false;
+        FileChannel channel = null;
+
+        try {
+            for (BinaryRecord record : newRecords) {
+                byte[] encoded = encodeRecord(record);
+
+                if (segment == null || (this.lastSegmentLength > HEADER_SIZE && this.lastSegmentLength + encoded.length > this.segmentSize)) {
+                    if (channel != null) {
+                        channel.force(false);
+                        channel.close();
+                    }
+
+                    segment = this.createSegment(++this.lastSegmentId, false);
+                    this.segments.add(segment);
+                }
+
+                if (channel == null || !channel.isOpen()) {
+                    channel = FileChannel.open(segment.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+                    // Leftover of the write which failed after the segment was read, new records can't follow it
+                    if (channel.size() > this.lastSegmentLength) {
+                        channel.truncate(this.lastSegmentLength);
+                    }
+                }
+
+                writeFully(channel, encoded);
+                this.apply(record, encoded.length);
+                this.lastSegmentLength += encoded.length;
+                this.totalBytes += encoded.length;
+            }
+
+            channel.force(false);
+        }
+        catch (IOException exception) {
+            this.discardTornTail(channel);
+            throw exception;
+        }
+        finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Removes the part of the record which was written before the failure, as records appended later would follow it
+     * and be dropped at its broken checksum during the next load. If the segment can't be truncated, it is sealed instead.
+     */
+    private void discardTornTail(@Nullable FileChannel channel) {
+        if (channel != null && channel.isOpen()) {
+            try {
+                channel.truncate(this.lastSegmentLength);
+                return;
+            }
+            catch (IOException exception) {
+                FunnyGuilds.getPluginLogger().warning("Could not truncate incomplete write, new records will be written to the next segment");
+            }
+        }
+
+        this.sealLastSegment = true;
+    }
+
+    /**
+     * @return if the store holds more obsolete than live data and should be compacted
+     */
+    public synchronized boolean needsCompaction() {
+        return this.totalBytes >= MIN_COMPACTION_SIZE && this.totalBytes - this.liveBytes > this.liveBytes;
+    }
+
+    /**
+     * Rewrites live records into a new base segment and removes all previous segments.
+     */
+    public synchronized void compact() throws IOException {
+        int baseSegmentId = this.lastSegmentId + 1;
+        File temporaryFile = new File(this.directory, formatSegmentName(baseSegmentId) + TEMPORARY_EXTENSION);
+        long compactedSize = HEADER_SIZE;
+
+        try (FileChannel channel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, createHeader(true));
+
+            for (BinaryRecord record : this.records.values()) {
+                byte[] encoded = encodeRecord(record);
+                writeFully(channel, encoded);
+                compactedSize += encoded.length;
+            }
+
+            channel.force(true);
+        }
+
+        File baseSegment = new File(this.directory, formatSegmentName(baseSegmentId));
+        Files.move(temporaryFile.toPath(), baseSegment.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+        List<File> obsoleteSegments = new ArrayList<>(this.segments);
+        long previousSize = this.totalBytes;
+
+        this.segments.clear();
+        this.segments.add(baseSegment);
+        this.tombstones.clear();
+        this.lastSegmentId = baseSegmentId;
+        this.lastSegmentLength = compactedSize;
+        this.totalBytes = compactedSize;
+
+        obsoleteSegments.forEach(this::deleteSegment);
+
+        FunnyGuilds.getPluginLogger().info("Compacted binary storage from " + previousSize / 1024 + " KB to " + compactedSize / 1024 + " KB");
+    }
+
+    @Nullable
+    public synchronized byte[] getPayload(EntityType type, String key) {
+        BinaryRecord record = this.records.get(BinaryRecord.id(type, key));
+        return record == null ? null : record.getPayload();
+    }
+
+    /**
+     * Gets tombstones of records deleted since the last compaction and not written again.
+     */
+    public synchronized Collection<BinaryRecord> getTombstones() {
+        return Collections.unmodifiableCollection(new ArrayList<>(this.tombstones.values()));
+    }
+
+    /**
+     * @return if the store has no segments, e.g. it was never saved
+     */
+    public synchronized boolean isEmpty() {
+        return this.segments.isEmpty();
+    }
+
+    public synchronized int countRecords() {
+        return this.records.size();
+    }
+
+    /**
+     * Removes all segments and the directory of the store.
+     */
+    public synchronized void delete() throws IOException {
+        for (File segment : this.segments) {
+            Files.deleteIfExists(segment.toPath());
+        }
+
+        this.segments.clear();
+        this.records.clear();
+        this.tombstones.clear();
+        this.lastSegmentLength = 0;
+        this.totalBytes = 0;
+        this.liveBytes = 0;
+
+        File[] leftovers = this.directory.listFiles();
+        if (leftovers != null) {
+            for (File leftover : leftovers) {
+                Files.deleteIfExists(leftover.toPath());
+            }
+        }
+
+        Files.deleteIfExists(this.directory.toPath());
+    }
+
+    private void apply(BinaryRecord record, int size) {
+        BinaryRecord previous;
+
+        if (record.isTombstone()) {
+            previous = this.records.remove(record.getId());
+            this.tombstones.put(record.getId(), record);
+        }
+        else {
+            previous = this.records.put(record.getId(), record);
+            this.tombstones.remove(record.getId());
+        }
+
+        if (previous != null) {
+            this.liveBytes -= sizeOf(previous);
+        }
+
+        if (!record.isTombstone()) {
+            this.liveBytes += size;
+        }
+    }
+
+    private File createSegment(int segmentId, boolean base) throws IOException {
+        File segment = new File(this.directory, formatSegmentName(segmentId));
+
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            writeFully(channel, createHeader(base));
+        }
+
+        this.lastSegmentLength = HEADER_SIZE;
+        this.totalBytes += HEADER_SIZE;
+        return segment;
+    }
+
+    private void deleteSegment(File segment) {
+        try {
+            Files.deleteIfExists(segment.toPath());
+        }
+        catch (IOException exception) {
+            // Obsolete segment is skipped during the next load anyway, as it precedes the base segment
+            FunnyGuilds.getPluginLogger().warning("Could not delete obsolete segment " + segment.getName() + ": " + exception.getMessage());
+        }
+    }
+
+    private static byte[] encodeRecord(BinaryRecord record) {
+        byte[] key = record.getKey().getBytes(StandardCharsets.UTF_8);
+        byte[] payload = record.isTombstone() ? new byte[0] : record.getPayload();
+        int bodyLength = 1 + 1 + 2 + key.length + payload.length;
+
+        if (key.length > 0xFFFF) {
+            throw new IllegalArgumentException("Key of the record is too long: " + record.getKey());
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 + bodyLength + 4);
+        buffer.putInt(bodyLength);
+        buffer.put((byte) record.getType().ordinal());
+        buffer.put(record.isTombstone() ? TOMBSTONE : 0);
+        buffer.putShort((short) key.length);
+        buffer.put(key);
+        buffer.put(payload);
+
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), 4, bodyLength);
+        buffer.putInt((int) checksum.getValue());
+
+        return buffer.array();
+    }
+
+    private static int sizeOf(BinaryRecord record) {
+        int payloadLength = record.isTombstone() ? 0 : record.getPayload().length;
+        return RECORD_OVERHEAD + record.getKey().getBytes(StandardCharsets.UTF_8).length + payloadLength;
+    }
+
+    private static byte[] createHeader(boolean base) {
+        return ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .put(VERSION)
+                .put(base ? BASE_SEGMENT : 0)
+                .array();
+    }
+
+    private static boolean isBaseSegment(File segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (channel.read(header, 0) < HEADER_SIZE) {
+                return false;
+            }
+
+            return header.getInt(0) == MAGIC && header.get(5) == BASE_SEGMENT;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String formatSegmentName(int segmentId) {
+        return String.format("%08d", segmentId) + SEGMENT_EXTENSION;
+    }
+
+    private static int getSegmentId(File segment) {
+        String name = segment.getName();
+
+        try {
+            return Integer.parseInt(name.substring(0, name.length() - SEGMENT_EXTENSION.length()));
+        }
+        catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+}
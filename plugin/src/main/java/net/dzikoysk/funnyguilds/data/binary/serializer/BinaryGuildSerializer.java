@@ -0,0 +1,184 @@
+package net.dzikoysk.funnyguilds.data.binary.serializer;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import net.dzikoysk.funnyguilds.FunnyGuilds;
+import net.dzikoysk.funnyguilds.FunnyGuildsLogger;
+import net.dzikoysk.funnyguilds.config.PluginConfiguration;
+import net.dzikoysk.funnyguilds.data.util.DeserializationUtils;
+import net.dzikoysk.funnyguilds.guild.Guild;
+import net.dzikoysk.funnyguilds.guild.GuildManager;
+import net.dzikoysk.funnyguilds.guild.Region;
+import net.dzikoysk.funnyguilds.shared.TimeUtils;
+import net.dzikoysk.funnyguilds.shared.bukkit.LocationUtils;
+import net.dzikoysk.funnyguilds.user.User;
+import net.dzikoysk.funnyguilds.user.UserManager;
+import org.bukkit.Location;
+import panda.std.Option;
+import panda.std.stream.PandaStream;
+
+/**
+ * Guilds refer to users and other guilds by their UUIDs. Allies and enemies are stored at the end of the payload
+ * and resolved by {@link #deserializeRelations(Guild, byte[])}, once all guilds are loaded.
+ */
+public final class BinaryGuildSerializer {
+
+    private BinaryGuildSerializer() {
+    }
+
+    public static Option<Guild> deserialize(byte[] payload) {
+        String name = null;
+
+        try (DataInputStream input = BinarySerializationUtils.read(payload)) {
+            UUID uuid = BinarySerializationUtils.readUuid(input);
+            name = input.readUTF();
+            String tag = input.readUTF();
+            UUID ownerUuid = BinarySerializationUtils.readUuid(input);
+            String homeString = BinarySerializationUtils.readNullableString(input);
+            String regionName = BinarySerializationUtils.readNullableString(input);
+            List<UUID> memberUuids = BinarySerializationUtils.readUuids(input);
+            List<UUID> deputyUuids = BinarySerializationUtils.readUuids(input);
+            Instant born = TimeUtils.positiveOrNullInstant(input.readLong());
+            Instant validity = TimeUtils.positiveOrNullInstant(input.readLong());
+            Instant protection = TimeUtils.positiveOrNullInstant(input.readLong());
+            int lives = input.readInt();
+            Instant ban = TimeUtils.positiveOrNullInstant(input.readLong());
+            boolean pvp = input.readBoolean();
+
+            FunnyGuilds plugin = FunnyGuilds.getInstance();
+            FunnyGuildsLogger logger = FunnyGuilds.getPluginLogger();
+            PluginConfiguration config = plugin.getPluginConfiguration();
+            UserManager userManager = plugin.getUserManager();
+
+            Option<User> ownerOption = userManager.findByUuid(ownerUuid);
+            if (ownerOption.isEmpty()) {
+                logger.deserialize("Cannot deserialize guild: " + name + ", caused by: owner (user instance) doesn't exist");
+                return Option.none();
+            }
+
+            Region region = null;
+            if (config.regionsEnabled) {
+                Option<Region> regionOption = Option.of(regionName).flatMap(plugin.getRegionManager()::findByName);
+                if (regionOption.isEmpty()) {
+                    logger.deserialize("Cannot deserialize guild: " + name + ", caused by: region (object) is null");
+                    return Option.none();
+                }
+
+                region = regionOption.get();
+            }
+
+            if (born == null) {
+                logger.deserialize("Cannot deserialize guild: " + name + ", caused by: born is null");
+                return Option.none();
+            }
+
+            if (validity == null) {
+                logger.deserialize("Cannot deserialize guild: " + name + ", caused by: validity is null");
+                return Option.none();
+            }
+
+            if (protection == null) {
+                logger.deserialize("Cannot deserialize guild: " + name + ", caused by: protection is null");
+                return Option.none();
+            }
+
+            Location home = LocationUtils.parseLocation(homeString);
+            if (home == null && region != null) {
+                home = region.getCenter();
+            }
+
+            if (lives == 0) {
+                lives = config.warLives;
+            }
+
+            Object[] values = new Object[17];
+            values[0] = uuid;
+            values[1] = name;
+            values[2] = tag;
+            values[3] = ownerOption.get();
+            values[4] = home;
+            values[5] = region;
+            values[6] = findUsers(userManager, memberUuids);
+            values[7] = new HashSet<Guild>();
+            values[8] = new HashSet<Guild>();
+            values[9] = born;
+            values[10] = validity;
+            values[11] = protection;
+            values[12] = lives;
+            values[13] = ban;
+            values[14] = findUsers(userManager, deputyUuids);
+            values[15] = pvp;
+
+            return DeserializationUtils.deserializeGuild(config, plugin.getGuildManager(), values);
+        }
+        catch (Exception exception) {
+            FunnyGuilds.getPluginLogger().error("Could not deserialize guild (name: " + name + ")", exception);
+        }
+
+        return Option.none();
+    }
+
+    /**
+     * Resolves allies and enemies of the guild, relations with guilds that no longer exist are dropped.
+     */
+    public static void deserializeRelations(Guild guild, byte[] payload) {
+        try (DataInputStream input = BinarySerializationUtils.read(payload)) {
+            BinarySerializationUtils.readUuid(input);
+            input.readUTF();
+            input.readUTF();
+            BinarySerializationUtils.readUuid(input);
+            BinarySerializationUtils.readNullableString(input);
+            BinarySerializationUtils.readNullableString(input);
+            BinarySerializationUtils.readUuids(input);
+            BinarySerializationUtils.readUuids(input);
+            input.skipBytes(8 + 8 + 8 + 4 + 8 + 1);
+
+            GuildManager guildManager = FunnyGuilds.getInstance().getGuildManager();
+            guild.setAllies(findGuilds(guildManager, BinarySerializationUtils.readUuids(input)));
+            guild.setEnemies(findGuilds(guildManager, BinarySerializationUtils.readUuids(input)));
+        }
+        catch (IOException exception) {
+            FunnyGuilds.getPluginLogger().error("Could not deserialize relations of guild " + guild.getName(), exception);
+        }
+    }
+
+    public static byte[] serialize(Guild guild) {
+        return BinarySerializationUtils.write(output -> {
+            BinarySerializationUtils.writeUuid(output, guild.getUUID());
+            output.writeUTF(guild.getName());
+            output.writeUTF(guild.getTag());
+            BinarySerializationUtils.writeUuid(output, guild.getOwner().getUUID());
+            BinarySerializationUtils.writeNullableString(output, guild.getHome().map(LocationUtils::toString).orNull());
+            BinarySerializationUtils.writeNullableString(output, guild.getRegion().map(Region::getName).orNull());
+            BinarySerializationUtils.writeUuids(output, PandaStream.of(guild.getMembers()).map(User::getUUID).toList());
+            BinarySerializationUtils.writeUuids(output, PandaStream.of(guild.getDeputies()).map(User::getUUID).toList());
+            output.writeLong(guild.getBorn().toEpochMilli());
+            output.writeLong(guild.getValidity().toEpochMilli());
+            output.writeLong(guild.getProtection().toEpochMilli());
+            output.writeInt(guild.getLives());
+            output.writeLong(guild.getBan().map(Instant::toEpochMilli).orElseGet(0L));
+            output.writeBoolean(guild.hasPvPEnabled());
+            BinarySerializationUtils.writeUuids(output, PandaStream.of(guild.getAllies()).map(Guild::getUUID).toList());
+            BinarySerializationUtils.writeUuids(output, PandaStream.of(guild.getEnemies()).map(Guild::getUUID).toList());
+        });
+    }
+
+    private static Set<User> findUsers(UserManager userManager, List<UUID> uuids) {
+        return PandaStream.of(uuids)
+                .flatMap(userManager::findByUuid)
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<Guild> findGuilds(GuildManager guildManager, List<UUID> uuids) {
+        return PandaStream.of(uuids)
+                .flatMap(guildManager::findByUuid)
+                .collect(Collectors.toSet());
+    }
+
+}
@@ -0,0 +1,58 @@
+package net.dzikoysk.funnyguilds.data.binary.serializer;
+
+import java.io.DataInputStream;
+import net.dzikoysk.funnyguilds.FunnyGuilds;
+import net.dzikoysk.funnyguilds.data.util.DeserializationUtils;
+import net.dzikoysk.funnyguilds.guild.Region;
+import net.dzikoysk.funnyguilds.shared.bukkit.LocationUtils;
+import org.bukkit.Location;
+import panda.std.Option;
+
+public final class BinaryRegionSerializer {
+
+    private BinaryRegionSerializer() {
+    }
+
+    public static Option<Region> deserialize(byte[] payload) {
+        String name = null;
+
+        try (DataInputStream input = BinarySerializationUtils.read(payload)) {
+            name = input.readUTF();
+            Location center = LocationUtils.parseLocation(input.readUTF());
+            int size = input.readInt();
+            int enlarge = input.readInt();
+
+            if (center == null) {
+                FunnyGuilds.getPluginLogger().deserialize("Cannot deserialize region: " + name + ", caused by: center is null");
+                return Option.none();
+            }
+
+            if (size < 1) {
+                size = FunnyGuilds.getInstance().getPluginConfiguration().regionSize;
+            }
+
+            Object[] values = new Object[4];
+            values[0] = name;
+            values[1] = center;
+            values[2] = size;
+            values[3] = enlarge;
+
+            return DeserializationUtils.deserializeRegion(FunnyGuilds.getInstance().getRegionManager(), values);
+        }
+        catch (Exception exception) {
+            FunnyGuilds.getPluginLogger().error("Could not deserialize region (name: " + name + ")", exception);
+        }
+
+        return Option.none();
+    }
+
+    public static byte[] serialize(Region region) {
+        return BinarySerializationUtils.write(output -> {
+            output.writeUTF(region.getName());
+            output.writeUTF(LocationUtils.toString(region.getCenter()));
+            output.writeInt(region.getSize());
+            output.writeInt(region.getEnlargementLevel());
+        });
+    }
+
+}
@@ -0,0 +1,89 @@
+package net.dzikoysk.funnyguilds.data.binary.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.jetbrains.annotations.Nullable;
+import panda.std.function.ThrowingConsumer;
+
+final class BinarySerializationUtils {
+
+    static final byte PAYLOAD_VERSION = 1;
+
+    private BinarySerializationUtils() {
+    }
+
+    static byte[] write(ThrowingConsumer<DataOutputStream, IOException> writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeByte(PAYLOAD_VERSION);
+            writer.accept(output);
+        }
+        catch (IOException exception) {
+            throw new UncheckedIOException("Could not serialize entity", exception);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    static DataInputStream read(byte[] payload) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+
+        byte version = input.readByte();
+        if (version != PAYLOAD_VERSION) {
+            throw new IOException("Unsupported version of payload: " + version);
+        }
+
+        return input;
+    }
+
+    static void writeUuid(DataOutputStream output, UUID uuid) throws IOException {
+        output.writeLong(uuid.getMostSignificantBits());
+        output.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    static UUID readUuid(DataInputStream input) throws IOException {
+        return new UUID(input.readLong(), input.readLong());
+    }
+
+    static void writeUuids(DataOutputStream output, Collection<UUID> uuids) throws IOException {
+        output.writeInt(uuids.size());
+
+        for (UUID uuid : uuids) {
+            writeUuid(output, uuid);
+        }
+    }
+
+    static List<UUID> readUuids(DataInputStream input) throws IOException {
+        int size = input.readInt();
+        List<UUID> uuids = new ArrayList<>(size);
+
+        for (int index = 0; index < size; index++) {
+            uuids.add(readUuid(input));
+        }
+
+        return uuids;
+    }
+
+    static void writeNullableString(DataOutputStream output, @Nullable String value) throws IOException {
+        output.writeBoolean(value != null);
+
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    static String readNullableString(DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+}
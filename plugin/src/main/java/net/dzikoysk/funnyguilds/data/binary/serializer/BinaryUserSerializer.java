@@ -0,0 +1,53 @@
+package net.dzikoysk.funnyguilds.data.binary.serializer;
+
+import java.io.DataInputStream;
+import java.time.Instant;
+import net.dzikoysk.funnyguilds.FunnyGuilds;
+import net.dzikoysk.funnyguilds.data.util.DeserializationUtils;
+import net.dzikoysk.funnyguilds.shared.TimeUtils;
+import net.dzikoysk.funnyguilds.user.User;
+import net.dzikoysk.funnyguilds.user.UserBan;
+import panda.std.Option;
+
+public final class BinaryUserSerializer {
+
+    private BinaryUserSerializer() {
+    }
+
+    public static Option<User> deserialize(byte[] payload) {
+        try (DataInputStream input = BinarySerializationUtils.read(payload)) {
+            Object[] values = new Object[9];
+            values[0] = BinarySerializationUtils.readUuid(input).toString();
+            values[1] = input.readUTF();
+            values[2] = input.readInt();
+            values[3] = input.readInt();
+            values[4] = input.readInt();
+            values[5] = input.readInt();
+            values[6] = input.readInt();
+            values[7] = TimeUtils.positiveOrNullInstant(input.readLong());
+            values[8] = BinarySerializationUtils.readNullableString(input);
+
+            return DeserializationUtils.deserializeUser(FunnyGuilds.getInstance().getUserManager(), values);
+        }
+        catch (Exception exception) {
+            FunnyGuilds.getPluginLogger().error("Could not deserialize user", exception);
+        }
+
+        return Option.none();
+    }
+
+    public static byte[] serialize(User user) {
+        return BinarySerializationUtils.write(output -> {
+            BinarySerializationUtils.writeUuid(output, user.getUUID());
+            output.writeUTF(user.getName());
+            output.writeInt(user.getRank().getPoints());
+            output.writeInt(user.getRank().getKills());
+            output.writeInt(user.getRank().getDeaths());
+            output.writeInt(user.getRank().getAssists());
+            output.writeInt(user.getRank().getLogouts());
+            output.writeLong(user.getBan().map(UserBan::getTime).map(Instant::toEpochMilli).orElseGet(0L));
+            BinarySerializationUtils.writeNullableString(output, user.getBan().map(UserBan::getReason).orNull());
+        });
+    }
+
+}
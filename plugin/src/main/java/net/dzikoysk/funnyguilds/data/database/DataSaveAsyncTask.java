@@ -1,21 +1,27 @@
 package net.dzikoysk.funnyguilds.data.database;
 
+import net.dzikoysk.funnyguilds.data.ChangeJournal;
 import net.dzikoysk.funnyguilds.data.DataModel;
 import net.dzikoysk.funnyguilds.shared.FunnyTask.AsyncFunnyTask;
+import panda.std.Option;
 
 public class DataSaveAsyncTask extends AsyncFunnyTask {
 
     private final DataModel dataModel;
+    private final Option<ChangeJournal> changeJournal;
     private final boolean fullSave;
 
-    public DataSaveAsyncTask(DataModel dataModel, boolean fullSave) {
+    public DataSaveAsyncTask(DataModel dataModel, Option<ChangeJournal> changeJournal, boolean fullSave) {
         this.dataModel = dataModel;
+        this.changeJournal = changeJournal;
         this.fullSave = fullSave;
     }
 
     @Override
     public void execute() {
-        this.dataModel.save(!this.fullSave);
+        this.changeJournal
+                .peek(journal -> journal.save(this.dataModel, !this.fullSave))
+                .onEmpty(() -> this.dataModel.save(!this.fullSave));
     }
 
 }
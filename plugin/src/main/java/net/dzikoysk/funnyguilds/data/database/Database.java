@@ -1,19 +1,28 @@
 package net.dzikoysk.funnyguilds.data.database;
 
 import com.zaxxer.hikari.HikariDataSource;
+import java.io.File;
 import java.sql.Connection;
 import java.sql.SQLException;
-import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.config.sections.MysqlConfiguration;
+import net.dzikoysk.funnyguilds.data.database.element.SQLDialect;
 import net.dzikoysk.funnyguilds.shared.FunnyStringUtils;
 
 public class Database {
 
+    private static final int SQLITE_POOL_SIZE = 4;
+    private static final int SQLITE_BUSY_TIMEOUT = 10000;
+
     private final HikariDataSource dataSource;
+    private final SQLDialect dialect;
+
+    private Database(HikariDataSource dataSource, SQLDialect dialect) {
+        this.dataSource = dataSource;
+        this.dialect = dialect;
+    }
 
-    public Database() {
-        this.dataSource = new HikariDataSource();
-        MysqlConfiguration c = FunnyGuilds.getInstance().getPluginConfiguration().mysql;
+    public static Database mysql(MysqlConfiguration c) {
+        HikariDataSource dataSource = new HikariDataSource();
 
         int poolSize = c.poolSize;
         if (poolSize <= 0) {
@@ -24,25 +33,57 @@ public class Database {
                 ? ""
                 : "&characterEncoding=" + c.characterEncoding;
 
-        this.dataSource.setMaximumPoolSize(poolSize);
-        this.dataSource.setConnectionTimeout(c.connectionTimeout);
-        this.dataSource.setJdbcUrl("jdbc:mysql://" + c.hostname + ":" + c.port + "/" + c.database + "?useSSL=" + c.useSSL + characterEncoding);
-        this.dataSource.setUsername(c.user);
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setConnectionTimeout(c.connectionTimeout);
+        dataSource.setJdbcUrl("jdbc:mysql://" + c.hostname + ":" + c.port + "/" + c.database + "?useSSL=" + c.useSSL + characterEncoding);
+        dataSource.setUsername(c.user);
 
         if (!FunnyStringUtils.isEmpty(c.password)) {
-            this.dataSource.setPassword(c.password);
+            dataSource.setPassword(c.password);
         }
 
-        this.dataSource.addDataSourceProperty("cachePrepStmts", true);
-        this.dataSource.addDataSourceProperty("prepStmtCacheSize", 250);
-        this.dataSource.addDataSourceProperty("prepStmtCacheSqlLimit", 2048);
-        this.dataSource.addDataSourceProperty("useServerPrepStmts", true);
+        dataSource.addDataSourceProperty("cachePrepStmts", true);
+        dataSource.addDataSourceProperty("prepStmtCacheSize", 250);
+        dataSource.addDataSourceProperty("prepStmtCacheSqlLimit", 2048);
+        dataSource.addDataSourceProperty("useServerPrepStmts", true);
+        dataSource.addDataSourceProperty("rewriteBatchedStatements", true);
+        // Respect fetch size of streamed queries, by default the driver reads the whole result at once
+        dataSource.addDataSourceProperty("useCursorFetch", true);
+
+        return new Database(dataSource, SQLDialect.MYSQL);
+    }
+
+    /**
+     * Creates embedded database stored in the single file. The driver is provided by the server.
+     * Database works in WAL mode, so reads are not blocked by the running save.
+     *
+     * @param file              file of the database
+     * @param connectionTimeout maximal time of waiting for the connection from the pool, in milliseconds
+     */
+    public static Database sqlite(File file, int connectionTimeout) {
+        HikariDataSource dataSource = new HikariDataSource();
+
+        dataSource.setDriverClassName("org.sqlite.JDBC");
+        dataSource.setJdbcUrl("jdbc:sqlite:" + file.getAbsolutePath());
+        dataSource.setMaximumPoolSize(SQLITE_POOL_SIZE);
+        dataSource.setConnectionTimeout(connectionTimeout);
+
+        // SQLite allows single writer at the time, other connections wait for the lock instead of failing immediately
+        dataSource.addDataSourceProperty("journal_mode", "WAL");
+        dataSource.addDataSourceProperty("synchronous", "NORMAL");
+        dataSource.addDataSourceProperty("busy_timeout", SQLITE_BUSY_TIMEOUT);
+
+        return new Database(dataSource, SQLDialect.SQLITE);
     }
 
     public Connection getConnection() throws SQLException {
         return this.dataSource.getConnection();
     }
 
+    public SQLDialect getDialect() {
+        return this.dialect;
+    }
+
     public void shutdown() {
         this.dataSource.close();
     }
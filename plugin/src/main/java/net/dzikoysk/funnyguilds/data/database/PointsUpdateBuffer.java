@@ -0,0 +1,133 @@
+package net.dzikoysk.funnyguilds.data.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.dzikoysk.funnyguilds.FunnyGuilds;
+import net.dzikoysk.funnyguilds.config.sections.MysqlConfiguration;
+import net.dzikoysk.funnyguilds.data.MutableEntity;
+import net.dzikoysk.funnyguilds.data.database.element.SQLBasicUtils;
+import net.dzikoysk.funnyguilds.data.database.element.SQLTable;
+import net.dzikoysk.funnyguilds.data.database.serializer.DatabaseGuildSerializer;
+import net.dzikoysk.funnyguilds.data.database.serializer.DatabaseUserSerializer;
+import net.dzikoysk.funnyguilds.guild.Guild;
+import net.dzikoysk.funnyguilds.user.User;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Write-behind buffer of points updates. Entities marked multiple times before the flush are written once, with their latest points,
+ * in batched statements - on a short interval, when the buffer grows over the threshold, on player quit and on shutdown.
+ */
+public class PointsUpdateBuffer {
+
+    private static final int POINTS_FIELD = MutableEntity.mask(User.Field.POINTS);
+
+    private final FunnyGuilds plugin;
+
+    private final Set<User> users = ConcurrentHashMap.newKeySet();
+    private final Set<Guild> guilds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private volatile BukkitTask flushTask;
+
+    public PointsUpdateBuffer(FunnyGuilds plugin) {
+        this.plugin = plugin;
+    }
+
+    public void startHandler() {
+        long interval = Math.max(1, this.plugin.getPluginConfiguration().mysql.pointsFlushInterval);
+
+        if (this.flushTask != null) {
+            this.flushTask.cancel();
+        }
+
+        this.flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this.plugin, this::flush, interval, interval);
+    }
+
+    public void stopHandler() {
+        if (this.flushTask == null) {
+            return;
+        }
+
+        this.flushTask.cancel();
+        this.flushTask = null;
+    }
+
+    public void markUser(User user) {
+        this.users.add(user);
+        this.checkThreshold();
+    }
+
+    public void markGuild(Guild guild) {
+        this.guilds.add(guild);
+        this.checkThreshold();
+    }
+
+    /**
+     * Schedules asynchronous flush of the buffer, unless it's already scheduled.
+     */
+    public void flushAsync() {
+        if (this.isEmpty() || !this.flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        Bukkit.getScheduler().runTaskAsynchronously(this.plugin, () -> {
+            this.flushScheduled.set(false);
+            this.flush();
+        });
+    }
+
+    /**
+     * Writes all buffered updates in the current thread.
+     */
+    public synchronized void flush() {
+        if (this.isEmpty()) {
+            return;
+        }
+
+        SQLDataModel dataModel = (SQLDataModel) this.plugin.getDataModel();
+        int batchSize = this.plugin.getPluginConfiguration().mysql.batchSize;
+
+        List<User> pendingUsers = drain(this.users);
+        if (!pendingUsers.isEmpty()) {
+            SQLTable table = dataModel.getUsersTable();
+            SQLBasicUtils.getUpdate(table, table.getSQLElement("points").orNull())
+                    .executeBatch(pendingUsers, DatabaseUserSerializer::bindPoints, user -> user.markUnchanged(POINTS_FIELD), batchSize);
+        }
+
+        List<Guild> pendingGuilds = drain(this.guilds);
+        if (!pendingGuilds.isEmpty()) {
+            SQLTable table = dataModel.getGuildsTable();
+            SQLBasicUtils.getUpdate(table, table.getSQLElement("points").orNull())
+                    .executeBatch(pendingGuilds, DatabaseGuildSerializer::bindPoints, guild -> {}, batchSize);
+        }
+
+        FunnyGuilds.getPluginLogger().debug("Flushed points of " + pendingUsers.size() + " users and " + pendingGuilds.size() + " guilds");
+    }
+
+    private boolean isEmpty() {
+        return this.users.isEmpty() && this.guilds.isEmpty();
+    }
+
+    private void checkThreshold() {
+        MysqlConfiguration config = this.plugin.getPluginConfiguration().mysql;
+        if (this.users.size() + this.guilds.size() >= config.pointsFlushThreshold) {
+            this.flushAsync();
+        }
+    }
+
+    private static <T> List<T> drain(Set<T> pending) {
+        List<T> drained = new ArrayList<>(pending.size());
+        for (T entity : pending) {
+            if (pending.remove(entity)) {
+                drained.add(entity);
+            }
+        }
+
+        return drained;
+    }
+
+}
@@ -1,25 +1,64 @@
 package net.dzikoysk.funnyguilds.data.database;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.config.PluginConfiguration;
 import net.dzikoysk.funnyguilds.data.DataModel;
+import net.dzikoysk.funnyguilds.data.MutableEntity;
 import net.dzikoysk.funnyguilds.data.database.element.SQLBasicUtils;
+import net.dzikoysk.funnyguilds.data.database.element.SQLDialect;
+import net.dzikoysk.funnyguilds.data.database.element.SQLElement;
+import net.dzikoysk.funnyguilds.data.database.element.SQLNamedStatement;
+import net.dzikoysk.funnyguilds.data.database.element.SQLNamedStatement.BatchResult;
+import net.dzikoysk.funnyguilds.data.database.element.SQLRow;
 import net.dzikoysk.funnyguilds.data.database.element.SQLTable;
 import net.dzikoysk.funnyguilds.data.database.element.SQLType;
 import net.dzikoysk.funnyguilds.data.database.serializer.DatabaseGuildSerializer;
+import net.dzikoysk.funnyguilds.data.database.serializer.DatabaseGuildSerializer.ParsedGuild;
 import net.dzikoysk.funnyguilds.data.database.serializer.DatabaseRegionSerializer;
 import net.dzikoysk.funnyguilds.data.database.serializer.DatabaseUserSerializer;
+import net.dzikoysk.funnyguilds.data.util.DeserializationUtils;
+import net.dzikoysk.funnyguilds.data.util.GuildRelationResolver;
 import net.dzikoysk.funnyguilds.feature.scoreboard.ScoreboardGlobalUpdateSyncTask;
-import net.dzikoysk.funnyguilds.guild.Guild;
 import net.dzikoysk.funnyguilds.guild.GuildManager;
 import net.dzikoysk.funnyguilds.guild.RegionManager;
-import net.dzikoysk.funnyguilds.shared.FunnyStringUtils;
 import net.dzikoysk.funnyguilds.shared.FunnyValidator;
 import net.dzikoysk.funnyguilds.shared.FunnyValidator.NameResult;
+import net.dzikoysk.funnyguilds.user.User;
+import net.dzikoysk.funnyguilds.user.UserLoader;
+import net.dzikoysk.funnyguilds.user.UserManager;
+import net.dzikoysk.funnyguilds.user.UserRank;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
 import panda.std.Option;
+import panda.std.stream.PandaStream;
 
-public class SQLDataModel implements DataModel {
+public class SQLDataModel implements DataModel, UserLoader {
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int DESERIALIZATION_CHUNK_SIZE = 512;
+    // Kept below the limit of parameters of a statement in older versions of SQLite (999)
+    private static final int USERS_LOAD_BATCH_SIZE = 500;
 
     private final FunnyGuilds plugin;
     private final PluginConfiguration pluginConfiguration;
@@ -28,14 +67,20 @@ public class SQLDataModel implements DataModel {
     private final SQLTable guildsTable;
     private final SQLTable regionsTable;
 
+    // Taken by the main thread, as the data is loaded in the background
+    private final Set<UUID> onlinePlayers;
 
     public SQLDataModel(FunnyGuilds plugin) {
         this.plugin = plugin;
         this.pluginConfiguration = plugin.getPluginConfiguration();
+        this.onlinePlayers = PandaStream.of(plugin.getServer().getOnlinePlayers())
+                .map(Player::getUniqueId)
+                .collect(Collectors.toSet());
 
-        this.usersTable = new SQLTable(this.pluginConfiguration.mysql.usersTableName);
-        this.guildsTable = new SQLTable(this.pluginConfiguration.mysql.guildsTableName);
-        this.regionsTable = new SQLTable(this.pluginConfiguration.mysql.regionsTableName);
+        SQLDialect dialect = plugin.getDatabase().getDialect();
+        this.usersTable = new SQLTable(this.pluginConfiguration.mysql.usersTableName, dialect);
+        this.guildsTable = new SQLTable(this.pluginConfiguration.mysql.guildsTableName, dialect);
+        this.regionsTable = new SQLTable(this.pluginConfiguration.mysql.regionsTableName, dialect);
 
         this.prepareTables();
     }
@@ -78,22 +123,54 @@ public class SQLDataModel implements DataModel {
         this.regionsTable.add("size", SQLType.INT, true);
         this.regionsTable.add("enlarge", SQLType.INT, true);
         this.regionsTable.setPrimaryKey("name");
+
+        // Build statement templates upfront, so invalid table definitions fail on startup instead of during the first save
+        for (SQLTable table : Arrays.asList(this.usersTable, this.guildsTable, this.regionsTable)) {
+            SQLBasicUtils.getInsert(table);
+            SQLBasicUtils.getDelete(table);
+        }
     }
 
     public void load() throws SQLException {
-        createTableIfNotExists(this.usersTable);
-        createTableIfNotExists(this.regionsTable);
-        createTableIfNotExists(this.guildsTable);
+        this.createMigrator().migrate();
+
+        ForkJoinPool deserializationPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        try {
+            if (this.pluginConfiguration.mysql.loadUsersOnDemand) {
+                this.plugin.getUserManager().setUserLoader(this);
+                this.indexUsers();
+            }
+            else {
+                this.loadUsers(deserializationPool);
+            }
 
-        this.loadUsers();
-        this.loadRegions();
-        this.loadGuilds();
+            this.loadRegions(deserializationPool);
+            this.loadGuilds(deserializationPool);
+        }
+        finally {
+            deserializationPool.shutdown();
+        }
 
         this.plugin.getIndividualNameTagManager().map(ScoreboardGlobalUpdateSyncTask::new).peek(this.plugin::scheduleFunnyTasks);
     }
 
-    public void loadUsers() {
-        SQLBasicUtils.getSelectAll(this.usersTable).executeQuery(result -> {
+    private void loadUsers(ForkJoinPool deserializationPool) throws SQLException {
+        long start = System.nanoTime();
+
+        this.streamRows(SQLBasicUtils.getSelectAll(this.usersTable), deserializationPool, this::parseUser, this::deserializeUser);
+
+        FunnyGuilds.getPluginLogger().info("Loaded users: " + this.plugin.getUserManager().countUsers() + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    /**
+     * Reads only identities and statistics of users into the index of users, users are loaded on demand.
+     */
+    private void indexUsers() throws SQLException {
+        long start = System.nanoTime();
+        UserManager userManager = this.plugin.getUserManager();
+
+        SQLBasicUtils.getSelect(this.usersTable, "uuid", "name", "points", "kills", "deaths", "assists", "logouts").executeStreamingQuery(FETCH_SIZE, result -> {
             while (result.next()) {
                 String userName = result.getString("name");
 
@@ -102,84 +179,266 @@ public class SQLDataModel implements DataModel {
                     continue;
                 }
 
-                DatabaseUserSerializer.deserialize(result);
+                try {
+                    userManager.indexUser(UserRank.unloaded(UUID.fromString(result.getString("uuid")), userName, result.getInt("points"),
+                            result.getInt("kills"), result.getInt("deaths"), result.getInt("assists"), result.getInt("logouts")));
+                }
+                catch (IllegalArgumentException exception) {
+                    FunnyGuilds.getPluginLogger().error("Could not index user '" + userName + "'", exception);
+                }
             }
         });
 
-        FunnyGuilds.getPluginLogger().info("Loaded users: " + this.plugin.getUserManager().countUsers());
+        FunnyGuilds.getPluginLogger().info("Indexed users: " + userManager.countUsers() + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
     }
 
-    public void loadGuilds() {
-        GuildManager guildManager = this.plugin.getGuildManager();
+    /**
+     * Loads users referenced by the guilds and players online when the model was created, before the guilds are deserialized.
+     */
+    private void loadGuildUsers(List<ParsedGuild> guilds) throws SQLException {
+        long start = System.nanoTime();
+        UserManager userManager = this.plugin.getUserManager();
+        Set<UUID> uuids = new LinkedHashSet<>();
+
+        for (ParsedGuild guild : guilds) {
+            guild.getUserNames().forEach(name -> userManager.findUuidByName(name).peek(uuids::add));
+        }
+
+        uuids.addAll(this.onlinePlayers);
+
+        int loadedUsers = this.loadUsers(uuids);
+        FunnyGuilds.getPluginLogger().info("Loaded users: " + loadedUsers + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
 
-        SQLBasicUtils.getSelectAll(this.guildsTable).executeQuery(resultAll -> {
-            while (resultAll.next()) {
-                DatabaseGuildSerializer.deserialize(resultAll);
+    /**
+     * Loads the user on demand.
+     */
+    @Override
+    public Option<User> loadUser(UUID uuid) {
+        try {
+            this.loadUsers(Collections.singletonList(uuid));
+        }
+        catch (SQLException exception) {
+            FunnyGuilds.getPluginLogger().error("Could not load user " + uuid, exception);
+        }
+
+        return this.plugin.getUserManager().findLoadedByUuid(uuid);
+    }
+
+    /**
+     * Loads users with the given identifiers in batches.
+     *
+     * @return amount of loaded users
+     */
+    private int loadUsers(Collection<UUID> uuids) throws SQLException {
+        List<UUID> remaining = new ArrayList<>(uuids);
+        AtomicInteger loadedUsers = new AtomicInteger();
+
+        for (int from = 0; from < remaining.size(); from += USERS_LOAD_BATCH_SIZE) {
+            List<UUID> batch = remaining.subList(from, Math.min(remaining.size(), from + USERS_LOAD_BATCH_SIZE));
+            SQLNamedStatement statement = SQLBasicUtils.getSelectIn(this.usersTable, "uuid", batch.size());
+
+            for (int index = 0; index < batch.size(); index++) {
+                statement.set(index + 1, batch.get(index).toString());
             }
-        });
 
-        SQLBasicUtils.getSelect(this.guildsTable, "tag", "allies", "enemies").executeQuery(result -> {
-            while (result.next()) {
-                Option<Guild> guildOption = guildManager.findByTag(result.getString("tag"));
-                if (guildOption.isEmpty()) {
-                    continue;
+            statement.executeStreamingQuery(FETCH_SIZE, result -> {
+                Map<String, Integer> columns = SQLRow.columns(result);
+
+                while (result.next()) {
+                    if (this.parseUser(SQLRow.of(columns, result)).flatMap(this::deserializeUser).isPresent()) {
+                        loadedUsers.incrementAndGet();
+                    }
                 }
+            });
+        }
 
-                Guild guild = guildOption.get();
-                String alliesList = result.getString("allies");
-                String enemiesList = result.getString("enemies");
+        return loadedUsers.get();
+    }
 
-                if (alliesList != null && !alliesList.isEmpty()) {
-                    guild.setAllies(guildManager.findByNames(FunnyStringUtils.fromString(alliesList)));
-                }
+    private Option<Object[]> parseUser(SQLRow row) {
+        String userName = row.getString("name");
 
-                if (enemiesList != null && !enemiesList.isEmpty()) {
-                    guild.setEnemies(guildManager.findByNames(FunnyStringUtils.fromString(enemiesList)));
-                }
-            }
-        });
+        if (FunnyValidator.validateUsername(this.pluginConfiguration, userName) != NameResult.VALID) {
+            FunnyGuilds.getPluginLogger().warning("Skipping loading of user '" + userName + "' - name is invalid");
+            return Option.none();
+        }
+
+        return DatabaseUserSerializer.parse(row);
+    }
+
+    private Option<User> deserializeUser(Object[] values) {
+        return DeserializationUtils.deserializeUser(this.plugin.getUserManager(), values);
+    }
+
+    private void loadGuilds(ForkJoinPool deserializationPool) throws SQLException {
+        long start = System.nanoTime();
+        GuildManager guildManager = this.plugin.getGuildManager();
+        GuildRelationResolver relations = new GuildRelationResolver();
+
+        Consumer<ParsedGuild> deserializer = guild -> DatabaseGuildSerializer.deserialize(guild, relations);
+
+        if (this.pluginConfiguration.mysql.loadUsersOnDemand) {
+            // Guilds are parsed upfront, as users of guilds have to be loaded before the guilds are deserialized
+            List<ParsedGuild> guilds = new ArrayList<>();
+            this.streamRows(SQLBasicUtils.getSelectAll(this.guildsTable), deserializationPool, DatabaseGuildSerializer::parse, guilds::add);
+
+            this.loadGuildUsers(guilds);
+            guilds.forEach(deserializer);
+        }
+        else {
+            this.streamRows(SQLBasicUtils.getSelectAll(this.guildsTable), deserializationPool, DatabaseGuildSerializer::parse, deserializer);
+        }
 
         guildManager.getGuilds().stream()
                 .filter(guild -> guild.getOwner() == null)
                 .forEach(guild -> guildManager.deleteGuild(FunnyGuilds.getInstance(), guild));
 
-        FunnyGuilds.getPluginLogger().info("Loaded guilds: " + guildManager.countGuilds());
+        int fixedAlliances = relations.resolve(guildManager, this.plugin.getUserManager());
+        if (fixedAlliances > 0) {
+            FunnyGuilds.getPluginLogger().warning("Fixed " + fixedAlliances + " alliances which were not mutual");
+        }
+
+        FunnyGuilds.getPluginLogger().info("Loaded guilds: " + guildManager.countGuilds() + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
     }
 
-    public void loadRegions() {
+    private void loadRegions(ForkJoinPool deserializationPool) throws SQLException {
         if (!this.plugin.getPluginConfiguration().regionsEnabled) {
             FunnyGuilds.getPluginLogger().info("Regions are disabled and thus - not loaded");
             return;
         }
 
+        long start = System.nanoTime();
         RegionManager regionManager = this.plugin.getRegionManager();
 
-        SQLBasicUtils.getSelectAll(this.regionsTable).executeQuery(result -> {
+        // Regions are deserialized (and added to the manager) by the reading thread, as indexes of the manager are not thread-safe
+        this.streamRows(SQLBasicUtils.getSelectAll(this.regionsTable), deserializationPool, DatabaseRegionSerializer::parse,
+                values -> DeserializationUtils.deserializeRegion(regionManager, values));
+
+        FunnyGuilds.getPluginLogger().info("Loaded regions: " + regionManager.countRegions() + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    /**
+     * Streams rows of the query in chunks. Rows of a chunk are parsed on the pool, while the next chunk is read from the database.
+     * Parser must not touch shared state (e.g. managers), entities are created and registered only by the consumer.
+     *
+     * @param statement the query
+     * @param pool      pool parsing the rows
+     * @param parser    function parsing the row into plain values, called on the pool
+     * @param consumer  consumer of parsed values, called on the reading thread in the order of rows
+     */
+    private <T> void streamRows(SQLNamedStatement statement, ForkJoinPool pool, Function<SQLRow, Option<T>> parser, Consumer<T> consumer) throws SQLException {
+        AtomicReference<ForkJoinTask<List<Option<T>>>> pendingChunk = new AtomicReference<>();
+
+        statement.executeStreamingQuery(FETCH_SIZE, result -> {
+            Map<String, Integer> columns = SQLRow.columns(result);
+            List<SQLRow> chunk = new ArrayList<>(DESERIALIZATION_CHUNK_SIZE);
+
             while (result.next()) {
-                DatabaseRegionSerializer.deserialize(result).peek(regionManager::addRegion);
+                chunk.add(SQLRow.of(columns, result));
+
+                if (chunk.size() >= DESERIALIZATION_CHUNK_SIZE) {
+                    acceptChunk(pendingChunk.getAndSet(submitChunk(pool, chunk, parser)), consumer);
+                    chunk = new ArrayList<>(DESERIALIZATION_CHUNK_SIZE);
+                }
             }
+
+            acceptChunk(pendingChunk.getAndSet(submitChunk(pool, chunk, parser)), consumer);
         });
 
-        FunnyGuilds.getPluginLogger().info("Loaded regions: " + regionManager.countRegions());
+        acceptChunk(pendingChunk.getAndSet(null), consumer);
+    }
+
+    private static <T> ForkJoinTask<List<Option<T>>> submitChunk(ForkJoinPool pool, List<SQLRow> chunk, Function<SQLRow, Option<T>> parser) {
+        return pool.submit(() -> chunk.parallelStream()
+                .map(parser)
+                .collect(Collectors.toList()));
+    }
+
+    private static <T> void acceptChunk(@Nullable ForkJoinTask<List<Option<T>>> chunk, Consumer<T> consumer) {
+        if (chunk != null) {
+            chunk.join().forEach(values -> values.peek(consumer));
+        }
     }
 
     @Override
     public void save(boolean ignoreNotChanged) {
-        this.plugin.getUserManager().getUsers().stream()
-                .filter(user -> !ignoreNotChanged || user.wasChanged())
-                .forEach(DatabaseUserSerializer::serialize);
-
-        this.plugin.getGuildManager().getGuilds().stream()
-                .filter(guild -> !ignoreNotChanged || guild.wasChanged())
-                .forEach(DatabaseGuildSerializer::serialize);
+        this.saveTable(this.usersTable, this.plugin.getUserManager().getUsers(), ignoreNotChanged, DatabaseUserSerializer::bind,
+                DatabaseUserSerializer::getChangedColumns, DatabaseUserSerializer::bindColumns);
+        this.saveTable(this.guildsTable, this.plugin.getGuildManager().getGuilds(), ignoreNotChanged, DatabaseGuildSerializer::bind,
+                DatabaseGuildSerializer::getChangedColumns, DatabaseGuildSerializer::bindColumns);
 
         if (!this.plugin.getPluginConfiguration().regionsEnabled) {
             return;
         }
 
-        this.plugin.getRegionManager().getRegions().stream()
-                .filter(region -> !ignoreNotChanged || region.wasChanged())
-                .forEach(DatabaseRegionSerializer::serialize);
+        // Rows of regions are small enough to be always written as a whole
+        this.saveTable(this.regionsTable, this.plugin.getRegionManager().getRegions(), ignoreNotChanged, DatabaseRegionSerializer::bind, null, null);
+    }
+
+    /**
+     * Saves entities of the table. Entities changed as a whole (or all entities, if changes are not ignored) are upserted,
+     * the rest is grouped by the mask of changed fields and updated only in the columns storing these fields.
+     */
+    private <T extends MutableEntity> void saveTable(SQLTable table, Collection<T> entities, boolean ignoreNotChanged, BiConsumer<SQLNamedStatement, T> binder,
+                                                     @Nullable IntFunction<List<String>> changedColumns, @Nullable ColumnsBinder<T> columnsBinder) {
+        Map<Integer, List<T>> changed = new HashMap<>();
+
+        for (T entity : entities) {
+            int fields = entity.getChangedFields();
+            if (ignoreNotChanged && fields == 0) {
+                continue;
+            }
+
+            if (!ignoreNotChanged || changedColumns == null) {
+                fields = MutableEntity.ALL_FIELDS;
+            }
+
+            changed.computeIfAbsent(fields, key -> new ArrayList<>()).add(entity);
+        }
+
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        int batchSize = this.pluginConfiguration.mysql.batchSize;
+        BatchResult result = new BatchResult();
+        long start = System.nanoTime();
+
+        changed.forEach((fields, group) -> {
+            Consumer<T> committed = entity -> entity.markUnchanged(fields);
+
+            if (fields == MutableEntity.ALL_FIELDS) {
+                result.merge(SQLBasicUtils.getInsert(table).executeBatch(group, binder, committed, batchSize));
+                return;
+            }
+
+            List<String> columns = changedColumns.apply(fields);
+            if (columns.isEmpty()) {
+                group.forEach(committed);
+                return;
+            }
+
+            List<SQLElement> elements = PandaStream.of(columns)
+                    .map(column -> table.getSQLElement(column).orThrow(() -> new IllegalArgumentException("Table " + table.getName() + " has no column " + column)))
+                    .toList();
+
+            result.merge(SQLBasicUtils.getUpdate(table, elements)
+                    .executeBatch(group, (statement, entity) -> columnsBinder.bind(statement, entity, columns), committed, batchSize));
+        });
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        String summary = String.format("Saved %d rows in %d batches to table %s in %d ms", result.getRows(), result.getBatches(), table.getName(), elapsed);
+        if (result.getFailedRows() > 0) {
+            FunnyGuilds.getPluginLogger().warning(summary + " (" + result.getFailedRows() + " rows failed)");
+        }
+        else if (ignoreNotChanged) {
+            FunnyGuilds.getPluginLogger().debug(summary);
+        }
+        else {
+            FunnyGuilds.getPluginLogger().info(summary);
+        }
     }
 
     public SQLTable getUsersTable() {
@@ -194,9 +453,29 @@ public class SQLDataModel implements DataModel {
         return this.regionsTable;
     }
 
-    private static void createTableIfNotExists(SQLTable table) {
-        SQLBasicUtils.getCreate(table).executeUpdate();
-        table.getSqlElements().forEach(sqlElement -> SQLBasicUtils.getAlter(table, sqlElement).executeUpdate(true));
+    /**
+     * Creates migrator of the schema. Changes of tables (e.g. new columns) have to be added as new migrations,
+     * as tables are not compared with their definitions once they are migrated.
+     */
+    private SQLMigrator createMigrator() {
+        return new SQLMigrator(this.plugin.getDatabase(), this.pluginConfiguration.mysql.schemaTableName)
+                .migration(1, "create tables and indexes", connection -> {
+                    // Tables created by older versions of the plugin may lack some columns
+                    SQLMigrator.createTable(connection, this.usersTable);
+                    SQLMigrator.createTable(connection, this.regionsTable);
+                    SQLMigrator.createTable(connection, this.guildsTable);
+
+                    SQLMigrator.createIndex(connection, this.usersTable, "name");
+                    SQLMigrator.createIndex(connection, this.guildsTable, "name");
+                    SQLMigrator.createIndex(connection, this.guildsTable, "tag");
+                });
+    }
+
+    @FunctionalInterface
+    private interface ColumnsBinder<T> {
+
+        void bind(SQLNamedStatement statement, T entity, List<String> columns);
+
     }
 
 }
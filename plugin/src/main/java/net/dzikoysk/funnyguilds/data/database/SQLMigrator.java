@@ -0,0 +1,183 @@
+package net.dzikoysk.funnyguilds.data.database;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.dzikoysk.funnyguilds.FunnyGuilds;
+import net.dzikoysk.funnyguilds.data.database.element.SQLBasicUtils;
+import net.dzikoysk.funnyguilds.data.database.element.SQLElement;
+import net.dzikoysk.funnyguilds.data.database.element.SQLNamedStatement;
+import net.dzikoysk.funnyguilds.data.database.element.SQLTable;
+import net.dzikoysk.funnyguilds.data.database.element.SQLType;
+
+/**
+ * Migrates schema of the database. Applied versions of the schema are stored in the schema table, so only pending migrations
+ * are executed, in the order of their versions. Some databases (e.g. MySQL) commit schema changes implicitly,
+ * so migrations should check the current schema instead of relying on a rollback.
+ */
+public class SQLMigrator {
+
+    private final Database database;
+    private final SQLTable schemaTable;
+    private final Map<Integer, VersionedMigration> migrations = new TreeMap<>();
+
+    public SQLMigrator(Database database, String schemaTableName) {
+        this.database = database;
+
+        this.schemaTable = new SQLTable(schemaTableName, database.getDialect());
+        this.schemaTable.add("version", SQLType.INT, true);
+        this.schemaTable.add("description", SQLType.TEXT, true);
+        this.schemaTable.add("applied", SQLType.BIGINT, true);
+        this.schemaTable.setPrimaryKey("version");
+    }
+
+    /**
+     * Adds migration to the given version of the schema.
+     *
+     * @param version     version of the schema, greater than 0
+     * @param description description of the migration, stored in the schema table
+     * @param migration   the migration
+     */
+    public SQLMigrator migration(int version, String description, Migration migration) {
+        if (version < 1) {
+            throw new IllegalArgumentException("Version of the schema must be greater than 0");
+        }
+
+        if (this.migrations.putIfAbsent(version, new VersionedMigration(description, migration)) != null) {
+            throw new IllegalArgumentException("Duplicated migration to version " + version);
+        }
+
+        return this;
+    }
+
+    /**
+     * Executes pending migrations.
+     *
+     * @return current version of the schema
+     * @throws SQLException if any of the migrations failed, following migrations are not executed
+     */
+    public int migrate() throws SQLException {
+        try (Connection connection = this.database.getConnection()) {
+            if (connection == null) {
+                throw new SQLException("Connection is null");
+            }
+
+            SQLBasicUtils.getCreate(this.schemaTable).executeUpdate(connection);
+            int currentVersion = this.getVersion(connection);
+
+            for (Map.Entry<Integer, VersionedMigration> entry : this.migrations.entrySet()) {
+                int version = entry.getKey();
+                if (version <= currentVersion) {
+                    continue;
+                }
+
+                VersionedMigration migration = entry.getValue();
+                long start = System.nanoTime();
+                migration.migration.migrate(connection);
+
+                SQLNamedStatement statement = SQLBasicUtils.getInsert(this.schemaTable);
+                statement.set("version", version);
+                statement.set("description", migration.description);
+                statement.set("applied", System.currentTimeMillis());
+                statement.executeUpdate(connection);
+
+                currentVersion = version;
+                FunnyGuilds.getPluginLogger().info("Migrated database to version " + version + " (" + migration.description + ") in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            }
+
+            return currentVersion;
+        }
+    }
+
+    private int getVersion(Connection connection) throws SQLException {
+        AtomicInteger version = new AtomicInteger();
+
+        SQLBasicUtils.getSelect(this.schemaTable, "version").executeQuery(connection, result -> {
+            while (result.next()) {
+                version.set(Math.max(version.get(), result.getInt("version")));
+            }
+        });
+
+        return version.get();
+    }
+
+    /**
+     * Creates the table or adds its missing columns, if the table already exists.
+     */
+    public static void createTable(Connection connection, SQLTable table) throws SQLException {
+        Set<String> columns = getColumns(connection, table);
+
+        if (columns.isEmpty()) {
+            SQLBasicUtils.getCreate(table).executeUpdate(connection);
+            return;
+        }
+
+        for (SQLElement element : table.getSqlElements()) {
+            if (!columns.contains(element.getKey().toLowerCase(Locale.ROOT))) {
+                SQLBasicUtils.getAlter(table, element).executeUpdate(connection);
+            }
+        }
+    }
+
+    /**
+     * Creates index of the column, unless it already exists.
+     */
+    public static void createIndex(Connection connection, SQLTable table, String column) throws SQLException {
+        String indexName = SQLBasicUtils.getIndexName(table, column);
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, table.getName(), false, false)) {
+            while (indexes.next()) {
+                if (indexName.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return;
+                }
+            }
+        }
+
+        SQLBasicUtils.getCreateIndex(table, column).executeUpdate(connection);
+    }
+
+    private static Set<String> getColumns(Connection connection, SQLTable table) throws SQLException {
+        Set<String> columns = new HashSet<>();
+
+        try (ResultSet result = connection.getMetaData().getColumns(connection.getCatalog(), null, table.getName(), null)) {
+            while (result.next()) {
+                // Name of the table is a pattern, in which '_' matches any character
+                if (table.getName().equalsIgnoreCase(result.getString("TABLE_NAME"))) {
+                    columns.add(result.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+
+        return columns;
+    }
+
+    @FunctionalInterface
+    public interface Migration {
+
+        void migrate(Connection connection) throws SQLException;
+
+    }
+
+    private static final class VersionedMigration {
+
+        private final String description;
+        private final Migration migration;
+
+        private VersionedMigration(String description, Migration migration) {
+            this.description = description;
+            this.migration = migration;
+        }
+
+    }
+
+}
@@ -1,6 +1,8 @@
 package net.dzikoysk.funnyguilds.data.database.element;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.stream.Collectors;
 import panda.std.stream.PandaStream;
 import panda.utilities.text.Joiner;
@@ -15,6 +17,10 @@ public final class SQLBasicUtils {
             throw new IllegalArgumentException("Given SQLTable is null");
         }
 
+        return table.getTemplate("insert", () -> buildInsert(table)).newStatement();
+    }
+
+    private static SQLStatementTemplate buildInsert(SQLTable table) {
         StringBuilder query = new StringBuilder();
 
         query.append("INSERT INTO ");
@@ -23,10 +29,10 @@ public final class SQLBasicUtils {
         query.append(Joiner.on(", ").join(table.getSqlElements(), SQLElement::getKeyGraveAccent));
         query.append(") VALUES (");
         query.append(Joiner.on(", ").join(table.getSqlElements(), sqlElement -> "?"));
-        query.append(") ON DUPLICATE KEY UPDATE ");
-        query.append(Joiner.on(", ").join(table.getSqlElements(), SQLElement::getKeyValuesAssignment));
+        query.append(")");
+        query.append(table.getDialect().getUpsertClause(table));
 
-        return new SQLNamedStatement(query.toString(), table.getMapElementsKey());
+        return new SQLStatementTemplate(query.toString(), table.getMapElementsKey());
     }
 
     public static SQLNamedStatement getSelect(SQLTable table, String... sqlElements) {
@@ -38,18 +44,22 @@ public final class SQLBasicUtils {
             throw new IllegalArgumentException("Given sqlElements String array is empty");
         }
 
+        return table.getTemplate("select:" + String.join(",", sqlElements), () -> buildSelect(table, sqlElements)).newStatement();
+    }
+
+    private static SQLStatementTemplate buildSelect(SQLTable table, String... sqlElements) {
         StringBuilder query = new StringBuilder();
 
         query.append("SELECT ");
         query.append(PandaStream.of(sqlElements)
-                .mapOpt(table::getSQLElement)
+                .map(key -> table.getSQLElement(key).orThrow(() -> new IllegalArgumentException("Table " + table.getName() + " has no column " + key)))
                 .map(SQLElement::getKeyGraveAccent)
                 .collect(Collectors.joining(", "))
         );
         query.append(" FROM ");
         query.append(table.getNameGraveAccent());
 
-        return new SQLNamedStatement(query.toString(), new HashMap<>());
+        return new SQLStatementTemplate(query.toString(), new HashMap<>());
     }
 
     public static SQLNamedStatement getSelectAll(SQLTable table) {
@@ -57,35 +67,89 @@ public final class SQLBasicUtils {
             throw new IllegalArgumentException("Given SQLTable is null");
         }
 
-        String query = "SELECT * FROM " + table.getNameGraveAccent();
-        return new SQLNamedStatement(query, new HashMap<>());
+        return table.getTemplate("select:*", () -> new SQLStatementTemplate("SELECT * FROM " + table.getNameGraveAccent(), new HashMap<>())).newStatement();
     }
 
-    public static SQLNamedStatement getUpdate(SQLTable table, SQLElement element) {
+    /**
+     * Gets statement selecting whole rows with one of the given values in the column. Values are set by their positions.
+     *
+     * @param count amount of values
+     */
+    public static SQLNamedStatement getSelectIn(SQLTable table, String column, int count) {
         if (table == null) {
             throw new IllegalArgumentException("Given SQLTable is null");
         }
 
+        if (count < 1) {
+            throw new IllegalArgumentException("Given count is not positive");
+        }
+
+        return table.getTemplate("select:*:in:" + column + ":" + count, () -> buildSelectIn(table, column, count)).newStatement();
+    }
+
+    private static SQLStatementTemplate buildSelectIn(SQLTable table, String column, int count) {
+        SQLElement element = table.getSQLElement(column).orThrow(() -> new IllegalArgumentException("Table " + table.getName() + " has no column " + column));
+        HashMap<String, Integer> keyMap = new HashMap<>();
+        StringBuilder query = new StringBuilder();
+
+        query.append("SELECT * FROM ");
+        query.append(table.getNameGraveAccent());
+        query.append(" WHERE ");
+        query.append(element.getKeyGraveAccent());
+        query.append(" IN (");
+        query.append(String.join(", ", Collections.nCopies(count, "?")));
+        query.append(")");
+
+        for (int index = 1; index <= count; index++) {
+            keyMap.put(column + index, index);
+        }
+
+        return new SQLStatementTemplate(query.toString(), keyMap);
+    }
+
+    public static SQLNamedStatement getUpdate(SQLTable table, SQLElement element) {
         if (element == null) {
             throw new IllegalArgumentException("Given SQLElement is null");
         }
 
+        return getUpdate(table, Collections.singletonList(element));
+    }
+
+    /**
+     * Gets statement updating only the given columns of the row identified by the primary key.
+     */
+    public static SQLNamedStatement getUpdate(SQLTable table, List<SQLElement> elements) {
+        if (table == null) {
+            throw new IllegalArgumentException("Given SQLTable is null");
+        }
+
+        if (elements.isEmpty()) {
+            throw new IllegalArgumentException("Given SQLElement list is empty");
+        }
+
+        String id = "update:" + Joiner.on(",").join(elements, SQLElement::getKey);
+        return table.getTemplate(id, () -> buildUpdate(table, elements)).newStatement();
+    }
+
+    private static SQLStatementTemplate buildUpdate(SQLTable table, List<SQLElement> elements) {
         HashMap<String, Integer> keyMap = new HashMap<>();
         StringBuilder query = new StringBuilder();
 
         query.append("UPDATE ");
         query.append(table.getNameGraveAccent());
         query.append(" SET ");
-        query.append(element.getKeyGraveAccent());
-        query.append(" = ?");
+        query.append(Joiner.on(", ").join(elements, element -> element.getKeyGraveAccent() + " = ?"));
         query.append(" WHERE ");
         query.append(table.getPrimaryKey().getKeyGraveAccent());
         query.append(" = ?");
 
-        keyMap.put(element.getKey(), 1);
-        keyMap.put(table.getPrimaryKey().getKey(), 2);
+        for (SQLElement element : elements) {
+            keyMap.put(element.getKey(), keyMap.size() + 1);
+        }
+
+        keyMap.put(table.getPrimaryKey().getKey(), keyMap.size() + 1);
 
-        return new SQLNamedStatement(query.toString(), keyMap);
+        return new SQLStatementTemplate(query.toString(), keyMap);
     }
 
     public static SQLNamedStatement getCreate(SQLTable table) {
@@ -124,6 +188,10 @@ public final class SQLBasicUtils {
             throw new IllegalArgumentException("Given SQLTable is null");
         }
 
+        return table.getTemplate("delete", () -> buildDelete(table)).newStatement();
+    }
+
+    private static SQLStatementTemplate buildDelete(SQLTable table) {
         HashMap<String, Integer> keyMap = new HashMap<>();
         StringBuilder query = new StringBuilder();
 
@@ -134,7 +202,33 @@ public final class SQLBasicUtils {
         query.append(" = ?");
 
         keyMap.put(table.getPrimaryKey().getKey(), 1);
-        return new SQLNamedStatement(query.toString(), keyMap);
+        return new SQLStatementTemplate(query.toString(), keyMap);
+    }
+
+    /**
+     * Gets name of the index of the column, unique within the database.
+     */
+    public static String getIndexName(SQLTable table, String column) {
+        return table.getName() + "_" + column + "_index";
+    }
+
+    public static SQLNamedStatement getCreateIndex(SQLTable table, String column) {
+        if (table == null) {
+            throw new IllegalArgumentException("Given SQLTable is null");
+        }
+
+        SQLElement element = table.getSQLElement(column).orThrow(() -> new IllegalArgumentException("Table " + table.getName() + " has no column " + column));
+        StringBuilder query = new StringBuilder();
+
+        query.append("CREATE INDEX `");
+        query.append(getIndexName(table, column));
+        query.append("` ON ");
+        query.append(table.getNameGraveAccent());
+        query.append(" (");
+        query.append(table.getDialect().getIndexedColumn(element));
+        query.append(");");
+
+        return new SQLNamedStatement(query.toString(), new HashMap<>());
     }
 
     public static SQLNamedStatement getAlter(SQLTable table, SQLElement column) {
@@ -155,7 +249,7 @@ public final class SQLBasicUtils {
         query.append(column.getKeyGraveAccent());
         query.append(" ");
         query.append(column.getType());
-        query.append(index == 0 ? " FIRST" : " AFTER " + table.getSqlElements().get(index - 1).getKeyGraveAccent());
+        query.append(table.getDialect().getColumnPosition(table, index));
         query.append(";");
 
         return new SQLNamedStatement(query.toString(), new HashMap<>());
@@ -0,0 +1,70 @@
+package net.dzikoysk.funnyguilds.data.database.element;
+
+import panda.utilities.text.Joiner;
+
+/**
+ * Parts of statements which differ between supported databases.
+ */
+public enum SQLDialect {
+
+    MYSQL {
+        @Override
+        public String getUpsertClause(SQLTable table) {
+            return " ON DUPLICATE KEY UPDATE " + Joiner.on(", ").join(table.getSqlElements(), SQLElement::getKeyValuesAssignment);
+        }
+
+        @Override
+        public String getColumnPosition(SQLTable table, int index) {
+            return index == 0 ? " FIRST" : " AFTER " + table.getSqlElements().get(index - 1).getKeyGraveAccent();
+        }
+
+        @Override
+        public String getIndexedColumn(SQLElement column) {
+            // MySQL can index only a prefix of TEXT columns
+            return column.getSQLType() == SQLType.TEXT
+                    ? column.getKeyGraveAccent() + "(" + TEXT_INDEX_PREFIX_LENGTH + ")"
+                    : column.getKeyGraveAccent();
+        }
+    },
+
+    SQLITE {
+        @Override
+        public String getUpsertClause(SQLTable table) {
+            SQLElement primaryKey = table.getPrimaryKey();
+
+            return " ON CONFLICT(" + primaryKey.getKeyGraveAccent() + ") DO UPDATE SET "
+                    + Joiner.on(", ").join(table.getSqlElements(), element -> element.getKeyGraveAccent() + "=excluded." + element.getKeyGraveAccent());
+        }
+
+        @Override
+        public String getColumnPosition(SQLTable table, int index) {
+            // SQLite always appends new columns at the end of the table
+            return "";
+        }
+
+        @Override
+        public String getIndexedColumn(SQLElement column) {
+            return column.getKeyGraveAccent();
+        }
+    };
+
+    private static final int TEXT_INDEX_PREFIX_LENGTH = 64;
+
+    /**
+     * Gets clause appended to the insert statement, which updates the existing row with the same primary key.
+     */
+    public abstract String getUpsertClause(SQLTable table);
+
+    /**
+     * Gets position clause of the added column.
+     *
+     * @param index index of the column in the table
+     */
+    public abstract String getColumnPosition(SQLTable table, int index);
+
+    /**
+     * Gets column as a part of the index definition.
+     */
+    public abstract String getIndexedColumn(SQLElement column);
+
+}
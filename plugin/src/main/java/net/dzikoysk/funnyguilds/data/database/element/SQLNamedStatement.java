@@ -4,31 +4,57 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.Locale;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import panda.std.function.ThrowingConsumer;
 
 public class SQLNamedStatement {
 
-    private final Map<String, Object> placeholders = new HashMap<>();
-    private final Map<String, Integer> keyMapIndex;
+    private final SQLStatementTemplate template;
     private final String sql;
+    private final Object[] parameters;
 
     public SQLNamedStatement(String sql, Map<String, Integer> keyMap) {
-        this.sql = sql;
-        this.keyMapIndex = new HashMap<>(keyMap);
+        this(new SQLStatementTemplate(sql, keyMap));
     }
 
+    public SQLNamedStatement(SQLStatementTemplate template) {
+        this.template = template;
+        this.sql = template.getSql();
+        this.parameters = new Object[template.getParameterCount()];
+    }
+
+    /**
+     * Sets value of the named parameter.
+     *
+     * @throws IllegalArgumentException if statement has no such parameter
+     */
     public void set(String key, Object value) {
-        key = key.toLowerCase(Locale.ROOT);
+        this.set(this.template.getIndex(key), value);
+    }
 
-        if (!this.keyMapIndex.containsKey(key)) {
-            return;
+    /**
+     * Sets value of the parameter at the given position.
+     *
+     * @param index position of the parameter (starting from 1)
+     * @param value value of the parameter
+     */
+    public void set(int index, Object value) {
+        if (index < 1 || index > this.parameters.length) {
+            throw new IllegalArgumentException("Parameter index " + index + " out of range (1-" + this.parameters.length + ") in statement: " + this.sql);
         }
 
-        this.placeholders.put(key, value);
+        this.parameters[index - 1] = value;
+    }
+
+    public SQLStatementTemplate getTemplate() {
+        return this.template;
     }
 
     public void executeUpdate() {
@@ -55,6 +81,106 @@ public class SQLNamedStatement {
         }
     }
 
+    /**
+     * Executes statement on the given connection, e.g. to execute multiple statements on the same connection.
+     *
+     * @throws SQLException if the statement could not be executed
+     */
+    public void executeUpdate(Connection connection) throws SQLException {
+        try (PreparedStatement statement = this.setPlaceholders(connection.prepareStatement(this.sql))) {
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Executes query on the given connection, e.g. to execute multiple statements on the same connection.
+     *
+     * @throws SQLException if the query could not be executed
+     */
+    public void executeQuery(Connection connection, ThrowingConsumer<ResultSet, SQLException> consumer) throws SQLException {
+        try (PreparedStatement statement = this.setPlaceholders(connection.prepareStatement(this.sql))) {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                consumer.accept(resultSet);
+            }
+        }
+    }
+
+    /**
+     * Executes statement for every row as JDBC batches. Every batch is committed in its own transaction,
+     * so a failed batch is rolled back without affecting already committed ones.
+     *
+     * @param rows      rows to write
+     * @param binder    function setting values of the row in the statement
+     * @param committed function called for every row of a successfully committed batch
+     * @param batchSize maximal amount of rows in a single batch
+     * @param <T>       type of rows
+     * @return summary of the execution
+     */
+    public <T> BatchResult executeBatch(Collection<T> rows, BiConsumer<SQLNamedStatement, T> binder, Consumer<T> committed, int batchSize) {
+        BatchResult result = new BatchResult();
+        if (rows.isEmpty()) {
+            return result;
+        }
+
+        batchSize = Math.max(1, batchSize);
+
+        try (Connection connection = FunnyGuilds.getInstance().getDatabase().getConnection()) {
+            if (connection == null) {
+                throw new SQLException("Connection is null");
+            }
+
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement statement = connection.prepareStatement(this.sql)) {
+                List<T> batch = new ArrayList<>(Math.min(batchSize, rows.size()));
+
+                for (T row : rows) {
+                    Arrays.fill(this.parameters, null);
+                    binder.accept(this, row);
+                    this.setPlaceholders(statement).addBatch();
+                    batch.add(row);
+
+                    if (batch.size() >= batchSize) {
+                        this.commitBatch(connection, statement, batch, committed, result);
+                    }
+                }
+
+                if (!batch.isEmpty()) {
+                    this.commitBatch(connection, statement, batch, committed, result);
+                }
+            }
+            finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        catch (Exception exception) {
+            FunnyGuilds.getPluginLogger().error("Could not execute batch update", exception);
+        }
+
+        return result;
+    }
+
+    private <T> void commitBatch(Connection connection, PreparedStatement statement, List<T> batch, Consumer<T> committed, BatchResult result) throws SQLException {
+        try {
+            statement.executeBatch();
+            connection.commit();
+
+            batch.forEach(committed);
+            result.rows += batch.size();
+            result.batches++;
+        }
+        catch (SQLException exception) {
+            connection.rollback();
+            result.failedRows += batch.size();
+            FunnyGuilds.getPluginLogger().error("Could not execute batch of " + batch.size() + " rows, batch was rolled back", exception);
+        }
+        finally {
+            statement.clearBatch();
+            batch.clear();
+        }
+    }
+
     public void executeQuery(ThrowingConsumer<ResultSet, SQLException> consumer) {
         this.executeQuery(consumer, false);
     }
@@ -81,18 +207,61 @@ public class SQLNamedStatement {
         }
     }
 
-    private PreparedStatement setPlaceholders(PreparedStatement preparedStatement) throws RuntimeException {
-        this.placeholders.forEach((key, value) -> {
-            try {
-                preparedStatement.setObject(this.keyMapIndex.get(key.toLowerCase(Locale.ROOT)), value);
+    /**
+     * Executes query reading its rows from the database in portions of the given size, instead of buffering the whole result.
+     *
+     * @param fetchSize amount of rows fetched at once
+     * @param consumer  consumer of the forward-only result set
+     * @throws SQLException if the query could not be executed
+     */
+    public void executeStreamingQuery(int fetchSize, ThrowingConsumer<ResultSet, SQLException> consumer) throws SQLException {
+        try (Connection connection = FunnyGuilds.getInstance().getDatabase().getConnection()) {
+            if (connection == null) {
+                throw new SQLException("Connection is null");
             }
-            catch (SQLException exception) {
-                FunnyGuilds.getPluginLogger().error("Could not prepare query", exception);
-                throw new RuntimeException("Query preparation failed");
+
+            try (PreparedStatement statement = this.setPlaceholders(connection.prepareStatement(this.sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))) {
+                statement.setFetchSize(fetchSize);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    consumer.accept(resultSet);
+                }
             }
-        });
+        }
+    }
+
+    private PreparedStatement setPlaceholders(PreparedStatement preparedStatement) throws SQLException {
+        for (int index = 0; index < this.parameters.length; index++) {
+            preparedStatement.setObject(index + 1, this.parameters[index]);
+        }
 
         return preparedStatement;
     }
 
+    public static final class BatchResult {
+
+        private int rows;
+        private int failedRows;
+        private int batches;
+
+        public int getRows() {
+            return this.rows;
+        }
+
+        public int getFailedRows() {
+            return this.failedRows;
+        }
+
+        public int getBatches() {
+            return this.batches;
+        }
+
+        public void merge(BatchResult result) {
+            this.rows += result.rows;
+            this.failedRows += result.failedRows;
+            this.batches += result.batches;
+        }
+
+    }
+
 }
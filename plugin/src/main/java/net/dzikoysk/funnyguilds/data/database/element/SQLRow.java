@@ -0,0 +1,99 @@
+package net.dzikoysk.funnyguilds.data.database.element;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Copy of a single row of the result set. Unlike the result set, row can be read after the cursor moves on,
+ * e.g. by other threads. Getters follow conversions of {@link ResultSet} - missing values are returned as null, 0 or false.
+ */
+public final class SQLRow {
+
+    private final Map<String, Integer> columns;
+    private final Object[] values;
+
+    private SQLRow(Map<String, Integer> columns, Object[] values) {
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /**
+     * Gets indexes of columns of the result set, shared by all rows read from it.
+     */
+    public static Map<String, Integer> columns(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        Map<String, Integer> columns = new HashMap<>();
+
+        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+            columns.put(metaData.getColumnLabel(column).toLowerCase(Locale.ROOT), column - 1);
+        }
+
+        return columns;
+    }
+
+    /**
+     * Copies the current row of the result set.
+     *
+     * @param columns indexes of columns from {@link #columns(ResultSet)}
+     */
+    public static SQLRow of(Map<String, Integer> columns, ResultSet resultSet) throws SQLException {
+        Object[] values = new Object[columns.size()];
+
+        for (int index = 0; index < values.length; index++) {
+            values[index] = resultSet.getObject(index + 1);
+        }
+
+        return new SQLRow(columns, values);
+    }
+
+    private Object get(String column) {
+        Integer index = this.columns.get(column.toLowerCase(Locale.ROOT));
+        if (index == null) {
+            throw new IllegalArgumentException("Column " + column + " does not exist");
+        }
+
+        return this.values[index];
+    }
+
+    public String getString(String column) {
+        Object value = this.get(column);
+        return value == null ? null : value.toString();
+    }
+
+    public long getLong(String column) {
+        Object value = this.get(column);
+
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+
+        return value == null ? 0 : Long.parseLong(value.toString().trim());
+    }
+
+    public int getInt(String column) {
+        return (int) this.getLong(column);
+    }
+
+    public boolean getBoolean(String column) {
+        Object value = this.get(column);
+
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+
+        if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
+        }
+
+        return value != null && (value.toString().equals("1") || value.toString().equalsIgnoreCase("true"));
+    }
+
+}
@@ -0,0 +1,71 @@
+package net.dzikoysk.funnyguilds.data.database.element;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable SQL statement with resolved parameter positions, built once and shared by all statements created from it.
+ */
+public class SQLStatementTemplate {
+
+    private final String sql;
+    private final Map<String, Integer> keyIndexes;
+    private final int parameterCount;
+
+    public SQLStatementTemplate(String sql, Map<String, Integer> keyMap) {
+        if (sql == null || sql.isEmpty()) {
+            throw new IllegalArgumentException("Given sql is empty");
+        }
+
+        this.sql = sql;
+        this.keyIndexes = new HashMap<>(keyMap.size());
+        this.parameterCount = keyMap.size();
+
+        boolean[] usedIndexes = new boolean[this.parameterCount + 1];
+        keyMap.forEach((key, index) -> {
+            if (index == null || index < 1 || index > this.parameterCount || usedIndexes[index]) {
+                throw new IllegalArgumentException("Invalid index " + index + " of parameter '" + key + "' in statement: " + sql);
+            }
+
+            if (this.keyIndexes.put(key.toLowerCase(Locale.ROOT), index) != null) {
+                throw new IllegalArgumentException("Duplicated parameter '" + key + "' in statement: " + sql);
+            }
+
+            usedIndexes[index] = true;
+        });
+    }
+
+    public SQLNamedStatement newStatement() {
+        return new SQLNamedStatement(this);
+    }
+
+    /**
+     * Gets position of the parameter.
+     *
+     * @param key name of the parameter
+     * @return position of the parameter (starting from 1)
+     * @throws IllegalArgumentException if statement has no such parameter
+     */
+    public int getIndex(String key) {
+        Integer index = this.keyIndexes.get(key);
+        if (index == null) {
+            index = this.keyIndexes.get(key.toLowerCase(Locale.ROOT));
+        }
+
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown parameter '" + key + "' in statement: " + this.sql);
+        }
+
+        return index;
+    }
+
+    public int getParameterCount() {
+        return this.parameterCount;
+    }
+
+    public String getSql() {
+        return this.sql;
+    }
+
+}
@@ -2,35 +2,51 @@ package net.dzikoysk.funnyguilds.data.database.element;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import panda.std.Option;
 
 public class SQLTable {
 
     private final ArrayList<SQLElement> sqlElements = new ArrayList<>();
+    private final Map<String, SQLStatementTemplate> templates = new ConcurrentHashMap<>();
     private final String name;
+    private final SQLDialect dialect;
     private int idPrimaryKey = 0;
 
     public SQLTable(String name) {
+        this(name, SQLDialect.MYSQL);
+    }
+
+    public SQLTable(String name, SQLDialect dialect) {
         this.name = name;
+        this.dialect = dialect;
     }
 
     public void add(String key, SQLType type) {
+        this.templates.clear();
         this.sqlElements.add(new SQLElement(key, type, -1, false));
     }
 
     public void add(String key, SQLType type, int size) {
+        this.templates.clear();
         this.sqlElements.add(new SQLElement(key, type, size, false));
     }
 
     public void add(String key, SQLType type, boolean notNull) {
+        this.templates.clear();
         this.sqlElements.add(new SQLElement(key, type, -1, notNull));
     }
 
     public void add(String key, SQLType type, int size, boolean notNull) {
+        this.templates.clear();
         this.sqlElements.add(new SQLElement(key, type, size, notNull));
     }
 
     public void setPrimaryKey(String key) {
+        this.templates.clear();
+
         for (int i = 0; i < this.sqlElements.size(); i++) {
             if (this.sqlElements.get(i).getKey().equalsIgnoreCase(key)) {
                 this.idPrimaryKey = i;
@@ -42,6 +58,7 @@ public class SQLTable {
     }
 
     public void setPrimaryKey(int idPrimaryKey) {
+        this.templates.clear();
         this.idPrimaryKey = idPrimaryKey;
     }
 
@@ -53,6 +70,10 @@ public class SQLTable {
         return this.name;
     }
 
+    public SQLDialect getDialect() {
+        return this.dialect;
+    }
+
     public String getNameGraveAccent() {
         return "`" + this.name + "`";
     }
@@ -83,6 +104,17 @@ public class SQLTable {
         return Option.none();
     }
 
+    /**
+     * Gets template of the statement, building it only once per table structure.
+     *
+     * @param id      identifier of the statement
+     * @param builder function building the template
+     * @return the template
+     */
+    public SQLStatementTemplate getTemplate(String id, Supplier<SQLStatementTemplate> builder) {
+        return this.templates.computeIfAbsent(id, key -> builder.get());
+    }
+
     public HashMap<String, Integer> getMapElementsKey() {
         HashMap<String, Integer> elementsMap = new HashMap<>();
 
@@ -1,20 +1,28 @@
 package net.dzikoysk.funnyguilds.data.database.serializer;
 
 import com.google.common.collect.Sets;
-import java.sql.ResultSet;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import net.dzikoysk.funnyguilds.Entity;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.FunnyGuildsLogger;
 import net.dzikoysk.funnyguilds.config.PluginConfiguration;
+import net.dzikoysk.funnyguilds.data.MutableEntity;
 import net.dzikoysk.funnyguilds.data.database.SQLDataModel;
 import net.dzikoysk.funnyguilds.data.database.element.SQLBasicUtils;
 import net.dzikoysk.funnyguilds.data.database.element.SQLNamedStatement;
+import net.dzikoysk.funnyguilds.data.database.element.SQLRow;
 import net.dzikoysk.funnyguilds.data.database.element.SQLTable;
 import net.dzikoysk.funnyguilds.data.util.DeserializationUtils;
+import net.dzikoysk.funnyguilds.data.util.GuildRelationResolver;
 import net.dzikoysk.funnyguilds.guild.Guild;
 import net.dzikoysk.funnyguilds.guild.Region;
 import net.dzikoysk.funnyguilds.guild.RegionUtils;
@@ -22,16 +30,40 @@ import net.dzikoysk.funnyguilds.shared.FunnyStringUtils;
 import net.dzikoysk.funnyguilds.shared.TimeUtils;
 import net.dzikoysk.funnyguilds.shared.bukkit.LocationUtils;
 import net.dzikoysk.funnyguilds.user.User;
-import net.dzikoysk.funnyguilds.user.UserManager;
 import panda.std.Option;
 
 public final class DatabaseGuildSerializer {
 
+    private static final Map<Guild.Field, List<String>> CHANGED_COLUMNS = new EnumMap<>(Guild.Field.class);
+
+    static {
+        CHANGED_COLUMNS.put(Guild.Field.NAME, Collections.singletonList("name"));
+        CHANGED_COLUMNS.put(Guild.Field.TAG, Collections.singletonList("tag"));
+        CHANGED_COLUMNS.put(Guild.Field.OWNER, Collections.singletonList("owner"));
+        CHANGED_COLUMNS.put(Guild.Field.HOME, Collections.singletonList("home"));
+        CHANGED_COLUMNS.put(Guild.Field.REGION, Collections.singletonList("region"));
+        // Points of the guild are calculated from points of its members
+        CHANGED_COLUMNS.put(Guild.Field.MEMBERS, Arrays.asList("members", "points"));
+        CHANGED_COLUMNS.put(Guild.Field.DEPUTIES, Collections.singletonList("deputy"));
+        CHANGED_COLUMNS.put(Guild.Field.ALLIES, Collections.singletonList("allies"));
+        CHANGED_COLUMNS.put(Guild.Field.ENEMIES, Collections.singletonList("enemies"));
+        CHANGED_COLUMNS.put(Guild.Field.LIVES, Collections.singletonList("lives"));
+        CHANGED_COLUMNS.put(Guild.Field.BORN, Collections.singletonList("born"));
+        CHANGED_COLUMNS.put(Guild.Field.VALIDITY, Collections.singletonList("validity"));
+        CHANGED_COLUMNS.put(Guild.Field.PROTECTION, Collections.singletonList("protection"));
+        CHANGED_COLUMNS.put(Guild.Field.BAN, Collections.singletonList("ban"));
+        CHANGED_COLUMNS.put(Guild.Field.PVP, Collections.singletonList("pvp"));
+    }
+
     private DatabaseGuildSerializer() {
     }
 
-    public static Option<Guild> deserialize(ResultSet resultSet) {
-        if (resultSet == null) {
+    /**
+     * Reads values of the guild from the row. Managers are not touched, so rows can be parsed concurrently -
+     * references to users and regions are kept as names, until the guild is deserialized.
+     */
+    public static Option<ParsedGuild> parse(SQLRow row) {
+        if (row == null) {
             return Option.none();
         }
 
@@ -39,25 +71,25 @@ public final class DatabaseGuildSerializer {
         String name = null;
 
         try {
-            id = resultSet.getString("uuid");
-            name = resultSet.getString("name");
-            String tag = resultSet.getString("tag");
-            String os = resultSet.getString("owner");
-            String dp = resultSet.getString("deputy");
-            String home = resultSet.getString("home");
-            String regionName = resultSet.getString("region");
-            String membersString = resultSet.getString("members");
-            boolean pvp = resultSet.getBoolean("pvp");
-            Instant born = TimeUtils.positiveOrNullInstant(resultSet.getLong("born"));
-            Instant validity = TimeUtils.positiveOrNullInstant(resultSet.getLong("validity"));
-            Instant protection = TimeUtils.positiveOrNullInstant(resultSet.getLong("protection"));
-            Instant ban = TimeUtils.positiveOrNullInstant(resultSet.getLong("ban"));
-            int lives = resultSet.getInt("lives");
-
-            FunnyGuilds plugin = FunnyGuilds.getInstance();
+            id = row.getString("uuid");
+            name = row.getString("name");
+            String tag = row.getString("tag");
+            String os = row.getString("owner");
+            String dp = row.getString("deputy");
+            String home = row.getString("home");
+            String regionName = row.getString("region");
+            String membersString = row.getString("members");
+            String alliesString = row.getString("allies");
+            String enemiesString = row.getString("enemies");
+            boolean pvp = row.getBoolean("pvp");
+            Instant born = TimeUtils.positiveOrNullInstant(row.getLong("born"));
+            Instant validity = TimeUtils.positiveOrNullInstant(row.getLong("validity"));
+            Instant protection = TimeUtils.positiveOrNullInstant(row.getLong("protection"));
+            Instant ban = TimeUtils.positiveOrNullInstant(row.getLong("ban"));
+            int lives = row.getInt("lives");
+
             FunnyGuildsLogger logger = FunnyGuilds.getPluginLogger();
-            PluginConfiguration config = plugin.getPluginConfiguration();
-            UserManager userManager = plugin.getUserManager();
+            PluginConfiguration config = FunnyGuilds.getInstance().getPluginConfiguration();
 
             if (name == null) {
                 logger.deserialize("Cannot deserialize guild, caused by: name is null");
@@ -79,22 +111,6 @@ public final class DatabaseGuildSerializer {
                 uuid = UUID.fromString(id);
             }
 
-            Option<User> ownerOption = userManager.findByName(os);
-            if (ownerOption.isEmpty()) {
-                logger.deserialize("Cannot deserialize guild! Caused by: owner (user instance) doesn't exist");
-                return Option.none();
-            }
-
-            Set<User> deputies = new HashSet<>();
-            if (dp != null && !dp.isEmpty()) {
-                deputies = userManager.findByNames(FunnyStringUtils.fromString(dp));
-            }
-
-            Set<User> members = new HashSet<>();
-            if (membersString != null && !membersString.isEmpty()) {
-                members = userManager.findByNames(FunnyStringUtils.fromString(membersString));
-            }
-
             if (born == null) {
                 logger.deserialize("Cannot deserialize guild: " + name + ", caused by: born is null");
                 return Option.none();
@@ -118,10 +134,7 @@ public final class DatabaseGuildSerializer {
             values[0] = uuid;
             values[1] = name;
             values[2] = tag;
-            values[3] = ownerOption.get();
             values[4] = LocationUtils.parseLocation(home);
-            values[5] = plugin.getRegionManager().findByName(regionName).orElseGet((Region) null);
-            values[6] = members;
             values[7] = Sets.newHashSet();
             values[8] = Sets.newHashSet();
             values[9] = born;
@@ -129,13 +142,42 @@ public final class DatabaseGuildSerializer {
             values[11] = protection;
             values[12] = lives;
             values[13] = ban;
-            values[14] = deputies;
             values[15] = pvp;
 
-            return DeserializationUtils.deserializeGuild(plugin.getPluginConfiguration(), plugin.getGuildManager(), values);
+            return Option.of(new ParsedGuild(values, os, regionName, FunnyStringUtils.fromString(membersString), FunnyStringUtils.fromString(dp),
+                    FunnyStringUtils.fromString(alliesString), FunnyStringUtils.fromString(enemiesString)));
+        }
+        catch (Exception exception) {
+            FunnyGuilds.getPluginLogger().error("Could not parse guild (id: " + id + ", name: " + name + ")", exception);
+        }
+
+        return Option.none();
+    }
+
+    /**
+     * Deserializes the parsed guild. Members, deputies, allies and enemies are collected by the resolver, as they may not be loaded yet.
+     */
+    public static Option<Guild> deserialize(ParsedGuild parsedGuild, GuildRelationResolver relations) {
+        FunnyGuilds plugin = FunnyGuilds.getInstance();
+        Object[] values = parsedGuild.values;
+
+        try {
+            Option<User> ownerOption = plugin.getUserManager().findByName(parsedGuild.owner);
+            if (ownerOption.isEmpty()) {
+                FunnyGuilds.getPluginLogger().deserialize("Cannot deserialize guild! Caused by: owner (user instance) doesn't exist");
+                return Option.none();
+            }
+
+            values[3] = ownerOption.get();
+            values[5] = plugin.getRegionManager().findByName(parsedGuild.region).orElseGet((Region) null);
+            values[6] = Sets.newHashSet(ownerOption.get());
+            values[14] = Sets.newHashSet();
+
+            return DeserializationUtils.deserializeGuild(plugin.getPluginConfiguration(), plugin.getGuildManager(), values)
+                    .peek(guild -> relations.collect(guild, parsedGuild.members, parsedGuild.deputies, parsedGuild.allies, parsedGuild.enemies));
         }
         catch (Exception exception) {
-            FunnyGuilds.getPluginLogger().error("Could not deserialize guild (id: " + id + ", name: " + name + ")", exception);
+            FunnyGuilds.getPluginLogger().error("Could not deserialize guild (id: " + values[0] + ", name: " + values[1] + ")", exception);
         }
 
         return Option.none();
@@ -145,6 +187,12 @@ public final class DatabaseGuildSerializer {
         SQLDataModel dataModel = (SQLDataModel) FunnyGuilds.getInstance().getDataModel();
         SQLNamedStatement statement = SQLBasicUtils.getInsert(dataModel.getGuildsTable());
 
+        bind(statement, guild);
+        statement.executeUpdate();
+        guild.markUnchanged();
+    }
+
+    public static void bind(SQLNamedStatement statement, Guild guild) {
         String members = FunnyStringUtils.join(Entity.names(guild.getMembers()));
         String deputies = FunnyStringUtils.join(Entity.names(guild.getDeputies()));
         String allies = FunnyStringUtils.join(Entity.names(guild.getAllies()));
@@ -169,9 +217,83 @@ public final class DatabaseGuildSerializer {
         statement.set("ban", guild.getBan().map(Instant::toEpochMilli).orElseGet(0L));
         statement.set("pvp", guild.hasPvPEnabled());
         statement.set("info", "");
+    }
 
-        statement.executeUpdate();
-        guild.markUnchanged();
+    /**
+     * Gets columns storing the given fields, fields without columns (e.g. build lock) are skipped.
+     *
+     * @param fields mask of changed fields
+     * @return columns to update, without the primary key
+     */
+    public static List<String> getChangedColumns(int fields) {
+        List<String> columns = new ArrayList<>();
+
+        CHANGED_COLUMNS.forEach((field, fieldColumns) -> {
+            if (MutableEntity.isChanged(fields, field)) {
+                columns.addAll(fieldColumns);
+            }
+        });
+
+        return columns;
+    }
+
+    public static void bindColumns(SQLNamedStatement statement, Guild guild, List<String> columns) {
+        statement.set("uuid", guild.getUUID().toString());
+
+        for (String column : columns) {
+            switch (column) {
+                case "name":
+                    statement.set(column, guild.getName());
+                    break;
+                case "tag":
+                    statement.set(column, guild.getTag());
+                    break;
+                case "owner":
+                    statement.set(column, guild.getOwner().getName());
+                    break;
+                case "home":
+                    statement.set(column, LocationUtils.toString(guild.getHome()));
+                    break;
+                case "region":
+                    statement.set(column, RegionUtils.toString(guild.getRegion()));
+                    break;
+                case "members":
+                    statement.set(column, FunnyStringUtils.join(Entity.names(guild.getMembers())));
+                    break;
+                case "deputy":
+                    statement.set(column, FunnyStringUtils.join(Entity.names(guild.getDeputies())));
+                    break;
+                case "allies":
+                    statement.set(column, FunnyStringUtils.join(Entity.names(guild.getAllies())));
+                    break;
+                case "enemies":
+                    statement.set(column, FunnyStringUtils.join(Entity.names(guild.getEnemies())));
+                    break;
+                case "points":
+                    statement.set(column, guild.getRank().getAveragePoints());
+                    break;
+                case "lives":
+                    statement.set(column, guild.getLives());
+                    break;
+                case "born":
+                    statement.set(column, guild.getBorn().toEpochMilli());
+                    break;
+                case "validity":
+                    statement.set(column, guild.getValidity().toEpochMilli());
+                    break;
+                case "protection":
+                    statement.set(column, guild.getProtection().toEpochMilli());
+                    break;
+                case "ban":
+                    statement.set(column, guild.getBan().map(Instant::toEpochMilli).orElseGet(0L));
+                    break;
+                case "pvp":
+                    statement.set(column, guild.hasPvPEnabled());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown column of guilds table: " + column);
+            }
+        }
     }
 
     public static void delete(Guild guild) {
@@ -187,9 +309,51 @@ public final class DatabaseGuildSerializer {
         SQLTable table = dataModel.getGuildsTable();
         SQLNamedStatement statement = SQLBasicUtils.getUpdate(table, table.getSQLElement("points").orNull());
 
+        bindPoints(statement, guild);
+        statement.executeUpdate();
+    }
+
+    public static void bindPoints(SQLNamedStatement statement, Guild guild) {
         statement.set("points", guild.getRank().getAveragePoints());
         statement.set("uuid", guild.getUUID().toString());
-        statement.executeUpdate();
+    }
+
+    /**
+     * Values of the guild read from the row, references to other entities are stored as names.
+     */
+    public static final class ParsedGuild {
+
+        private final Object[] values;
+        private final String owner;
+        private final String region;
+        private final List<String> members;
+        private final List<String> deputies;
+        private final List<String> allies;
+        private final List<String> enemies;
+
+        private ParsedGuild(Object[] values, String owner, String region, List<String> members, List<String> deputies,
+                            List<String> allies, List<String> enemies) {
+            this.values = values;
+            this.owner = owner;
+            this.region = region;
+            this.members = members;
+            this.deputies = deputies;
+            this.allies = allies;
+            this.enemies = enemies;
+        }
+
+        /**
+         * Gets names of all users referenced by the guild - its owner, members and deputies.
+         */
+        public Set<String> getUserNames() {
+            Set<String> names = new HashSet<>();
+            names.add(this.owner);
+            names.addAll(this.members);
+            names.addAll(this.deputies);
+            names.removeIf(FunnyStringUtils::isEmpty);
+            return names;
+        }
+
     }
 
 }
@@ -1,10 +1,10 @@
 package net.dzikoysk.funnyguilds.data.database.serializer;
 
-import java.sql.ResultSet;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.data.database.SQLDataModel;
 import net.dzikoysk.funnyguilds.data.database.element.SQLBasicUtils;
 import net.dzikoysk.funnyguilds.data.database.element.SQLNamedStatement;
+import net.dzikoysk.funnyguilds.data.database.element.SQLRow;
 import net.dzikoysk.funnyguilds.data.util.DeserializationUtils;
 import net.dzikoysk.funnyguilds.guild.Region;
 import net.dzikoysk.funnyguilds.shared.bukkit.LocationUtils;
@@ -16,16 +16,20 @@ public final class DatabaseRegionSerializer {
     private DatabaseRegionSerializer() {
     }
 
-    public static Option<Region> deserialize(ResultSet resultSet) {
-        if (resultSet == null) {
+    /**
+     * Reads values of the region from the row. Managers are not touched, so rows can be parsed concurrently -
+     * values are deserialized by {@link DeserializationUtils#deserializeRegion}.
+     */
+    public static Option<Object[]> parse(SQLRow row) {
+        if (row == null) {
             return Option.none();
         }
 
         try {
-            String name = resultSet.getString("name");
-            Location center = LocationUtils.parseLocation(resultSet.getString("center"));
-            int size = resultSet.getInt("size");
-            int enlarge = resultSet.getInt("enlarge");
+            String name = row.getString("name");
+            Location center = LocationUtils.parseLocation(row.getString("center"));
+            int size = row.getInt("size");
+            int enlarge = row.getInt("enlarge");
 
             if (name == null) {
                 FunnyGuilds.getPluginLogger().error("Cannot deserialize region, caused by: name == null");
@@ -42,10 +46,10 @@ public final class DatabaseRegionSerializer {
             values[2] = size;
             values[3] = enlarge;
 
-            return DeserializationUtils.deserializeRegion(FunnyGuilds.getInstance().getRegionManager(), values);
+            return Option.of(values);
         }
         catch (Exception exception) {
-            FunnyGuilds.getPluginLogger().error("Could not deserialize region", exception);
+            FunnyGuilds.getPluginLogger().error("Could not parse region", exception);
         }
 
         return Option.none();
@@ -55,13 +59,16 @@ public final class DatabaseRegionSerializer {
         SQLDataModel dataModel = (SQLDataModel) FunnyGuilds.getInstance().getDataModel();
         SQLNamedStatement statement = SQLBasicUtils.getInsert(dataModel.getRegionsTable());
 
+        bind(statement, region);
+        statement.executeUpdate();
+        region.markUnchanged();
+    }
+
+    public static void bind(SQLNamedStatement statement, Region region) {
         statement.set("name", region.getName());
         statement.set("center", LocationUtils.toString(region.getCenter()));
         statement.set("size", region.getSize());
         statement.set("enlarge", region.getEnlargementLevel());
-
-        statement.executeUpdate();
-        region.markUnchanged();
     }
 
     public static void delete(Region region) {
@@ -1,11 +1,18 @@
 package net.dzikoysk.funnyguilds.data.database.serializer;
 
-import java.sql.ResultSet;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
+import net.dzikoysk.funnyguilds.data.MutableEntity;
 import net.dzikoysk.funnyguilds.data.database.SQLDataModel;
 import net.dzikoysk.funnyguilds.data.database.element.SQLBasicUtils;
 import net.dzikoysk.funnyguilds.data.database.element.SQLNamedStatement;
+import net.dzikoysk.funnyguilds.data.database.element.SQLRow;
 import net.dzikoysk.funnyguilds.data.database.element.SQLTable;
 import net.dzikoysk.funnyguilds.data.util.DeserializationUtils;
 import net.dzikoysk.funnyguilds.shared.TimeUtils;
@@ -15,24 +22,40 @@ import panda.std.Option;
 
 public final class DatabaseUserSerializer {
 
+    private static final Map<User.Field, List<String>> CHANGED_COLUMNS = new EnumMap<>(User.Field.class);
+
+    static {
+        CHANGED_COLUMNS.put(User.Field.NAME, Collections.singletonList("name"));
+        CHANGED_COLUMNS.put(User.Field.POINTS, Collections.singletonList("points"));
+        CHANGED_COLUMNS.put(User.Field.KILLS, Collections.singletonList("kills"));
+        CHANGED_COLUMNS.put(User.Field.DEATHS, Collections.singletonList("deaths"));
+        CHANGED_COLUMNS.put(User.Field.ASSISTS, Collections.singletonList("assists"));
+        CHANGED_COLUMNS.put(User.Field.LOGOUTS, Collections.singletonList("logouts"));
+        CHANGED_COLUMNS.put(User.Field.BAN, Arrays.asList("ban", "reason"));
+    }
+
     private DatabaseUserSerializer() {
     }
 
-    public static Option<User> deserialize(ResultSet resultSet) {
-        if (resultSet == null) {
+    /**
+     * Reads values of the user from the row. Managers are not touched, so rows can be parsed concurrently -
+     * values are deserialized by {@link DeserializationUtils#deserializeUser}.
+     */
+    public static Option<Object[]> parse(SQLRow row) {
+        if (row == null) {
             return Option.none();
         }
 
         try {
-            String uuid = resultSet.getString("uuid");
-            String name = resultSet.getString("name");
-            int points = resultSet.getInt("points");
-            int kills = resultSet.getInt("kills");
-            int deaths = resultSet.getInt("deaths");
-            int assists = resultSet.getInt("assists");
-            int logouts = resultSet.getInt("logouts");
-            Instant ban = TimeUtils.positiveOrNullInstant(resultSet.getLong("ban"));
-            String reason = resultSet.getString("reason");
+            String uuid = row.getString("uuid");
+            String name = row.getString("name");
+            int points = row.getInt("points");
+            int kills = row.getInt("kills");
+            int deaths = row.getInt("deaths");
+            int assists = row.getInt("assists");
+            int logouts = row.getInt("logouts");
+            Instant ban = TimeUtils.positiveOrNullInstant(row.getLong("ban"));
+            String reason = row.getString("reason");
 
             Object[] values = new Object[9];
             values[0] = uuid;
@@ -45,10 +68,10 @@ public final class DatabaseUserSerializer {
             values[7] = ban;
             values[8] = reason;
 
-            return DeserializationUtils.deserializeUser(FunnyGuilds.getInstance().getUserManager(), values);
+            return Option.of(values);
         }
         catch (Exception exception) {
-            FunnyGuilds.getPluginLogger().error("Could not deserialize user", exception);
+            FunnyGuilds.getPluginLogger().error("Could not parse user", exception);
         }
 
         return Option.none();
@@ -58,6 +81,12 @@ public final class DatabaseUserSerializer {
         SQLDataModel dataModel = (SQLDataModel) FunnyGuilds.getInstance().getDataModel();
         SQLNamedStatement statement = SQLBasicUtils.getInsert(dataModel.getUsersTable());
 
+        bind(statement, user);
+        statement.executeUpdate();
+        user.markUnchanged();
+    }
+
+    public static void bind(SQLNamedStatement statement, User user) {
         statement.set("uuid", user.getUUID().toString());
         statement.set("name", user.getName());
         statement.set("points", user.getRank().getPoints());
@@ -67,9 +96,59 @@ public final class DatabaseUserSerializer {
         statement.set("logouts", user.getRank().getLogouts());
         statement.set("ban", user.getBan().map(UserBan::getTime).map(Instant::toEpochMilli).orElseGet(0L));
         statement.set("reason", user.getBan().map(UserBan::getReason).orNull());
+    }
 
-        statement.executeUpdate();
-        user.markUnchanged();
+    /**
+     * Gets columns storing the given fields, fields without columns (e.g. guild of the user, stored by the guild) are skipped.
+     *
+     * @param fields mask of changed fields
+     * @return columns to update, without the primary key
+     */
+    public static List<String> getChangedColumns(int fields) {
+        List<String> columns = new ArrayList<>();
+
+        CHANGED_COLUMNS.forEach((field, fieldColumns) -> {
+            if (MutableEntity.isChanged(fields, field)) {
+                columns.addAll(fieldColumns);
+            }
+        });
+
+        return columns;
+    }
+
+    public static void bindColumns(SQLNamedStatement statement, User user, List<String> columns) {
+        statement.set("uuid", user.getUUID().toString());
+
+        for (String column : columns) {
+            switch (column) {
+                case "name":
+                    statement.set(column, user.getName());
+                    break;
+                case "points":
+                    statement.set(column, user.getRank().getPoints());
+                    break;
+                case "kills":
+                    statement.set(column, user.getRank().getKills());
+                    break;
+                case "deaths":
+                    statement.set(column, user.getRank().getDeaths());
+                    break;
+                case "assists":
+                    statement.set(column, user.getRank().getAssists());
+                    break;
+                case "logouts":
+                    statement.set(column, user.getRank().getLogouts());
+                    break;
+                case "ban":
+                    statement.set(column, user.getBan().map(UserBan::getTime).map(Instant::toEpochMilli).orElseGet(0L));
+                    break;
+                case "reason":
+                    statement.set(column, user.getBan().map(UserBan::getReason).orNull());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown column of users table: " + column);
+            }
+        }
     }
 
     public static void updatePoints(User user) {
@@ -77,9 +156,13 @@ public final class DatabaseUserSerializer {
         SQLTable table = dataModel.getUsersTable();
         SQLNamedStatement statement = SQLBasicUtils.getUpdate(table, table.getSQLElement("points").orNull());
 
+        bindPoints(statement, user);
+        statement.executeUpdate();
+    }
+
+    public static void bindPoints(SQLNamedStatement statement, User user) {
         statement.set("points", user.getRank().getPoints());
         statement.set("uuid", user.getUUID().toString());
-        statement.executeUpdate();
     }
 
 }
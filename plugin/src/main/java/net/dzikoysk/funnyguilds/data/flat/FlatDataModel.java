@@ -1,16 +1,28 @@
 package net.dzikoysk.funnyguilds.data.flat;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import net.dzikoysk.funnyguilds.Entity.EntityType;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.config.PluginConfiguration;
 import net.dzikoysk.funnyguilds.data.DataModel;
+import net.dzikoysk.funnyguilds.data.flat.FlatSaveEngine.SaveCycle;
 import net.dzikoysk.funnyguilds.data.flat.seralizer.FlatGuildSerializer;
 import net.dzikoysk.funnyguilds.data.flat.seralizer.FlatRegionSerializer;
 import net.dzikoysk.funnyguilds.data.flat.seralizer.FlatUserSerializer;
-import net.dzikoysk.funnyguilds.data.tasks.DatabaseFixAlliesAsyncTask;
+import net.dzikoysk.funnyguilds.data.util.GuildRelationResolver;
+import net.dzikoysk.funnyguilds.data.util.YamlWrapper;
 import net.dzikoysk.funnyguilds.feature.scoreboard.ScoreboardGlobalUpdateSyncTask;
 import net.dzikoysk.funnyguilds.guild.Guild;
 import net.dzikoysk.funnyguilds.guild.GuildManager;
@@ -21,11 +33,12 @@ import net.dzikoysk.funnyguilds.user.User;
 import net.dzikoysk.funnyguilds.user.UserManager;
 import net.dzikoysk.funnyguilds.user.UserUtils;
 import panda.std.Option;
-import panda.std.Result;
 import panda.std.stream.PandaStream;
 
 public class FlatDataModel implements DataModel {
 
+    private static final int PARSING_CHUNK_SIZE = 4096;
+
     private final FunnyGuilds plugin;
     private final PluginConfiguration pluginConfiguration;
 
@@ -33,6 +46,9 @@ public class FlatDataModel implements DataModel {
     private final File guildsFolderFile;
     private final File regionsFolderFile;
 
+    private final FlatSaveEngine saveEngine = new FlatSaveEngine();
+    private final Map<String, File> resolvedFiles = new ConcurrentHashMap<>();
+
     public FlatDataModel(FunnyGuilds plugin) {
         this.plugin = plugin;
         this.pluginConfiguration = plugin.getPluginConfiguration();
@@ -64,13 +80,9 @@ public class FlatDataModel implements DataModel {
             return Option.none();
         }
 
-        Result<File, String> createResult = FunnyIOUtils.createFile(new File(fileFolder, name + ".yml"), false);
-        if (createResult.isErr()) {
-            FunnyGuilds.getPluginLogger().error(createResult.getError());
-            return Option.none();
-        }
-
-        return Option.of(createResult.get());
+        // Files are created by the save engine, so the path can be resolved without touching the disk
+        File folder = fileFolder;
+        return Option.of(this.resolvedFiles.computeIfAbsent(type.name() + ':' + name, key -> new File(folder, name + ".yml")));
     }
 
     public Option<File> getUserFile(User user) {
@@ -85,48 +97,89 @@ public class FlatDataModel implements DataModel {
         return this.loadCustomFile(EntityType.REGION, region.getName());
     }
 
+    public void deleteGuildFile(Guild guild) {
+        this.getGuildFile(guild).peek(this::deleteFile);
+    }
+
+    public void deleteRegionFile(Region region) {
+        this.getRegionFile(region).peek(this::deleteFile);
+    }
+
+    private void deleteFile(File file) {
+        this.saveEngine.forget(file);
+        FunnyIOUtils.deleteFile(file);
+    }
+
+    /**
+     * Creates save cycle, which has to be closed to replace written files.
+     */
+    public SaveCycle newSaveCycle() {
+        return this.saveEngine.newSaveCycle();
+    }
+
     @Override
     public void load() {
-        this.loadUsers();
-        this.loadRegions();
-        this.loadGuilds();
+        ForkJoinPool parsingPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        try {
+            this.loadUsers(parsingPool);
+            this.loadRegions(parsingPool);
+            this.loadGuilds(parsingPool);
+        }
+        finally {
+            parsingPool.shutdown();
+        }
 
         this.validateLoadedData();
     }
 
     @Override
     public void save(boolean ignoreNotChanged) {
-        this.saveUsers(ignoreNotChanged);
-        this.saveRegions(ignoreNotChanged);
-        this.saveGuilds(ignoreNotChanged);
+        long start = System.nanoTime();
+        SaveCycle cycle = this.saveEngine.newSaveCycle();
+
+        try {
+            this.saveUsers(ignoreNotChanged, cycle);
+            this.saveRegions(ignoreNotChanged, cycle);
+            this.saveGuilds(ignoreNotChanged, cycle);
+        }
+        finally {
+            cycle.close();
+        }
+
+        FunnyGuilds.getPluginLogger().debug(String.format("Saved flat data in %d ms: %d files written, %d unchanged files skipped, %d failed",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), cycle.getWritten(), cycle.getSkipped(), cycle.getFailed()));
     }
 
-    private void loadUsers() {
+    private void loadUsers(ForkJoinPool parsingPool) {
+        long start = System.nanoTime();
         UserManager userManager = this.plugin.getUserManager();
         userManager.clearUsers();
 
-        File[] userFiles = this.usersFolderFile.listFiles();
+        File[] userFiles = listDataFiles(this.usersFolderFile);
         if (userFiles == null || userFiles.length == 0) {
             FunnyGuilds.getPluginLogger().info("No users to load");
             return;
         }
 
         AtomicInteger deserializationErrors = new AtomicInteger();
-        PandaStream.of(userFiles)
-                .filter(file -> file.length() != 0)
-                .mapOpt(file -> UserUtils.checkUserFile(this.pluginConfiguration, file))
-                .forEach(file -> FlatUserSerializer.deserialize(file)
-                        .onEmpty(deserializationErrors::incrementAndGet)
-                );
+        Function<File, Option<File>> selector = file -> Option.of(file)
+                .filter(userFile -> userFile.length() != 0)
+                .flatMap(userFile -> UserUtils.checkUserFile(this.pluginConfiguration, userFile));
+
+        this.parseFiles(parsingPool, userFiles, selector, document -> document
+                .flatMap(FlatUserSerializer::deserialize)
+                .onEmpty(deserializationErrors::incrementAndGet)
+        );
 
         if (deserializationErrors.get() > 0) {
             FunnyGuilds.getPluginLogger().error("Users load errors " + deserializationErrors.get());
         }
 
-        FunnyGuilds.getPluginLogger().info("Loaded users: " + this.plugin.getUserManager().countUsers());
+        FunnyGuilds.getPluginLogger().info("Loaded users: " + this.plugin.getUserManager().countUsers() + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
     }
 
-    private void saveUsers(boolean ignoreNotChanged) {
+    private void saveUsers(boolean ignoreNotChanged, SaveCycle cycle) {
         Set<User> users = this.plugin.getUserManager().getUsers();
         if (users.isEmpty()) {
             return;
@@ -136,7 +189,7 @@ public class FlatDataModel implements DataModel {
         long serializationErrors = PandaStream.of(users)
                 .filter(user -> checkUser(user, incorrectUsersCount))
                 .filter(user -> !ignoreNotChanged || user.wasChanged())
-                .filterNot(FlatUserSerializer::serialize)
+                .filterNot(user -> FlatUserSerializer.serialize(user, cycle))
                 .count();
 
         long errors = serializationErrors + incorrectUsersCount.get();
@@ -145,11 +198,12 @@ public class FlatDataModel implements DataModel {
         }
     }
 
-    private void loadGuilds() {
+    private void loadGuilds(ForkJoinPool parsingPool) {
+        long start = System.nanoTime();
         GuildManager guildManager = this.plugin.getGuildManager();
         guildManager.clearGuilds();
 
-        File[] guildFiles = this.guildsFolderFile.listFiles();
+        File[] guildFiles = listDataFiles(this.guildsFolderFile);
         if (guildFiles == null || guildFiles.length == 0) {
             FunnyGuilds.getPluginLogger().info("No guilds to load");
             return;
@@ -158,27 +212,34 @@ public class FlatDataModel implements DataModel {
         AtomicInteger incorrectGuildsCount = new AtomicInteger();
         AtomicInteger ownerlessGuilds = new AtomicInteger();
 
-        PandaStream.of(guildFiles)
-                .mapOpt(guildFile -> FlatGuildSerializer.deserialize(guildFile)
-                        .onEmpty(incorrectGuildsCount::incrementAndGet))
+        GuildRelationResolver relations = new GuildRelationResolver();
+
+        this.parseFiles(parsingPool, guildFiles, Option::of, document -> document
+                .flatMap(wrapper -> FlatGuildSerializer.deserialize(wrapper, relations))
+                .onEmpty(incorrectGuildsCount::incrementAndGet)
                 .filter(guild -> guild.getOwner() == null)
-                .forEach(guild -> {
+                .peek(guild -> {
                     FunnyGuilds.getPluginLogger().error("Guild " + guild.getTag() + " has no owner!");
                     ownerlessGuilds.incrementAndGet();
-                });
+                })
+        );
 
         long errors = incorrectGuildsCount.get() + ownerlessGuilds.get();
         if (errors > 0) {
             FunnyGuilds.getPluginLogger().error("Guild load errors " + errors);
         }
 
-        this.plugin.scheduleFunnyTasks(new DatabaseFixAlliesAsyncTask(guildManager));
+        int fixedAlliances = relations.resolve(guildManager, this.plugin.getUserManager());
+        if (fixedAlliances > 0) {
+            FunnyGuilds.getPluginLogger().warning("Fixed " + fixedAlliances + " alliances which were not mutual");
+        }
+
         this.plugin.getIndividualNameTagManager().map(ScoreboardGlobalUpdateSyncTask::new).peek(this.plugin::scheduleFunnyTasks);
 
-        FunnyGuilds.getPluginLogger().info("Loaded guilds: " + guildManager.countGuilds());
+        FunnyGuilds.getPluginLogger().info("Loaded guilds: " + guildManager.countGuilds() + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
     }
 
-    private void saveGuilds(boolean ignoreNotChanged) {
+    private void saveGuilds(boolean ignoreNotChanged, SaveCycle cycle) {
         Set<Guild> guilds = this.plugin.getGuildManager().getGuilds();
         if (guilds.isEmpty()) {
             return;
@@ -186,7 +247,7 @@ public class FlatDataModel implements DataModel {
 
         long errors = PandaStream.of(guilds)
                 .filter(guild -> !ignoreNotChanged || guild.wasChanged())
-                .filterNot(FlatGuildSerializer::serialize)
+                .filterNot(guild -> FlatGuildSerializer.serialize(guild, cycle))
                 .count();
 
         if (errors > 0) {
@@ -194,38 +255,40 @@ public class FlatDataModel implements DataModel {
         }
     }
 
-    private void loadRegions() {
+    private void loadRegions(ForkJoinPool parsingPool) {
         if (!FunnyGuilds.getInstance().getPluginConfiguration().regionsEnabled) {
             FunnyGuilds.getPluginLogger().info("Regions are disabled and thus - not loaded");
             return;
         }
 
+        long start = System.nanoTime();
         RegionManager regionManager = this.plugin.getRegionManager();
         regionManager.clearRegions();
 
-        File[] regionFiles = this.regionsFolderFile.listFiles();
+        File[] regionFiles = listDataFiles(this.regionsFolderFile);
         if (regionFiles == null || regionFiles.length == 0) {
             FunnyGuilds.getPluginLogger().info("No regions to load");
             return;
         }
 
         AtomicInteger correctlyLoaded = new AtomicInteger();
-        PandaStream.of(regionFiles)
-                .mapOpt(FlatRegionSerializer::deserialize)
-                .forEach(region -> {
+        this.parseFiles(parsingPool, regionFiles, Option::of, document -> document
+                .flatMap(FlatRegionSerializer::deserialize)
+                .peek(region -> {
                     regionManager.addRegion(region);
                     correctlyLoaded.incrementAndGet();
-                });
+                })
+        );
 
         long errors = regionFiles.length - correctlyLoaded.get();
         if (errors > 0) {
             FunnyGuilds.getPluginLogger().error("Region load errors " + errors);
         }
 
-        FunnyGuilds.getPluginLogger().info("Loaded regions: " + regionManager.countRegions());
+        FunnyGuilds.getPluginLogger().info("Loaded regions: " + regionManager.countRegions() + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
     }
 
-    private void saveRegions(boolean ignoreNotChanged) {
+    private void saveRegions(boolean ignoreNotChanged, SaveCycle cycle) {
         if (!this.plugin.getPluginConfiguration().regionsEnabled) {
             return;
         }
@@ -237,7 +300,7 @@ public class FlatDataModel implements DataModel {
 
         long errors = PandaStream.of(regions)
                 .filter(region -> !ignoreNotChanged || region.wasChanged())
-                .filterNot(FlatRegionSerializer::serialize)
+                .filterNot(region -> FlatRegionSerializer.serialize(region, cycle))
                 .count();
 
         if (errors > 0) {
@@ -245,6 +308,57 @@ public class FlatDataModel implements DataModel {
         }
     }
 
+    /**
+     * Parses YAML documents of the selected files in parallel, on the given pool, and passes them to the consumer on the calling thread,
+     * in order of the file names - so the merge of entities into managers does not depend on the scheduling of parsing threads.
+     * Files are processed in chunks to limit the number of documents held in memory at once.
+     *
+     * @param selector filters and migrates files before parsing, executed in parallel
+     * @param consumer receives the parsed document or empty option if the file is a directory
+     */
+    private void parseFiles(ForkJoinPool parsingPool, File[] files, Function<File, Option<File>> selector, Consumer<Option<YamlWrapper>> consumer) {
+        Arrays.sort(files, Comparator.comparing(File::getName));
+
+        for (int chunkStart = 0; chunkStart < files.length; chunkStart += PARSING_CHUNK_SIZE) {
+            int start = chunkStart;
+            int end = Math.min(files.length, chunkStart + PARSING_CHUNK_SIZE);
+
+            List<Option<Option<YamlWrapper>>> documents = parsingPool.submit(() -> Arrays.stream(files, start, end)
+                    .parallel()
+                    .map(file -> selector.apply(file).map(this::parseFile))
+                    .collect(Collectors.toList())
+            ).join();
+
+            documents.forEach(document -> document.peek(consumer));
+        }
+    }
+
+    private Option<YamlWrapper> parseFile(File file) {
+        return file.isDirectory() ? Option.none() : Option.of(this.saveEngine.read(file));
+    }
+
+    /**
+     * Lists files of the folder, temporary files left by an interrupted save are deleted - the original files were not replaced yet.
+     */
+    private static File[] listDataFiles(File folder) {
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return null;
+        }
+
+        return Arrays.stream(files)
+                .filter(file -> {
+                    if (!FlatSaveEngine.isTemporaryFile(file)) {
+                        return true;
+                    }
+
+                    FunnyGuilds.getPluginLogger().warning("Removing temporary file of an interrupted save: " + file.getName());
+                    FunnyIOUtils.deleteFile(file);
+                    return false;
+                })
+                .toArray(File[]::new);
+    }
+
     private static boolean checkUser(User user, AtomicInteger errorCounter) {
         if (user.getUUID() == null || user.getName() == null) {
             errorCounter.incrementAndGet();
@@ -0,0 +1,278 @@
+package net.dzikoysk.funnyguilds.data.flat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import net.dzikoysk.funnyguilds.FunnyGuilds;
+import net.dzikoysk.funnyguilds.data.util.YamlWrapper;
+
+/**
+ * Writes YAML files of the flat data model. Engine remembers hash of the last known content of every file,
+ * so files which content would not change are not written at all. Changed files are written to unique temporary files,
+ * synced to the disk in batches and then atomically renamed, so a crash during the save never leaves a truncated file.
+ */
+public class FlatSaveEngine {
+
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    private static final int SYNC_BATCH_SIZE = 256;
+
+    private final Map<File, byte[]> contentHashes = new ConcurrentHashMap<>();
+    // Cycles are not serialized (e.g. save of a single guild during the periodic save), so every write gets its own temporary file
+    private final AtomicLong temporaryFiles = new AtomicLong();
+
+    /**
+     * Reads YAML file and remembers hash of its content. Missing file results in an empty document.
+     */
+    public YamlWrapper read(File file) {
+        byte[] content;
+
+        try {
+            content = Files.readAllBytes(file.toPath());
+        }
+        catch (NoSuchFileException exception) {
+            content = new byte[0];
+        }
+        catch (IOException exception) {
+            FunnyGuilds.getPluginLogger().error("Failed to read YAML file " + file.getName(), exception);
+            content = new byte[0];
+        }
+
+        if (content.length > 0) {
+            this.contentHashes.put(file, hash(content));
+        }
+
+        return new YamlWrapper(file, new String(content, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Checks if the file is a temporary file left by the save interrupted before the rename.
+     */
+    public static boolean isTemporaryFile(File file) {
+        return file.getName().endsWith(TEMPORARY_EXTENSION);
+    }
+
+    /**
+     * Forgets the file, should be called when the file is deleted.
+     */
+    public void forget(File file) {
+        this.contentHashes.remove(file);
+    }
+
+    public SaveCycle newSaveCycle() {
+        return new SaveCycle();
+    }
+
+    private static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(content);
+        }
+        catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-1 is not supported", exception);
+        }
+    }
+
+    /**
+     * Single save of the data model. Written files are replaced when the batch of pending files is full and when the cycle is closed.
+     */
+    public class SaveCycle implements AutoCloseable {
+
+        private final List<PendingFile> pendingFiles = new ArrayList<>();
+        private final Set<Path> directories = new HashSet<>();
+
+        private int written;
+        private int skipped;
+        private int failed;
+
+        private SaveCycle() {
+        }
+
+        /**
+         * Reads the current content of the file, which is then updated and written by this cycle.
+         */
+        public YamlWrapper read(File file) {
+            return FlatSaveEngine.this.read(file);
+        }
+
+        /**
+         * Writes the document, unless its content is the same as the content of the existing file.
+         *
+         * @param file      target file
+         * @param wrapper   document to write
+         * @param committed called when the content of the file is saved on the disk
+         * @return false if the file could not be written
+         */
+        public boolean write(File file, YamlWrapper wrapper, Runnable committed) {
+            byte[] content = wrapper.saveToString().getBytes(StandardCharsets.UTF_8);
+            byte[] hash = hash(content);
+
+            if (Arrays.equals(hash, FlatSaveEngine.this.contentHashes.get(file))) {
+                this.skipped++;
+                committed.run();
+                return true;
+            }
+
+            Path target = file.toPath();
+            Path temporary = target.resolveSibling(target.getFileName() + "." + FlatSaveEngine.this.temporaryFiles.incrementAndGet() + TEMPORARY_EXTENSION);
+            FileChannel channel = null;
+
+            try {
+                if (this.directories.add(target.getParent())) {
+                    Files.createDirectories(target.getParent());
+                }
+
+                channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            catch (IOException exception) {
+                FunnyGuilds.getPluginLogger().error("Failed to write YAML file " + file.getName(), exception);
+                closeQuietly(channel);
+                deleteQuietly(temporary);
+                this.failed++;
+                return false;
+            }
+
+            this.pendingFiles.add(new PendingFile(file, channel, temporary, target, hash, committed));
+
+            if (this.pendingFiles.size() >= SYNC_BATCH_SIZE) {
+                this.commitPendingFiles();
+            }
+
+            return true;
+        }
+
+        /**
+         * Syncs pending temporary files, replaces target files with them and syncs directories of replaced files.
+         */
+        private void commitPendingFiles() {
+            if (this.pendingFiles.isEmpty()) {
+                return;
+            }
+
+            Set<Path> replacedDirectories = new HashSet<>();
+
+            for (PendingFile pendingFile : this.pendingFiles) {
+                try {
+                    pendingFile.channel.force(true);
+                    pendingFile.channel.close();
+                    move(pendingFile.temporary, pendingFile.target);
+                }
+                catch (IOException exception) {
+                    FunnyGuilds.getPluginLogger().error("Failed to replace YAML file " + pendingFile.target.getFileName(), exception);
+                    closeQuietly(pendingFile.channel);
+                    deleteQuietly(pendingFile.temporary);
+                    this.failed++;
+                    continue;
+                }
+
+                FlatSaveEngine.this.contentHashes.put(pendingFile.file, pendingFile.hash);
+                replacedDirectories.add(pendingFile.target.getParent());
+                pendingFile.committed.run();
+                this.written++;
+            }
+
+            this.pendingFiles.clear();
+            replacedDirectories.forEach(FlatSaveEngine::syncDirectory);
+        }
+
+        public int getWritten() {
+            return this.written;
+        }
+
+        public int getSkipped() {
+            return this.skipped;
+        }
+
+        public int getFailed() {
+            return this.failed;
+        }
+
+        @Override
+        public void close() {
+            this.commitPendingFiles();
+        }
+
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException exception) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Syncs entries of the directory, so renames survive a crash. Not supported on every platform (e.g. Windows), where it's skipped.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        catch (IOException ignored) {
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            channel.close();
+        }
+        catch (IOException ignored) {
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        }
+        catch (IOException ignored) {
+        }
+    }
+
+    private static final class PendingFile {
+
+        private final File file;
+        private final FileChannel channel;
+        private final Path temporary;
+        private final Path target;
+        private final byte[] hash;
+        private final Runnable committed;
+
+        private PendingFile(File file, FileChannel channel, Path temporary, Path target, byte[] hash, Runnable committed) {
+            this.file = file;
+            this.channel = channel;
+            this.temporary = temporary;
+            this.target = target;
+            this.hash = hash;
+            this.committed = committed;
+        }
+
+    }
+
+}
@@ -9,12 +9,16 @@ import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import net.dzikoysk.funnyguilds.Entity;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.FunnyGuildsLogger;
 import net.dzikoysk.funnyguilds.config.PluginConfiguration;
+import net.dzikoysk.funnyguilds.data.MutableEntity;
 import net.dzikoysk.funnyguilds.data.flat.FlatDataModel;
+import net.dzikoysk.funnyguilds.data.flat.FlatSaveEngine.SaveCycle;
 import net.dzikoysk.funnyguilds.data.util.DeserializationUtils;
+import net.dzikoysk.funnyguilds.data.util.GuildRelationResolver;
 import net.dzikoysk.funnyguilds.data.util.YamlWrapper;
 import net.dzikoysk.funnyguilds.guild.Guild;
 import net.dzikoysk.funnyguilds.guild.GuildManager;
@@ -35,11 +39,10 @@ public final class FlatGuildSerializer {
     private FlatGuildSerializer() {
     }
 
-    public static Option<Guild> deserialize(File file) {
-        if (file.isDirectory()) {
-            return Option.none();
-        }
-
+    /**
+     * Deserializes guild from the document. Allies and enemies are collected by the resolver, as they may not be loaded yet.
+     */
+    public static Option<Guild> deserialize(YamlWrapper wrapper, GuildRelationResolver relations) {
         FunnyGuilds plugin = FunnyGuilds.getInstance();
         FunnyGuildsLogger logger = FunnyGuilds.getPluginLogger();
         UserManager userManager = plugin.getUserManager();
@@ -47,8 +50,6 @@ public final class FlatGuildSerializer {
         RegionManager regionManager = plugin.getRegionManager();
         PluginConfiguration config = plugin.getPluginConfiguration();
 
-        YamlWrapper wrapper = new YamlWrapper(file);
-
         String id = wrapper.getString("uuid");
         String name = wrapper.getString("name");
         String tag = wrapper.getString("tag");
@@ -126,8 +127,6 @@ public final class FlatGuildSerializer {
         }
 
         Set<User> members = userManager.findByNames(memberNames);
-        Set<Guild> allies = guildManager.findByNames(loadSet(wrapper, "allies"));
-        Set<Guild> enemies = guildManager.findByNames(loadSet(wrapper, "enemies"));
 
         if (born == null) {
             logger.deserialize("Cannot deserialize guild: " + name + ", caused by: born is null");
@@ -156,8 +155,8 @@ public final class FlatGuildSerializer {
         values[4] = home;
         values[5] = region;
         values[6] = members;
-        values[7] = allies;
-        values[8] = enemies;
+        values[7] = new HashSet<>();
+        values[8] = new HashSet<>();
         values[9] = born;
         values[10] = validity;
         values[11] = protection;
@@ -166,10 +165,11 @@ public final class FlatGuildSerializer {
         values[14] = deputies;
         values[15] = pvp;
 
-        return DeserializationUtils.deserializeGuild(config, guildManager, values);
+        return DeserializationUtils.deserializeGuild(config, guildManager, values)
+                .peek(guild -> relations.collect(guild, loadSet(wrapper, "allies"), loadSet(wrapper, "enemies")));
     }
 
-    public static boolean serialize(Guild guild) {
+    public static boolean serialize(Guild guild, SaveCycle cycle) {
         FlatDataModel dataModel = (FlatDataModel) FunnyGuilds.getInstance().getDataModel();
 
         if (guild.getOwner() == null) {
@@ -188,33 +188,76 @@ public final class FlatGuildSerializer {
         }
 
         File guildFile = fileOption.get();
-        if (guildFile.isDirectory()) {
-            return false;
-        }
+        YamlWrapper wrapper = cycle.read(guildFile);
+
+        // Wrapper contains the existing file, so only keys of the changed fields have to be updated
+        int fields = wrapper.getKeys(false).isEmpty() ? MutableEntity.ALL_FIELDS : guild.getChangedFields();
+        Predicate<Guild.Field> changed = field -> MutableEntity.isChanged(fields, field);
 
-        YamlWrapper wrapper = new YamlWrapper(guildFile);
         wrapper.set("uuid", guild.getUUID().toString());
-        wrapper.set("name", guild.getName());
-        wrapper.set("tag", guild.getTag());
-        wrapper.set("owner", guild.getOwner().getName());
-        wrapper.set("home", LocationUtils.toString(guild.getHome()));
-        wrapper.set("members", new ArrayList<>(Entity.names(guild.getMembers())));
-        wrapper.set("region", RegionUtils.toString(guild.getRegion()));
         wrapper.set("regions", null);
-        wrapper.set("allies", new ArrayList<>(Entity.names(guild.getAllies())));
-        wrapper.set("enemies", new ArrayList<>(Entity.names(guild.getEnemies())));
-        wrapper.set("born", guild.getBorn().toEpochMilli());
-        wrapper.set("validity", guild.getValidity().toEpochMilli());
-        wrapper.set("protection", guild.getProtection().toEpochMilli());
-        wrapper.set("lives", guild.getLives());
-        wrapper.set("ban", guild.getBan().map(Instant::toEpochMilli).orElseGet(0L));
-        wrapper.set("pvp", guild.hasPvPEnabled());
-        wrapper.set("deputy", FunnyStringUtils.join(Entity.names(guild.getDeputies()), false));
-
-        wrapper.save();
-        guild.markUnchanged();
-
-        return true;
+
+        if (changed.test(Guild.Field.NAME)) {
+            wrapper.set("name", guild.getName());
+        }
+
+        if (changed.test(Guild.Field.TAG)) {
+            wrapper.set("tag", guild.getTag());
+        }
+
+        if (changed.test(Guild.Field.OWNER)) {
+            wrapper.set("owner", guild.getOwner().getName());
+        }
+
+        if (changed.test(Guild.Field.HOME)) {
+            wrapper.set("home", LocationUtils.toString(guild.getHome()));
+        }
+
+        if (changed.test(Guild.Field.MEMBERS)) {
+            wrapper.set("members", new ArrayList<>(Entity.names(guild.getMembers())));
+        }
+
+        if (changed.test(Guild.Field.REGION)) {
+            wrapper.set("region", RegionUtils.toString(guild.getRegion()));
+        }
+
+        if (changed.test(Guild.Field.ALLIES)) {
+            wrapper.set("allies", new ArrayList<>(Entity.names(guild.getAllies())));
+        }
+
+        if (changed.test(Guild.Field.ENEMIES)) {
+            wrapper.set("enemies", new ArrayList<>(Entity.names(guild.getEnemies())));
+        }
+
+        if (changed.test(Guild.Field.BORN)) {
+            wrapper.set("born", guild.getBorn().toEpochMilli());
+        }
+
+        if (changed.test(Guild.Field.VALIDITY)) {
+            wrapper.set("validity", guild.getValidity().toEpochMilli());
+        }
+
+        if (changed.test(Guild.Field.PROTECTION)) {
+            wrapper.set("protection", guild.getProtection().toEpochMilli());
+        }
+
+        if (changed.test(Guild.Field.LIVES)) {
+            wrapper.set("lives", guild.getLives());
+        }
+
+        if (changed.test(Guild.Field.BAN)) {
+            wrapper.set("ban", guild.getBan().map(Instant::toEpochMilli).orElseGet(0L));
+        }
+
+        if (changed.test(Guild.Field.PVP)) {
+            wrapper.set("pvp", guild.hasPvPEnabled());
+        }
+
+        if (changed.test(Guild.Field.DEPUTIES)) {
+            wrapper.set("deputy", FunnyStringUtils.join(Entity.names(guild.getDeputies()), false));
+        }
+
+        return cycle.write(guildFile, wrapper, () -> guild.markUnchanged(fields));
     }
 
     @SuppressWarnings("unchecked")
@@ -3,6 +3,7 @@ package net.dzikoysk.funnyguilds.data.flat.seralizer;
 import java.io.File;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.data.flat.FlatDataModel;
+import net.dzikoysk.funnyguilds.data.flat.FlatSaveEngine.SaveCycle;
 import net.dzikoysk.funnyguilds.data.util.DeserializationUtils;
 import net.dzikoysk.funnyguilds.data.util.YamlWrapper;
 import net.dzikoysk.funnyguilds.guild.Region;
@@ -15,13 +16,7 @@ public final class FlatRegionSerializer {
     private FlatRegionSerializer() {
     }
 
-    public static Option<Region> deserialize(File file) {
-        if (file.isDirectory()) {
-            return Option.none();
-        }
-
-        YamlWrapper wrapper = new YamlWrapper(file);
-
+    public static Option<Region> deserialize(YamlWrapper wrapper) {
         String name = wrapper.getString("name");
         String centerString = wrapper.getString("center");
         int size = wrapper.getInt("size");
@@ -51,7 +46,7 @@ public final class FlatRegionSerializer {
         return DeserializationUtils.deserializeRegion(FunnyGuilds.getInstance().getRegionManager(), values);
     }
 
-    public static boolean serialize(Region region) {
+    public static boolean serialize(Region region, SaveCycle cycle) {
         FlatDataModel dataModel = (FlatDataModel) FunnyGuilds.getInstance().getDataModel();
 
         Option<File> fileOption = dataModel.getRegionFile(region);
@@ -60,20 +55,15 @@ public final class FlatRegionSerializer {
         }
 
         File regionFile = fileOption.get();
-        if (regionFile.isDirectory()) {
-            return false;
-        }
+        int fields = region.getChangedFields();
 
-        YamlWrapper wrapper = new YamlWrapper(regionFile);
+        YamlWrapper wrapper = cycle.read(regionFile);
         wrapper.set("name", region.getName());
         wrapper.set("center", LocationUtils.toString(region.getCenter()));
         wrapper.set("size", region.getSize());
         wrapper.set("enlarge", region.getEnlargementLevel());
 
-        wrapper.save();
-        region.markUnchanged();
-
-        return true;
+        return cycle.write(regionFile, wrapper, () -> region.markUnchanged(fields));
     }
 
 }
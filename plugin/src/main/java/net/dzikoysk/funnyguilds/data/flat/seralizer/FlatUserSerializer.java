@@ -4,6 +4,7 @@ import java.io.File;
 import java.time.Instant;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.data.flat.FlatDataModel;
+import net.dzikoysk.funnyguilds.data.flat.FlatSaveEngine.SaveCycle;
 import net.dzikoysk.funnyguilds.data.util.DeserializationUtils;
 import net.dzikoysk.funnyguilds.data.util.YamlWrapper;
 import net.dzikoysk.funnyguilds.shared.TimeUtils;
@@ -15,13 +16,7 @@ public final class FlatUserSerializer {
     private FlatUserSerializer() {
     }
 
-    public static Option<User> deserialize(File file) {
-        if (file.isDirectory()) {
-            return Option.none();
-        }
-
-        YamlWrapper wrapper = new YamlWrapper(file);
-
+    public static Option<User> deserialize(YamlWrapper wrapper) {
         String id = wrapper.getString("uuid");
         String name = wrapper.getString("name");
         int points = wrapper.getInt("points");
@@ -50,7 +45,7 @@ public final class FlatUserSerializer {
         return DeserializationUtils.deserializeUser(FunnyGuilds.getInstance().getUserManager(), values);
     }
 
-    public static boolean serialize(User user) {
+    public static boolean serialize(User user, SaveCycle cycle) {
         FlatDataModel dataModel = (FlatDataModel) FunnyGuilds.getInstance().getDataModel();
 
         Option<File> fileOption = dataModel.getUserFile(user);
@@ -59,11 +54,9 @@ public final class FlatUserSerializer {
         }
 
         File userFile = fileOption.get();
-        if (userFile.isDirectory()) {
-            return false;
-        }
+        int fields = user.getChangedFields();
 
-        YamlWrapper wrapper = new YamlWrapper(userFile);
+        YamlWrapper wrapper = cycle.read(userFile);
         wrapper.set("uuid", user.getUUID().toString());
         wrapper.set("name", user.getName());
         wrapper.set("points", user.getRank().getPoints());
@@ -77,10 +70,7 @@ public final class FlatUserSerializer {
             wrapper.set("reason", ban.getReason());
         });
 
-        wrapper.save();
-        user.markUnchanged();
-
-        return true;
+        return cycle.write(userFile, wrapper, () -> user.markUnchanged(fields));
     }
 
 }
@@ -2,11 +2,13 @@ package net.dzikoysk.funnyguilds.data.tasks;
 
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.data.DataModel;
+import net.dzikoysk.funnyguilds.data.binary.BinaryDataModel;
 import net.dzikoysk.funnyguilds.data.database.SQLDataModel;
 import net.dzikoysk.funnyguilds.data.database.serializer.DatabaseGuildSerializer;
 import net.dzikoysk.funnyguilds.data.database.serializer.DatabaseRegionSerializer;
 import net.dzikoysk.funnyguilds.data.database.serializer.DatabaseUserSerializer;
 import net.dzikoysk.funnyguilds.data.flat.FlatDataModel;
+import net.dzikoysk.funnyguilds.data.flat.FlatSaveEngine.SaveCycle;
 import net.dzikoysk.funnyguilds.data.flat.seralizer.FlatGuildSerializer;
 import net.dzikoysk.funnyguilds.data.flat.seralizer.FlatRegionSerializer;
 import net.dzikoysk.funnyguilds.data.flat.seralizer.FlatUserSerializer;
@@ -32,9 +34,14 @@ public class DatabaseUpdateGuildAsyncTask extends AsyncFunnyTask {
                 this.guild.getMembers().forEach(DatabaseUserSerializer::serialize);
             }
             else if (this.dataModel instanceof FlatDataModel) {
-                FlatGuildSerializer.serialize(this.guild);
-                this.guild.getRegion().peek(FlatRegionSerializer::serialize);
-                this.guild.getMembers().forEach(FlatUserSerializer::serialize);
+                try (SaveCycle cycle = ((FlatDataModel) this.dataModel).newSaveCycle()) {
+                    FlatGuildSerializer.serialize(this.guild, cycle);
+                    this.guild.getRegion().peek(region -> FlatRegionSerializer.serialize(region, cycle));
+                    this.guild.getMembers().forEach(member -> FlatUserSerializer.serialize(member, cycle));
+                }
+            }
+            else if (this.dataModel instanceof BinaryDataModel) {
+                this.dataModel.save(true);
             }
         }
         catch (Exception exception) {
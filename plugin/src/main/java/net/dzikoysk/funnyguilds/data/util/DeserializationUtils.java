@@ -27,8 +27,11 @@ public final class DeserializationUtils {
         UUID playerUniqueId = UUID.fromString((String) values[0]);
         String playerName = (String) values[1];
 
-        UserProfile profile = new BukkitUserProfile(playerUniqueId, FunnyGuilds.getInstance().getFunnyServer()); // :(
-        User user = userManager.create(playerUniqueId, playerName, profile);
+        // Existing user is updated in place, e.g. when changes are replayed from the journal
+        User user = userManager.findLoadedByUuid(playerUniqueId).orElseGet(() -> {
+            UserProfile profile = new BukkitUserProfile(playerUniqueId, FunnyGuilds.getInstance().getFunnyServer()); // :(
+            return userManager.create(playerUniqueId, playerName, profile);
+        });
 
         user.getRank().setPoints((int) values[2]);
         user.getRank().setKills((int) values[3]);
@@ -37,9 +40,7 @@ public final class DeserializationUtils {
         user.getRank().setLogouts((int) values[6]);
 
         Instant ban = (Instant) values[7];
-        if (ban != null) {
-            user.setBan(new UserBan((String) values[8], ban));
-        }
+        user.setBan(ban != null ? new UserBan((String) values[8], ban) : null);
 
         user.markUnchanged();
         return Option.of(user);
@@ -67,6 +68,8 @@ public final class DeserializationUtils {
             return newGuild;
         });
 
+        guild.setName(guildName);
+        guild.setTag(guildTag);
         guild.setOwner((User) values[3]);
         guild.setHome((Location) values[4]);
 
@@ -97,7 +100,13 @@ public final class DeserializationUtils {
         }
 
         String regionName = (String) values[0];
-        Region region = regionManager.findByName(regionName).orElseGet(new Region(regionName, (Location) values[1]));
+        Location center = (Location) values[1];
+        Region region = regionManager.findByName(regionName).orElseGet(() -> new Region(regionName, center));
+
+        // Existing region is updated in place, e.g. when changes are replayed from the journal
+        if (!center.equals(region.getCenter())) {
+            regionManager.moveRegionCenter(region, center);
+        }
 
         // region.setSize((int) values[2]); // We don't set size here like before, now region size is calculated from region enlargement level (method below)
         regionManager.changeRegionEnlargement(region, (int) values[3]);
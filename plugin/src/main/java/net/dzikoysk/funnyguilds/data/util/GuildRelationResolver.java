@@ -0,0 +1,150 @@
+package net.dzikoysk.funnyguilds.data.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import net.dzikoysk.funnyguilds.data.MutableEntity;
+import net.dzikoysk.funnyguilds.guild.Guild;
+import net.dzikoysk.funnyguilds.guild.GuildManager;
+import net.dzikoysk.funnyguilds.user.User;
+import net.dzikoysk.funnyguilds.user.UserManager;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Collects relations of guilds (members, deputies, allies and enemies) during the loading and resolves them in a single pass
+ * once all guilds are loaded, so relations with guilds loaded later are not lost. Relations are keyed by identifiers of guilds,
+ * names stored by the data model are translated to identifiers once per pass. Guilds can be collected concurrently.
+ */
+public class GuildRelationResolver {
+
+    private final Map<UUID, Relations> relations = new ConcurrentHashMap<>();
+
+    /**
+     * Collects names of allies and enemies of the guild, members of the guild are kept as they are.
+     */
+    public void collect(Guild guild, @Nullable Collection<String> allies, @Nullable Collection<String> enemies) {
+        this.collect(guild, null, null, allies, enemies);
+    }
+
+    /**
+     * Collects names of members, deputies, allies and enemies of the guild.
+     *
+     * @param members  names of members, or null to keep members of the guild as they are
+     * @param deputies names of deputies, or null to keep deputies of the guild as they are
+     */
+    public void collect(Guild guild, @Nullable Collection<String> members, @Nullable Collection<String> deputies,
+                        @Nullable Collection<String> allies, @Nullable Collection<String> enemies) {
+        this.relations.put(guild.getUUID(), new Relations(
+                members,
+                deputies,
+                allies == null ? Collections.emptySet() : allies,
+                enemies == null ? Collections.emptySet() : enemies
+        ));
+    }
+
+    /**
+     * Sets relations of collected guilds. Alliances are made mutual - guild which was missing its ally is marked as changed.
+     *
+     * @return amount of alliances which were not mutual
+     */
+    public int resolve(GuildManager guildManager, UserManager userManager) {
+        Map<String, UUID> guildIds = new HashMap<>();
+        guildManager.getGuilds().forEach(guild -> guildIds.put(guild.getName(), guild.getUUID()));
+
+        int loadedFields = MutableEntity.mask(Guild.Field.MEMBERS) | MutableEntity.mask(Guild.Field.DEPUTIES)
+                | MutableEntity.mask(Guild.Field.ALLIES) | MutableEntity.mask(Guild.Field.ENEMIES);
+        Set<Guild> resolvedGuilds = new HashSet<>();
+
+        this.relations.forEach((uuid, relations) -> {
+            // Guilds removed during the loading (e.g. without an owner) are skipped
+            Guild guild = guildManager.findByUuid(uuid).orNull();
+            if (guild == null) {
+                return;
+            }
+
+            boolean changed = guild.wasChanged();
+
+            if (relations.members != null) {
+                guild.setMembers(resolveUsers(userManager, relations.members));
+            }
+
+            if (relations.deputies != null) {
+                guild.setDeputies(resolveUsers(userManager, relations.deputies));
+            }
+
+            guild.setAllies(resolveGuilds(guildManager, guildIds, relations.allies));
+            guild.setEnemies(resolveGuilds(guildManager, guildIds, relations.enemies));
+
+            if (relations.members != null) {
+                guild.deserializationUpdate();
+            }
+
+            if (!changed) {
+                guild.markUnchanged(loadedFields);
+            }
+
+            resolvedGuilds.add(guild);
+        });
+
+        int fixedAlliances = 0;
+
+        for (Guild guild : resolvedGuilds) {
+            for (Guild ally : guild.getAllies()) {
+                if (!ally.getAllies().contains(guild)) {
+                    ally.addAlly(guild);
+                    fixedAlliances++;
+                }
+            }
+        }
+
+        this.relations.clear();
+        return fixedAlliances;
+    }
+
+    private static Set<User> resolveUsers(UserManager userManager, Collection<String> names) {
+        Set<User> users = new HashSet<>();
+
+        for (String name : names) {
+            userManager.findByName(name).peek(users::add);
+        }
+
+        return users;
+    }
+
+    private static Set<Guild> resolveGuilds(GuildManager guildManager, Map<String, UUID> guildIds, Collection<String> names) {
+        Set<Guild> guilds = new HashSet<>();
+
+        for (String name : names) {
+            UUID uuid = guildIds.get(name);
+            if (uuid != null) {
+                guildManager.findByUuid(uuid).peek(guilds::add);
+            }
+        }
+
+        return guilds;
+    }
+
+    private static final class Relations {
+
+        @Nullable
+        private final Collection<String> members;
+        @Nullable
+        private final Collection<String> deputies;
+        private final Collection<String> allies;
+        private final Collection<String> enemies;
+
+        private Relations(@Nullable Collection<String> members, @Nullable Collection<String> deputies, Collection<String> allies, Collection<String> enemies) {
+            this.members = members;
+            this.deputies = deputies;
+            this.allies = allies;
+            this.enemies = enemies;
+        }
+
+    }
+
+}
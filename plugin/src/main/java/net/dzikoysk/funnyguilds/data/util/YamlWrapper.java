@@ -30,6 +30,20 @@ public final class YamlWrapper extends YamlConfiguration {
         }
     }
 
+    /**
+     * Creates wrapper of the already read content, without touching the file.
+     */
+    public YamlWrapper(File file, String content) {
+        this.file = file;
+
+        try {
+            super.loadFromString(content);
+        }
+        catch (Exception exception) {
+            FunnyGuilds.getPluginLogger().error("Failed to load YAML file " + file.getName(), exception);
+        }
+    }
+
     @Override
     public void save(@NotNull File file) {
         try {
@@ -8,6 +8,10 @@ public final class UserValidation {
     private UserValidation() {
     }
 
+    /**
+     * Gets the user required by the command. Offline user which is not loaded is loaded on the calling thread - members of guilds
+     * are always loaded, so only commands targeting any player (e.g. administrative commands) may wait for the database.
+     */
     public static User requireUserByName(String name) {
         return FunnyGuilds.getInstance().getUserManager().findByName(name, true).orThrow(() -> {
             return new InternalValidationException(config -> config.commands.validation.notPlayedBefore);
@@ -16,6 +16,7 @@ import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
+import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import static net.dzikoysk.funnyguilds.feature.command.DefaultValidation.when;
 
@@ -50,7 +51,7 @@ public final class MoveCommand extends AbstractFunnyCommand {
 
         when(distance > LocationUtils.flatDistance(player.getWorld().getSpawnLocation(), location),
                 config -> config.guild.commands.create.nearSpawn, FunnyFormatter.of("{DISTANCE}", distance));
-        when(this.regionManager.isNearRegion(location), config -> config.guild.commands.create.nearOtherGuild);
+        when(this.regionManager.isNearRegion(location, guild.getRegion().orNull()), config -> config.guild.commands.create.nearOtherGuild);
 
         if (!SimpleEventHandler.handle(new GuildMoveEvent(AdminUtils.getCause(admin), admin, guild, location))) {
             return;
@@ -76,10 +77,12 @@ public final class MoveCommand extends AbstractFunnyCommand {
                 .orElseGet(() -> new Region(guild, location, this.config.regionSize));
 
         if (heartConfig.createCenterSphere) {
-            SpaceUtils.sphere(location, 3, 3, false, true, 0).stream()
-                    .map(Location::getBlock)
-                    .filter(block -> block.getType() != Material.BEDROCK)
-                    .forEach(block -> block.setType(Material.AIR));
+            SpaceUtils.forEachSphereCoordinate(location, 3, 3, 0, false, true, (x, y, z) -> {
+                Block block = world.getBlockAt(x, y, z);
+                if (block.getType() != Material.BEDROCK) {
+                    block.setType(Material.AIR);
+                }
+            });
         }
 
         this.plugin.getGuildEntityHelper().spawnGuildEntity(guild);
@@ -2,6 +2,7 @@ package net.dzikoysk.funnyguilds.feature.command.admin;
 
 import net.dzikoysk.funnycommands.stereotypes.FunnyCommand;
 import net.dzikoysk.funnyguilds.data.DataModel;
+import net.dzikoysk.funnyguilds.data.binary.BinaryDataModel;
 import net.dzikoysk.funnyguilds.data.database.SQLDataModel;
 import net.dzikoysk.funnyguilds.data.database.serializer.DatabaseGuildSerializer;
 import net.dzikoysk.funnyguilds.data.database.serializer.DatabaseRegionSerializer;
@@ -12,7 +13,6 @@ import net.dzikoysk.funnyguilds.event.guild.GuildRenameEvent;
 import net.dzikoysk.funnyguilds.feature.command.AbstractFunnyCommand;
 import net.dzikoysk.funnyguilds.feature.command.GuildValidation;
 import net.dzikoysk.funnyguilds.guild.Guild;
-import net.dzikoysk.funnyguilds.shared.FunnyIOUtils;
 import net.dzikoysk.funnyguilds.user.User;
 import org.bukkit.command.CommandSender;
 import org.panda_lang.utilities.inject.annotations.Inject;
@@ -43,20 +43,24 @@ public final class NameCommand extends AbstractFunnyCommand {
         }
 
         guild.getRegion().peek(region -> {
+            // Region is stored under its name, so the old one has to be removed from the journal as well
+            this.plugin.getChangeJournal().peek(journal -> journal.recordDeletion(region));
+
             if (this.dataModel instanceof FlatDataModel) {
-                FlatDataModel dataModel = (FlatDataModel) this.dataModel;
-                dataModel.getRegionFile(region).peek(FunnyIOUtils::deleteFile);
+                ((FlatDataModel) this.dataModel).deleteRegionFile(region);
             }
             else if (this.dataModel instanceof SQLDataModel) {
                 DatabaseRegionSerializer.delete(region);
             }
+            else if (this.dataModel instanceof BinaryDataModel) {
+                ((BinaryDataModel) this.dataModel).deleteRegion(region);
+            }
 
-            region.setName(args[1]);
+            this.regionManager.renameRegion(region, args[1]);
         });
 
         if (this.dataModel instanceof FlatDataModel) {
-            FlatDataModel dataModel = (FlatDataModel) this.dataModel;
-            dataModel.getGuildFile(guild).peek(FunnyIOUtils::deleteFile);
+            ((FlatDataModel) this.dataModel).deleteGuildFile(guild);
         }
         else if (this.dataModel instanceof SQLDataModel) {
             DatabaseGuildSerializer.delete(guild);
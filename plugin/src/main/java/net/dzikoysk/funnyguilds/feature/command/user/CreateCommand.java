@@ -30,6 +30,7 @@ import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.WorldBorder;
+import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import static net.dzikoysk.funnyguilds.feature.command.DefaultValidation.when;
@@ -227,17 +228,19 @@ public final class CreateCommand extends AbstractFunnyCommand {
                 });
             }
             else if (heartConfig.createCenterSphere) {
-                for (Location locationInSphere : SpaceUtils.sphere(guildLocation, 4, 4, false, true, 0)) {
-                    if (locationInSphere.getBlock().getType() != Material.BEDROCK) {
-                        locationInSphere.getBlock().setType(Material.AIR);
+                SpaceUtils.forEachSphereCoordinate(guildLocation, 4, 4, 0, false, true, (x, y, z) -> {
+                    Block block = world.getBlockAt(x, y, z);
+                    if (block.getType() != Material.BEDROCK) {
+                        block.setType(Material.AIR);
                     }
-                }
+                });
 
-                for (Location locationInSphere : SpaceUtils.sphere(guildLocation, 4, 4, true, true, 0)) {
-                    if (locationInSphere.getBlock().getType() != Material.BEDROCK) {
-                        locationInSphere.getBlock().setType(Material.OBSIDIAN);
+                SpaceUtils.forEachSphereCoordinate(guildLocation, 4, 4, 0, true, true, (x, y, z) -> {
+                    Block block = world.getBlockAt(x, y, z);
+                    if (block.getType() != Material.BEDROCK) {
+                        block.setType(Material.OBSIDIAN);
                     }
-                }
+                });
 
                 if (this.config.eventPhysics) {
                     guildLocation.clone().subtract(0.0D, 2.0D, 0.0D).getBlock().setType(Material.OBSIDIAN);
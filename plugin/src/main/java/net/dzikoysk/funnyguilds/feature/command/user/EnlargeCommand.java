@@ -38,7 +38,7 @@ public final class EnlargeCommand extends AbstractFunnyCommand {
             return;
         }
 
-        when(this.regionManager.isNearRegion(region.getCenter()), config -> config.guild.commands.enlarge.nearOtherGuild);
+        when(this.regionManager.isNearRegion(region.getCenter(), region), config -> config.guild.commands.enlarge.nearOtherGuild);
 
         if (!SimpleEventHandler.handle(new GuildEnlargeEvent(EventCause.USER, deputy, guild))) {
             return;
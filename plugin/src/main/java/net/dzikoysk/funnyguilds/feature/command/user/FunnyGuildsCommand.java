@@ -63,6 +63,7 @@ public final class FunnyGuildsCommand extends AbstractFunnyCommand {
 
     private void saveAll(CommandSender sender) {
         when(!sender.hasPermission("funnyguilds.admin"), config -> config.commands.validation.noPermission);
+        when(!this.plugin.getDataLoader().isLoaded(), config -> config.system.dataLoading);
 
         this.messageService.getMessage(config -> config.system.saveAllSaving)
                 .receiver(sender)
@@ -71,7 +72,9 @@ public final class FunnyGuildsCommand extends AbstractFunnyCommand {
 
         DataModel dataModel = this.dataModel;
         try {
-            dataModel.save(false);
+            this.plugin.getChangeJournal()
+                    .peek(journal -> journal.save(dataModel, false))
+                    .onEmpty(() -> dataModel.save(false));
             this.plugin.getInvitationPersistenceHandler().saveInvitations();
         }
         catch (Exception exception) {
@@ -88,6 +91,7 @@ public final class FunnyGuildsCommand extends AbstractFunnyCommand {
 
     private void reload(CommandSender sender) {
         when(!sender.hasPermission("funnyguilds.reload"), config -> config.commands.validation.noPermission);
+        when(!this.plugin.getDataLoader().isLoaded(), config -> config.system.dataLoading);
 
         this.messageService.getMessage(config -> config.system.reloadReloading)
                 .receiver(sender)
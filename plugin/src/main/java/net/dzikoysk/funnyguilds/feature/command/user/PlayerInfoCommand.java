@@ -10,8 +10,10 @@ import net.dzikoysk.funnyguilds.guild.Guild;
 import net.dzikoysk.funnyguilds.rank.DefaultTops;
 import net.dzikoysk.funnyguilds.shared.FunnyFormatter;
 import net.dzikoysk.funnyguilds.user.User;
+import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import panda.std.Option;
 import static net.dzikoysk.funnyguilds.feature.command.DefaultValidation.when;
 
 @FunnyComponent
@@ -29,9 +31,28 @@ public final class PlayerInfoCommand extends AbstractFunnyCommand {
         when(args.length == 0 && !(sender instanceof Player), config -> config.commands.validation.playerOnly);
 
         String name = args.length == 0 ? sender.getName() : args[0];
-        User user = when(this.userManager.findByName(name, this.config.playerLookupIgnorecase), config -> config.commands.validation.notPlayedBefore);
 
-        this.sendInfoMessage(config -> config.player.commands.info.longForm, user, sender);
+        // Offline user which is not loaded is loaded asynchronously, so the query doesn't block the main thread
+        this.userManager.findByNameAsync(name, this.config.playerLookupIgnorecase, task -> Bukkit.getScheduler().runTaskAsynchronously(this.plugin, task))
+                .thenAccept(userOption -> {
+                    if (Bukkit.isPrimaryThread()) {
+                        this.sendInfoMessage(sender, userOption);
+                        return;
+                    }
+
+                    Bukkit.getScheduler().runTask(this.plugin, () -> this.sendInfoMessage(sender, userOption));
+                });
+    }
+
+    private void sendInfoMessage(CommandSender sender, Option<User> userOption) {
+        if (userOption.isEmpty()) {
+            this.messageService.getMessage(config -> config.commands.validation.notPlayedBefore)
+                    .receiver(sender)
+                    .send();
+            return;
+        }
+
+        this.sendInfoMessage(config -> config.player.commands.info.longForm, userOption.get(), sender);
     }
 
     public void sendInfoMessage(Function<MessageConfiguration, Sendable> baseMessage, User infoUser, CommandSender messageTarget) {
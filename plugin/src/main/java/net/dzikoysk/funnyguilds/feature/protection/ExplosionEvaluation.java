@@ -0,0 +1,85 @@
+package net.dzikoysk.funnyguilds.feature.protection;
+
+import java.util.Arrays;
+import net.dzikoysk.funnyguilds.guild.Region;
+import net.dzikoysk.funnyguilds.guild.RegionManager;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Regions affected by a single explosion. Chunk buckets are fetched from {@link RegionManager} once per chunk,
+ * every following lookup in the same chunk is resolved from the local cache.
+ */
+public final class ExplosionEvaluation {
+
+    private final RegionManager regionManager;
+    private final World world;
+    private final Region explosionRegion;
+
+    private long[] chunkKeys = new long[4];
+    private Region[][] chunkRegions = new Region[4][];
+    private int chunks;
+
+    ExplosionEvaluation(RegionManager regionManager, Location explosionLocation) {
+        this.regionManager = regionManager;
+        this.world = explosionLocation.getWorld();
+        this.explosionRegion = this.getRegionAt(explosionLocation.getBlockX(), explosionLocation.getBlockY(), explosionLocation.getBlockZ());
+    }
+
+    /**
+     * Gets region in which the explosion happened.
+     *
+     * @return the region or null if explosion happened outside of regions
+     */
+    @Nullable
+    public Region getExplosionRegion() {
+        return this.explosionRegion;
+    }
+
+    /**
+     * Gets region of the given block.
+     *
+     * @param block block affected by the explosion
+     * @return the region or null if block is not in any region
+     */
+    @Nullable
+    public Region getRegionAt(Block block) {
+        return this.getRegionAt(block.getX(), block.getY(), block.getZ());
+    }
+
+    @Nullable
+    public Region getRegionAt(int blockX, int blockY, int blockZ) {
+        for (Region region : this.getChunkRegions(blockX >> 4, blockZ >> 4)) {
+            if (region.isIn(this.world, blockX, blockY, blockZ)) {
+                return region;
+            }
+        }
+
+        return null;
+    }
+
+    private Region[] getChunkRegions(int chunkX, int chunkZ) {
+        long chunkKey = (long) chunkX & 0xFFFFFFFFL | ((long) chunkZ & 0xFFFFFFFFL) << 32;
+
+        for (int index = 0; index < this.chunks; index++) {
+            if (this.chunkKeys[index] == chunkKey) {
+                return this.chunkRegions[index];
+            }
+        }
+
+        if (this.chunks == this.chunkKeys.length) {
+            this.chunkKeys = Arrays.copyOf(this.chunkKeys, this.chunks * 2);
+            this.chunkRegions = Arrays.copyOf(this.chunkRegions, this.chunks * 2);
+        }
+
+        Region[] regions = this.regionManager.getRegionsInChunk(this.world, chunkX, chunkZ);
+        this.chunkKeys[this.chunks] = chunkKey;
+        this.chunkRegions[this.chunks] = regions;
+        this.chunks++;
+
+        return regions;
+    }
+
+}
@@ -0,0 +1,30 @@
+package net.dzikoysk.funnyguilds.feature.protection;
+
+import net.dzikoysk.funnyguilds.guild.RegionManager;
+import org.bukkit.event.entity.EntityExplodeEvent;
+
+/**
+ * Shares a single {@link ExplosionEvaluation} between all listeners handling the same explosion.
+ * Explosion events are always called on the main thread, so remembering the last event is enough.
+ */
+public class ExplosionEvaluator {
+
+    private final RegionManager regionManager;
+
+    private EntityExplodeEvent lastEvent;
+    private ExplosionEvaluation lastEvaluation;
+
+    public ExplosionEvaluator(RegionManager regionManager) {
+        this.regionManager = regionManager;
+    }
+
+    public ExplosionEvaluation evaluate(EntityExplodeEvent event) {
+        if (this.lastEvent != event) {
+            this.lastEvaluation = new ExplosionEvaluation(this.regionManager, event.getLocation());
+            this.lastEvent = event;
+        }
+
+        return this.lastEvaluation;
+    }
+
+}
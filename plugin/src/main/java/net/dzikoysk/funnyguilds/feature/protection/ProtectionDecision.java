@@ -0,0 +1,51 @@
+package net.dzikoysk.funnyguilds.feature.protection;
+
+import net.dzikoysk.funnyguilds.config.sections.HeartConfiguration;
+import net.dzikoysk.funnyguilds.guild.Region;
+import net.dzikoysk.funnyguilds.shared.bukkit.FunnyBox;
+import org.bukkit.Location;
+
+/**
+ * Player specific part of the protection check, valid as long as the region and members of its guild stay the same.
+ */
+final class ProtectionDecision {
+
+    final boolean bypass;
+    final boolean member;
+
+    private final Region region;
+    private final long regionVersion;
+    private final int membersRevision;
+    private final long expirationTime;
+
+    private FunnyBox heartBox;
+
+    ProtectionDecision(Region region, long regionVersion, int membersRevision, long expirationTime, boolean bypass, boolean member) {
+        this.region = region;
+        this.regionVersion = regionVersion;
+        this.membersRevision = membersRevision;
+        this.expirationTime = expirationTime;
+        this.bypass = bypass;
+        this.member = member;
+    }
+
+    boolean isValid(Region region, long regionVersion, int membersRevision, long now) {
+        return this.region == region
+                && this.regionVersion == regionVersion
+                && this.membersRevision == membersRevision
+                && now < this.expirationTime;
+    }
+
+    boolean isInHeartBox(HeartConfiguration heartConfig, Location location) {
+        if (this.heartBox == null) {
+            this.heartBox = this.region.getGuild().getEnderCrystal()
+                    .map(Location::getBlock)
+                    .map(FunnyBox::of)
+                    .map(box -> box.expandDirectional(heartConfig.interactionProtection.firstCorner, heartConfig.interactionProtection.secondCorner))
+                    .orNull();
+        }
+
+        return this.heartBox != null && this.heartBox.contains(location);
+    }
+
+}
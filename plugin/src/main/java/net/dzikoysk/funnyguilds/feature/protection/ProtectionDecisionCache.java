@@ -0,0 +1,37 @@
+package net.dzikoysk.funnyguilds.feature.protection;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Cache of player specific protection decisions, owned by the plugin instance.
+ */
+public class ProtectionDecisionCache {
+
+    private final Map<UUID, ProtectionDecision> decisions = new ConcurrentHashMap<>();
+
+    @Nullable
+    ProtectionDecision get(UUID uuid) {
+        return this.decisions.get(uuid);
+    }
+
+    void put(UUID uuid, ProtectionDecision decision) {
+        this.decisions.put(uuid, decision);
+    }
+
+    /**
+     * Drops cached protection decision of the player, e.g. when the player leaves the server or the permissions were changed.
+     *
+     * @param uuid unique id of the player
+     */
+    public void invalidate(UUID uuid) {
+        this.decisions.remove(uuid);
+    }
+
+    public void invalidateAll() {
+        this.decisions.clear();
+    }
+
+}
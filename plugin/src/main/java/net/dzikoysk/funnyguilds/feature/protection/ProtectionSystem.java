@@ -3,6 +3,7 @@ package net.dzikoysk.funnyguilds.feature.protection;
 import dev.peri.yetanothermessageslibrary.message.Sendable;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.UUID;
 import java.util.function.Function;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.config.PluginConfiguration;
@@ -10,9 +11,9 @@ import net.dzikoysk.funnyguilds.config.message.MessageConfiguration;
 import net.dzikoysk.funnyguilds.config.sections.HeartConfiguration;
 import net.dzikoysk.funnyguilds.guild.Guild;
 import net.dzikoysk.funnyguilds.guild.Region;
+import net.dzikoysk.funnyguilds.guild.RegionManager;
 import net.dzikoysk.funnyguilds.shared.FunnyFormatter;
 import net.dzikoysk.funnyguilds.shared.bukkit.FunnyBox;
-import net.dzikoysk.funnyguilds.user.User;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -21,6 +22,11 @@ import panda.std.Triple;
 
 public final class ProtectionSystem {
 
+    /**
+     * Bukkit doesn't notify about permission changes, so cached permission checks have to expire on their own
+     */
+    private static final long DECISION_EXPIRATION_TIME = 5000L;
+
     private ProtectionSystem() {
     }
 
@@ -30,8 +36,9 @@ public final class ProtectionSystem {
         }
 
         FunnyGuilds plugin = FunnyGuilds.getInstance();
+        RegionManager regionManager = plugin.getRegionManager();
 
-        Option<Region> regionOption = plugin.getRegionManager().findRegionAtLocation(location);
+        Option<Region> regionOption = regionManager.findRegionAtLocation(location);
         if (regionOption.isEmpty()) {
             return Option.none();
         }
@@ -40,17 +47,18 @@ public final class ProtectionSystem {
 
         PluginConfiguration config = plugin.getPluginConfiguration();
         HeartConfiguration heartConfig = config.heart;
-        if (region.getHeart().contentEquals(location)) {
+        if (regionManager.isHeartPosition(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ())) {
             Material heartMaterial = heartConfig.createMaterial;
             return Option.when(heartMaterial != null && heartMaterial != Material.AIR, Triple.of(player, guild, ProtectionType.HEART));
         }
 
-        if (player.hasPermission("funnyguilds.admin.build")) {
+        ProtectionDecision decision = getDecision(plugin, player, region, regionManager.getVersion());
+
+        if (decision.bypass) {
             return Option.none();
         }
 
-        Option<User> userOption = plugin.getUserManager().findByUuid(player.getUniqueId());
-        if (!userOption.is(guild::isMember)) {
+        if (!decision.member) {
             return Option.of(Triple.of(player, guild, ProtectionType.UNAUTHORIZED));
         }
 
@@ -58,13 +66,33 @@ public final class ProtectionSystem {
             return Option.of(Triple.of(player, guild, ProtectionType.LOCKED));
         }
 
-        if (heartConfig.interactionProtection.enabled && isGuildHeartProtectedRegion(location)) {
+        if (heartConfig.interactionProtection.enabled && decision.isInHeartBox(heartConfig, location)) {
             return Option.of(Triple.of(player, guild, ProtectionType.HEART_INTERACTION));
         }
 
         return Option.none();
     }
 
+    private static ProtectionDecision getDecision(FunnyGuilds plugin, Player player, Region region, long regionVersion) {
+        UUID uuid = player.getUniqueId();
+        Guild guild = region.getGuild();
+        long now = System.currentTimeMillis();
+
+        ProtectionDecisionCache decisions = plugin.getProtectionDecisionCache();
+        ProtectionDecision decision = decisions.get(uuid);
+        if (decision != null && decision.isValid(region, regionVersion, guild.getMembersRevision(), now)) {
+            return decision;
+        }
+
+        int membersRevision = guild.getMembersRevision();
+        boolean bypass = player.hasPermission("funnyguilds.admin.build");
+        boolean member = plugin.getUserManager().findByUuid(uuid).is(guild::isMember);
+
+        decision = new ProtectionDecision(region, regionVersion, membersRevision, now + DECISION_EXPIRATION_TIME, bypass, member);
+        decisions.put(uuid, decision);
+        return decision;
+    }
+
     public static boolean isGuildHeartProtectedRegion(Location location) {
         FunnyGuilds plugin = FunnyGuilds.getInstance();
 
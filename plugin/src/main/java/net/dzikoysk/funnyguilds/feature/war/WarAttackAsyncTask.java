@@ -1,6 +1,5 @@
 package net.dzikoysk.funnyguilds.feature.war;
 
-import java.util.Map.Entry;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.event.FunnyEvent.EventCause;
 import net.dzikoysk.funnyguilds.event.SimpleEventHandler;
@@ -14,8 +13,6 @@ import net.dzikoysk.funnyguilds.shared.bukkit.FunnyServer;
 import net.dzikoysk.funnyguilds.user.User;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
-import panda.std.Pair;
-import panda.std.stream.PandaStream;
 
 public class WarAttackAsyncTask extends AsyncFunnyTask {
 
@@ -23,27 +20,28 @@ public class WarAttackAsyncTask extends AsyncFunnyTask {
     private final GuildEntityHelper guildEntityHelper;
     private final User user;
     private final int entityId;
+    private final Runnable completionHandler;
 
-    public WarAttackAsyncTask(FunnyServer funnyServer, GuildEntityHelper guildEntityHelper, User user, int entityId) {
+    public WarAttackAsyncTask(FunnyServer funnyServer, GuildEntityHelper guildEntityHelper, User user, int entityId, Runnable completionHandler) {
         this.funnyServer = funnyServer;
         this.guildEntityHelper = guildEntityHelper;
         this.user = user;
         this.entityId = entityId;
+        this.completionHandler = completionHandler;
     }
 
     @Override
     public void execute() throws Exception {
-        PandaStream.of(this.guildEntityHelper.getGuildEntities().entrySet())
-                .filter(entry -> entry.getValue().getId() == this.entityId)
-                .map(Entry::getKey)
-                .mapOpt(guild -> this.funnyServer.getPlayer(this.user)
-                        .map(player -> Pair.of(player, guild))
-                )
-                .filter(playerToGuild -> playerToGuild.getSecond()
-                        .getEnderCrystal()
-                        .map(Location::getWorld)
-                        .is(guildWorld -> guildWorld.equals(playerToGuild.getFirst().getWorld())))
-                .forEach(playerToGuild -> this.attackGuild(playerToGuild.getFirst(), playerToGuild.getSecond()));
+        try {
+            this.guildEntityHelper.findGuildByEntityId(this.entityId).peek(guild -> this.funnyServer.getPlayer(this.user)
+                    .filter(player -> guild.getEnderCrystal()
+                            .map(Location::getWorld)
+                            .is(guildWorld -> guildWorld.equals(player.getWorld())))
+                    .peek(player -> this.attackGuild(player, guild)));
+        }
+        finally {
+            this.completionHandler.run();
+        }
     }
 
     private void attackGuild(Player player, Guild guild) {
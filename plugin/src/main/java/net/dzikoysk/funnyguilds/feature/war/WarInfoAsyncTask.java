@@ -1,6 +1,5 @@
 package net.dzikoysk.funnyguilds.feature.war;
 
-import java.util.Map.Entry;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.config.PluginConfiguration;
 import net.dzikoysk.funnyguilds.config.message.MessageService;
@@ -18,8 +17,6 @@ import net.dzikoysk.funnyguilds.shared.bukkit.FunnyServer;
 import net.dzikoysk.funnyguilds.user.User;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
-import panda.std.Pair;
-import panda.std.stream.PandaStream;
 
 public class WarInfoAsyncTask extends AsyncFunnyTask {
 
@@ -50,17 +47,11 @@ public class WarInfoAsyncTask extends AsyncFunnyTask {
 
     @Override
     public void execute() throws Exception {
-        PandaStream.of(this.guildEntityHelper.getGuildEntities().entrySet())
-                .filter(entry -> entry.getValue().getId() == this.entityId)
-                .map(Entry::getKey)
-                .mapOpt(guild -> this.funnyServer.getPlayer(this.user)
-                        .map(player -> Pair.of(player, guild))
-                )
-                .filter(playerToGuild -> playerToGuild.getSecond()
-                        .getEnderCrystal()
+        this.guildEntityHelper.findGuildByEntityId(this.entityId).peek(guild -> this.funnyServer.getPlayer(this.user)
+                .filter(player -> guild.getEnderCrystal()
                         .map(Location::getWorld)
-                        .is(guildWorld -> guildWorld.equals(playerToGuild.getFirst().getWorld())))
-                .forEach(playerToGuild -> this.displayGuildInfo(playerToGuild.getFirst(), playerToGuild.getSecond()));
+                        .is(guildWorld -> guildWorld.equals(player.getWorld())))
+                .peek(player -> this.displayGuildInfo(player, guild)));
     }
 
     private void displayGuildInfo(Player player, Guild guild) {
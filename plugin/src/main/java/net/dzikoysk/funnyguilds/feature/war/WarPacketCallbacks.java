@@ -1,14 +1,23 @@
 package net.dzikoysk.funnyguilds.feature.war;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.nms.api.packet.PacketCallbacks;
 import net.dzikoysk.funnyguilds.user.User;
 
 public class WarPacketCallbacks implements PacketCallbacks {
 
+    /**
+     * Minimal delay between two evaluated attacks of the same user (one server tick)
+     */
+    private static final long ATTACK_INTERVAL = 50L;
+
     private final FunnyGuilds plugin;
     private final User user;
 
+    private final AtomicBoolean attackPending = new AtomicBoolean();
+    private volatile long lastAttackTime;
+
     public WarPacketCallbacks(FunnyGuilds plugin, User user) {
         this.plugin = plugin;
         this.user = user;
@@ -25,9 +34,24 @@ public class WarPacketCallbacks implements PacketCallbacks {
             return;
         }
 
-        this.plugin.scheduleFunnyTasks(
-                new WarAttackAsyncTask(this.plugin.getFunnyServer(), this.plugin.getGuildEntityHelper(), this.user, entityId)
-        );
+        if (this.plugin.getGuildEntityHelper().findGuildByEntityId(entityId).isEmpty()) {
+            return;
+        }
+
+        // Coalesce clicks - at most one attack of the user is evaluated at a time, and not more often than once per tick
+        long now = System.currentTimeMillis();
+        if (now - this.lastAttackTime < ATTACK_INTERVAL || !this.attackPending.compareAndSet(false, true)) {
+            return;
+        }
+
+        this.lastAttackTime = now;
+        this.plugin.scheduleFunnyTasks(new WarAttackAsyncTask(
+                this.plugin.getFunnyServer(),
+                this.plugin.getGuildEntityHelper(),
+                this.user,
+                entityId,
+                () -> this.attackPending.set(false)
+        ));
     }
 
 }
@@ -0,0 +1,91 @@
+package net.dzikoysk.funnyguilds.guild;
+
+import java.util.function.Consumer;
+import net.dzikoysk.funnyguilds.shared.LongBucketMap;
+import org.bukkit.World;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Stores region under every chunk it overlaps, so point lookups are a single hash probe.
+ */
+final class ChunkRegionIndex implements RegionIndex {
+
+    private final LongBucketMap<Region> chunks = new LongBucketMap<>(RegionManager.EMPTY_BUCKET);
+
+    @Override
+    public void add(Region region) {
+        forEachChunkPositionInRegion(region, (chunkX, chunkZ) -> this.chunks.add(RegionManager.packChunkPosition(chunkX, chunkZ), region));
+    }
+
+    @Override
+    public void remove(Region region) {
+        forEachChunkPositionInRegion(region, (chunkX, chunkZ) -> this.chunks.remove(RegionManager.packChunkPosition(chunkX, chunkZ), region));
+    }
+
+    @Nullable
+    @Override
+    public Region getRegionAt(World world, int blockX, int blockY, int blockZ) {
+        for (Region region : this.chunks.get(RegionManager.packChunkPosition(blockX >> 4, blockZ >> 4))) {
+            if (region.isIn(world, blockX, blockY, blockZ)) {
+                return region;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public Region[] getRegionsInChunk(int chunkX, int chunkZ) {
+        return this.chunks.get(RegionManager.packChunkPosition(chunkX, chunkZ));
+    }
+
+    @Override
+    public void forEachCandidate(int minX, int minZ, int maxX, int maxZ, Consumer<Region> consumer) {
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                for (Region region : this.chunks.get(RegionManager.packChunkPosition(chunkX, chunkZ))) {
+                    consumer.accept(region);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int countEntries() {
+        int[] entries = { 0 };
+        this.chunks.forEachValue(region -> entries[0]++);
+        return entries[0];
+    }
+
+    /**
+     * Calculates chunks that are in the bounds of the given region
+     * and applies given function for every chunk position.
+     */
+    private static void forEachChunkPositionInRegion(Region region, ChunkPositionConsumer chunkPosFunc) {
+        int firstX = region.getFirstCorner().getBlockX() >> 4;
+        int firstZ = region.getFirstCorner().getBlockZ() >> 4;
+
+        int secondX = region.getSecondCorner().getBlockX() >> 4;
+        int secondZ = region.getSecondCorner().getBlockZ() >> 4;
+
+        int startX = Math.min(firstX, secondX);
+        int startZ = Math.min(firstZ, secondZ);
+
+        int endX = Math.max(firstX, secondX);
+        int endZ = Math.max(firstZ, secondZ);
+
+        for (int chunkX = startX; chunkX <= endX; chunkX++) {
+            for (int chunkZ = startZ; chunkZ <= endZ; chunkZ++) {
+                chunkPosFunc.accept(chunkX, chunkZ);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkPositionConsumer {
+
+        void accept(int chunkX, int chunkZ);
+
+    }
+
+}
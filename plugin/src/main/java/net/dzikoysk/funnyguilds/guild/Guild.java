@@ -43,6 +43,8 @@ public class Guild extends AbstractMutableEntity {
 
     private boolean pvp;
 
+    private volatile int membersRevision;
+
     public Guild(UUID uuid, String name, String tag) {
         this.uuid = uuid != null ? uuid : UUID.randomUUID();
         this.name = name;
@@ -76,7 +78,7 @@ public class Guild extends AbstractMutableEntity {
 
     public void setName(String name) {
         this.name = name;
-        this.markChanged();
+        this.markChanged(Field.NAME);
     }
 
     public String getTag() {
@@ -85,7 +87,7 @@ public class Guild extends AbstractMutableEntity {
 
     public void setTag(String tag) {
         this.tag = tag;
-        this.markChanged();
+        this.markChanged(Field.TAG);
     }
 
     public GuildRank getRank() {
@@ -98,7 +100,7 @@ public class Guild extends AbstractMutableEntity {
 
     public void setLives(int lives) {
         this.lives = Math.max(0, lives);
-        this.markChanged();
+        this.markChanged(Field.LIVES);
     }
 
     public void updateLives(IntFunction<Integer> update) {
@@ -119,7 +121,7 @@ public class Guild extends AbstractMutableEntity {
     public void setRegion(@Nullable Region region) {
         this.region = Option.of(region);
         this.region.peek(peekRegion -> peekRegion.setGuild(this));
-        this.markChanged();
+        this.markChanged(Field.REGION);
     }
 
     public Option<Location> getCenter() {
@@ -145,7 +147,7 @@ public class Guild extends AbstractMutableEntity {
 
     public void setHome(@Nullable Location home) {
         this.home = Option.of(home);
-        this.markChanged();
+        this.markChanged(Field.HOME);
     }
 
     public void teleportHome(Player player) {
@@ -163,7 +165,7 @@ public class Guild extends AbstractMutableEntity {
     public void setOwner(User user) {
         this.owner = user;
         this.addMember(user);
-        this.markChanged();
+        this.markChanged(Field.OWNER);
     }
 
     public Set<User> getMembers() {
@@ -180,20 +182,33 @@ public class Guild extends AbstractMutableEntity {
         return this.members.contains(user);
     }
 
+    /**
+     * Gets number of changes made to the members of this guild. Used to invalidate cached membership checks.
+     *
+     * @return the revision of guild members
+     */
+    public int getMembersRevision() {
+        return this.membersRevision;
+    }
+
     public void setMembers(Set<User> members) {
         this.members = Collections.synchronizedSet(members);
-        this.markChanged();
+        this.membersRevision++;
+        this.markChanged(Field.MEMBERS);
     }
 
     public void addMember(User user) {
         this.members.add(user);
-        this.markChanged();
+        this.membersRevision++;
+        this.markChanged(Field.MEMBERS);
     }
 
     public void removeMember(User user) {
         this.members.remove(user);
         this.deputies.remove(user);
-        this.markChanged();
+        this.membersRevision++;
+        this.markChanged(Field.MEMBERS);
+        this.markChanged(Field.DEPUTIES);
     }
 
     public Set<User> getDeputies() {
@@ -210,17 +225,17 @@ public class Guild extends AbstractMutableEntity {
 
     public void setDeputies(Set<User> users) {
         this.deputies = users;
-        this.markChanged();
+        this.markChanged(Field.DEPUTIES);
     }
 
     public void addDeputy(User user) {
         this.deputies.add(user);
-        this.markChanged();
+        this.markChanged(Field.DEPUTIES);
     }
 
     public void removeDeputy(User user) {
         this.deputies.remove(user);
-        this.markChanged();
+        this.markChanged(Field.DEPUTIES);
     }
 
     public Set<Guild> getAllies() {
@@ -237,17 +252,17 @@ public class Guild extends AbstractMutableEntity {
 
     public void setAllies(Set<Guild> guilds) {
         this.allies = guilds;
-        this.markChanged();
+        this.markChanged(Field.ALLIES);
     }
 
     public void addAlly(Guild guild) {
         this.allies.add(guild);
-        this.markChanged();
+        this.markChanged(Field.ALLIES);
     }
 
     public void removeAlly(Guild guild) {
         this.allies.remove(guild);
-        this.markChanged();
+        this.markChanged(Field.ALLIES);
     }
 
     public Set<Guild> getEnemies() {
@@ -264,17 +279,17 @@ public class Guild extends AbstractMutableEntity {
 
     public void setEnemies(Set<Guild> guilds) {
         this.enemies = guilds;
-        this.markChanged();
+        this.markChanged(Field.ENEMIES);
     }
 
     public void addEnemy(Guild guild) {
         this.enemies.add(guild);
-        this.markChanged();
+        this.markChanged(Field.ENEMIES);
     }
 
     public void removeEnemy(Guild guild) {
         this.enemies.remove(guild);
-        this.markChanged();
+        this.markChanged(Field.ENEMIES);
     }
 
     public boolean isNeutral(@Nullable Guild guild) {
@@ -287,7 +302,7 @@ public class Guild extends AbstractMutableEntity {
 
     public void setBorn(Instant time) {
         this.born = time;
-        this.markChanged();
+        this.markChanged(Field.BORN);
     }
 
     public Instant getValidity() {
@@ -304,7 +319,7 @@ public class Guild extends AbstractMutableEntity {
         }
 
         this.validity = time;
-        this.markChanged();
+        this.markChanged(Field.VALIDITY);
     }
 
     public Instant getProtection() {
@@ -317,7 +332,7 @@ public class Guild extends AbstractMutableEntity {
 
     public void setProtection(Instant protection) {
         this.protection = protection;
-        this.markChanged();
+        this.markChanged(Field.PROTECTION);
     }
 
     public Option<Instant> getBuild() {
@@ -329,8 +344,12 @@ public class Guild extends AbstractMutableEntity {
             return false;
         }
 
-        this.build = Option.none();
-        this.markChanged();
+        // Expired lock is cleared, but only an actual change has to be saved
+        if (this.build.isPresent()) {
+            this.build = Option.none();
+            this.markChanged(Field.BUILD);
+        }
+
         return true;
     }
 
@@ -340,7 +359,7 @@ public class Guild extends AbstractMutableEntity {
         }
 
         this.build = Option.of(time);
-        this.markChanged();
+        this.markChanged(Field.BUILD);
     }
 
     public Option<Instant> getBan() {
@@ -352,8 +371,11 @@ public class Guild extends AbstractMutableEntity {
             return true;
         }
 
-        this.ban = Option.none();
-        this.markChanged();
+        if (this.ban.isPresent()) {
+            this.ban = Option.none();
+            this.markChanged(Field.BAN);
+        }
+
         return false;
     }
 
@@ -363,7 +385,7 @@ public class Guild extends AbstractMutableEntity {
         }
 
         this.ban = Option.of(time);
-        this.markChanged();
+        this.markChanged(Field.BAN);
     }
 
     public boolean hasPvPEnabled() {
@@ -372,12 +394,12 @@ public class Guild extends AbstractMutableEntity {
 
     public void setPvP(boolean pvp) {
         this.pvp = pvp;
-        this.markChanged();
+        this.markChanged(Field.PVP);
     }
 
     public boolean togglePvP() {
         this.pvp = !this.pvp;
-        this.markChanged();
+        this.markChanged(Field.PVP);
         return this.pvp;
     }
 
@@ -393,7 +415,7 @@ public class Guild extends AbstractMutableEntity {
             enabled = true;
         }
 
-        this.markChanged();
+        this.markChanged(Field.ALLIED_PVP);
         return enabled;
     }
 
@@ -426,4 +448,29 @@ public class Guild extends AbstractMutableEntity {
         return this.name;
     }
 
+    /**
+     * Fields of the guild tracked separately, so only the changed ones have to be saved.
+     */
+    public enum Field {
+
+        NAME,
+        TAG,
+        OWNER,
+        HOME,
+        REGION,
+        MEMBERS,
+        DEPUTIES,
+        ALLIES,
+        ENEMIES,
+        LIVES,
+        BORN,
+        VALIDITY,
+        PROTECTION,
+        BUILD,
+        BAN,
+        PVP,
+        ALLIED_PVP
+
+    }
+
 }
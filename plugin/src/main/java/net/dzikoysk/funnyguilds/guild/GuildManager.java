@@ -6,15 +6,17 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.config.PluginConfiguration;
+import net.dzikoysk.funnyguilds.data.MutableEntity;
+import net.dzikoysk.funnyguilds.data.binary.BinaryDataModel;
 import net.dzikoysk.funnyguilds.data.database.SQLDataModel;
 import net.dzikoysk.funnyguilds.data.database.serializer.DatabaseGuildSerializer;
 import net.dzikoysk.funnyguilds.data.flat.FlatDataModel;
 import net.dzikoysk.funnyguilds.feature.scoreboard.ScoreboardGlobalUpdateUserSyncTask;
 import net.dzikoysk.funnyguilds.nms.heart.GuildEntityHelper;
-import net.dzikoysk.funnyguilds.shared.FunnyIOUtils;
 import net.dzikoysk.funnyguilds.shared.Validate;
 import net.dzikoysk.funnyguilds.user.User;
 import org.bukkit.Bukkit;
@@ -22,6 +24,7 @@ import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
+import org.jetbrains.annotations.Nullable;
 import panda.std.Option;
 import panda.std.stream.PandaStream;
 
@@ -30,6 +33,8 @@ public class GuildManager {
     private final PluginConfiguration pluginConfiguration;
     private final Map<UUID, Guild> guildsMap = new ConcurrentHashMap<>();
 
+    private volatile Consumer<MutableEntity> changeListener;
+
     public GuildManager(PluginConfiguration pluginConfiguration) {
         this.pluginConfiguration = pluginConfiguration;
     }
@@ -51,9 +56,20 @@ public class GuildManager {
      * Deletes all loaded guilds data
      */
     public void clearGuilds() {
+        this.guildsMap.values().forEach(guild -> guild.setChangeListener(null));
         this.guildsMap.clear();
     }
 
+    /**
+     * Sets listener notified about changes of stored guilds, e.g. to record them in the journal.
+     *
+     * @param listener the listener or null to remove the current one
+     */
+    public void setChangeListener(@Nullable Consumer<MutableEntity> listener) {
+        this.changeListener = listener;
+        this.guildsMap.values().forEach(guild -> guild.setChangeListener(listener));
+    }
+
     /**
      * Gets the set of guilds from collection of strings (names).
      *
@@ -210,6 +226,7 @@ public class GuildManager {
     public Guild addGuild(Guild guild) {
         Validate.notNull(guild, "guild can't be null!");
         this.guildsMap.put(guild.getUUID(), guild);
+        guild.setChangeListener(this.changeListener);
         return guild;
     }
 
@@ -221,6 +238,7 @@ public class GuildManager {
     public void removeGuild(Guild guild) {
         Validate.notNull(guild, "guild can't be null!");
         this.guildsMap.remove(guild.getUUID());
+        guild.setChangeListener(null);
     }
 
     /**
@@ -263,13 +281,17 @@ public class GuildManager {
             guild.getMembers().forEach(member -> plugin.scheduleFunnyTasks(new ScoreboardGlobalUpdateUserSyncTask(manager, member)));
         });
 
+        plugin.getChangeJournal().peek(journal -> journal.recordDeletion(guild));
+
         if (plugin.getDataModel() instanceof FlatDataModel) {
-            FlatDataModel dataModel = ((FlatDataModel) plugin.getDataModel());
-            dataModel.getGuildFile(guild).peek(FunnyIOUtils::deleteFile);
+            ((FlatDataModel) plugin.getDataModel()).deleteGuildFile(guild);
         }
         else if (plugin.getDataModel() instanceof SQLDataModel) {
             DatabaseGuildSerializer.delete(guild);
         }
+        else if (plugin.getDataModel() instanceof BinaryDataModel) {
+            ((BinaryDataModel) plugin.getDataModel()).deleteGuild(guild);
+        }
 
         this.removeGuild(guild);
     }
@@ -0,0 +1,204 @@
+package net.dzikoysk.funnyguilds.guild;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import net.dzikoysk.funnyguilds.shared.LongBucketMap;
+import org.bukkit.World;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Stack of grids with cell sizes growing from a single chunk by powers of two. Every region is stored exactly once,
+ * in the cell of its lower corner on the first level which cells are larger than the region - so it overlaps at most 2x2 cells of that level.
+ * Memory scales with the number of regions instead of their area, and resizing a region is a constant number of operations.
+ */
+final class HierarchicalRegionIndex implements RegionIndex {
+
+    private static final int BASE_SHIFT = 4;
+    private static final int LEVELS = 23;
+
+    private final LongBucketMap<Region>[] levels;
+    private final int[] levelSizes = new int[LEVELS];
+    private volatile int usedLevels;
+
+    @SuppressWarnings("unchecked")
+    HierarchicalRegionIndex() {
+        this.levels = new LongBucketMap[LEVELS];
+        for (int level = 0; level < LEVELS; level++) {
+            this.levels[level] = new LongBucketMap<>(RegionManager.EMPTY_BUCKET);
+        }
+    }
+
+    @Override
+    public synchronized void add(Region region) {
+        int level = getLevel(region);
+        int shift = BASE_SHIFT + level;
+
+        if (this.levels[level].add(RegionManager.packChunkPosition(region.getLowerX() >> shift, region.getLowerZ() >> shift), region)) {
+            this.levelSizes[level]++;
+            this.usedLevels |= 1 << level;
+        }
+    }
+
+    @Override
+    public synchronized void remove(Region region) {
+        int level = getLevel(region);
+        int shift = BASE_SHIFT + level;
+
+        if (this.levels[level].remove(RegionManager.packChunkPosition(region.getLowerX() >> shift, region.getLowerZ() >> shift), region)) {
+            if (--this.levelSizes[level] == 0) {
+                this.usedLevels &= ~(1 << level);
+            }
+        }
+    }
+
+    @Nullable
+    @Override
+    public Region getRegionAt(World world, int blockX, int blockY, int blockZ) {
+        int usedLevels = this.usedLevels;
+
+        while (usedLevels != 0) {
+            int level = Integer.numberOfTrailingZeros(usedLevels);
+            usedLevels &= usedLevels - 1;
+
+            LongBucketMap<Region> cells = this.levels[level];
+            int shift = BASE_SHIFT + level;
+            int cellX = blockX >> shift;
+            int cellZ = blockZ >> shift;
+
+            // Region stored in the cell of its lower corner reaches at most one cell further
+            for (int offsetX = 0; offsetX >= -1; offsetX--) {
+                for (int offsetZ = 0; offsetZ >= -1; offsetZ--) {
+                    for (Region region : cells.get(RegionManager.packChunkPosition(cellX + offsetX, cellZ + offsetZ))) {
+                        if (region.isIn(world, blockX, blockY, blockZ)) {
+                            return region;
+                        }
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Regions overlapping with a chunk usually come from a single cell, whose stored array is returned as it is.
+     * A new array is allocated only if matching regions are spread between cells or mixed with other regions of the cell.
+     */
+    @Override
+    public Region[] getRegionsInChunk(int chunkX, int chunkZ) {
+        int minX = chunkX << 4;
+        int minZ = chunkZ << 4;
+        int maxX = minX + 15;
+        int maxZ = minZ + 15;
+
+        Region[] source = null;
+        boolean sharedSource = true;
+        int matches = 0;
+        int usedLevels = this.usedLevels;
+
+        for (int remainingLevels = usedLevels; remainingLevels != 0; remainingLevels &= remainingLevels - 1) {
+            int level = Integer.numberOfTrailingZeros(remainingLevels);
+            int shift = BASE_SHIFT + level;
+
+            for (int cellX = (minX >> shift) - 1; cellX <= maxX >> shift; cellX++) {
+                for (int cellZ = (minZ >> shift) - 1; cellZ <= maxZ >> shift; cellZ++) {
+                    Region[] cell = this.levels[level].get(RegionManager.packChunkPosition(cellX, cellZ));
+                    int cellMatches = 0;
+
+                    for (Region region : cell) {
+                        if (overlaps(region, minX, minZ, maxX, maxZ)) {
+                            cellMatches++;
+                        }
+                    }
+
+                    if (cellMatches == 0) {
+                        continue;
+                    }
+
+                    sharedSource &= source == null && cellMatches == cell.length;
+                    source = cell;
+                    matches += cellMatches;
+                }
+            }
+        }
+
+        if (matches == 0) {
+            return RegionManager.EMPTY_BUCKET;
+        }
+
+        if (sharedSource) {
+            return source;
+        }
+
+        Region[] found = new Region[matches];
+        int index = 0;
+
+        for (int remainingLevels = usedLevels; remainingLevels != 0; remainingLevels &= remainingLevels - 1) {
+            int level = Integer.numberOfTrailingZeros(remainingLevels);
+            int shift = BASE_SHIFT + level;
+
+            for (int cellX = (minX >> shift) - 1; cellX <= maxX >> shift; cellX++) {
+                for (int cellZ = (minZ >> shift) - 1; cellZ <= maxZ >> shift; cellZ++) {
+                    for (Region region : this.levels[level].get(RegionManager.packChunkPosition(cellX, cellZ))) {
+                        if (index < found.length && overlaps(region, minX, minZ, maxX, maxZ)) {
+                            found[index++] = region;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Index could change between both passes
+        return index == found.length ? found : Arrays.copyOf(found, index);
+    }
+
+    private static boolean overlaps(Region region, int minX, int minZ, int maxX, int maxZ) {
+        return region.getLowerX() <= maxX && region.getUpperX() >= minX && region.getLowerZ() <= maxZ && region.getUpperZ() >= minZ;
+    }
+
+    @Override
+    public void forEachCandidate(int minX, int minZ, int maxX, int maxZ, Consumer<Region> consumer) {
+        int usedLevels = this.usedLevels;
+
+        while (usedLevels != 0) {
+            int level = Integer.numberOfTrailingZeros(usedLevels);
+            usedLevels &= usedLevels - 1;
+
+            LongBucketMap<Region> cells = this.levels[level];
+            int shift = BASE_SHIFT + level;
+
+            for (int cellX = (minX >> shift) - 1; cellX <= maxX >> shift; cellX++) {
+                for (int cellZ = (minZ >> shift) - 1; cellZ <= maxZ >> shift; cellZ++) {
+                    for (Region region : cells.get(RegionManager.packChunkPosition(cellX, cellZ))) {
+                        consumer.accept(region);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized int countEntries() {
+        int entries = 0;
+        for (int levelSize : this.levelSizes) {
+            entries += levelSize;
+        }
+
+        return entries;
+    }
+
+    /**
+     * Gets the first level which cells are larger than the region.
+     */
+    private static int getLevel(Region region) {
+        int width = Math.max(region.getUpperX() - region.getLowerX(), region.getUpperZ() - region.getLowerZ());
+        int level = 0;
+
+        while (level < LEVELS - 1 && (1 << (BASE_SHIFT + level)) <= width) {
+            level++;
+        }
+
+        return level;
+    }
+
+}
@@ -70,7 +70,15 @@ public class Region extends AbstractMutableEntity {
     }
 
     public boolean isIn(Location location) {
-        if (location == null || this.firstCorner == null || this.secondCorner == null) {
+        if (location == null) {
+            return false;
+        }
+
+        return this.isIn(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    public boolean isIn(World world, int blockX, int blockY, int blockZ) {
+        if (this.firstCorner == null || this.secondCorner == null) {
             return false;
         }
 
@@ -78,13 +86,13 @@ public class Region extends AbstractMutableEntity {
             return false;
         }
 
-        if (!this.world.equals(location.getWorld())) {
+        if (!this.world.equals(world)) {
             return false;
         }
 
-        if (location.getBlockX() > this.getLowerX() && location.getBlockX() < this.getUpperX()) {
-            if (location.getBlockY() > this.getLowerY() && location.getBlockY() < this.getUpperY()) {
-                return location.getBlockZ() > this.getLowerZ() && location.getBlockZ() < this.getUpperZ();
+        if (blockX > this.getLowerX() && blockX < this.getUpperX()) {
+            if (blockY > this.getLowerY() && blockY < this.getUpperY()) {
+                return blockZ > this.getLowerZ() && blockZ < this.getUpperZ();
             }
         }
 
@@ -0,0 +1,157 @@
+package net.dzikoysk.funnyguilds.guild;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import net.dzikoysk.funnyguilds.shared.LongBucketMap;
+import org.bukkit.Location;
+
+/**
+ * Uniform grid of region centers in a single world, used to answer distance queries
+ * without visiting every region on the server.
+ */
+final class RegionCenterGrid {
+
+    private static final int CELL_SHIFT = 7;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    private final LongBucketMap<Region> cells = new LongBucketMap<>(new Region[0]);
+
+    private volatile int size;
+    private volatile int minCellX = Integer.MAX_VALUE;
+    private volatile int minCellZ = Integer.MAX_VALUE;
+    private volatile int maxCellX = Integer.MIN_VALUE;
+    private volatile int maxCellZ = Integer.MIN_VALUE;
+
+    synchronized void add(Region region) {
+        Location center = region.getCenter();
+        int cellX = toCell(center.getX());
+        int cellZ = toCell(center.getZ());
+
+        if (!this.cells.add(RegionManager.packChunkPosition(cellX, cellZ), region)) {
+            return;
+        }
+
+        this.minCellX = Math.min(this.minCellX, cellX);
+        this.minCellZ = Math.min(this.minCellZ, cellZ);
+        this.maxCellX = Math.max(this.maxCellX, cellX);
+        this.maxCellZ = Math.max(this.maxCellZ, cellZ);
+        this.size++;
+    }
+
+    synchronized void remove(Region region) {
+        Location center = region.getCenter();
+        long cellKey = RegionManager.packChunkPosition(toCell(center.getX()), toCell(center.getZ()));
+
+        if (this.cells.remove(cellKey, region)) {
+            this.size--;
+        }
+    }
+
+    /**
+     * Checks if there is any region which center is closer than the given distance and matches the filter.
+     */
+    boolean anyWithin(double x, double z, double distance, Predicate<Region> filter) {
+        double distanceSquared = distance * distance;
+        int fromX = toCell(x - distance);
+        int fromZ = toCell(z - distance);
+        int toX = toCell(x + distance);
+        int toZ = toCell(z + distance);
+
+        for (int cellX = fromX; cellX <= toX; cellX++) {
+            for (int cellZ = fromZ; cellZ <= toZ; cellZ++) {
+                for (Region region : this.cells.get(RegionManager.packChunkPosition(cellX, cellZ))) {
+                    if (flatDistanceSquared(region, x, z) < distanceSquared && filter.test(region)) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Collects regions which centers are closer than the given distance.
+     */
+    List<Region> within(double x, double z, double distance) {
+        List<Region> found = new ArrayList<>();
+        this.anyWithin(x, z, distance, region -> {
+            found.add(region);
+            return false;
+        });
+
+        return found;
+    }
+
+    /**
+     * Collects up to limit regions with the closest centers, sorted by distance.
+     * Cells are visited in rings around the origin, the search stops as soon as no unvisited cell can contain a closer center.
+     */
+    List<Region> nearest(double x, double z, int limit) {
+        List<Region> found = new ArrayList<>();
+        int size = this.size;
+        if (limit <= 0 || size == 0) {
+            return found;
+        }
+
+        int originX = toCell(x);
+        int originZ = toCell(z);
+        int maxRing = Math.max(
+                Math.max(Math.abs(this.minCellX - originX), Math.abs(this.maxCellX - originX)),
+                Math.max(Math.abs(this.minCellZ - originZ), Math.abs(this.maxCellZ - originZ))
+        );
+
+        Comparator<Region> byDistance = Comparator.comparingDouble(region -> flatDistanceSquared(region, x, z));
+
+        for (int ring = 0; ring <= maxRing && found.size() < size; ring++) {
+            if (ring == 0) {
+                this.collectCell(found, originX, originZ);
+            }
+            else {
+                for (int offset = -ring; offset <= ring; offset++) {
+                    this.collectCell(found, originX + offset, originZ - ring);
+                    this.collectCell(found, originX + offset, originZ + ring);
+                }
+
+                for (int offset = -ring + 1; offset < ring; offset++) {
+                    this.collectCell(found, originX - ring, originZ + offset);
+                    this.collectCell(found, originX + ring, originZ + offset);
+                }
+            }
+
+            if (found.size() < limit) {
+                continue;
+            }
+
+            // Every unvisited cell is at least (ring * CELL_SIZE) blocks away from the origin
+            found.sort(byDistance);
+            double reach = (double) ring * CELL_SIZE;
+            if (flatDistanceSquared(found.get(limit - 1), x, z) <= reach * reach) {
+                break;
+            }
+        }
+
+        found.sort(byDistance);
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    private void collectCell(List<Region> found, int cellX, int cellZ) {
+        for (Region region : this.cells.get(RegionManager.packChunkPosition(cellX, cellZ))) {
+            found.add(region);
+        }
+    }
+
+    private static double flatDistanceSquared(Region region, double x, double z) {
+        Location center = region.getCenter();
+        double distanceX = center.getX() - x;
+        double distanceZ = center.getZ() - z;
+        return distanceX * distanceX + distanceZ * distanceZ;
+    }
+
+    private static int toCell(double coordinate) {
+        return ((int) Math.floor(coordinate)) >> CELL_SHIFT;
+    }
+
+}
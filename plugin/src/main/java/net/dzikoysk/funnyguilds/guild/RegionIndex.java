@@ -0,0 +1,62 @@
+package net.dzikoysk.funnyguilds.guild;
+
+import java.util.function.Consumer;
+import org.bukkit.World;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Spatial index of regions in a single world. Reads are lock-free and safe to call from any thread.
+ */
+public interface RegionIndex {
+
+    void add(Region region);
+
+    void remove(Region region);
+
+    /**
+     * Gets the region at the given block coordinates without allocating.
+     *
+     * @return the region or null if there is no region at the given coordinates
+     */
+    @Nullable
+    Region getRegionAt(World world, int blockX, int blockY, int blockZ);
+
+    /**
+     * Gets regions which bounds overlap with the given chunk. Returned array must not be modified.
+     *
+     * @return array of regions, empty if there are no regions in the chunk
+     */
+    Region[] getRegionsInChunk(int chunkX, int chunkZ);
+
+    /**
+     * Applies given function for every region which may intersect with the given area (inclusive block coordinates).
+     * Regions can be visited more than once and have to be checked against the area by the caller.
+     */
+    void forEachCandidate(int minX, int minZ, int maxX, int maxZ, Consumer<Region> consumer);
+
+    /**
+     * Counts entries stored by the index, a region stored in multiple places is counted multiple times.
+     *
+     * @return number of stored entries
+     */
+    int countEntries();
+
+    enum Type {
+
+        /**
+         * Region is stored in every chunk it overlaps - the fastest lookups, memory grows with the area of regions
+         */
+        CHUNK,
+
+        /**
+         * Region is stored once, in the grid level matching its size - memory grows with the number of regions
+         */
+        HIERARCHICAL;
+
+        public RegionIndex createIndex() {
+            return this == HIERARCHICAL ? new HierarchicalRegionIndex() : new ChunkRegionIndex();
+        }
+
+    }
+
+}
@@ -1,42 +1,60 @@
 package net.dzikoysk.funnyguilds.guild;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.BiConsumer;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.config.PluginConfiguration;
 import net.dzikoysk.funnyguilds.data.DataModel;
+import net.dzikoysk.funnyguilds.data.MutableEntity;
+import net.dzikoysk.funnyguilds.data.binary.BinaryDataModel;
 import net.dzikoysk.funnyguilds.data.database.SQLDataModel;
 import net.dzikoysk.funnyguilds.data.database.serializer.DatabaseRegionSerializer;
 import net.dzikoysk.funnyguilds.data.flat.FlatDataModel;
-import net.dzikoysk.funnyguilds.shared.FunnyIOUtils;
+import net.dzikoysk.funnyguilds.shared.LongBucketMap;
 import net.dzikoysk.funnyguilds.shared.Validate;
-import net.dzikoysk.funnyguilds.shared.bukkit.FunnyBox;
-import net.dzikoysk.funnyguilds.shared.bukkit.LocationUtils;
 import net.dzikoysk.funnyguilds.user.User;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 import panda.std.Option;
-import panda.std.stream.PandaStream;
 
 public class RegionManager {
 
+    static final Region[] EMPTY_BUCKET = new Region[0];
+
     private final PluginConfiguration pluginConfiguration;
-    private final Map<Long, Set<Region>> regions = new ConcurrentHashMap<>();
+    private final Set<Region> regions = ConcurrentHashMap.newKeySet();
+    private final Map<String, Region> regionsByName = new ConcurrentHashMap<>();
+    private final Map<String, Region> regionsByLowerCaseName = new ConcurrentHashMap<>();
+    private final Map<UUID, RegionIndex> regionsByWorld = new ConcurrentHashMap<>();
+    private final Map<UUID, RegionCenterGrid> centersByWorld = new ConcurrentHashMap<>();
+    private final Map<UUID, LongBucketMap<Region>> heartsByWorld = new ConcurrentHashMap<>();
+    private final Map<Region, Set<UUID>> occupants = new ConcurrentHashMap<>();
+    private final Map<UUID, RegionTracker> trackers = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Consumer<MutableEntity> changeListener;
 
     public RegionManager(PluginConfiguration pluginConfiguration) {
         this.pluginConfiguration = pluginConfiguration;
     }
 
     public int countRegions() {
-        return this.getRegions().size();
+        return this.regions.size();
     }
 
     /**
@@ -45,16 +63,32 @@ public class RegionManager {
      * @return set of regions
      */
     public Set<Region> getRegions() {
-        return this.regions.values().stream()
-                .flatMap(Collection::stream)
-                .collect(Collectors.toSet());
+        return new HashSet<>(this.regions);
+    }
+
+    /**
+     * Sets listener notified about changes of stored regions, e.g. to record them in the journal.
+     *
+     * @param listener the listener or null to remove the current one
+     */
+    public void setChangeListener(@Nullable Consumer<MutableEntity> listener) {
+        this.changeListener = listener;
+        this.regions.forEach(region -> region.setChangeListener(listener));
     }
 
     /**
      * Deletes all loaded regions data
      */
     public void clearRegions() {
+        this.regions.forEach(region -> region.setChangeListener(null));
         this.regions.clear();
+        this.regionsByName.clear();
+        this.regionsByLowerCaseName.clear();
+        this.regionsByWorld.clear();
+        this.centersByWorld.clear();
+        this.heartsByWorld.clear();
+        this.occupants.clear();
+        this.version.incrementAndGet();
     }
 
     /**
@@ -65,9 +99,16 @@ public class RegionManager {
      * @return the guild
      */
     public Option<Region> findByName(String name, boolean ignoreCase) {
-        return PandaStream.of(this.regions.values())
-                .flatMap(r -> r)
-                .find(region -> ignoreCase ? region.getName().equalsIgnoreCase(name) : region.getName().equals(name));
+        if (name == null) {
+            return Option.none();
+        }
+
+        Region region = this.regionsByName.get(name);
+        if (region == null && ignoreCase) {
+            region = this.regionsByLowerCaseName.get(name.toLowerCase(Locale.ROOT));
+        }
+
+        return Option.of(region);
     }
 
     /**
@@ -87,14 +128,173 @@ public class RegionManager {
      * @return the region
      */
     public Option<Region> findRegionAtLocation(Location location) {
-        long packedPos = packChunkPosition(location.getBlockX() >> 4, location.getBlockZ() >> 4);
-        Set<Region> applicableRegions = this.regions.get(packedPos);
+        return Option.of(this.getRegionAt(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ()));
+    }
 
-        if (applicableRegions == null || applicableRegions.isEmpty()) {
-            return Option.none();
+    /**
+     * Gets the region at the given block coordinates. Lock-free and allocation-free, safe to call from any thread.
+     *
+     * @param world  the world of the block
+     * @param blockX the x coordinate of the block
+     * @param blockY the y coordinate of the block
+     * @param blockZ the z coordinate of the block
+     * @return the region or null if there is no region at the given coordinates
+     */
+    @Nullable
+    public Region getRegionAt(World world, int blockX, int blockY, int blockZ) {
+        if (world == null) {
+            return null;
+        }
+
+        RegionIndex worldRegions = this.regionsByWorld.get(world.getUID());
+        return worldRegions == null ? null : worldRegions.getRegionAt(world, blockX, blockY, blockZ);
+    }
+
+    /**
+     * Gets regions which bounds overlap with the given chunk.
+     * Returned array may be shared with the index and must not be modified.
+     *
+     * @param world  the world of the chunk
+     * @param chunkX the x coordinate of the chunk
+     * @param chunkZ the z coordinate of the chunk
+     * @return array of regions, empty if there are no regions in the chunk
+     */
+    public Region[] getRegionsInChunk(World world, int chunkX, int chunkZ) {
+        if (world == null) {
+            return EMPTY_BUCKET;
+        }
+
+        RegionIndex worldRegions = this.regionsByWorld.get(world.getUID());
+        return worldRegions == null ? EMPTY_BUCKET : worldRegions.getRegionsInChunk(chunkX, chunkZ);
+    }
+
+    /**
+     * Gets the version of the region index, it changes every time any region is added, removed or resized.
+     *
+     * @return the version of the region index
+     */
+    public long getVersion() {
+        return this.version.get();
+    }
+
+    /**
+     * Updates the tracker with the region at the given block coordinates.
+     * Lookup is skipped entirely if coordinates are still inside the area cached by the tracker.
+     *
+     * @param tracker the tracker to update
+     * @param world   the world of the block
+     * @param blockX  the x coordinate of the block
+     * @param blockY  the y coordinate of the block
+     * @param blockZ  the z coordinate of the block
+     * @return if tracked region has changed
+     */
+    public boolean updateTracker(RegionTracker tracker, World world, int blockX, int blockY, int blockZ) {
+        long version = this.version.get();
+        tracker.moveTo(blockX, blockY, blockZ);
+
+        if (tracker.isValid(world, blockX, blockY, blockZ, version)) {
+            return false;
+        }
+
+        this.trackers.putIfAbsent(tracker.getOwner(), tracker);
+
+        Region previous = tracker.getRegion();
+        if (previous != null && !this.regions.contains(previous)) {
+            previous = null;
+        }
+
+        Region region = this.getRegionAt(world, blockX, blockY, blockZ);
+
+        if (region != null) {
+            tracker.track(previous, region, world,
+                    region.getLowerX() + 1, region.getLowerY() + 1, region.getLowerZ() + 1,
+                    region.getUpperX() - 1, region.getUpperY() - 1, region.getUpperZ() - 1,
+                    version);
+        }
+        else if (this.isChunkFree(world, blockX >> 4, blockZ >> 4)) {
+            int chunkX = blockX & ~15;
+            int chunkZ = blockZ & ~15;
+            tracker.track(previous, null, world, chunkX, Integer.MIN_VALUE, chunkZ, chunkX + 15, Integer.MAX_VALUE, chunkZ + 15, version);
+        }
+        else {
+            tracker.track(previous, null, world, blockX, Integer.MIN_VALUE, blockZ, blockX, Integer.MAX_VALUE, blockZ, version);
+        }
+
+        if (previous == region) {
+            return false;
         }
 
-        return PandaStream.of(applicableRegions).find(region -> region.isIn(location));
+        this.moveOccupant(tracker.getOwner(), previous, region);
+        return true;
+    }
+
+    /**
+     * Resolves region at the given location and registers the owner of the tracker as its occupant.
+     *
+     * @param tracker  the tracker
+     * @param location current location of the tracked player
+     */
+    public void startTracking(RegionTracker tracker, Location location) {
+        this.updateTracker(tracker, location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * Reverts the last transition of the tracker, e.g. when the move was cancelled.
+     *
+     * @param tracker the tracker to revert
+     */
+    public void rollbackTracker(RegionTracker tracker) {
+        this.moveOccupant(tracker.getOwner(), tracker.getRegion(), tracker.getPreviousRegion());
+        tracker.rollback();
+    }
+
+    /**
+     * Stops tracking the owner of the tracker, e.g. when the player leaves the server.
+     *
+     * @param tracker the tracker to reset
+     */
+    public void untrack(RegionTracker tracker) {
+        this.trackers.remove(tracker.getOwner(), tracker);
+        this.moveOccupant(tracker.getOwner(), tracker.getRegion(), null);
+        tracker.reset();
+    }
+
+    /**
+     * Re-evaluates trackers of players in the world of the changed region at their last positions,
+     * so players standing still don't keep stale occupancy until their next move.
+     */
+    private void refreshTrackers(Region region) {
+        if (region.getWorld() == null || this.trackers.isEmpty()) {
+            return;
+        }
+
+        UUID worldUuid = region.getWorld().getUID();
+
+        for (RegionTracker tracker : this.trackers.values()) {
+            World world = tracker.getWorld();
+
+            if (world != null && world.getUID().equals(worldUuid)) {
+                this.updateTracker(tracker, world, tracker.getBlockX(), tracker.getBlockY(), tracker.getBlockZ());
+            }
+        }
+    }
+
+    private void moveOccupant(UUID occupant, @Nullable Region from, @Nullable Region to) {
+        if (from != null) {
+            Set<UUID> fromOccupants = this.occupants.get(from);
+            if (fromOccupants != null) {
+                fromOccupants.remove(occupant);
+            }
+        }
+
+        if (to != null && this.regions.contains(to)) {
+            this.occupants.computeIfAbsent(to, key -> ConcurrentHashMap.newKeySet()).add(occupant);
+        }
+    }
+
+    private boolean isChunkFree(World world, int chunkX, int chunkZ) {
+        RegionIndex worldRegions = this.regionsByWorld.get(world.getUID());
+        return worldRegions == null || worldRegions.getRegionsInChunk(chunkX, chunkZ).length == 0;
     }
 
     /**
@@ -107,22 +307,54 @@ public class RegionManager {
         return this.findRegionAtLocation(location).isPresent();
     }
 
+    /**
+     * Gets players tracked inside of the region.
+     *
+     * @param region the region
+     * @return unmodifiable view of unique ids of players in the region
+     */
+    public Set<UUID> getOccupants(Region region) {
+        Set<UUID> regionOccupants = this.occupants.get(region);
+        return regionOccupants == null ? Collections.emptySet() : Collections.unmodifiableSet(regionOccupants);
+    }
+
     public boolean isAnyPlayerInRegion(Region region, Collection<UUID> ignoredUuids) {
-        if (!this.pluginConfiguration.regionsEnabled) {
+        if (!this.pluginConfiguration.regionsEnabled || region == null) {
             return false;
         }
 
-        FunnyBox box = region.toBox();
-        return PandaStream.of(Bukkit.getOnlinePlayers())
-                .filter(player -> !ignoredUuids.contains(player.getUniqueId()))
-                .find(player -> box.contains(player.getLocation()))
-                .isPresent();
+        for (UUID occupant : this.getOccupants(region)) {
+            if (!ignoredUuids.contains(occupant)) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     public boolean isAnyUserInRegion(Region region, Collection<User> ignoredUsers) {
-        return this.isAnyPlayerInRegion(region, PandaStream.of(ignoredUsers)
-                .map(User::getUUID)
-                .collect(Collectors.toSet()));
+        if (!this.pluginConfiguration.regionsEnabled || region == null) {
+            return false;
+        }
+
+        for (UUID occupant : this.getOccupants(region)) {
+            if (!containsUser(ignoredUsers, occupant)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Ignored users are usually members of a guild, so they are scanned instead of being copied into a set of identifiers
+    private static boolean containsUser(Collection<User> users, UUID uuid) {
+        for (User user : users) {
+            if (user.getUUID().equals(uuid)) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -132,6 +364,17 @@ public class RegionManager {
      * @return if is region nearby
      */
     public boolean isNearRegion(Location center) {
+        return this.isNearRegion(center, null);
+    }
+
+    /**
+     * Checks if there is any region other than the ignored one in area (used to check if it's possible to create, move or enlarge a guild in given location).
+     *
+     * @param center  the center of region
+     * @param ignored the region to skip, e.g. the region being moved or enlarged
+     * @return if is region nearby
+     */
+    public boolean isNearRegion(Location center, @Nullable Region ignored) {
         if (center == null) {
             return false;
         }
@@ -139,13 +382,94 @@ public class RegionManager {
         int size = this.pluginConfiguration.regionSize + (this.pluginConfiguration.enlargeItems.size() * this.pluginConfiguration.enlargeSize);
         int requiredDistance = (2 * size) + this.pluginConfiguration.regionMinDistance;
 
-        return PandaStream.of(this.regions.values())
-                .flatMap(r -> r)
-                .map(Region::getCenter)
-                .filterNot(regionCenter -> regionCenter.equals(center))
-                .filter(regionCenter -> regionCenter.getWorld().equals(center.getWorld()))
-                .find(regionCenter -> LocationUtils.flatDistance(regionCenter, center) < requiredDistance)
-                .isPresent();
+        return this.isAnyRegionWithin(center, requiredDistance, region -> region != ignored && !region.getCenter().equals(center));
+    }
+
+    /**
+     * Checks if there is any region which center is closer (in the x/z plane) than the given distance.
+     *
+     * @param location the location to measure distance from
+     * @param distance the distance
+     * @return if there is any region within distance
+     */
+    public boolean isAnyRegionWithin(Location location, double distance) {
+        return this.isAnyRegionWithin(location, distance, region -> true);
+    }
+
+    private boolean isAnyRegionWithin(Location location, double distance, Predicate<Region> filter) {
+        RegionCenterGrid grid = this.getCenterGrid(location.getWorld());
+        return grid != null && grid.anyWithin(location.getX(), location.getZ(), distance, filter);
+    }
+
+    /**
+     * Gets regions which centers are closer (in the x/z plane) than the given distance.
+     *
+     * @param location the location to measure distance from
+     * @param distance the distance
+     * @return list of regions within distance
+     */
+    public List<Region> findRegionsWithin(Location location, double distance) {
+        RegionCenterGrid grid = this.getCenterGrid(location.getWorld());
+        return grid == null ? new ArrayList<>() : grid.within(location.getX(), location.getZ(), distance);
+    }
+
+    /**
+     * Gets regions with centers closest (in the x/z plane) to the given location.
+     *
+     * @param location the location to measure distance from
+     * @param limit    the maximum amount of regions to return
+     * @return list of regions, sorted from the closest one
+     */
+    public List<Region> findNearestRegions(Location location, int limit) {
+        RegionCenterGrid grid = this.getCenterGrid(location.getWorld());
+        return grid == null ? new ArrayList<>() : grid.nearest(location.getX(), location.getZ(), limit);
+    }
+
+    /**
+     * Gets regions which bounds intersect with the given area (inclusive block coordinates).
+     *
+     * @param world the world of the area
+     * @param minX  the lower x coordinate of the area
+     * @param minZ  the lower z coordinate of the area
+     * @param maxX  the upper x coordinate of the area
+     * @param maxZ  the upper z coordinate of the area
+     * @return set of intersecting regions
+     */
+    public Set<Region> findRegionsIntersecting(World world, int minX, int minZ, int maxX, int maxZ) {
+        Set<Region> found = new HashSet<>();
+        if (world == null) {
+            return found;
+        }
+
+        RegionIndex worldRegions = this.regionsByWorld.get(world.getUID());
+        if (worldRegions == null) {
+            return found;
+        }
+
+        int fromChunkX = Math.min(minX, maxX) >> 4;
+        int fromChunkZ = Math.min(minZ, maxZ) >> 4;
+        int toChunkX = Math.max(minX, maxX) >> 4;
+        int toChunkZ = Math.max(minZ, maxZ) >> 4;
+
+        // Scanning the whole area is pointless if it covers more chunks than there are regions
+        long chunks = (long) (toChunkX - fromChunkX + 1) * (toChunkZ - fromChunkZ + 1);
+        if (chunks > this.regions.size()) {
+            for (Region region : this.regions) {
+                if (world.equals(region.getWorld()) && intersects(region, minX, minZ, maxX, maxZ)) {
+                    found.add(region);
+                }
+            }
+
+            return found;
+        }
+
+        worldRegions.forEachCandidate(Math.min(minX, maxX), Math.min(minZ, maxZ), Math.max(minX, maxX), Math.max(minZ, maxZ), region -> {
+            if (intersects(region, minX, minZ, maxX, maxZ)) {
+                found.add(region);
+            }
+        });
+
+        return found;
     }
 
     /**
@@ -156,14 +480,25 @@ public class RegionManager {
      */
     public boolean isGuildHeart(Block block) {
         Material heartMaterial = this.pluginConfiguration.heart.createMaterial;
-        if (heartMaterial == null || block.getType() != heartMaterial) {
+        if (heartMaterial == null || !this.isHeartPosition(block.getWorld(), block.getX(), block.getY(), block.getZ())) {
             return false;
         }
 
-        Location blockLocation = block.getLocation();
-        return this.findRegionAtLocation(blockLocation)
-                .map(region -> region.getHeart().contentEquals(blockLocation))
-                .orElseGet(false);
+        return block.getType() == heartMaterial;
+    }
+
+    /**
+     * Checks if given position is occupied by heart of any region, regardless of the block placed there.
+     *
+     * @param world  the world
+     * @param blockX x coordinate of the block
+     * @param blockY y coordinate of the block
+     * @param blockZ z coordinate of the block
+     * @return if given position is a heart position
+     */
+    public boolean isHeartPosition(World world, int blockX, int blockY, int blockZ) {
+        LongBucketMap<Region> worldHearts = this.heartsByWorld.get(world.getUID());
+        return worldHearts != null && worldHearts.get(packBlockPosition(blockX, blockY, blockZ)).length > 0;
     }
 
     /**
@@ -174,13 +509,19 @@ public class RegionManager {
      */
     public void addRegion(Region region) {
         Validate.notNull(region, "region can't be null!");
+        Validate.notNull(region.getWorld(), "region world can't be null!");
 
-        this.forEachChunkPositionInRegion(region, (chunkX, chunkZ) -> {
-            long packedPos = packChunkPosition(chunkX, chunkZ);
+        this.regions.add(region);
+        this.regionsByName.put(region.getName(), region);
+        region.setChangeListener(this.changeListener);
+        this.regionsByLowerCaseName.put(region.getName().toLowerCase(Locale.ROOT), region);
 
-            Set<Region> regionsAtChunk = this.regions.computeIfAbsent(packedPos, k -> new HashSet<>());
-            regionsAtChunk.add(region);
-        });
+        this.regionsByWorld.computeIfAbsent(region.getWorld().getUID(), uuid -> this.pluginConfiguration.regionIndex.createIndex()).add(region);
+
+        this.centersByWorld.computeIfAbsent(region.getWorld().getUID(), uuid -> new RegionCenterGrid()).add(region);
+        this.heartsByWorld.computeIfAbsent(region.getWorld().getUID(), uuid -> new LongBucketMap<>(EMPTY_BUCKET)).add(getHeartPosition(region), region);
+        this.version.incrementAndGet();
+        this.refreshTrackers(region);
     }
 
     /**
@@ -191,28 +532,77 @@ public class RegionManager {
      */
     public void removeRegion(Region region) {
         Validate.notNull(region, "region can't be null!");
-        
-        if (!this.regionExists(region.getName())) {
+
+        if (this.unindexRegion(region)) {
+            this.occupants.remove(region);
+            region.setChangeListener(null);
+            this.refreshTrackers(region);
+        }
+    }
+
+    private boolean unindexRegion(Region region) {
+        if (!this.regions.remove(region)) {
+            return false;
+        }
+
+        this.regionsByName.remove(region.getName(), region);
+        this.regionsByLowerCaseName.remove(region.getName().toLowerCase(Locale.ROOT), region);
+
+        if (region.getWorld() != null) {
+            RegionCenterGrid grid = this.centersByWorld.get(region.getWorld().getUID());
+            if (grid != null) {
+                grid.remove(region);
+            }
+
+            RegionIndex worldRegions = this.regionsByWorld.get(region.getWorld().getUID());
+            if (worldRegions != null) {
+                worldRegions.remove(region);
+            }
+
+            LongBucketMap<Region> worldHearts = this.heartsByWorld.get(region.getWorld().getUID());
+            if (worldHearts != null) {
+                worldHearts.remove(getHeartPosition(region), region);
+            }
+        }
+
+        this.version.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Changes the name of the region and updates name lookups.
+     *
+     * @param region region to rename
+     * @param name   new name of the region
+     */
+    public void renameRegion(Region region, String name) {
+        Validate.notNull(region, "region can't be null!");
+        Validate.notNull(name, "name can't be null!");
+
+        if (!this.regions.contains(region)) {
+            region.setName(name);
             return;
         }
 
-        this.forEachChunkPositionInRegion(region, (chunkX, chunkZ) -> {
-            long packedPos = packChunkPosition(chunkX, chunkZ);
+        this.regionsByName.remove(region.getName(), region);
+        this.regionsByLowerCaseName.remove(region.getName().toLowerCase(Locale.ROOT), region);
 
-            this.regions.computeIfPresent(packedPos, (key, set) -> {
-                set.remove(region);
-                return set;
-            });
-        });
+        region.setName(name);
+
+        this.regionsByName.put(name, region);
+        this.regionsByLowerCaseName.put(name.toLowerCase(Locale.ROOT), region);
     }
 
     public void moveRegionCenter(Region region, Location center) {
         Validate.notNull(region, "region can't be null!");
         Validate.notNull(center, "center can't be null!");
 
-        this.removeRegion(region);
+        boolean indexed = this.unindexRegion(region);
         region.setCenter(center);
-        this.addRegion(region);
+
+        if (indexed) {
+            this.addRegion(region);
+        }
     }
 
     public void changeRegionEnlargement(Region region, int level) {
@@ -224,7 +614,7 @@ public class RegionManager {
             level = maxEnlargeLevel;
         }
 
-        this.removeRegion(region);
+        this.unindexRegion(region);
         region.setEnlargementLevel(level);
         region.setSize(this.pluginConfiguration.regionSize + (level * this.pluginConfiguration.enlargeSize));
         this.addRegion(region);
@@ -240,15 +630,20 @@ public class RegionManager {
     @ApiStatus.ScheduledForRemoval(inVersion = "5.0")
     public void deleteRegion(DataModel dataModel, Region region) {
         Validate.notNull(region, "region can't be null!");
+        FunnyGuilds.getInstance().getChangeJournal().peek(journal -> journal.recordDeletion(region));
 
         if (dataModel instanceof FlatDataModel) {
-            ((FlatDataModel) dataModel).getRegionFile(region).peek(FunnyIOUtils::deleteFile);
+            ((FlatDataModel) dataModel).deleteRegionFile(region);
         }
 
         if (dataModel instanceof SQLDataModel) {
             DatabaseRegionSerializer.delete(region);
         }
 
+        if (dataModel instanceof BinaryDataModel) {
+            ((BinaryDataModel) dataModel).deleteRegion(region);
+        }
+
         this.removeRegion(region);
     }
 
@@ -262,31 +657,30 @@ public class RegionManager {
         return this.findByName(name).isPresent();
     }
 
-    /**
-     * Calculates chunks that are in the bounds of the given region
-     * and applies given function for every chunk position.
-     */
-    private void forEachChunkPositionInRegion(Region region, BiConsumer<Integer, Integer> chunkPosFunc) {
-        int firstX = region.getFirstCorner().getBlockX() >> 4;
-        int firstZ = region.getFirstCorner().getBlockZ() >> 4;
-
-        int secondX = region.getSecondCorner().getBlockX() >> 4;
-        int secondZ = region.getSecondCorner().getBlockZ() >> 4;
+    @Nullable
+    private RegionCenterGrid getCenterGrid(World world) {
+        return world == null ? null : this.centersByWorld.get(world.getUID());
+    }
 
-        int startX = Math.min(firstX, secondX);
-        int startZ = Math.min(firstZ, secondZ);
+    private static boolean intersects(Region region, int minX, int minZ, int maxX, int maxZ) {
+        return region.getLowerX() <= Math.max(minX, maxX) && region.getUpperX() >= Math.min(minX, maxX)
+                && region.getLowerZ() <= Math.max(minZ, maxZ) && region.getUpperZ() >= Math.min(minZ, maxZ);
+    }
 
-        int endX = Math.max(firstX, secondX);
-        int endZ = Math.max(firstZ, secondZ);
+    static long packChunkPosition(int chunkX, int chunkZ) {
+        return (long) chunkX & 0xFFFFFFFFL | ((long) chunkZ & 0xFFFFFFFFL) << 32;
+    }
 
-        for (int chunkX = startX; chunkX <= endX; chunkX++) {
-            for (int chunkZ = startZ; chunkZ <= endZ; chunkZ++) {
-                chunkPosFunc.accept(chunkX, chunkZ);
-            }
-        }
+    private static long getHeartPosition(Region region) {
+        Location center = region.getCenter();
+        return packBlockPosition(center.getBlockX(), center.getBlockY() - 1, center.getBlockZ());
     }
 
-    private static long packChunkPosition(int chunkX, int chunkZ) {
-        return (long) chunkX & 0xFFFFFFFFL | ((long) chunkZ & 0xFFFFFFFFL) << 32;
+    /**
+     * Packs block coordinates into a single long - 26 bits for x and z, 12 bits for y.
+     */
+    private static long packBlockPosition(int blockX, int blockY, int blockZ) {
+        return ((long) blockX & 0x3FFFFFFL) << 38 | ((long) blockZ & 0x3FFFFFFL) << 12 | ((long) blockY & 0xFFFL);
     }
+
 }
@@ -0,0 +1,117 @@
+package net.dzikoysk.funnyguilds.guild;
+
+import java.util.UUID;
+import org.bukkit.World;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Remembers the region a player is currently in and the block area in which this answer stays valid,
+ * so movement inside of the same area can be handled with a few primitive comparisons.
+ *
+ * @see RegionManager#updateTracker(RegionTracker, World, int, int, int)
+ */
+public final class RegionTracker {
+
+    private static final long UNTRACKED = -1;
+
+    private final UUID owner;
+
+    private Region region;
+    private Region previousRegion;
+    private World world;
+    private int minX;
+    private int minY;
+    private int minZ;
+    private int maxX;
+    private int maxY;
+    private int maxZ;
+    private long version = UNTRACKED;
+
+    // Last position of the player, used to re-evaluate the tracker when regions change
+    private int blockX;
+    private int blockY;
+    private int blockZ;
+
+    public RegionTracker(UUID owner) {
+        this.owner = owner;
+    }
+
+    public UUID getOwner() {
+        return this.owner;
+    }
+
+    public boolean isTracking() {
+        return this.world != null;
+    }
+
+    @Nullable
+    World getWorld() {
+        return this.world;
+    }
+
+    int getBlockX() {
+        return this.blockX;
+    }
+
+    int getBlockY() {
+        return this.blockY;
+    }
+
+    int getBlockZ() {
+        return this.blockZ;
+    }
+
+    @Nullable
+    public Region getRegion() {
+        return this.region;
+    }
+
+    /**
+     * Gets region tracked before the last transition. Regions removed in the meantime are reported as null.
+     *
+     * @return the previous region
+     */
+    @Nullable
+    public Region getPreviousRegion() {
+        return this.previousRegion;
+    }
+
+    void rollback() {
+        this.region = this.previousRegion;
+        this.version = UNTRACKED;
+    }
+
+    void reset() {
+        this.region = null;
+        this.previousRegion = null;
+        this.world = null;
+        this.version = UNTRACKED;
+    }
+
+    void moveTo(int blockX, int blockY, int blockZ) {
+        this.blockX = blockX;
+        this.blockY = blockY;
+        this.blockZ = blockZ;
+    }
+
+    boolean isValid(World world, int blockX, int blockY, int blockZ, long version) {
+        return this.version == version && this.world == world
+                && blockX >= this.minX && blockX <= this.maxX
+                && blockZ >= this.minZ && blockZ <= this.maxZ
+                && blockY >= this.minY && blockY <= this.maxY;
+    }
+
+    void track(@Nullable Region previousRegion, @Nullable Region region, World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, long version) {
+        this.previousRegion = previousRegion;
+        this.region = region;
+        this.world = world;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.version = version;
+    }
+
+}
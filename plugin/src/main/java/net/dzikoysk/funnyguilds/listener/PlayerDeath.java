@@ -12,11 +12,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import net.dzikoysk.funnyguilds.config.NumberRange;
 import net.dzikoysk.funnyguilds.config.PluginConfiguration;
-import net.dzikoysk.funnyguilds.config.PluginConfiguration.DataModel;
 import net.dzikoysk.funnyguilds.damage.Damage;
 import net.dzikoysk.funnyguilds.damage.DamageState;
-import net.dzikoysk.funnyguilds.data.tasks.DatabaseUpdateGuildPointsAsyncTask;
-import net.dzikoysk.funnyguilds.data.tasks.DatabaseUpdateUserPointsAsyncTask;
+import net.dzikoysk.funnyguilds.data.database.PointsUpdateBuffer;
 import net.dzikoysk.funnyguilds.event.FunnyEvent.EventCause;
 import net.dzikoysk.funnyguilds.event.SimpleEventHandler;
 import net.dzikoysk.funnyguilds.event.rank.AssistsChangeEvent;
@@ -185,22 +183,19 @@ public class PlayerDeath extends AbstractFunnyListener {
 
         victimDamageState.clear();
 
-        if (this.config.dataModel == DataModel.MYSQL) {
-            victim.getGuild().peek(guild -> this.plugin.scheduleFunnyTasks(new DatabaseUpdateGuildPointsAsyncTask(guild)));
-            attacker.getGuild().peek(guild -> this.plugin.scheduleFunnyTasks(new DatabaseUpdateGuildPointsAsyncTask(guild)));
+        if (this.config.dataModel.isSQL()) {
+            PointsUpdateBuffer pointsUpdateBuffer = this.plugin.getPointsUpdateBuffer();
+
+            victim.getGuild().peek(pointsUpdateBuffer::markGuild);
+            attacker.getGuild().peek(pointsUpdateBuffer::markGuild);
 
             PandaStream.of(calculatedAssists.keySet())
                     .flatMap(User::getGuild)
-                    .forEach(guild -> this.plugin.scheduleFunnyTasks(new DatabaseUpdateGuildPointsAsyncTask(guild)));
+                    .forEach(pointsUpdateBuffer::markGuild);
 
-            this.plugin.scheduleFunnyTasks(
-                    new DatabaseUpdateUserPointsAsyncTask(victim),
-                    new DatabaseUpdateUserPointsAsyncTask(attacker)
-            );
-
-            calculatedAssists.keySet().forEach(assistUser ->
-                    this.plugin.scheduleFunnyTasks(new DatabaseUpdateUserPointsAsyncTask(assistUser))
-            );
+            pointsUpdateBuffer.markUser(victim);
+            pointsUpdateBuffer.markUser(attacker);
+            calculatedAssists.keySet().forEach(pointsUpdateBuffer::markUser);
         }
 
         this.plugin.getDummyManager().peek(manager -> {
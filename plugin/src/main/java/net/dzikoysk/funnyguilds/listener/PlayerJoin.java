@@ -33,6 +33,10 @@ public class PlayerJoin extends AbstractFunnyListener {
 
         UserCache cache = user.getCache();
 
+        if (this.config.regionsEnabled) {
+            this.regionManager.startTracking(cache.getRegionTracker(), player.getLocation());
+        }
+
         if (this.tablistConfig.enabled) {
             IndividualPlayerList individualPlayerList = new IndividualPlayerList(
                     user,
@@ -5,11 +5,22 @@ import net.dzikoysk.funnyguilds.shared.FunnyValidator;
 import net.dzikoysk.funnyguilds.user.User;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerLoginEvent.Result;
 
 public class PlayerLogin extends AbstractFunnyListener {
 
+    @EventHandler
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED || !this.plugin.getDataLoader().isLoaded()) {
+            return;
+        }
+
+        // User which is not loaded is loaded here, so the database is not queried on the main thread during the login
+        this.userManager.findByUuid(event.getUniqueId());
+    }
+
     @EventHandler
     public void onLogin(PlayerLoginEvent event) {
         if (event.getResult() != Result.ALLOWED) {
@@ -17,6 +28,12 @@ public class PlayerLogin extends AbstractFunnyListener {
         }
 
         Player player = event.getPlayer();
+
+        if (!this.plugin.getDataLoader().isLoaded()) {
+            event.disallow(Result.KICK_OTHER, this.messageService.get(player, config -> config.system.loginDataLoading));
+            return;
+        }
+
         String name = player.getName();
         switch (FunnyValidator.validateUsername(this.config, name)) {
             case TOO_SHORT:
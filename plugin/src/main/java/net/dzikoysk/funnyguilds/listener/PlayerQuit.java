@@ -48,6 +48,13 @@ public class PlayerQuit extends AbstractFunnyListener {
             cache.setScoreboard(null);
             cache.setDummy(null);
             cache.setPlayerList(null);
+            this.regionManager.untrack(cache.getRegionTracker());
+            this.plugin.getProtectionDecisionCache().invalidate(player.getUniqueId());
+
+            if (this.config.dataModel.isSQL()) {
+                this.plugin.getPointsUpdateBuffer().flushAsync();
+            }
+
             damageState.clear();
         });
 
@@ -4,17 +4,24 @@ import java.time.Instant;
 import java.time.LocalTime;
 import java.util.Set;
 import java.util.UUID;
+import net.dzikoysk.funnyguilds.feature.protection.ExplosionEvaluation;
+import net.dzikoysk.funnyguilds.feature.protection.ExplosionEvaluator;
 import net.dzikoysk.funnyguilds.guild.Region;
 import net.dzikoysk.funnyguilds.shared.Cooldown;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.EntityExplodeEvent;
+import org.panda_lang.utilities.inject.annotations.Inject;
+import panda.std.Option;
 
 public class TntProtection extends AbstractFunnyListener {
 
     private final Cooldown<UUID> informationMessageCooldowns = new Cooldown<>();
 
+    @Inject
+    public ExplosionEvaluator explosionEvaluator;
+
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
     public void onExplode(EntityExplodeEvent event) {
         if (this.tntCanExplode()) {
@@ -27,18 +34,19 @@ public class TntProtection extends AbstractFunnyListener {
         }
 
         if (this.config.tntProtection.time.enabled) {
-            if (this.regionManager.findRegionAtLocation(event.getLocation()).isPresent()) {
+            ExplosionEvaluation evaluation = this.explosionEvaluator.evaluate(event);
+            if (evaluation.getExplosionRegion() != null) {
                 event.setCancelled(true);
                 return;
             }
 
-            event.blockList().removeIf(block -> this.regionManager.findRegionAtLocation(block.getLocation()).isPresent());
+            event.blockList().removeIf(block -> evaluation.getRegionAt(block) != null);
         }
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
     public void blockBuildingOnGuildRegionOnExplosion(EntityExplodeEvent event) {
-        Set<Player> players = this.regionManager.findRegionAtLocation(event.getLocation())
+        Set<Player> players = Option.of(this.explosionEvaluator.evaluate(event).getExplosionRegion())
                 .map(Region::getGuild)
                 .filterNot(guild -> this.config.warTntProtection && !this.config.regionExplodeBlockProtected && !guild.canBeAttacked())
                 .filterNot(guild -> !this.config.regionExplodeBlockTntDisabled && !this.tntCanExplode())
@@ -1,17 +1,23 @@
 package net.dzikoysk.funnyguilds.listener.region;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import net.dzikoysk.funnyguilds.event.FunnyEvent;
 import net.dzikoysk.funnyguilds.event.SimpleEventHandler;
 import net.dzikoysk.funnyguilds.event.guild.GuildEntityExplodeEvent;
+import net.dzikoysk.funnyguilds.feature.protection.ExplosionEvaluation;
+import net.dzikoysk.funnyguilds.feature.protection.ExplosionEvaluator;
 import net.dzikoysk.funnyguilds.guild.Guild;
 import net.dzikoysk.funnyguilds.guild.Region;
 import net.dzikoysk.funnyguilds.listener.AbstractFunnyListener;
 import net.dzikoysk.funnyguilds.shared.bukkit.SpaceUtils;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
@@ -19,9 +25,14 @@ import org.bukkit.entity.TNTPrimed;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.EntityExplodeEvent;
+import org.jetbrains.annotations.Nullable;
+import org.panda_lang.utilities.inject.annotations.Inject;
 
 public class EntityExplode extends AbstractFunnyListener {
 
+    @Inject
+    public ExplosionEvaluator explosionEvaluator;
+
     @EventHandler(priority = EventPriority.LOWEST)
     public void preNormalExplosionHandler(EntityExplodeEvent event) {
         Entity explosionEntity = event.getEntity();
@@ -29,102 +40,68 @@ public class EntityExplode extends AbstractFunnyListener {
         List<Block> explodedBlocks = event.blockList();
         Location explodeLocation = event.getLocation();
         Map<Material, Double> explosiveMaterials = this.config.explodeMaterials;
-        List<Block> blocksInSphere = SpaceUtils.sphereBlocks(
-                explodeLocation,
-                this.config.explodeRadius,
-                this.config.explodeRadius,
-                0,
-                false,
-                true
-        );
-
-        explodedBlocks.removeIf(block -> {
-            int height = block.getLocation().getBlockY();
-            return height < this.config.tntProtection.explode.minHeight || height > this.config.tntProtection.explode.maxHeight;
-        });
-
-        blocksInSphere.removeIf(block -> {
-            int height = block.getLocation().getBlockY();
-            return height < this.config.tntProtection.explode.minHeight || height > this.config.tntProtection.explode.maxHeight;
-        });
+        ExplosionEvaluation evaluation = this.explosionEvaluator.evaluate(event);
 
-        if (this.config.explodeShouldAffectOnlyGuild) {
-            explodedBlocks.removeIf(block -> this.regionManager.findRegionAtLocation(block.getLocation())
-                    .filterNot(region -> region.getGuild() == null)
-                    .filter(region -> block.getType() != Material.TNT)
-                    .isEmpty());
+        Region explosionRegion = evaluation.getExplosionRegion();
+        Guild explosionGuild = explosionRegion == null ? null : explosionRegion.getGuild();
 
-            blocksInSphere.removeIf(block -> this.regionManager.findRegionAtLocation(block.getLocation())
-                    .filterNot(region -> region.getGuild() == null)
-                    .isEmpty());
+        if (this.config.warTntProtection && explosionGuild != null && !explosionGuild.canBeAttacked()) {
+            event.setCancelled(true);
+            this.sendProtectionMessage(explosionEntity);
+            return;
         }
 
-        this.regionManager.findRegionAtLocation(explodeLocation).peek(region -> {
-            Guild guild = region.getGuild();
-
-            if (this.config.warTntProtection && !guild.canBeAttacked()) {
-                event.setCancelled(true);
+        World world = explodeLocation.getWorld();
+        Location heart = explosionRegion == null ? null : explosionRegion.getCenter();
+        boolean anyBlockRemovedInExplosion = false;
+        int keptBlocks = 0;
 
-                if (explosionEntity instanceof TNTPrimed) {
-                    TNTPrimed entityTnt = (TNTPrimed) explosionEntity;
-                    Entity explosionSource = entityTnt.getSource();
+        for (int index = 0; index < explodedBlocks.size(); index++) {
+            Block block = explodedBlocks.get(index);
+            BlockVerdict verdict = this.classify(evaluation, heart, block.getX(), block.getY(), block.getZ());
 
-                    if (explosionSource instanceof Player) {
-                        this.messageService.getMessage(config -> config.guild.region.explosion.hasProtection)
-                                .receiver(explosionSource)
-                                .send();
-                    }
-                }
-
-                return;
+            if (this.config.explodeShouldAffectOnlyGuild && verdict != BlockVerdict.IGNORED && block.getType() == Material.TNT) {
+                continue;
             }
 
-            region.getHeart().peek(heart -> {
-                explodedBlocks.removeIf(block -> block.getLocation().equals(heart));
-                blocksInSphere.removeIf(block -> block.getLocation().equals(heart));
-            });
-        });
+            if (verdict == BlockVerdict.PROTECTED) {
+                anyBlockRemovedInExplosion = true;
+            }
 
-        if (this.config.warTntProtection) {
-            // Remove block if protected
-            boolean anyBlockRemovedInSphere = blocksInSphere.removeIf(block ->
-                    this.regionManager.findRegionAtLocation(block.getLocation())
-                            .map(Region::getGuild)
-                            .filterNot(Guild::canBeAttacked)
-                            .isPresent());
-            boolean anyBlockRemovedInExplosion = explodedBlocks.removeIf(block ->
-                    this.regionManager.findRegionAtLocation(block.getLocation())
-                            .map(Region::getGuild)
-                            .filterNot(Guild::canBeAttacked)
-                            .isPresent());
-
-            if (anyBlockRemovedInSphere || anyBlockRemovedInExplosion) {
-                if (explosionEntity instanceof TNTPrimed) {
-                    TNTPrimed entityTnt = (TNTPrimed) explosionEntity;
-                    Entity explosionSource = entityTnt.getSource();
-
-                    if (explosionSource instanceof Player) {
-                        this.messageService.getMessage(config -> config.guild.region.explosion.hasProtection)
-                                .receiver(explosionSource)
-                                .send();
-                    }
-                }
+            if (verdict.isAffected()) {
+                explodedBlocks.set(keptBlocks++, block);
             }
         }
 
+        explodedBlocks.subList(keptBlocks, explodedBlocks.size()).clear();
+
         List<Block> additionalExplodedBlocks = new ArrayList<>();
-        for (Block block : blocksInSphere) {
-            if (block.getType() == Material.TNT) {
-                // We want to preserve TNT chain explosions, see GH-1414.
-                continue;
+        AtomicBoolean anyBlockRemovedInSphere = new AtomicBoolean();
+
+        SpaceUtils.forEachSphereCoordinate(explodeLocation, this.config.explodeRadius, this.config.explodeRadius, 0, false, true, (x, y, z) -> {
+            BlockVerdict verdict = this.classify(evaluation, heart, x, y, z);
+
+            if (verdict == BlockVerdict.PROTECTED) {
+                anyBlockRemovedInSphere.set(true);
             }
 
+            if (!verdict.isAffected()) {
+                return;
+            }
+
+            Block block = world.getBlockAt(x, y, z);
             Material material = block.getType();
+
+            if (material == Material.TNT) {
+                // We want to preserve TNT chain explosions, see GH-1414.
+                return;
+            }
+
             Double explodeChance = explosiveMaterials.get(material);
 
             if (explodeChance == null) {
                 if (!this.config.allMaterialsAreExplosive) {
-                    continue;
+                    return;
                 }
 
                 explodeChance = this.config.defaultExplodeChance;
@@ -133,6 +110,10 @@ public class EntityExplode extends AbstractFunnyListener {
             if (SpaceUtils.chance(explodeChance)) {
                 additionalExplodedBlocks.add(block);
             }
+        });
+
+        if (anyBlockRemovedInSphere.get() || anyBlockRemovedInExplosion) {
+            this.sendProtectionMessage(explosionEntity);
         }
 
         if (!SimpleEventHandler.handle(new GuildEntityExplodeEvent(FunnyEvent.EventCause.UNKNOWN, additionalExplodedBlocks))) {
@@ -140,9 +121,68 @@ public class EntityExplode extends AbstractFunnyListener {
             return;
         }
 
-        additionalExplodedBlocks.stream()
-                .filter(block -> !explodedBlocks.contains(block))
-                .forEach(explodedBlocks::add);
+        Set<Block> alreadyExplodedBlocks = new HashSet<>(explodedBlocks);
+        for (Block block : additionalExplodedBlocks) {
+            if (alreadyExplodedBlocks.add(block)) {
+                explodedBlocks.add(block);
+            }
+        }
+    }
+
+    /**
+     * Checks if block at given coordinates should be affected by the explosion, resolving its region only once.
+     *
+     * @param evaluation the explosion evaluation
+     * @param heart      the center of the region in which the explosion happened (heart is the block below it)
+     * @return the verdict for the block
+     */
+    private BlockVerdict classify(ExplosionEvaluation evaluation, @Nullable Location heart, int blockX, int blockY, int blockZ) {
+        if (blockY < this.config.tntProtection.explode.minHeight || blockY > this.config.tntProtection.explode.maxHeight) {
+            return BlockVerdict.IGNORED;
+        }
+
+        if (heart != null && blockX == heart.getBlockX() && blockY == heart.getBlockY() - 1 && blockZ == heart.getBlockZ()) {
+            return BlockVerdict.IGNORED;
+        }
+
+        Region region = evaluation.getRegionAt(blockX, blockY, blockZ);
+        Guild guild = region == null ? null : region.getGuild();
+
+        if (guild == null) {
+            return this.config.explodeShouldAffectOnlyGuild ? BlockVerdict.IGNORED : BlockVerdict.AFFECTED;
+        }
+
+        if (this.config.warTntProtection && !guild.canBeAttacked()) {
+            return BlockVerdict.PROTECTED;
+        }
+
+        return BlockVerdict.AFFECTED_IN_GUILD;
+    }
+
+    private void sendProtectionMessage(Entity explosionEntity) {
+        if (!(explosionEntity instanceof TNTPrimed)) {
+            return;
+        }
+
+        Entity explosionSource = ((TNTPrimed) explosionEntity).getSource();
+        if (explosionSource instanceof Player) {
+            this.messageService.getMessage(config -> config.guild.region.explosion.hasProtection)
+                    .receiver(explosionSource)
+                    .send();
+        }
+    }
+
+    private enum BlockVerdict {
+
+        AFFECTED,
+        AFFECTED_IN_GUILD,
+        PROTECTED,
+        IGNORED;
+
+        boolean isAffected() {
+            return this == AFFECTED || this == AFFECTED_IN_GUILD;
+        }
+
     }
 
 }
@@ -4,7 +4,9 @@ import net.dzikoysk.funnyguilds.event.FunnyEvent.EventCause;
 import net.dzikoysk.funnyguilds.event.SimpleEventHandler;
 import net.dzikoysk.funnyguilds.event.guild.GuildRegionEnterEvent;
 import net.dzikoysk.funnyguilds.event.guild.GuildRegionLeaveEvent;
+import net.dzikoysk.funnyguilds.guild.Guild;
 import net.dzikoysk.funnyguilds.guild.Region;
+import net.dzikoysk.funnyguilds.guild.RegionTracker;
 import net.dzikoysk.funnyguilds.listener.AbstractFunnyListener;
 import net.dzikoysk.funnyguilds.shared.FunnyFormatter;
 import net.dzikoysk.funnyguilds.user.User;
@@ -13,18 +15,23 @@ import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
 import panda.std.Option;
 
 public class PlayerMove extends AbstractFunnyListener {
 
-    @EventHandler
+    // Tracker follows only moves which are not cancelled, so it matches the real position of the player.
+    // Moves are handled late, as region events can still cancel the move.
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onTeleport(PlayerTeleportEvent event) {
         this.onMove(event); // We have to manually call onMove when player teleports - in other case the move event won't be called
     }
 
-    @EventHandler
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onMove(PlayerMoveEvent event) {
         Location from = event.getFrom();
         Location to = event.getTo();
@@ -33,91 +40,125 @@ public class PlayerMove extends AbstractFunnyListener {
             return;
         }
 
-        if (from.getBlockX() == to.getBlockX() && from.getBlockZ() == to.getBlockZ()) {
+        if (from.getBlockX() == to.getBlockX() && from.getBlockZ() == to.getBlockZ() && from.getWorld() == to.getWorld()) {
             return;
         }
 
-        Bukkit.getScheduler().runTaskAsynchronously(this.plugin, () -> {
-            Option<User> userOption = this.userManager.findByPlayer(player);
-            if (userOption.isEmpty()) {
-                return;
-            }
-
-            User user = userOption.get();
-            UserCache cache = user.getCache();
-
-            Option<Region> regionOptionFrom = this.regionManager.findRegionAtLocation(from);
-            Option<Region> regionOptionTo = this.regionManager.findRegionAtLocation(to);
-
-            if (regionOptionFrom.equals(regionOptionTo)) {
-                return;
-            }
-
-            regionOptionFrom
-                    .map(Region::getGuild)
-                    .peek(guild -> {
-                        this.logger.debug(String.format("Player %s left region of guild %s", player.getName(), guild.getName()));
-
-                        if (!SimpleEventHandler.handle(new GuildRegionLeaveEvent(EventCause.USER, user, guild))) {
-                            event.setCancelled(true);
-                            return;
-                        }
-
-                        FunnyFormatter formatter = new FunnyFormatter()
-                                .register("{GUILD}", guild.getName())
-                                .register("{TAG}", guild.getTag());
-
-                        this.messageService.getMessage(config -> config.guild.region.move.leave)
-                                .with(formatter)
-                                .receiver(player)
-                                .send();
-                    });
-
-            regionOptionTo
-                    .map(Region::getGuild)
-                    .peek(guild -> {
-                        this.logger.debug(String.format("Player %s entered region of guild %s", player.getName(), guild.getName()));
-
-                        if (!SimpleEventHandler.handle(new GuildRegionEnterEvent(EventCause.USER, user, guild))) {
-                            event.setCancelled(true);
-                            return;
-                        }
-
-                        if (this.config.heart.createEntityType != null) {
-                            Bukkit.getScheduler().runTaskLater(this.plugin, () -> this.guildEntityHelper.spawnGuildEntity(guild, player), 40L);
-                        }
-
-                        FunnyFormatter formatter = new FunnyFormatter()
-                                .register("{GUILD}", guild.getName())
-                                .register("{TAG}", guild.getTag())
-                                .register("{PLAYER}", player.getName());
-
-                        this.messageService.getMessage(config -> config.guild.region.move.enter)
-                                .with(formatter)
-                                .receiver(player)
-                                .send();
-
-                        if (player.hasPermission("funnyguilds.admin.notification")) {
-                            return;
-                        }
-
-                        if (cache.getNotificationTime() > 0 && System.currentTimeMillis() < cache.getNotificationTime()) {
-                            return;
-                        }
-
-                        if (!this.config.regionEnterNotificationGuildMember && user.hasGuild() &&
-                                guild.getTag().equals(user.getGuild().get().getTag())) {
-                            return;
-                        }
-
-                        this.messageService.getMessage(config -> config.guild.region.move.intruderEnter)
-                                .with(formatter)
-                                .receiver(guild)
-                                .send();
-
-                        cache.setNotificationTime(System.currentTimeMillis() + 1000L * this.config.regionNotificationCooldown);
-                    });
-        });
+        Option<User> userOption = this.userManager.findByPlayer(player);
+        if (userOption.isEmpty()) {
+            return;
+        }
+
+        User user = userOption.get();
+        UserCache cache = user.getCache();
+        RegionTracker tracker = cache.getRegionTracker();
+
+        if (!tracker.isTracking()) {
+            this.regionManager.startTracking(tracker, from);
+        }
+
+        if (!this.regionManager.updateTracker(tracker, to.getWorld(), to.getBlockX(), to.getBlockY(), to.getBlockZ())) {
+            return;
+        }
+
+        // Occupancy is always tracked, region events are optional
+        if (!this.config.eventMove) {
+            return;
+        }
+
+        Region regionFrom = tracker.getPreviousRegion();
+        Region regionTo = tracker.getRegion();
+
+        if (regionFrom != null && regionFrom.getGuild() != null && !this.handleLeave(event, player, user, regionFrom.getGuild())) {
+            this.regionManager.rollbackTracker(tracker);
+            return;
+        }
+
+        if (regionTo != null && regionTo.getGuild() != null && !this.handleEnter(event, player, user, cache, regionTo.getGuild())) {
+            this.regionManager.rollbackTracker(tracker);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        this.updateOccupancy(event.getPlayer(), event.getRespawnLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        this.updateOccupancy(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    /**
+     * Updates the tracker without region events, for changes of the position which can't be cancelled.
+     */
+    private void updateOccupancy(Player player, Location location) {
+        this.userManager.findByPlayer(player)
+                .peek(user -> this.regionManager.startTracking(user.getCache().getRegionTracker(), location));
+    }
+
+    private boolean handleLeave(PlayerMoveEvent event, Player player, User user, Guild guild) {
+        this.logger.debug(String.format("Player %s left region of guild %s", player.getName(), guild.getName()));
+
+        if (!SimpleEventHandler.handle(new GuildRegionLeaveEvent(EventCause.USER, user, guild))) {
+            event.setCancelled(true);
+            return false;
+        }
+
+        FunnyFormatter formatter = new FunnyFormatter()
+                .register("{GUILD}", guild.getName())
+                .register("{TAG}", guild.getTag());
+
+        this.messageService.getMessage(config -> config.guild.region.move.leave)
+                .with(formatter)
+                .receiver(player)
+                .send();
+
+        return true;
+    }
+
+    private boolean handleEnter(PlayerMoveEvent event, Player player, User user, UserCache cache, Guild guild) {
+        this.logger.debug(String.format("Player %s entered region of guild %s", player.getName(), guild.getName()));
+
+        if (!SimpleEventHandler.handle(new GuildRegionEnterEvent(EventCause.USER, user, guild))) {
+            event.setCancelled(true);
+            return false;
+        }
+
+        if (this.config.heart.createEntityType != null) {
+            Bukkit.getScheduler().runTaskLater(this.plugin, () -> this.guildEntityHelper.spawnGuildEntity(guild, player), 40L);
+        }
+
+        FunnyFormatter formatter = new FunnyFormatter()
+                .register("{GUILD}", guild.getName())
+                .register("{TAG}", guild.getTag())
+                .register("{PLAYER}", player.getName());
+
+        this.messageService.getMessage(config -> config.guild.region.move.enter)
+                .with(formatter)
+                .receiver(player)
+                .send();
+
+        if (player.hasPermission("funnyguilds.admin.notification")) {
+            return true;
+        }
+
+        if (cache.getNotificationTime() > 0 && System.currentTimeMillis() < cache.getNotificationTime()) {
+            return true;
+        }
+
+        if (!this.config.regionEnterNotificationGuildMember && user.hasGuild() &&
+                guild.getTag().equals(user.getGuild().get().getTag())) {
+            return true;
+        }
+
+        this.messageService.getMessage(config -> config.guild.region.move.intruderEnter)
+                .with(formatter)
+                .receiver(guild)
+                .send();
+
+        cache.setNotificationTime(System.currentTimeMillis() + 1000L * this.config.regionNotificationCooldown);
+        return true;
     }
 
 }
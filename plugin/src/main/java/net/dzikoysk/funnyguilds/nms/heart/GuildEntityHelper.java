@@ -1,24 +1,34 @@
 package net.dzikoysk.funnyguilds.nms.heart;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import net.dzikoysk.funnyguilds.config.PluginConfiguration;
 import net.dzikoysk.funnyguilds.guild.Guild;
 import net.dzikoysk.funnyguilds.guild.GuildManager;
 import net.dzikoysk.funnyguilds.nms.api.NmsAccessor;
 import net.dzikoysk.funnyguilds.nms.api.entity.FakeEntity;
+import net.dzikoysk.funnyguilds.shared.LongBucketMap;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import panda.std.Option;
 import panda.std.stream.PandaStream;
 
 public class GuildEntityHelper {
 
+    private static final FakeEntity[] EMPTY_CHUNK = new FakeEntity[0];
+
     private final PluginConfiguration pluginConfiguration;
     private final NmsAccessor nmsAccessor;
 
     private final Map<Guild, FakeEntity> entityMap = new ConcurrentHashMap<>();
+    private final Map<UUID, LongBucketMap<FakeEntity>> entitiesByChunk = new ConcurrentHashMap<>();
+    private final Map<Integer, Guild> guildsByEntityId = new ConcurrentHashMap<>();
 
     public GuildEntityHelper(PluginConfiguration pluginConfiguration, NmsAccessor nmsAccessor) {
         this.pluginConfiguration = pluginConfiguration;
@@ -29,6 +39,34 @@ public class GuildEntityHelper {
         return this.entityMap;
     }
 
+    /**
+     * Gets guild which heart is represented by the entity with the given id.
+     *
+     * @param entityId id of the fake entity
+     * @return the guild
+     */
+    public Option<Guild> findGuildByEntityId(int entityId) {
+        return Option.of(this.guildsByEntityId.get(entityId));
+    }
+
+    /**
+     * Gets guild entities placed in the given chunk. Called from the network threads for every sent chunk, so it has to stay cheap.
+     *
+     * @param world  world of the chunk
+     * @param chunkX x coordinate of the chunk
+     * @param chunkZ z coordinate of the chunk
+     * @return unmodifiable collection of entities in the chunk
+     */
+    public Collection<FakeEntity> getGuildEntitiesInChunk(World world, int chunkX, int chunkZ) {
+        LongBucketMap<FakeEntity> worldEntities = this.entitiesByChunk.get(world.getUID());
+        if (worldEntities == null) {
+            return Collections.emptyList();
+        }
+
+        FakeEntity[] entities = worldEntities.get(packChunkPosition(chunkX, chunkZ));
+        return entities.length == 0 ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(entities));
+    }
+
     public Option<FakeEntity> getOrCreateGuildEntity(Guild guild) {
         return Option.of(this.entityMap.computeIfAbsent(guild, key -> {
             if (this.pluginConfiguration.heart.createEntityType == null) {
@@ -40,7 +78,12 @@ public class GuildEntityHelper {
                 return null;
             }
 
-            return this.nmsAccessor.getEntityAccessor().createFakeEntity(this.pluginConfiguration.heart.createEntityType, locationOption.get());
+            FakeEntity entity = this.nmsAccessor.getEntityAccessor().createFakeEntity(this.pluginConfiguration.heart.createEntityType, locationOption.get());
+            this.entitiesByChunk.computeIfAbsent(entity.getLocation().getWorld().getUID(), world -> new LongBucketMap<>(EMPTY_CHUNK))
+                    .add(packChunkPosition(entity.getChunkX(), entity.getChunkZ()), entity);
+            this.guildsByEntityId.put(entity.getId(), guild);
+
+            return entity;
         }));
     }
 
@@ -63,17 +106,27 @@ public class GuildEntityHelper {
     }
 
     public void despawnGuildEntity(Guild guild) {
-        FakeEntity guildHeartEntity = this.entityMap.get(guild);
+        FakeEntity guildHeartEntity = this.entityMap.remove(guild);
         if (guildHeartEntity == null) {
             return;
         }
 
+        this.guildsByEntityId.remove(guildHeartEntity.getId());
+
+        LongBucketMap<FakeEntity> worldEntities = this.entitiesByChunk.get(guildHeartEntity.getLocation().getWorld().getUID());
+        if (worldEntities != null) {
+            worldEntities.remove(packChunkPosition(guildHeartEntity.getChunkX(), guildHeartEntity.getChunkZ()), guildHeartEntity);
+        }
+
         this.nmsAccessor.getEntityAccessor().despawnFakeEntityFor(guildHeartEntity, Bukkit.getOnlinePlayers());
-        this.entityMap.remove(guild);
     }
 
     public void despawnGuildEntities(GuildManager guildManager) {
         guildManager.getGuilds().forEach(this::despawnGuildEntity);
     }
 
+    private static long packChunkPosition(int chunkX, int chunkZ) {
+        return (long) chunkX & 0xFFFFFFFFL | ((long) chunkZ & 0xFFFFFFFFL) << 32;
+    }
+
 }
@@ -4,7 +4,6 @@ import java.util.Collection;
 import net.dzikoysk.funnyguilds.nms.api.entity.FakeEntity;
 import net.dzikoysk.funnyguilds.nms.api.packet.PacketSuppliers;
 import org.bukkit.World;
-import panda.std.stream.PandaStream;
 
 public class GuildEntitySupplier implements PacketSuppliers {
 
@@ -16,11 +15,7 @@ public class GuildEntitySupplier implements PacketSuppliers {
 
     @Override
     public Collection<FakeEntity> supplyFakeEntities(World world, int chunkX, int chunkZ) {
-        return PandaStream.of(this.helper.getGuildEntities().values())
-                .filter(entity -> entity.getLocation().getWorld().equals(world))
-                .filter(entity -> entity.getChunkX() == chunkX)
-                .filter(entity -> entity.getChunkZ() == chunkZ)
-                .toSet();
+        return this.helper.getGuildEntitiesInChunk(world, chunkX, chunkZ);
     }
 
 }
@@ -10,7 +10,8 @@ import net.dzikoysk.funnyguilds.data.MutableEntity;
 public abstract class Rank<T extends MutableEntity> {
 
     protected final T entity;
-    protected Map<String, Integer> position = new HashMap<>();
+    // Allocated on the first position set, as most of ranks are never placed in any top
+    protected Map<String, Integer> position;
 
     protected Rank(T entity) {
         this.entity = entity;
@@ -34,6 +35,10 @@ public abstract class Rank<T extends MutableEntity> {
      * @return position in which entity is for the given top, return 0 if entity is not in the top
      */
     public int getPosition(String top) {
+        if (this.position == null) {
+            return 0;
+        }
+
         return this.position.getOrDefault(top.toLowerCase(Locale.ROOT), 0);
     }
 
@@ -42,6 +47,10 @@ public abstract class Rank<T extends MutableEntity> {
      * It's only for internal use (or when you added your own top from your plugin)
      */
     public void setPosition(String top, int position) {
+        if (this.position == null) {
+            this.position = new HashMap<>();
+        }
+
         this.position.put(top.toLowerCase(Locale.ROOT), position);
     }
 
@@ -18,6 +18,7 @@ import net.dzikoysk.funnyguilds.guild.Guild;
 import net.dzikoysk.funnyguilds.guild.GuildRankManager;
 import net.dzikoysk.funnyguilds.shared.FunnyFormatter;
 import net.dzikoysk.funnyguilds.user.User;
+import net.dzikoysk.funnyguilds.user.UserRank;
 import net.dzikoysk.funnyguilds.user.UserRankManager;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextReplacementConfig;
@@ -101,18 +102,19 @@ public class RankPlaceholdersService implements PlaceholdersService<User> {
 
         if (topType.equalsIgnoreCase("PTOP")) {
             String placeholder = "{PTOP-" + comparatorType + "-" + index + "}";
+            // Ranks are formatted without loading their users, as placeholders are formatted on the main thread
             return this.userRankManager.getTop(comparatorType)
-                    .flatMap(userTop -> userTop.getUser(index).map(user -> Pair.of(user, userTop)))
+                    .flatMap(userTop -> userTop.get(index).map(rank -> Pair.of(rank, userTop)))
                     .map(pair -> {
-                        User user = pair.getFirst();
-                        Number topValue = pair.getSecond().getComparator().getValue(user.getRank());
+                        UserRank rank = pair.getFirst();
+                        Number topValue = pair.getSecond().getComparator().getValue(rank);
 
                         String topFormat = this.config.top.format.ptop.getValue();
                         if (!topFormat.isEmpty()) {
                             List<RangeFormatting> formats = this.config.top.format.ptopValueFormatting.get(comparatorType.toLowerCase(Locale.ROOT));
                             topFormat = formatTopValue(topValue, topFormat, formats);
                         }
-                        return this.formatUserRank(text, placeholder, user, topFormat);
+                        return this.formatUserRank(text, placeholder, rank, topFormat);
                     })
                     .orElseGet(() -> FunnyFormatter.format(text, placeholder, this.messageService.<String>get(targetUser, config -> config.noValue.player.top)));
         }
@@ -201,14 +203,17 @@ public class RankPlaceholdersService implements PlaceholdersService<User> {
         return formatter.format(topFormat);
     }
 
-    private String formatUserRank(String text, String placeholder, User user, String topFormat) {
-        boolean online = user.isOnline();
+    private String formatUserRank(String text, String placeholder, UserRank rank, String topFormat) {
+        // Users which are not loaded are offline
+        Option<User> user = rank.findLoadedUser();
+
+        boolean online = user.is(User::isOnline);
         if (online && this.config.ptopRespectVanish) {
-            online = !user.isVanished();
+            online = !user.get().isVanished();
         }
 
         RawString onlineColor = online ? this.config.ptopOnline : this.config.ptopOffline;
-        return FunnyFormatter.format(text, placeholder, onlineColor + user.getName() + topFormat);
+        return FunnyFormatter.format(text, placeholder, onlineColor + rank.getIdentityName() + topFormat);
     }
 
     private String formatGuildRank(String text, String placeholder, @Nullable User targetUser, Guild guild, String topFormat) {
@@ -0,0 +1,209 @@
+package net.dzikoysk.funnyguilds.shared;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Open addressing map from primitive {@code long} keys to immutable arrays of values.
+ * <p>
+ * Writes are serialized, reads are lock-free and allocation-free - every bucket is published as a new immutable array,
+ * so readers either see the previous or the next state of a bucket, never a partially modified one.
+ *
+ * @param <V> type of stored values
+ */
+public final class LongBucketMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final float LOAD_FACTOR = 0.6F;
+
+    private final V[] emptyBucket;
+    private volatile AtomicReferenceArray<Bucket<V>> table;
+    private int usedSlots;
+
+    public LongBucketMap(V[] emptyBucket) {
+        Validate.isTrue(emptyBucket.length == 0, "emptyBucket has to be an empty array");
+        this.emptyBucket = emptyBucket;
+        this.table = new AtomicReferenceArray<>(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Gets values stored under the given key.
+     *
+     * @param key the key
+     * @return immutable view of the bucket, never null (must not be modified)
+     */
+    public V[] get(long key) {
+        AtomicReferenceArray<Bucket<V>> table = this.table;
+        int mask = table.length() - 1;
+        int index = mix(key) & mask;
+
+        Bucket<V> bucket;
+        while ((bucket = table.get(index)) != null) {
+            if (bucket.key == key) {
+                return bucket.values;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        return this.emptyBucket;
+    }
+
+    /**
+     * Adds value to the bucket of the given key.
+     *
+     * @param key   the key
+     * @param value the value to add
+     * @return true if value was added, false if it was already present
+     */
+    public synchronized boolean add(long key, V value) {
+        Validate.notNull(value, "value can't be null!");
+
+        AtomicReferenceArray<Bucket<V>> table = this.table;
+        int index = findSlot(table, key);
+        Bucket<V> bucket = table.get(index);
+
+        if (bucket != null) {
+            V[] values = bucket.values;
+            for (V stored : values) {
+                if (stored.equals(value)) {
+                    return false;
+                }
+            }
+
+            V[] newValues = Arrays.copyOf(values, values.length + 1);
+            newValues[values.length] = value;
+            table.set(index, new Bucket<>(key, newValues));
+            return true;
+        }
+
+        if (this.usedSlots + 1 > table.length() * LOAD_FACTOR) {
+            table = this.rehash(table);
+            index = findSlot(table, key);
+        }
+
+        V[] newValues = Arrays.copyOf(this.emptyBucket, 1);
+        newValues[0] = value;
+        table.set(index, new Bucket<>(key, newValues));
+        this.usedSlots++;
+        return true;
+    }
+
+    /**
+     * Removes value from the bucket of the given key.
+     *
+     * @param key   the key
+     * @param value the value to remove
+     * @return true if value was removed, false if it wasn't present
+     */
+    public synchronized boolean remove(long key, V value) {
+        AtomicReferenceArray<Bucket<V>> table = this.table;
+        int index = findSlot(table, key);
+        Bucket<V> bucket = table.get(index);
+
+        if (bucket == null) {
+            return false;
+        }
+
+        V[] values = bucket.values;
+        for (int valueIndex = 0; valueIndex < values.length; valueIndex++) {
+            if (!values[valueIndex].equals(value)) {
+                continue;
+            }
+
+            V[] newValues = Arrays.copyOf(this.emptyBucket, values.length - 1);
+            System.arraycopy(values, 0, newValues, 0, valueIndex);
+            System.arraycopy(values, valueIndex + 1, newValues, valueIndex, values.length - valueIndex - 1);
+
+            // Emptied buckets stay in place to keep probe sequences intact for concurrent readers, they are dropped on rehash
+            table.set(index, new Bucket<>(key, newValues));
+            return true;
+        }
+
+        return false;
+    }
+
+    public synchronized void clear() {
+        this.table = new AtomicReferenceArray<>(DEFAULT_CAPACITY);
+        this.usedSlots = 0;
+    }
+
+    /**
+     * Applies given function for every value in every bucket.
+     * Value stored under multiple keys is visited multiple times.
+     *
+     * @param consumer the function
+     */
+    public void forEachValue(Consumer<V> consumer) {
+        AtomicReferenceArray<Bucket<V>> table = this.table;
+
+        for (int index = 0; index < table.length(); index++) {
+            Bucket<V> bucket = table.get(index);
+            if (bucket == null) {
+                continue;
+            }
+
+            for (V value : bucket.values) {
+                consumer.accept(value);
+            }
+        }
+    }
+
+    private AtomicReferenceArray<Bucket<V>> rehash(AtomicReferenceArray<Bucket<V>> oldTable) {
+        int liveBuckets = 0;
+        for (int index = 0; index < oldTable.length(); index++) {
+            Bucket<V> bucket = oldTable.get(index);
+            if (bucket != null && bucket.values.length > 0) {
+                liveBuckets++;
+            }
+        }
+
+        int capacity = DEFAULT_CAPACITY;
+        while ((liveBuckets + 1) > capacity * LOAD_FACTOR / 2) {
+            capacity <<= 1;
+        }
+
+        AtomicReferenceArray<Bucket<V>> newTable = new AtomicReferenceArray<>(capacity);
+        for (int index = 0; index < oldTable.length(); index++) {
+            Bucket<V> bucket = oldTable.get(index);
+            if (bucket != null && bucket.values.length > 0) {
+                newTable.set(findSlot(newTable, bucket.key), bucket);
+            }
+        }
+
+        this.usedSlots = liveBuckets;
+        this.table = newTable;
+        return newTable;
+    }
+
+    private static <V> int findSlot(AtomicReferenceArray<Bucket<V>> table, long key) {
+        int mask = table.length() - 1;
+        int index = mix(key) & mask;
+
+        Bucket<V> bucket;
+        while ((bucket = table.get(index)) != null && bucket.key != key) {
+            index = (index + 1) & mask;
+        }
+
+        return index;
+    }
+
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static final class Bucket<V> {
+
+        private final long key;
+        private final V[] values;
+
+        private Bucket(long key, V[] values) {
+            this.key = key;
+            this.values = values;
+        }
+
+    }
+
+}
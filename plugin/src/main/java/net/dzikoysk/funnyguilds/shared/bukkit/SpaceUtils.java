@@ -1,17 +1,19 @@
 package net.dzikoysk.funnyguilds.shared.bukkit;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.function.Supplier;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.block.Block;
-import panda.std.function.QuadFunction;
 
 public final class SpaceUtils {
 
+    private static final Map<Long, int[]> SPHERE_OFFSETS = new ConcurrentHashMap<>();
+
     private SpaceUtils() {
     }
 
@@ -20,45 +22,91 @@ public final class SpaceUtils {
     }
 
     public static List<Location> sphere(Location sphereCenter, int radius, int height, boolean hollow, boolean sphere, int plusY) {
-        return mapSphereCoordinates(sphereCenter, radius, height, plusY, hollow, sphere, ArrayList::new, Location::new);
-    }
+        World world = sphereCenter.getWorld();
+        int[] offsets = getSphereOffsets(radius, height, hollow, sphere);
+        List<Location> locations = new ArrayList<>(offsets.length / 3);
 
-    public static List<Block> sphereBlocks(Location sphereLocation, int radius, int height, int plusY, boolean hollow, boolean sphere) {
-        return mapSphereCoordinates(sphereLocation, radius, height, plusY, hollow, sphere, ArrayList::new, World::getBlockAt);
+        forEachSphereCoordinate(sphereCenter, radius, height, plusY, hollow, sphere, (x, y, z) -> locations.add(new Location(world, x, y, z)));
+        return locations;
     }
 
-    private static <T, C extends Collection<T>> C mapSphereCoordinates(Location sphereCenter, int radius, int height, int plusY,
-                                                                       boolean hollow, boolean sphere, Supplier<C> collectionSupplier,
-                                                                       QuadFunction<World, Integer, Integer, Integer, T> coordinateMapper) {
+    public static List<Block> sphereBlocks(Location sphereLocation, int radius, int height, int plusY, boolean hollow, boolean sphere) {
+        World world = sphereLocation.getWorld();
+        int[] offsets = getSphereOffsets(radius, height, hollow, sphere);
+        List<Block> blocks = new ArrayList<>(offsets.length / 3);
 
-        C result = collectionSupplier.get();
+        forEachSphereCoordinate(sphereLocation, radius, height, plusY, hollow, sphere, (x, y, z) -> blocks.add(world.getBlockAt(x, y, z)));
+        return blocks;
+    }
 
-        World world = sphereCenter.getWorld();
+    /**
+     * Walks every block coordinate of the sphere (or cylinder if sphere is false) around the given center,
+     * without creating intermediate collections, locations or blocks.
+     *
+     * @param sphereCenter the center of the sphere
+     * @param radius       the radius of the sphere
+     * @param height       the height of the cylinder (ignored for spheres)
+     * @param plusY        the offset applied to every y coordinate
+     * @param hollow       if only the outer shell should be visited
+     * @param sphere       if shape is a sphere (or a cylinder)
+     * @param visitor      the function applied to every coordinate
+     */
+    public static void forEachSphereCoordinate(Location sphereCenter, int radius, int height, int plusY, boolean hollow, boolean sphere,
+                                               CoordinateVisitor visitor) {
+        int[] offsets = getSphereOffsets(radius, height, hollow, sphere);
         int centerX = sphereCenter.getBlockX();
-        int centerY = sphereCenter.getBlockY();
+        int centerY = sphereCenter.getBlockY() + plusY;
         int centerZ = sphereCenter.getBlockZ();
 
-        double radiusSquared = Math.pow(radius, 2.0D);
-        double hollowRadiusSquared = Math.pow(radius - 1, 2.0D);
+        for (int index = 0; index < offsets.length; index += 3) {
+            visitor.visit(centerX + offsets[index], centerY + offsets[index + 1], centerZ + offsets[index + 2]);
+        }
+    }
+
+    /**
+     * Gets the cached table of sphere offsets relative to its center, packed as consecutive (x, y, z) triples.
+     * Returned array is shared and must not be modified.
+     */
+    static int[] getSphereOffsets(int radius, int height, boolean hollow, boolean sphere) {
+        long key = ((long) radius << 32) | ((long) (height & 0x3FFFFFFF) << 2) | (hollow ? 2 : 0) | (sphere ? 1 : 0);
+        return SPHERE_OFFSETS.computeIfAbsent(key, ignored -> computeSphereOffsets(radius, height, hollow, sphere));
+    }
 
-        for (int x = centerX - radius; x <= centerX + radius; x++) {
-            double xDistSquared = Math.pow(centerX - x, 2.0D);
+    private static int[] computeSphereOffsets(int radius, int height, boolean hollow, boolean sphere) {
+        int[] offsets = new int[64];
+        int size = 0;
 
-            for (int z = centerZ - radius; z <= centerZ + radius; z++) {
-                double zDistSquared = Math.pow(centerZ - z, 2.0D);
+        int radiusSquared = radius * radius;
+        int hollowRadiusSquared = (radius - 1) * (radius - 1);
 
-                for (int y = (sphere ? centerY - radius : centerY); y < (sphere ? centerY + radius : centerY + height); y++) {
-                    double yDistSquared = sphere ? Math.pow(centerY - y, 2.0D) : 0.0D;
-                    double distSquared = xDistSquared + zDistSquared + yDistSquared;
+        for (int x = -radius; x <= radius; x++) {
+            for (int z = -radius; z <= radius; z++) {
+                for (int y = (sphere ? -radius : 0); y < (sphere ? radius : height); y++) {
+                    int distSquared = x * x + z * z + (sphere ? y * y : 0);
 
-                    if (distSquared < radiusSquared && !(hollow && distSquared < hollowRadiusSquared)) {
-                        result.add(coordinateMapper.apply(world, x, y + plusY, z));
+                    if (distSquared >= radiusSquared || (hollow && distSquared < hollowRadiusSquared)) {
+                        continue;
                     }
+
+                    if (size + 3 > offsets.length) {
+                        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    }
+
+                    offsets[size++] = x;
+                    offsets[size++] = y;
+                    offsets[size++] = z;
                 }
             }
         }
 
-        return result;
+        return Arrays.copyOf(offsets, size);
+    }
+
+    @FunctionalInterface
+    public interface CoordinateVisitor {
+
+        void visit(int x, int y, int z);
+
     }
 
 }
@@ -41,6 +41,7 @@ public class User extends AbstractMutableEntity {
 
     void setName(String name) {
         this.name = name;
+        this.markChanged(Field.NAME);
     }
 
     @Override
@@ -86,12 +87,12 @@ public class User extends AbstractMutableEntity {
 
     public void setGuild(@Nullable Guild guild) {
         this.guild = Option.of(guild);
-        this.markChanged();
+        this.markChanged(Field.GUILD);
     }
 
     public void removeGuild() {
         this.guild = Option.none();
-        this.markChanged();
+        this.markChanged(Field.GUILD);
     }
 
     public boolean canManage() {
@@ -122,6 +123,7 @@ public class User extends AbstractMutableEntity {
 
     public void setBan(@Nullable UserBan ban) {
         this.ban = Option.of(ban);
+        this.markChanged(Field.BAN);
     }
 
     public UserProfile getProfile() {
@@ -152,4 +154,20 @@ public class User extends AbstractMutableEntity {
         return "User{uuid=" + this.uuid + ", name='" + this.name + "'}";
     }
 
+    /**
+     * Fields of the user tracked separately, so only the changed ones have to be saved.
+     */
+    public enum Field {
+
+        NAME,
+        GUILD,
+        POINTS,
+        KILLS,
+        DEATHS,
+        ASSISTS,
+        LOGOUTS,
+        BAN
+
+    }
+
 }
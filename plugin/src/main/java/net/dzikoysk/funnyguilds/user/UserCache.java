@@ -3,6 +3,7 @@ package net.dzikoysk.funnyguilds.user;
 import net.dzikoysk.funnyguilds.feature.scoreboard.dummy.Dummy;
 import net.dzikoysk.funnyguilds.feature.scoreboard.nametag.IndividualNameTag;
 import net.dzikoysk.funnyguilds.feature.tablist.IndividualPlayerList;
+import net.dzikoysk.funnyguilds.guild.RegionTracker;
 import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.scoreboard.Scoreboard;
 import org.jetbrains.annotations.Nullable;
@@ -11,6 +12,7 @@ import panda.std.Option;
 public class UserCache {
 
     private final User user;
+    private final RegionTracker regionTracker;
 
     private IndividualPlayerList playerList;
     private Option<Scoreboard> scoreboard = Option.none();
@@ -23,6 +25,7 @@ public class UserCache {
 
     public UserCache(User user) {
         this.user = user;
+        this.regionTracker = new RegionTracker(user.getUUID());
     }
 
     public Option<IndividualPlayerList> getPlayerList() {
@@ -57,6 +60,10 @@ public class UserCache {
         this.dummy = Option.of(dummy);
     }
 
+    public RegionTracker getRegionTracker() {
+        return this.regionTracker;
+    }
+
     public BukkitTask getTeleportation() {
         return this.teleportation;
     }
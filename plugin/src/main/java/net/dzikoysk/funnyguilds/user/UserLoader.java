@@ -0,0 +1,20 @@
+package net.dzikoysk.funnyguilds.user;
+
+import java.util.UUID;
+import panda.std.Option;
+
+/**
+ * Loads users which are not kept in the memory by the {@link UserManager}.
+ */
+@FunctionalInterface
+public interface UserLoader {
+
+    /**
+     * Loads the user and adds it to the {@link UserManager}. Called only for users which are not loaded.
+     *
+     * @param uuid the universally unique identifier of user
+     * @return the loaded user
+     */
+    Option<User> loadUser(UUID uuid);
+
+}
@@ -1,38 +1,65 @@
 package net.dzikoysk.funnyguilds.user;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import net.dzikoysk.funnyguilds.config.PluginConfiguration;
+import net.dzikoysk.funnyguilds.data.MutableEntity;
 import net.dzikoysk.funnyguilds.shared.FunnyValidator;
 import net.dzikoysk.funnyguilds.shared.FunnyValidator.NameResult;
 import net.dzikoysk.funnyguilds.shared.Validate;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import panda.std.Option;
 import panda.std.stream.PandaStream;
 
 public class UserManager {
 
+    private static final long MIN_EVICTION_IDLE_TIME = TimeUnit.MINUTES.toMillis(1);
+
     private final PluginConfiguration pluginConfiguration;
     private final Map<UUID, User> usersByUuid = new ConcurrentHashMap<>();
     private final Map<String, User> usersByName = new ConcurrentHashMap<>();
 
+    // Index of all users (also these which are not loaded) and access times of loaded users, used only when users are loaded on demand
+    private final Map<UUID, UserRank> ranksByUuid = new ConcurrentHashMap<>();
+    private final Map<String, UUID> uuidsByLowerCaseName = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> lastAccess = new ConcurrentHashMap<>();
+    // Loads in progress, so concurrent lookups of the same user share one query instead of waiting on a lock shared by all users
+    private final Map<UUID, CompletableFuture<User>> pendingLoads = new ConcurrentHashMap<>();
+
+    private volatile UserLoader userLoader;
+    private volatile Consumer<MutableEntity> changeListener;
+
     public UserManager(PluginConfiguration pluginConfiguration) {
         this.pluginConfiguration = pluginConfiguration;
     }
 
+    /**
+     * Counts all users, including users which are not loaded.
+     *
+     * @return amount of users
+     */
     public int countUsers() {
-        return this.usersByUuid.size();
+        return this.userLoader == null ? this.usersByUuid.size() : this.ranksByUuid.size();
     }
 
     /**
-     * Gets the copied set of users.
+     * Gets the copied set of loaded users.
      *
      * @return set of users
      */
@@ -40,12 +67,79 @@ public class UserManager {
         return new HashSet<>(this.usersByUuid.values());
     }
 
+    /**
+     * Gets ranks of all users, including read-only ranks of users which are not loaded.
+     *
+     * @return list of ranks
+     */
+    public List<UserRank> getRanks() {
+        if (this.userLoader == null) {
+            return PandaStream.of(this.usersByUuid.values())
+                    .map(User::getRank)
+                    .toList();
+        }
+
+        return new ArrayList<>(this.ranksByUuid.values());
+    }
+
     /**
      * Deletes all loaded users data
      */
     public void clearUsers() {
+        this.usersByUuid.values().forEach(user -> user.setChangeListener(null));
         this.usersByUuid.clear();
         this.usersByName.clear();
+        this.ranksByUuid.clear();
+        this.uuidsByLowerCaseName.clear();
+        this.lastAccess.clear();
+    }
+
+    /**
+     * Sets loader of users which are not loaded. With the loader, users are loaded on demand and offline users can be unloaded
+     * (see {@link #evictOfflineUsers()}), while users which are not loaded are still kept in the index of users.
+     *
+     * @param userLoader the loader or null, to keep all users loaded
+     */
+    public void setUserLoader(@Nullable UserLoader userLoader) {
+        this.userLoader = userLoader;
+
+        if (userLoader != null) {
+            this.usersByUuid.values().forEach(this::indexUser);
+        }
+    }
+
+    /**
+     * Sets listener notified about changes of stored users, e.g. to record them in the journal.
+     *
+     * @param listener the listener or null to remove the current one
+     */
+    public void setChangeListener(@Nullable Consumer<MutableEntity> listener) {
+        this.changeListener = listener;
+        this.usersByUuid.values().forEach(user -> user.setChangeListener(listener));
+    }
+
+    /**
+     * Adds user which is not loaded to the index of users. If you think you should use this method you probably shouldn't.
+     *
+     * @param rank read-only rank of the user, see {@link UserRank#unloaded(UUID, String, int, int, int, int, int)}
+     */
+    public void indexUser(UserRank rank) {
+        Validate.notNull(rank, "rank can't be null!");
+        Validate.isFalse(rank.isLoaded(), "rank of loaded user can't be indexed!");
+
+        // Loaded user is already indexed with its own rank
+        if (this.usersByUuid.containsKey(rank.getUUID())) {
+            return;
+        }
+
+        this.ranksByUuid.put(rank.getUUID(), rank);
+        this.uuidsByLowerCaseName.put(rank.getIdentityName().toLowerCase(Locale.ROOT), rank.getUUID());
+    }
+
+    private void indexUser(User user) {
+        this.ranksByUuid.put(user.getUUID(), user.getRank());
+        this.uuidsByLowerCaseName.put(user.getName().toLowerCase(Locale.ROOT), user.getUUID());
+        this.lastAccess.put(user.getUUID(), System.currentTimeMillis());
     }
 
     /**
@@ -61,15 +155,87 @@ public class UserManager {
     }
 
     /**
-     * Gets the user.
+     * Gets the user. User which is not loaded is loaded on demand, if users are loaded on demand.
      *
      * @param uuid the universally unique identifier of user
      * @return the user
      */
     public Option<User> findByUuid(UUID uuid) {
+        User user = this.usersByUuid.get(uuid);
+        UserLoader loader = this.userLoader;
+
+        if (loader == null) {
+            return Option.of(user);
+        }
+
+        // Index of users filters out users which do not exist, so they are not looked up in the storage
+        if (user == null && this.ranksByUuid.containsKey(uuid)) {
+            user = this.loadUser(loader, uuid);
+        }
+
+        this.touch(user);
+        return Option.of(user);
+    }
+
+    /**
+     * Gets the user, only if it's loaded.
+     *
+     * @param uuid the universally unique identifier of user
+     * @return the user
+     */
+    public Option<User> findLoadedByUuid(UUID uuid) {
         return Option.of(this.usersByUuid.get(uuid));
     }
 
+    /**
+     * Gets the user without blocking the calling thread. User which is not loaded is loaded by the executor, if users are loaded on demand.
+     *
+     * @param uuid     the universally unique identifier of user
+     * @param executor executor loading the user, e.g. asynchronous scheduler
+     * @return future completed with the user, completed immediately if the user doesn't have to be loaded
+     */
+    public CompletableFuture<Option<User>> findByUuidAsync(UUID uuid, Executor executor) {
+        if (this.userLoader == null || this.usersByUuid.containsKey(uuid) || !this.ranksByUuid.containsKey(uuid)) {
+            return CompletableFuture.completedFuture(this.findByUuid(uuid));
+        }
+
+        return CompletableFuture.supplyAsync(() -> this.findByUuid(uuid), executor);
+    }
+
+    @Nullable
+    private User loadUser(UserLoader loader, UUID uuid) {
+        CompletableFuture<User> load = new CompletableFuture<>();
+        CompletableFuture<User> pendingLoad = this.pendingLoads.putIfAbsent(uuid, load);
+
+        if (pendingLoad != null) {
+            return pendingLoad.join();
+        }
+
+        try {
+            // User could be loaded by the previous load, which has finished in the meantime
+            User user = this.usersByUuid.get(uuid);
+            if (user == null) {
+                user = loader.loadUser(uuid).orNull();
+            }
+
+            load.complete(user);
+            return user;
+        }
+        catch (RuntimeException exception) {
+            load.completeExceptionally(exception);
+            throw exception;
+        }
+        finally {
+            this.pendingLoads.remove(uuid, load);
+        }
+    }
+
+    private void touch(@Nullable User user) {
+        if (user != null && this.userLoader != null) {
+            this.lastAccess.put(user.getUUID(), System.currentTimeMillis());
+        }
+    }
+
     /**
      * Gets the user.
      *
@@ -88,6 +254,28 @@ public class UserManager {
      * @return the user
      */
     public Option<User> findByName(String nickname, boolean ignoreCase) {
+        User foundUser = this.findLoadedByName(nickname, ignoreCase).orNull();
+
+        if (foundUser == null && this.userLoader != null) {
+            UUID uuid = this.findIndexedUuid(nickname, ignoreCase);
+
+            if (uuid != null) {
+                return this.findByUuid(uuid);
+            }
+        }
+
+        this.touch(foundUser);
+        return Option.of(foundUser);
+    }
+
+    /**
+     * Gets the user, only if it's loaded.
+     *
+     * @param nickname   the name of user
+     * @param ignoreCase ignore the case of the nickname
+     * @return the user
+     */
+    public Option<User> findLoadedByName(String nickname, boolean ignoreCase) {
         User foundUser = this.usersByName.get(nickname);
 
         if (foundUser == null && ignoreCase) {
@@ -100,6 +288,57 @@ public class UserManager {
         return Option.of(foundUser);
     }
 
+    /**
+     * Gets the user without blocking the calling thread. User which is not loaded is loaded by the executor, if users are loaded on demand.
+     *
+     * @param nickname   the name of user
+     * @param ignoreCase ignore the case of the nickname
+     * @param executor   executor loading the user, e.g. asynchronous scheduler
+     * @return future completed with the user, completed immediately if the user doesn't have to be loaded
+     */
+    public CompletableFuture<Option<User>> findByNameAsync(String nickname, boolean ignoreCase, Executor executor) {
+        Option<User> loadedUser = this.findLoadedByName(nickname, ignoreCase);
+        UUID uuid = loadedUser.isEmpty() && this.userLoader != null ? this.findIndexedUuid(nickname, ignoreCase) : null;
+
+        if (uuid == null) {
+            loadedUser.peek(this::touch);
+            return CompletableFuture.completedFuture(loadedUser);
+        }
+
+        return this.findByUuidAsync(uuid, executor);
+    }
+
+    @Nullable
+    private UUID findIndexedUuid(String nickname, boolean ignoreCase) {
+        UUID uuid = this.uuidsByLowerCaseName.get(nickname.toLowerCase(Locale.ROOT));
+        UserRank rank = uuid == null ? null : this.ranksByUuid.get(uuid);
+
+        return rank != null && (ignoreCase || rank.getIdentityName().equals(nickname)) ? uuid : null;
+    }
+
+    /**
+     * Gets the universally unique identifier of the user, without loading the user.
+     *
+     * @param nickname the name of user
+     * @return the universally unique identifier of user
+     */
+    public Option<UUID> findUuidByName(String nickname) {
+        User foundUser = this.usersByName.get(nickname);
+        if (foundUser != null) {
+            return Option.of(foundUser.getUUID());
+        }
+
+        if (this.userLoader == null) {
+            return Option.none();
+        }
+
+        return Option.of(this.uuidsByLowerCaseName.get(nickname.toLowerCase(Locale.ROOT)))
+                .filter(uuid -> {
+                    UserRank rank = this.ranksByUuid.get(uuid);
+                    return rank != null && rank.getIdentityName().equals(nickname);
+                });
+    }
+
     /**
      * Gets the user.
      *
@@ -161,6 +400,11 @@ public class UserManager {
 
         this.usersByUuid.put(user.getUUID(), user);
         this.usersByName.put(user.getName(), user);
+        user.setChangeListener(this.changeListener);
+
+        if (this.userLoader != null) {
+            this.indexUser(user);
+        }
     }
 
     /**
@@ -173,6 +417,65 @@ public class UserManager {
 
         this.usersByUuid.remove(user.getUUID());
         this.usersByName.remove(user.getName());
+        this.ranksByUuid.remove(user.getUUID());
+        this.uuidsByLowerCaseName.remove(user.getName().toLowerCase(Locale.ROOT), user.getUUID());
+        this.lastAccess.remove(user.getUUID());
+        user.setChangeListener(null);
+    }
+
+    /**
+     * Unloads least recently used offline users, which exceed the limit of loaded offline users. Does nothing, if users are not loaded on demand.
+     * <p>
+     * User loaded again after the eviction is a new instance, so changes made through references to the evicted instance would be lost.
+     * These references are safe, as users referenced by them are not evicted:
+     * <ul>
+     *     <li>owners, deputies and members of guilds - users with a guild are kept,</li>
+     *     <li>online players and their caches - online users are kept,</li>
+     *     <li>changed users, until they are saved,</li>
+     *     <li>users with the given identifiers, e.g. attackers kept in damage histories.</li>
+     * </ul>
+     * Other holders have to keep identifiers (as invitations do) and look the user up again, instead of keeping the instance.
+     *
+     * @param referencedUsers identifiers of users referenced outside of the manager
+     * @return amount of unloaded users
+     */
+    public int evictOfflineUsers(Set<UUID> referencedUsers) {
+        return this.evictOfflineUsers(referencedUsers, this.pluginConfiguration.mysql.offlineUsersCacheSize, MIN_EVICTION_IDLE_TIME);
+    }
+
+    int evictOfflineUsers(Set<UUID> referencedUsers, int cacheSize, long minIdleTime) {
+        if (this.userLoader == null) {
+            return 0;
+        }
+
+        List<User> evictable = this.usersByUuid.values().stream()
+                .filter(user -> !user.isOnline() && !user.hasGuild() && !user.wasChanged() && !referencedUsers.contains(user.getUUID()))
+                .filter(user -> !this.pendingLoads.containsKey(user.getUUID()))
+                .sorted(Comparator.comparingLong(user -> this.lastAccess.getOrDefault(user.getUUID(), 0L)))
+                .collect(Collectors.toList());
+
+        if (evictable.size() <= cacheSize) {
+            return 0;
+        }
+
+        // Recently used users are kept, e.g. user loaded before the login of the player
+        long idleSince = System.currentTimeMillis() - minIdleTime;
+        int evicted = 0;
+
+        for (User user : evictable.subList(0, evictable.size() - cacheSize)) {
+            if (this.lastAccess.getOrDefault(user.getUUID(), 0L) > idleSince) {
+                break;
+            }
+
+            this.usersByUuid.remove(user.getUUID(), user);
+            this.usersByName.remove(user.getName(), user);
+            this.lastAccess.remove(user.getUUID());
+            this.ranksByUuid.put(user.getUUID(), UserRank.unloaded(user));
+            user.setChangeListener(null);
+            evicted++;
+        }
+
+        return evicted;
     }
 
     /**
@@ -187,6 +490,11 @@ public class UserManager {
         this.usersByName.remove(user.getName());
         this.usersByName.put(newUsername, user);
 
+        if (this.userLoader != null) {
+            this.uuidsByLowerCaseName.remove(user.getName().toLowerCase(Locale.ROOT), user.getUUID());
+            this.uuidsByLowerCaseName.put(newUsername.toLowerCase(Locale.ROOT), user.getUUID());
+        }
+
         user.setName(newUsername);
     }
 
@@ -208,7 +516,12 @@ public class UserManager {
      * @return if user with given name have ever played on a server
      */
     public boolean playedBefore(String nickname, boolean ignoreCase) {
-        return this.findByName(nickname, ignoreCase).isPresent();
+        if (this.findLoadedByName(nickname, ignoreCase).isPresent()) {
+            return true;
+        }
+
+        // Users which are not loaded are answered from the index, without loading them
+        return this.userLoader != null && this.findIndexedUuid(nickname, ignoreCase) != null;
     }
 
 }
\ No newline at end of file
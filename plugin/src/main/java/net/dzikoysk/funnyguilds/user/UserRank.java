@@ -1,12 +1,23 @@
 package net.dzikoysk.funnyguilds.user;
 
+import java.util.UUID;
 import java.util.function.IntFunction;
+import net.dzikoysk.funnyguilds.Entity.EntityType;
+import net.dzikoysk.funnyguilds.FunnyGuilds;
 import net.dzikoysk.funnyguilds.rank.Rank;
 import net.dzikoysk.funnyguilds.user.top.UserComparator;
 import org.jetbrains.annotations.NotNull;
+import panda.std.Option;
 
+/**
+ * Rank of the user. Users which are not loaded (see {@link UserManager#findByUuid(UUID)}) are ranked with read-only ranks
+ * holding only their identity and statistics.
+ */
 public class UserRank extends Rank<User> implements Comparable<UserRank> {
 
+    private final UUID uuid;
+    private final String name;
+
     private int points;
     private int kills;
     private int deaths;
@@ -15,11 +26,76 @@ public class UserRank extends Rank<User> implements Comparable<UserRank> {
 
     UserRank(User user, int rankStart) {
         super(user);
+        this.uuid = null;
+        this.name = null;
         this.points = rankStart;
     }
 
+    private UserRank(UUID uuid, String name, int points, int kills, int deaths, int assists, int logouts) {
+        super(null);
+        this.uuid = uuid;
+        this.name = name;
+        this.points = points;
+        this.kills = kills;
+        this.deaths = deaths;
+        this.assists = assists;
+        this.logouts = logouts;
+    }
+
+    /**
+     * Creates read-only rank of the user which is not loaded.
+     */
+    public static UserRank unloaded(UUID uuid, String name, int points, int kills, int deaths, int assists, int logouts) {
+        return new UserRank(uuid, name, points, kills, deaths, assists, logouts);
+    }
+
+    static UserRank unloaded(User user) {
+        UserRank rank = user.getRank();
+        return new UserRank(user.getUUID(), user.getName(), rank.points, rank.kills, rank.deaths, rank.assists, rank.logouts);
+    }
+
+    /**
+     * @return if the rank belongs to the loaded user
+     */
+    public boolean isLoaded() {
+        return this.entity != null;
+    }
+
+    public UUID getUUID() {
+        return this.isLoaded() ? this.entity.getUUID() : this.uuid;
+    }
+
+    /**
+     * Gets the user. User which is not loaded is loaded by the {@link UserManager} on the calling thread,
+     * values of the rank and {@link #getIdentityName()} are available without loading the user.
+     *
+     * @return the user or null, if the user does not exist anymore
+     */
     public User getUser() {
-        return this.entity;
+        if (this.isLoaded()) {
+            return this.entity;
+        }
+
+        return FunnyGuilds.getInstance().getUserManager().findByUuid(this.uuid).orNull();
+    }
+
+    /**
+     * Gets the user, only if it's loaded. User is never loaded by this method, so it can be called from the main thread.
+     *
+     * @return the user
+     */
+    public Option<User> findLoadedUser() {
+        return FunnyGuilds.getInstance().getUserManager().findLoadedByUuid(this.getUUID());
+    }
+
+    @Override
+    public EntityType getType() {
+        return EntityType.USER;
+    }
+
+    @Override
+    public String getIdentityName() {
+        return this.isLoaded() ? this.entity.getName() : this.name;
     }
 
     @Override
@@ -28,8 +104,9 @@ public class UserRank extends Rank<User> implements Comparable<UserRank> {
     }
 
     public void setPoints(int points) {
+        this.checkLoaded();
         this.points = Math.max(0, points);
-        this.entity.markChanged();
+        this.entity.markChanged(User.Field.POINTS);
     }
 
     public void updatePoints(IntFunction<Integer> update) {
@@ -42,8 +119,9 @@ public class UserRank extends Rank<User> implements Comparable<UserRank> {
     }
 
     public void setKills(int kills) {
+        this.checkLoaded();
         this.kills = Math.max(0, kills);
-        this.entity.markChanged();
+        this.entity.markChanged(User.Field.KILLS);
     }
 
     public void updateKills(IntFunction<Integer> update) {
@@ -56,8 +134,9 @@ public class UserRank extends Rank<User> implements Comparable<UserRank> {
     }
 
     public void setDeaths(int deaths) {
+        this.checkLoaded();
         this.deaths = Math.max(0, deaths);
-        this.entity.markChanged();
+        this.entity.markChanged(User.Field.DEATHS);
     }
 
     public void updateDeaths(IntFunction<Integer> update) {
@@ -70,8 +149,9 @@ public class UserRank extends Rank<User> implements Comparable<UserRank> {
     }
 
     public void setAssists(int assists) {
+        this.checkLoaded();
         this.assists = Math.max(0, assists);
-        this.entity.markChanged();
+        this.entity.markChanged(User.Field.ASSISTS);
     }
 
     public void updateAssists(IntFunction<Integer> update) {
@@ -84,8 +164,9 @@ public class UserRank extends Rank<User> implements Comparable<UserRank> {
     }
 
     public void setLogouts(int logouts) {
+        this.checkLoaded();
         this.logouts = Math.max(0, logouts);
-        this.entity.markChanged();
+        this.entity.markChanged(User.Field.LOGOUTS);
     }
 
     public void updateLogouts(IntFunction<Integer> update) {
@@ -102,6 +183,12 @@ public class UserRank extends Rank<User> implements Comparable<UserRank> {
         return this.deaths == 0 ? (this.kills + this.assists) : 1.0F * (this.kills + this.assists) / this.deaths;
     }
 
+    private void checkLoaded() {
+        if (!this.isLoaded()) {
+            throw new IllegalStateException("Rank of the user which is not loaded can't be modified");
+        }
+    }
+
     @Override
     public int compareTo(@NotNull UserRank rank) {
         return UserComparator.POINTS_COMPARATOR.compare(this, rank);
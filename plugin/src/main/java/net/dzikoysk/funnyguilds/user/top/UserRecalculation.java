@@ -5,7 +5,6 @@ import java.util.TreeSet;
 import java.util.function.BiFunction;
 import net.dzikoysk.funnyguilds.config.PluginConfiguration;
 import net.dzikoysk.funnyguilds.rank.TopComparator;
-import net.dzikoysk.funnyguilds.user.User;
 import net.dzikoysk.funnyguilds.user.UserManager;
 import net.dzikoysk.funnyguilds.user.UserRank;
 import panda.std.stream.PandaStream;
@@ -24,14 +23,20 @@ public class UserRecalculation implements BiFunction<String, TopComparator<UserR
     public NavigableSet<UserRank> apply(String id, TopComparator<UserRank> topComparator) {
         NavigableSet<UserRank> usersRank = new TreeSet<>(topComparator);
 
-        PandaStream.of(this.userManager.getUsers())
-                .filterNot(user -> this.pluginConfiguration.skipPrivilegedPlayersInRankPositions && user.hasPermission("funnyguilds.ranking.exempt"))
-                .map(User::getRank)
+        // Users which are not loaded are offline, so they can't be checked for the exempt permission (and aren't loaded to do so)
+        PandaStream.of(this.userManager.getRanks())
+                .filterNot(rank -> this.pluginConfiguration.skipPrivilegedPlayersInRankPositions
+                        && this.userManager.findLoadedByUuid(rank.getUUID()).is(user -> user.hasPermission("funnyguilds.ranking.exempt")))
                 .forEach(usersRank::add);
 
+        // Positions are kept only by ranks of loaded users, as ranks of users which are not loaded are replaced once they are loaded
         int position = 0;
         for (UserRank userRank : usersRank) {
-            userRank.setPosition(id, ++position);
+            position++;
+
+            if (userRank.isLoaded()) {
+                userRank.setPosition(id, position);
+            }
         }
 
         return usersRank;
@@ -14,8 +14,15 @@ public class UserTop extends Top<UserRank> {
         super(comparator, recalculateFunction);
     }
 
+    /**
+     * Gets the user on the given place. User which is not loaded is loaded on the calling thread (see {@link UserRank#getUser()}),
+     * use {@link #get(int)} to read only the rank.
+     *
+     * @param place place in the top, starting from 1
+     * @return the user
+     */
     public Option<User> getUser(int place) {
-        return this.get(place).map(UserRank::getUser);
+        return this.get(place).flatMap(rank -> Option.of(rank.getUser()));
     }
 
 }
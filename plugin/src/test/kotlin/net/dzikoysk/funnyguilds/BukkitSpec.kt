@@ -8,6 +8,7 @@ import org.junit.jupiter.api.extension.ExtendWith
 import org.mockito.ArgumentMatchers.any
 import org.mockito.MockedStatic
 import org.mockito.Mockito
+import org.mockito.Mockito.lenient
 import org.mockito.Mockito.mockStatic
 import org.mockito.junit.jupiter.MockitoExtension
 import java.util.*
@@ -17,6 +18,8 @@ open class BukkitSpec {
 
     private lateinit var mockedBukkit: MockedStatic<Bukkit>
 
+    protected val world: World = Mockito.mock(World::class.java)
+
     @BeforeEach
     fun openMockedBukkit() {
         mockedBukkit = mockStatic(Bukkit::class.java)
@@ -24,7 +27,9 @@ open class BukkitSpec {
 
     @BeforeEach
     protected open fun prepareBukkit() {
-        val world = Mockito.mock(World::class.java)
+        lenient().`when`(world.uid).thenReturn(UUID.randomUUID())
+        lenient().`when`(world.name).thenReturn("world")
+        lenient().`when`(world.maxHeight).thenReturn(256)
         mockedBukkit.`when`<Any?> { Bukkit.getPlayer(any(UUID::class.java)) }.thenReturn(null)
         mockedBukkit.`when`<Any> { Bukkit.getWorlds() }.thenReturn(listOf(world))
     }
@@ -0,0 +1,120 @@
+package net.dzikoysk.funnyguilds.data.binary
+
+import net.dzikoysk.funnyguilds.Entity.EntityType
+import net.dzikoysk.funnyguilds.FunnyGuildsSpec
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+import java.io.RandomAccessFile
+
+class BinarySegmentStoreTest : FunnyGuildsSpec() {
+
+    @TempDir
+    lateinit var directory: File
+
+    @Test
+    fun `should read appended records and skip deleted ones`() {
+        val store = BinarySegmentStore(directory, SEGMENT_SIZE)
+        store.load()
+
+        store.append(listOf(BinaryRecord.of(EntityType.USER, "a", byteArrayOf(1)), BinaryRecord.of(EntityType.USER, "b", byteArrayOf(2))))
+        store.append(listOf(BinaryRecord.of(EntityType.USER, "a", byteArrayOf(3)), BinaryRecord.tombstone(EntityType.USER, "b")))
+
+        val reopened = BinarySegmentStore(directory, SEGMENT_SIZE)
+        val records = reopened.load()
+
+        assertEquals(1, records.size)
+        assertArrayEquals(byteArrayOf(3), reopened.getPayload(EntityType.USER, "a"))
+        assertNull(reopened.getPayload(EntityType.USER, "b"))
+    }
+
+    @Test
+    fun `should keep only live records after compaction`() {
+        val store = BinarySegmentStore(directory, SEGMENT_SIZE)
+        store.load()
+
+        repeat(50) { round ->
+            store.append((0 until 100).map { BinaryRecord.of(EntityType.GUILD, "guild-$it", byteArrayOf(round.toByte())) })
+        }
+
+        store.compact()
+
+        val reopened = BinarySegmentStore(directory, SEGMENT_SIZE)
+        assertEquals(100, reopened.load().size)
+        assertEquals(1, directory.list()!!.size)
+        assertArrayEquals(byteArrayOf(49), reopened.getPayload(EntityType.GUILD, "guild-7"))
+    }
+
+    @Test
+    fun `should ignore incomplete record at the end of the last segment`() {
+        val store = BinarySegmentStore(directory, SEGMENT_SIZE)
+        store.load()
+        store.append(listOf(BinaryRecord.of(EntityType.REGION, "region", byteArrayOf(1, 2, 3))))
+
+        val segment = directory.listFiles()!!.single()
+        RandomAccessFile(segment, "rw").use {
+            it.seek(it.length())
+            it.write(byteArrayOf(0, 0, 0, 50, 1, 2))
+        }
+
+        val reopened = BinarySegmentStore(directory, SEGMENT_SIZE)
+        assertEquals(1, reopened.load().size)
+
+        reopened.append(listOf(BinaryRecord.of(EntityType.REGION, "other", byteArrayOf(4))))
+        assertEquals(2, BinarySegmentStore(directory, SEGMENT_SIZE).load().size)
+    }
+
+    @Test
+    fun `should not append records after torn write of the same store`() {
+        val store = BinarySegmentStore(directory, SEGMENT_SIZE)
+        store.load()
+        store.append(listOf(BinaryRecord.of(EntityType.USER, "a", byteArrayOf(1))))
+
+        // Record torn by the failed write, the store keeps running
+        val segment = directory.listFiles()!!.single()
+        RandomAccessFile(segment, "rw").use {
+            it.seek(it.length())
+            it.write(byteArrayOf(0, 0, 0, 50, 1, 2))
+        }
+
+        store.append(listOf(BinaryRecord.of(EntityType.USER, "b", byteArrayOf(2))))
+
+        val reopened = BinarySegmentStore(directory, SEGMENT_SIZE)
+        assertEquals(2, reopened.load().size)
+        assertArrayEquals(byteArrayOf(2), reopened.getPayload(EntityType.USER, "b"))
+    }
+
+    @Test
+    fun `should expose tombstones of records deleted without later record`() {
+        val store = BinarySegmentStore(directory, SEGMENT_SIZE)
+        store.load()
+
+        store.append(listOf(BinaryRecord.tombstone(EntityType.GUILD, "a"), BinaryRecord.tombstone(EntityType.GUILD, "b")))
+        store.append(listOf(BinaryRecord.of(EntityType.GUILD, "b", byteArrayOf(1))))
+
+        val reopened = BinarySegmentStore(directory, SEGMENT_SIZE)
+        reopened.load()
+
+        assertEquals(listOf("a"), reopened.getTombstones().map { it.key })
+    }
+
+    @Test
+    fun `should remove directory of deleted store`() {
+        val store = BinarySegmentStore(directory, SEGMENT_SIZE)
+        store.load()
+        store.append(listOf(BinaryRecord.of(EntityType.USER, "a", byteArrayOf(1))))
+
+        store.delete()
+
+        assertFalse(directory.exists())
+    }
+
+    private companion object {
+        const val SEGMENT_SIZE = 16L * 1024
+    }
+
+}
@@ -0,0 +1,147 @@
+package net.dzikoysk.funnyguilds.data.binary.serializer
+
+import net.dzikoysk.funnyguilds.FunnyGuildsSpec
+import net.dzikoysk.funnyguilds.guild.Guild
+import net.dzikoysk.funnyguilds.guild.Region
+import net.dzikoysk.funnyguilds.shared.bukkit.FunnyServer
+import net.dzikoysk.funnyguilds.user.UserBan
+import org.bukkit.Location
+import org.bukkit.inventory.ItemStack
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.mockito.ArgumentMatchers.any
+import org.mockito.Mockito.lenient
+import org.mockito.Mockito.mock
+import panda.std.Option
+import java.time.Instant
+import java.util.*
+
+class BinarySerializerTest : FunnyGuildsSpec() {
+
+    private val funnyServer = mock(FunnyServer::class.java)
+
+    @BeforeEach
+    fun prepareServer() {
+        lenient().`when`(funnyServer.getPlayer(any(UUID::class.java))).thenReturn(Option.none())
+        lenient().`when`(funnyGuilds.funnyServer).thenReturn(funnyServer)
+        config.enlargeItems = Collections.nCopies(3, mock(ItemStack::class.java))
+    }
+
+    @Test
+    fun `should restore user with rank and ban`() {
+        val user = userManager.createFake(UUID.randomUUID(), "player")
+        user.rank.points = 1250
+        user.rank.kills = 12
+        user.rank.deaths = 7
+        user.rank.assists = 3
+        user.rank.logouts = 1
+        user.setBan(UserBan("cheating", Instant.ofEpochMilli(4_102_444_800_000)))
+
+        val payload = BinaryUserSerializer.serialize(user)
+        userManager.removeUser(user)
+
+        val restored = BinaryUserSerializer.deserialize(payload).get()
+
+        assertNotSame(user, restored)
+        assertEquals(user.getUUID(), restored.getUUID())
+        assertEquals("player", restored.name)
+        assertEquals(listOf(1250, 12, 7, 3, 1), restored.rank.let { listOf(it.points, it.kills, it.deaths, it.assists, it.logouts) })
+        assertEquals("cheating", restored.ban.get().reason)
+        assertEquals(Instant.ofEpochMilli(4_102_444_800_000), restored.ban.get().time)
+        assertFalse(restored.wasChanged())
+    }
+
+    @Test
+    fun `should restore region with enlargement`() {
+        val region = Region("region", Location(world, 100.0, 64.0, -200.0))
+        funnyGuilds.regionManager.changeRegionEnlargement(region, 2)
+
+        val payload = BinaryRegionSerializer.serialize(region)
+        funnyGuilds.regionManager.removeRegion(region)
+
+        val restored = BinaryRegionSerializer.deserialize(payload).get()
+
+        assertNotSame(region, restored)
+        assertEquals("region", restored.name)
+        assertEquals(region.center, restored.center)
+        assertEquals(2, restored.enlargementLevel)
+        assertEquals(config.regionSize + 2 * config.enlargeSize, restored.size)
+        assertSame(restored, funnyGuilds.regionManager.findByName("region").get())
+    }
+
+    @Test
+    fun `should move existing region to replayed center`() {
+        val region = Region("region", Location(world, 100.0, 64.0, -200.0))
+        funnyGuilds.regionManager.changeRegionEnlargement(region, 0)
+        region.markUnchanged()
+
+        val payload = BinaryRegionSerializer.serialize(Region("region", Location(world, 500.0, 64.0, 500.0)))
+        val replayed = BinaryRegionSerializer.deserialize(payload).get()
+
+        assertSame(region, replayed)
+        assertEquals(Location(world, 500.0, 64.0, 500.0), region.center)
+        assertSame(region, funnyGuilds.regionManager.findRegionAtLocation(Location(world, 500.0, 64.0, 500.0)).get())
+        assertTrue(funnyGuilds.regionManager.findRegionAtLocation(Location(world, 100.0, 64.0, -200.0)).isEmpty)
+        assertFalse(region.wasChanged())
+    }
+
+    @Test
+    fun `should restore guild with members, relations and ban`() {
+        val owner = userManager.createFake(UUID.randomUUID(), "owner")
+        val member = userManager.createFake(UUID.randomUUID(), "member")
+        val deputy = userManager.createFake(UUID.randomUUID(), "deputy")
+
+        val region = Region("guild", Location(world, 0.0, 64.0, 0.0))
+        funnyGuilds.regionManager.addRegion(region)
+
+        val ally = guildManager.addGuild(Guild("ally", "ALY"))
+        val enemy = guildManager.addGuild(Guild("enemy", "NMY"))
+
+        val guild = guildManager.addGuild(Guild("guild", "GLD"))
+        guild.owner = owner
+        guild.addMember(member)
+        guild.addMember(deputy)
+        guild.addDeputy(deputy)
+        guild.setRegion(region)
+        guild.setHome(Location(world, 10.0, 70.0, 20.0))
+        guild.addAlly(ally)
+        guild.addEnemy(enemy)
+        guild.born = Instant.ofEpochMilli(1_600_000_000_000)
+        guild.validity = Instant.ofEpochMilli(4_000_000_000_000)
+        guild.protection = Instant.ofEpochMilli(1_700_000_000_000)
+        guild.lives = 2
+        guild.setBan(Instant.ofEpochMilli(4_102_444_800_000))
+        guild.setPvP(true)
+
+        val payload = BinaryGuildSerializer.serialize(guild)
+        guildManager.removeGuild(guild)
+
+        val restored = BinaryGuildSerializer.deserialize(payload).get()
+        BinaryGuildSerializer.deserializeRelations(restored, payload)
+
+        assertNotSame(guild, restored)
+        assertEquals(guild.getUUID(), restored.getUUID())
+        assertEquals("guild", restored.name)
+        assertEquals("GLD", restored.tag)
+        assertSame(owner, restored.owner)
+        assertEquals(setOf(owner, member, deputy), restored.members)
+        assertEquals(setOf(deputy), restored.deputies)
+        assertSame(region, restored.region.get())
+        assertEquals(guild.home.get(), restored.home.get())
+        assertEquals(setOf(ally), restored.allies)
+        assertEquals(setOf(enemy), restored.enemies)
+        assertEquals(guild.born, restored.born)
+        assertEquals(guild.validity, restored.validity)
+        assertEquals(guild.protection, restored.protection)
+        assertEquals(2, restored.lives)
+        assertEquals(guild.ban.get(), restored.ban.get())
+        assertTrue(restored.hasPvPEnabled())
+        assertSame(restored, owner.guild.get())
+    }
+
+}
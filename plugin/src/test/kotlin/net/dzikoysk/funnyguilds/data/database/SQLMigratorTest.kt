@@ -0,0 +1,85 @@
+package net.dzikoysk.funnyguilds.data.database
+
+import net.dzikoysk.funnyguilds.FunnyGuildsSpec
+import net.dzikoysk.funnyguilds.data.database.element.SQLBasicUtils
+import net.dzikoysk.funnyguilds.data.database.element.SQLDialect
+import net.dzikoysk.funnyguilds.data.database.element.SQLTable
+import net.dzikoysk.funnyguilds.data.database.element.SQLType
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+
+class SQLMigratorTest : FunnyGuildsSpec() {
+
+    @TempDir
+    lateinit var directory: File
+
+    private lateinit var database: Database
+
+    @BeforeEach
+    fun prepareDatabase() {
+        database = Database.sqlite(File(directory, "funnyguilds.db"), 5000)
+    }
+
+    @AfterEach
+    fun shutdownDatabase() {
+        database.shutdown()
+    }
+
+    @Test
+    fun `should execute only pending migrations in order`() {
+        val executed = mutableListOf<Int>()
+
+        val migrator = { versions: IntRange ->
+            versions.fold(SQLMigrator(database, "schema")) { migrator, version ->
+                migrator.migration(version, "migration $version") { executed.add(version) }
+            }
+        }
+
+        assertEquals(2, migrator(1..2).migrate())
+        assertEquals(2, migrator(1..2).migrate())
+        assertEquals(3, migrator(1..3).migrate())
+        assertEquals(listOf(1, 2, 3), executed)
+    }
+
+    @Test
+    fun `should add missing columns and indexes to existing table`() {
+        database.connection.use { connection ->
+            connection.createStatement().use { it.executeUpdate("CREATE TABLE `users` (`uuid` varchar(36) NOT NULL, PRIMARY KEY (uuid))") }
+        }
+
+        val table = SQLTable("users", SQLDialect.SQLITE)
+        table.add("uuid", SQLType.VARCHAR, 36, true)
+        table.add("name", SQLType.TEXT)
+        table.setPrimaryKey("uuid")
+
+        val migrator = SQLMigrator(database, "schema").migration(1, "create tables and indexes") {
+            SQLMigrator.createTable(it, table)
+            SQLMigrator.createIndex(it, table, "name")
+            SQLMigrator.createIndex(it, table, "name")
+        }
+
+        assertEquals(1, migrator.migrate())
+
+        database.connection.use { connection ->
+            connection.createStatement().use { statement ->
+                statement.executeQuery("SELECT `name` FROM `users`").close()
+
+                statement.executeQuery("PRAGMA index_list(`users`)").use {
+                    val indexes = mutableListOf<String>()
+
+                    while (it.next()) {
+                        indexes.add(it.getString("name"))
+                    }
+
+                    assertTrue(indexes.contains(SQLBasicUtils.getIndexName(table, "name")))
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+package net.dzikoysk.funnyguilds.data.database
+
+import net.dzikoysk.funnyguilds.FunnyGuildsSpec
+import net.dzikoysk.funnyguilds.data.database.element.SQLBasicUtils
+import net.dzikoysk.funnyguilds.data.database.element.SQLDialect
+import net.dzikoysk.funnyguilds.data.database.element.SQLNamedStatement
+import net.dzikoysk.funnyguilds.data.database.element.SQLRow
+import net.dzikoysk.funnyguilds.data.database.element.SQLTable
+import net.dzikoysk.funnyguilds.data.database.element.SQLType
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.mockito.Mockito.lenient
+import java.io.File
+
+class SQLiteDatabaseTest : FunnyGuildsSpec() {
+
+    @TempDir
+    lateinit var directory: File
+
+    private lateinit var database: Database
+    private val table = SQLTable("users", SQLDialect.SQLITE)
+
+    @BeforeEach
+    fun prepareDatabase() {
+        database = Database.sqlite(File(directory, "funnyguilds.db"), 5000)
+        lenient().`when`(funnyGuilds.database).thenReturn(database)
+
+        table.add("uuid", SQLType.VARCHAR, 36, true)
+        table.add("name", SQLType.TEXT, true)
+        table.add("points", SQLType.INT, true)
+        table.setPrimaryKey("uuid")
+
+        SQLBasicUtils.getCreate(table).executeUpdate()
+    }
+
+    @AfterEach
+    fun shutdownDatabase() {
+        database.shutdown()
+    }
+
+    @Test
+    fun `should use write-ahead log`() {
+        database.connection.use { connection ->
+            connection.createStatement().use { statement ->
+                statement.executeQuery("PRAGMA journal_mode").use {
+                    it.next()
+                    assertEquals("wal", it.getString(1).lowercase())
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `should upsert rows in batches`() {
+        val rows = (0 until 10).map { Row("uuid-$it", "user-$it", it) }
+        SQLBasicUtils.getInsert(table).executeBatch(rows, ::bind, {}, 4)
+
+        val changedRows = rows.take(3).map { it.copy(points = 1000) }
+        val result = SQLBasicUtils.getInsert(table).executeBatch(changedRows, ::bind, {}, 4)
+
+        assertEquals(3, result.rows)
+        assertEquals(0, result.failedRows)
+
+        val points = selectPoints()
+        assertEquals(10, points.size)
+        assertEquals(1000, points["uuid-1"])
+        assertEquals(5, points["uuid-5"])
+    }
+
+    @Test
+    fun `should update only given columns`() {
+        SQLBasicUtils.getInsert(table).executeBatch(listOf(Row("uuid", "user", 1)), ::bind, {}, 10)
+
+        val statement = SQLBasicUtils.getUpdate(table, table.getSQLElement("points").get())
+        statement.set("points", 25)
+        statement.set("uuid", "uuid")
+        statement.executeUpdate()
+
+        assertEquals(25, selectPoints()["uuid"])
+    }
+
+    @Test
+    fun `should stream rows which can be read after the cursor moves on`() {
+        SQLBasicUtils.getInsert(table).executeBatch((1..25).map { Row("uuid-$it", "user-$it", it) }, ::bind, {}, 10)
+
+        val rows = mutableListOf<SQLRow>()
+
+        SQLBasicUtils.getSelectAll(table).executeStreamingQuery(4) {
+            val columns = SQLRow.columns(it)
+
+            while (it.next()) {
+                rows.add(SQLRow.of(columns, it))
+            }
+        }
+
+        assertEquals(25, rows.size)
+        assertEquals(325, rows.sumOf { it.getInt("points") })
+        assertEquals("user-7", rows.single { it.getString("UUID") == "uuid-7" }.getString("name"))
+    }
+
+    @Test
+    fun `should select rows with one of given values`() {
+        SQLBasicUtils.getInsert(table).executeBatch((1..5).map { Row("uuid-$it", "user-$it", it) }, ::bind, {}, 10)
+
+        val statement = SQLBasicUtils.getSelectIn(table, "uuid", 3)
+        statement.set(1, "uuid-2")
+        statement.set(2, "uuid-4")
+        statement.set(3, "missing")
+
+        val names = mutableSetOf<String>()
+        statement.executeQuery {
+            while (it.next()) {
+                names.add(it.getString("name"))
+            }
+        }
+
+        assertEquals(setOf("user-2", "user-4"), names)
+    }
+
+    private fun selectPoints(): Map<String, Int> {
+        val points = mutableMapOf<String, Int>()
+
+        SQLBasicUtils.getSelectAll(table).executeQuery {
+            while (it.next()) {
+                points[it.getString("uuid")] = it.getInt("points")
+            }
+        }
+
+        return points
+    }
+
+    private fun bind(statement: SQLNamedStatement, row: Row) {
+        statement.set("uuid", row.uuid)
+        statement.set("name", row.name)
+        statement.set("points", row.points)
+    }
+
+    private data class Row(val uuid: String, val name: String, val points: Int)
+
+}
@@ -0,0 +1,94 @@
+package net.dzikoysk.funnyguilds.data.flat
+
+import net.dzikoysk.funnyguilds.FunnyGuildsSpec
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.TimeUnit
+
+class FlatSaveEngineTest : FunnyGuildsSpec() {
+
+    @TempDir
+    lateinit var directory: File
+
+    @Test
+    fun `should skip files with unchanged content`() {
+        val engine = FlatSaveEngine()
+        val file = File(directory, "users/user.yml")
+        var commits = 0
+
+        engine.newSaveCycle().use { cycle ->
+            val wrapper = cycle.read(file)
+            wrapper.set("points", 1000)
+            cycle.write(file, wrapper) { commits++ }
+        }
+
+        val cycle = engine.newSaveCycle()
+        cycle.use {
+            val wrapper = it.read(file)
+            wrapper.set("points", 1000)
+            it.write(file, wrapper) { commits++ }
+        }
+
+        assertEquals(2, commits)
+        assertEquals(0, cycle.written)
+        assertEquals(1, cycle.skipped)
+        assertEquals(1000, engine.read(file).getInt("points"))
+    }
+
+    @Test
+    fun `should replace files only when cycle is closed`() {
+        val engine = FlatSaveEngine()
+        val file = File(directory, "guild.yml")
+
+        val cycle = engine.newSaveCycle()
+        val wrapper = cycle.read(file)
+        wrapper.set("name", "guild")
+        cycle.write(file, wrapper) {}
+
+        assertFalse(file.exists())
+
+        cycle.close()
+
+        assertEquals(1, cycle.written)
+        assertEquals("guild", engine.read(file).getString("name"))
+        assertEquals(listOf("guild.yml"), directory.list()!!.toList())
+    }
+
+    @Test
+    fun `should not share temporary files between concurrent cycles`() {
+        val engine = FlatSaveEngine()
+        val file = File(directory, "guild.yml")
+        val barrier = CyclicBarrier(2)
+
+        val saves = (1..2).map { saver ->
+            CompletableFuture.supplyAsync {
+                barrier.await(5, TimeUnit.SECONDS)
+                var failed = 0
+
+                repeat(100) { round ->
+                    val cycle = engine.newSaveCycle()
+                    cycle.use {
+                        val wrapper = it.read(file)
+                        wrapper.set("saver", saver)
+                        wrapper.set("round", round)
+                        it.write(file, wrapper) {}
+                    }
+                    failed += cycle.failed
+                }
+
+                failed
+            }
+        }
+
+        assertEquals(listOf(0, 0), saves.map { it.get(30, TimeUnit.SECONDS) })
+        assertTrue(engine.read(file).getInt("saver") in 1..2)
+        assertEquals(listOf("guild.yml"), directory.list()!!.toList())
+    }
+
+}
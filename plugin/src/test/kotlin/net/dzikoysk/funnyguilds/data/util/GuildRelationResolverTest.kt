@@ -0,0 +1,65 @@
+package net.dzikoysk.funnyguilds.data.util
+
+import net.dzikoysk.funnyguilds.FunnyGuildsSpec
+import net.dzikoysk.funnyguilds.guild.Guild
+import org.junit.jupiter.api.Test
+import java.util.UUID
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class GuildRelationResolverTest : FunnyGuildsSpec() {
+
+    @Test
+    fun `should resolve relations with guilds collected later`() {
+        val first = guildManager.addGuild(Guild("first", "FST"))
+        val second = guildManager.addGuild(Guild("second", "SND"))
+        val third = guildManager.addGuild(Guild("third", "TRD"))
+        listOf(first, second, third).forEach { it.markUnchanged() }
+
+        val resolver = GuildRelationResolver()
+        resolver.collect(first, listOf("second"), listOf("third", "missing"))
+        resolver.collect(second, listOf("first"), null)
+        resolver.collect(third, null, null)
+
+        assertEquals(0, resolver.resolve(guildManager, userManager))
+        assertEquals(setOf(second), first.allies)
+        assertEquals(setOf(third), first.enemies)
+        assertEquals(setOf(first), second.allies)
+        assertFalse(first.wasChanged())
+    }
+
+    @Test
+    fun `should make alliances mutual`() {
+        val first = guildManager.addGuild(Guild("first", "FST"))
+        val second = guildManager.addGuild(Guild("second", "SND"))
+        listOf(first, second).forEach { it.markUnchanged() }
+
+        val resolver = GuildRelationResolver()
+        resolver.collect(first, listOf("second"), null)
+        resolver.collect(second, null, null)
+
+        assertEquals(1, resolver.resolve(guildManager, userManager))
+        assertEquals(setOf(first), second.allies)
+        assertTrue(second.wasChanged())
+    }
+
+    @Test
+    fun `should resolve members and deputies by names`() {
+        val owner = userManager.createFake(UUID.randomUUID(), "owner")
+        val member = userManager.createFake(UUID.randomUUID(), "member")
+        val guild = guildManager.addGuild(Guild("guild", "GLD"))
+        guild.owner = owner
+        guild.markUnchanged()
+
+        val resolver = GuildRelationResolver()
+        resolver.collect(guild, listOf("owner", "member", "missing"), listOf("member"), null, null)
+
+        assertEquals(0, resolver.resolve(guildManager, userManager))
+        assertEquals(setOf(owner, member), guild.members)
+        assertEquals(setOf(member), guild.deputies)
+        assertEquals(guild, member.getGuild().orNull())
+        assertFalse(guild.wasChanged())
+    }
+
+}
@@ -5,6 +5,9 @@ import net.dzikoysk.funnyguilds.data.MutableEntity
 import net.dzikoysk.funnyguilds.user.User
 import nl.jqno.equalsverifier.EqualsVerifier
 import org.bukkit.Location
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
 import java.util.*
 
@@ -29,8 +32,29 @@ class GuildTest : FunnyGuildsSpec() {
                 .withPrefabValues(Location::class.java, Location(null, 0.0, 0.0, 0.0), Location(null, 1.0, 2.0, 3.0))
                 .withIgnoredFields("name", "tag", "rank", "lives", "region", "home", "owner")
                 .withIgnoredFields("members", "deputies", "allies", "enemies", "alliedPvPGuilds")
-                .withIgnoredFields("born", "validity", "protection", "build", "ban", "pvp", "wasChanged")
+                .withIgnoredFields("born", "validity", "protection", "build", "ban", "pvp", "membersRevision", "changedFields", "changeListener")
                 .verify()
     }
 
+    @Test
+    fun `guild should track changed fields`() {
+        val guild = Guild("guild", "TEST")
+        assertEquals(MutableEntity.ALL_FIELDS, guild.changedFields)
+
+        guild.markUnchanged()
+        guild.setTag("TSET")
+        guild.setPvP(true)
+
+        val fields = guild.changedFields
+        assertTrue(MutableEntity.isChanged(fields, Guild.Field.TAG))
+        assertTrue(MutableEntity.isChanged(fields, Guild.Field.PVP))
+        assertFalse(MutableEntity.isChanged(fields, Guild.Field.MEMBERS))
+
+        // Field changed during the save stays marked
+        guild.setLives(3)
+        guild.markUnchanged(fields)
+
+        assertEquals(MutableEntity.mask(Guild.Field.LIVES), guild.changedFields)
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package net.dzikoysk.funnyguilds.guild
+
+import org.bukkit.Location
+import org.bukkit.World
+import org.junit.jupiter.api.Disabled
+import org.junit.jupiter.api.Test
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.`when`
+import java.util.*
+
+/**
+ * Compares layouts of [RegionIndex] - number of stored entries, time of building the index, lookups and enlargements.
+ * Run manually, results depend on the machine.
+ */
+@Disabled("Benchmark, run manually")
+class RegionIndexBenchmark {
+
+    private val world = mock(World::class.java).also { `when`(it.maxHeight).thenReturn(256) }
+
+    @Test
+    fun `compare region index layouts`() {
+        for (size in listOf(50, 250, 500)) {
+            val regions = createRegions(2_000, size)
+
+            for (type in RegionIndex.Type.values()) {
+                benchmark(type, regions, size)
+            }
+        }
+    }
+
+    private fun benchmark(type: RegionIndex.Type, regions: List<Region>, size: Int) {
+        val random = Random(7)
+        val index = type.createIndex()
+
+        val buildTime = measure { regions.forEach { index.add(it) } }
+
+        var hits = 0
+        val lookupTime = measure {
+            repeat(LOOKUPS) {
+                if (index.getRegionAt(world, random.nextInt(AREA) - AREA / 2, 64, random.nextInt(AREA) - AREA / 2) != null) {
+                    hits++
+                }
+            }
+        }
+
+        // Enlargement removes the region from the index and adds it back with new bounds
+        val enlargeTime = measure {
+            regions.take(200).forEach {
+                index.remove(it)
+                index.add(it)
+            }
+        }
+
+        println(
+            "%-12s size=%-4d entries=%-9d build=%6d ms  lookups=%6d ms (%d hits)  enlargements=%6d ms".format(
+                type, size, index.countEntries(), buildTime, lookupTime, hits, enlargeTime
+            )
+        )
+    }
+
+    private fun createRegions(count: Int, size: Int): List<Region> {
+        val random = Random(42)
+
+        return (0 until count).map {
+            val center = Location(world, (random.nextInt(AREA) - AREA / 2).toDouble(), 64.0, (random.nextInt(AREA) - AREA / 2).toDouble())
+            Region(Guild("guild-$it", "G$it"), center, size)
+        }
+    }
+
+    private fun measure(block: () -> Unit): Long {
+        val start = System.nanoTime()
+        block()
+        return (System.nanoTime() - start) / 1_000_000
+    }
+
+    private companion object {
+        const val AREA = 200_000
+        const val LOOKUPS = 5_000_000
+    }
+
+}
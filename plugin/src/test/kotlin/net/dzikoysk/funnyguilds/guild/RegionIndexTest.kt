@@ -0,0 +1,66 @@
+package net.dzikoysk.funnyguilds.guild
+
+import org.bukkit.Location
+import org.bukkit.World
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.`when`
+import java.util.*
+
+class RegionIndexTest {
+
+    private val world = mock(World::class.java).also { `when`(it.maxHeight).thenReturn(256) }
+
+    @Test
+    fun `hierarchical index should find the same regions as chunk index`() {
+        val random = Random(42)
+        val chunkIndex = ChunkRegionIndex()
+        val hierarchicalIndex = HierarchicalRegionIndex()
+        val regions = (0 until 500).map {
+            region("region-$it", random.nextInt(20_000) - 10_000, random.nextInt(20_000) - 10_000, 1 + random.nextInt(300))
+        }
+
+        regions.forEach { chunkIndex.add(it); hierarchicalIndex.add(it) }
+        regions.filterIndexed { index, _ -> index % 3 == 0 }.forEach { chunkIndex.remove(it); hierarchicalIndex.remove(it) }
+
+        repeat(20_000) {
+            val x = random.nextInt(20_000) - 10_000
+            val z = random.nextInt(20_000) - 10_000
+
+            assertSame(chunkIndex.getRegionAt(world, x, 64, z), hierarchicalIndex.getRegionAt(world, x, 64, z))
+            assertEquals(chunkIndex.getRegionsInChunk(x shr 4, z shr 4).toSet(), hierarchicalIndex.getRegionsInChunk(x shr 4, z shr 4).toSet())
+        }
+    }
+
+    @Test
+    fun `hierarchical index should store every region once`() {
+        val index = HierarchicalRegionIndex()
+        val region = region("big", 0, 0, 500)
+
+        index.add(region)
+
+        assertEquals(1, index.countEntries())
+        assertSame(region, index.getRegionAt(world, 499, 64, -499))
+        assertNull(index.getRegionAt(world, 500, 64, 0))
+    }
+
+    @Test
+    fun `hierarchical index should return stored cell for chunk of a single region`() {
+        val index = HierarchicalRegionIndex()
+        val region = region("single", 100, 100, 20)
+
+        index.add(region)
+
+        assertSame(index.getRegionsInChunk(6, 6), index.getRegionsInChunk(6, 6))
+        assertEquals(listOf(region), index.getRegionsInChunk(6, 6).toList())
+        assertEquals(0, index.getRegionsInChunk(100, 100).size)
+    }
+
+    private fun region(name: String, x: Int, z: Int, size: Int): Region {
+        return Region(Guild(name, name), Location(world, x.toDouble(), 64.0, z.toDouble()), size)
+    }
+
+}
@@ -0,0 +1,60 @@
+package net.dzikoysk.funnyguilds.guild
+
+import net.dzikoysk.funnyguilds.FunnyGuildsSpec
+import org.bukkit.Location
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.*
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class RegionManagerTest : FunnyGuildsSpec() {
+
+    private lateinit var regionManager: RegionManager
+
+    @BeforeEach
+    fun prepareRegionManager() {
+        config.regionsEnabled = true
+        regionManager = funnyGuilds.regionManager
+    }
+
+    @Test
+    fun `should update occupants of players standing still when regions change`() {
+        val player = UUID.randomUUID()
+        val tracker = RegionTracker(player)
+        regionManager.updateTracker(tracker, world, 10, 64, 10)
+
+        val region = Region(Guild("guild", "GLD"), Location(world, 0.0, 64.0, 0.0), 50)
+        regionManager.addRegion(region)
+
+        assertEquals(setOf(player), regionManager.getOccupants(region))
+        assertEquals(region, tracker.region)
+
+        regionManager.moveRegionCenter(region, Location(world, 1000.0, 64.0, 1000.0))
+
+        assertTrue(regionManager.getOccupants(region).isEmpty())
+        assertEquals(null, tracker.region)
+
+        regionManager.untrack(tracker)
+        regionManager.moveRegionCenter(region, Location(world, 0.0, 64.0, 0.0))
+
+        assertTrue(regionManager.getOccupants(region).isEmpty())
+    }
+
+    @Test
+    fun `should ignore given users in region`() {
+        val member = userManager.createFake(UUID.randomUUID(), "member")
+        val stranger = userManager.createFake(UUID.randomUUID(), "stranger")
+        val region = Region(Guild("guild", "GLD"), Location(world, 0.0, 64.0, 0.0), 50)
+        regionManager.addRegion(region)
+
+        regionManager.updateTracker(RegionTracker(member.getUUID()), world, 0, 64, 0)
+        assertFalse(regionManager.isAnyUserInRegion(region, listOf(member)))
+
+        regionManager.updateTracker(RegionTracker(stranger.getUUID()), world, 5, 64, 5)
+        assertTrue(regionManager.isAnyUserInRegion(region, listOf(member)))
+        assertFalse(regionManager.isAnyUserInRegion(region, listOf(member, stranger)))
+    }
+
+}
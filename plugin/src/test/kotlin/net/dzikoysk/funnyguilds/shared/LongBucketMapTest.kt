@@ -0,0 +1,54 @@
+package net.dzikoysk.funnyguilds.shared
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+class LongBucketMapTest {
+
+    @Test
+    fun `should store multiple values under the same key`() {
+        val map = LongBucketMap(arrayOf<String>())
+        map.add(1L, "a")
+        map.add(1L, "b")
+        map.add(1L, "a")
+
+        assertArrayEquals(arrayOf("a", "b"), map.get(1L))
+        assertEquals(0, map.get(2L).size)
+    }
+
+    @Test
+    fun `should remove values and keep other keys reachable after rehash`() {
+        val map = LongBucketMap(arrayOf<String>())
+
+        for (key in 0L until 1000L) {
+            map.add(key, "value-$key")
+        }
+
+        for (key in 0L until 1000L step 2) {
+            map.remove(key, "value-$key")
+        }
+
+        map.add(5000L, "extra")
+
+        for (key in 0L until 1000L) {
+            val expected = if (key % 2 == 0L) arrayOf() else arrayOf("value-$key")
+            assertArrayEquals(expected, map.get(key))
+        }
+
+        assertArrayEquals(arrayOf("extra"), map.get(5000L))
+    }
+
+    @Test
+    fun `should visit every stored value`() {
+        val map = LongBucketMap(arrayOf<String>())
+        map.add(-1L, "a")
+        map.add(Long.MAX_VALUE, "b")
+
+        val visited = mutableListOf<String>()
+        map.forEachValue { visited.add(it) }
+
+        assertEquals(setOf("a", "b"), visited.toSet())
+    }
+
+}
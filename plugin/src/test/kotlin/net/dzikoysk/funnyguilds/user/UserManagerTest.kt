@@ -0,0 +1,156 @@
+package net.dzikoysk.funnyguilds.user
+
+import net.dzikoysk.funnyguilds.FunnyGuildsSpec
+import net.dzikoysk.funnyguilds.data.MutableEntity
+import net.dzikoysk.funnyguilds.guild.Guild
+import org.junit.jupiter.api.Test
+import panda.std.Option
+import java.util.*
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class UserManagerTest : FunnyGuildsSpec() {
+
+    @Test
+    fun `should load only indexed users on demand`() {
+        val uuid = UUID.randomUUID()
+        var loads = 0
+
+        userManager.setUserLoader {
+            loads++
+            Option.of(userManager.createFake(it, "offline"))
+        }
+        userManager.indexUser(UserRank.unloaded(uuid, "offline", 1500, 10, 5, 0, 0))
+
+        assertEquals(1, userManager.countUsers())
+        assertTrue(userManager.findLoadedByUuid(uuid).isEmpty)
+        assertTrue(userManager.findByUuid(UUID.randomUUID()).isEmpty)
+        assertTrue(userManager.findByName("OFFLINE").isEmpty)
+        assertEquals(0, loads)
+
+        assertEquals(uuid, userManager.findByName("OFFLINE", true).get().getUUID())
+        assertEquals(uuid, userManager.findByUuid(uuid).get().getUUID())
+        assertEquals(1, loads)
+        assertTrue(userManager.ranks.single().isLoaded)
+    }
+
+    @Test
+    fun `should share pending load of the same user and not block loads of other users`() {
+        val first = UUID.randomUUID()
+        val second = UUID.randomUUID()
+        val loads = AtomicInteger()
+        val loading = CountDownLatch(1)
+        val release = CountDownLatch(1)
+
+        userManager.setUserLoader {
+            loads.incrementAndGet()
+
+            if (it == first) {
+                loading.countDown()
+                release.await(5, TimeUnit.SECONDS)
+            }
+
+            Option.of(userManager.createFake(it, if (it == first) "first" else "second"))
+        }
+        userManager.indexUser(UserRank.unloaded(first, "first", 1000, 0, 0, 0, 0))
+        userManager.indexUser(UserRank.unloaded(second, "second", 1000, 0, 0, 0, 0))
+
+        val firstLoad = CompletableFuture.supplyAsync { userManager.findByUuid(first).get() }
+        assertTrue(loading.await(5, TimeUnit.SECONDS))
+        val sharedLoad = CompletableFuture.supplyAsync { userManager.findByUuid(first).get() }
+
+        assertEquals(second, userManager.findByUuid(second).get().getUUID())
+
+        release.countDown()
+        assertEquals(firstLoad.get(5, TimeUnit.SECONDS), sharedLoad.get(5, TimeUnit.SECONDS))
+        assertEquals(2, loads.get())
+    }
+
+    @Test
+    fun `should check if user played before without loading`() {
+        var loads = 0
+
+        userManager.setUserLoader {
+            loads++
+            Option.none()
+        }
+        userManager.indexUser(UserRank.unloaded(UUID.randomUUID(), "offline", 1000, 0, 0, 0, 0))
+
+        assertTrue(userManager.playedBefore("OFFLINE", true))
+        assertFalse(userManager.playedBefore("OFFLINE"))
+        assertFalse(userManager.playedBefore("missing", true))
+        assertEquals(0, loads)
+    }
+
+    @Test
+    fun `should evict least recently used offline users without guild and references`() {
+        userManager.setUserLoader { Option.none() }
+
+        val users = (1..3).map {
+            Thread.sleep(5)
+            userManager.createFake(UUID.randomUUID(), "user$it").also { user -> user.markUnchanged() }
+        }
+
+        val member = userManager.createFake(UUID.randomUUID(), "member")
+        member.setGuild(Guild("guild", "TAG"))
+        member.markUnchanged()
+
+        val changed = userManager.createFake(UUID.randomUUID(), "changed")
+        changed.rank.points = 2000
+
+        Thread.sleep(5)
+        userManager.findByUuid(users[0].getUUID())
+
+        assertEquals(1, userManager.evictOfflineUsers(setOf(users[2].getUUID()), 1, 0))
+        assertEquals(setOf(users[0], users[2], member, changed), userManager.users)
+        assertEquals(5, userManager.countUsers())
+
+        val evictedRank = userManager.ranks.single { it.identityName == "user2" }
+        assertFalse(evictedRank.isLoaded)
+        assertEquals(users[1].rank.points, evictedRank.points)
+        assertEquals(users[1].getUUID(), userManager.findUuidByName("user2").get())
+    }
+
+    @Test
+    fun `should load users which are not loaded by the executor`() {
+        val uuid = UUID.randomUUID()
+        val tasks = mutableListOf<Runnable>()
+        val executor = Executor { tasks.add(it) }
+
+        userManager.setUserLoader { Option.of(userManager.createFake(it, "offline")) }
+        userManager.indexUser(UserRank.unloaded(uuid, "offline", 1500, 10, 5, 0, 0))
+        val online = userManager.createFake(UUID.randomUUID(), "online")
+
+        assertEquals(online, userManager.findByNameAsync("online", false, executor).getNow(null).get())
+        assertTrue(userManager.findByNameAsync("missing", true, executor).getNow(null).isEmpty)
+
+        val offline = userManager.findByNameAsync("OFFLINE", true, executor)
+        assertFalse(offline.isDone)
+        assertEquals(1, tasks.size)
+
+        tasks.single().run()
+        assertEquals(uuid, offline.getNow(null).get().getUUID())
+        assertTrue(userManager.findLoadedByUuid(uuid).isPresent)
+    }
+
+    @Test
+    fun `should notify change listener only about changes of stored users`() {
+        val changed = mutableListOf<MutableEntity>()
+        val user = userManager.createFake(UUID.randomUUID(), "player")
+        user.markUnchanged()
+
+        userManager.setChangeListener { changed.add(it) }
+        user.rank.points = 1100
+        userManager.removeUser(user)
+        user.rank.points = 1200
+
+        assertEquals(listOf<MutableEntity>(user), changed)
+    }
+
+}